@@ -254,7 +254,7 @@ public class AST {
 
         @Override
         public boolean equals( final Object obj ) {
-            return obj instanceof ConfigExpression && equalsHelper( this, obj, o -> id, o -> o.config );
+            return obj instanceof ConfigExpression && equalsHelper( this, obj, o -> o.id, o -> o.config );
         }
 
         @Override
@@ -72,8 +72,12 @@ public class Compiler {
     private final Parser parser;
     private final CompilationContext builtinCtx;
     private final AppFlowFactory factory;
+    private final Optional<Optimizer> optimizer;
 
     /**
+     * <p>
+     * Creates a compiler that runs the {@link Optimizer} on every AST before compiling it.
+     *
      * @param parser
      *            For parsing source files. Must not be null.
      * @param builtinCtx
@@ -83,9 +87,25 @@ public class Compiler {
      *            A factory for constructing {@link AppFlow AppFlows}. Must not be null.
      */
     public Compiler( final Parser parser, final CompilationContext builtinCtx, final AppFlowFactory factory ) {
+        this( parser, builtinCtx, factory, true );
+    }
+
+    /**
+     * @param parser
+     *            For parsing source files. Must not be null.
+     * @param builtinCtx
+     *            A context containing all built-in flows and other data that can be used in
+     *            compiled source. Mut not be null.
+     * @param factory
+     *            A factory for constructing {@link AppFlow AppFlows}. Must not be null.
+     * @param optimize
+     *            If true, the {@link Optimizer} is run on every AST before it is compiled.
+     */
+    public Compiler( final Parser parser, final CompilationContext builtinCtx, final AppFlowFactory factory, final boolean optimize ) {
         this.factory = Assert.notNull( factory );
         this.builtinCtx = Assert.notNull( builtinCtx );
         this.parser = Assert.notNull( parser );
+        this.optimizer = ( optimize ? Optional.of( new Optimizer() ) : Optional.empty() );
     }
 
     /**
@@ -106,16 +126,31 @@ public class Compiler {
     /**
      * <p>
      * Compiles a list of statements (effectively an AST) into a map of exported {@link AppFlow
-     * AppFlows}.
+     * AppFlows}. If this compiler was created with optimization enabled, the statements are first
+     * rewritten by the {@link Optimizer}.
      *
-     * @param stmts
+     * @param source
      *            A list of flow lanugage statements. Must not be null.
      * @return A compilation result that is either a list of failure messages, or the successfully
      *         built map of exported {@link AppFlow AppFlows}.
      */
-    public Try<List<String>, Map<String, AppFlow<?, ?>>> compileFlows( final List<Statement> stmts ) {
-        final Map<String, AppFlow<?, ?>> exportedFlows = new HashMap<>();
-        final Builder ctxBuilder = new CompilationContext.Builder( builtinCtx );
+    public Try<List<String>, Map<String, AppFlow<?, ?>>> compileFlows( final List<Statement> source ) {
+        return compileExports( source ).successMap( exports -> {
+            final Map<String, AppFlow<?, ?>> exportedFlows = new HashMap<>();
+            exports.forEach( ( id, flowData ) -> exportedFlows.put( id, flowData.flow ) );
+            return exportedFlows;
+        } );
+    }
+
+    /*
+     * Same as compileFlows, but keeps the input and output types of the exported flows so that
+     * callers (i.e. the ModuleCompiler) can summarize a module's interface.
+     */
+    Try<List<String>, Map<String, ConstantFlowData>> compileExports( final List<Statement> source ) {
+        final Optional<Optimizer.Result> optimized = optimizer.map( o -> o.optimize( source, builtinCtx ) );
+        final List<Statement> stmts = optimized.map( res -> res.statements ).orElse( source );
+        final Map<String, ConstantFlowData> exportedFlows = new HashMap<>();
+        final Builder ctxBuilder = new CompilationContext.Builder( optimized.map( res -> res.context ).orElse( builtinCtx ) );
         final List<String> problems = new ArrayList<>();
 
         final Map<?, List<Statement>> groupedStmts = stmts
@@ -157,7 +192,7 @@ public class Compiler {
             final Try<String, Data> res = ctors.get( id ).apply( new HashSet<>() );
             res
             .successFlatMap( data -> validateExportedData( id, data ) )
-            .ifSuccess( flowData -> exportedFlows.put( id, flowData.flow ) )
+            .ifSuccess( flowData -> exportedFlows.put( id, flowData ) )
             .ifFailure( problem -> problems.add( problem ) );
         }
 
@@ -738,7 +773,7 @@ public class Compiler {
         } );
     }
 
-    private ConstantValueData loadLiteral( final Literal val ) {
+    static ConstantValueData loadLiteral( final Literal val ) {
         if ( "true".equals( val.value ) || "false".equals( val.value ) ) {
             return new ConstantValueData( "Boolean", Boolean.parseBoolean( val.value ) );
         }
@@ -0,0 +1,489 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.kie.appformer.flow.lang.AST.Assignment;
+import org.kie.appformer.flow.lang.AST.ConfigExpression;
+import org.kie.appformer.flow.lang.AST.ConstructorPattern;
+import org.kie.appformer.flow.lang.AST.ExportFlow;
+import org.kie.appformer.flow.lang.AST.Expression;
+import org.kie.appformer.flow.lang.AST.FlowExpression;
+import org.kie.appformer.flow.lang.AST.Identifier;
+import org.kie.appformer.flow.lang.AST.ImportIdentifier;
+import org.kie.appformer.flow.lang.AST.MapExpression;
+import org.kie.appformer.flow.lang.AST.MatchableExpression;
+import org.kie.appformer.flow.lang.AST.Statement;
+import org.kie.appformer.flow.lang.AST.Type;
+
+/**
+ * <p>
+ * An index of the symbols defined and used by a set of flow language source files. Files are
+ * identified by an arbitrary key (i.e. a path) and are indexed one at a time with
+ * {@link #update(String, String)}, so that the index can be kept up to date as individual files
+ * change.
+ * <p>
+ * The index answers where a name is defined ({@link #findDefinitions(String)}) or used
+ * ({@link #findUses(String)}) with a map lookup, and can validate a file
+ * ({@link #validate(String)}) without compiling it. Validation checks that the file parses, that
+ * no name is assigned twice, that every used identifier is assigned, imported, bound by a
+ * pattern, exported by another indexed file, or defined in the {@link CompilationContext} given
+ * to this index, and that imports agree with the declared types of flows exported by other
+ * indexed files. Validation results are cached until the file, or an export that it depends on,
+ * changes.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class FlowSymbolIndex {
+
+    public static enum SymbolKind {
+        EXPORT, ASSIGNMENT, IMPORT
+    }
+
+    /**
+     * <p>
+     * A name defined by a statement in an indexed file.
+     */
+    public static class Symbol {
+        public final String file;
+        public final String name;
+        public final SymbolKind kind;
+        public final Optional<Type> type;
+
+        Symbol( final String file, final String name, final SymbolKind kind, final Optional<Type> type ) {
+            this.file = file;
+            this.name = name;
+            this.kind = kind;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals( final Object obj ) {
+            if ( !( obj instanceof Symbol ) ) {
+                return false;
+            }
+            final Symbol other = (Symbol) obj;
+            return file.equals( other.file ) && name.equals( other.name ) && kind == other.kind && type.equals( other.type );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( file, name, kind, type );
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + name + type.map( t -> " : " + t ).orElse( "" ) + " in [" + file + "]";
+        }
+    }
+
+    /**
+     * <p>
+     * A use of a name in the right-hand side of an assignment of an indexed file.
+     */
+    public static class UseSite {
+        public final String file;
+        public final String name;
+        /**
+         * The name of the assignment in which the use occurs.
+         */
+        public final String enclosingAssignment;
+
+        UseSite( final String file, final String name, final String enclosingAssignment ) {
+            this.file = file;
+            this.name = name;
+            this.enclosingAssignment = enclosingAssignment;
+        }
+
+        @Override
+        public boolean equals( final Object obj ) {
+            if ( !( obj instanceof UseSite ) ) {
+                return false;
+            }
+            final UseSite other = (UseSite) obj;
+            return file.equals( other.file ) && name.equals( other.name ) && enclosingAssignment.equals( other.enclosingAssignment );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( file, name, enclosingAssignment );
+        }
+
+        @Override
+        public String toString() {
+            return name + " used in [" + enclosingAssignment + "] in [" + file + "]";
+        }
+    }
+
+    private static class FileSymbols {
+        final List<Symbol> definitions = new ArrayList<>();
+        final List<UseSite> uses = new ArrayList<>();
+        final Map<String, Set<String>> boundByAssignment = new HashMap<>();
+        final List<String> problems = new ArrayList<>();
+
+        Map<String, Symbol> exports() {
+            final Map<String, Symbol> exports = new LinkedHashMap<>();
+            definitions
+                .stream()
+                .filter( symbol -> symbol.kind == SymbolKind.EXPORT )
+                .forEach( symbol -> exports.put( symbol.name, symbol ) );
+            return exports;
+        }
+    }
+
+    private final Parser parser = new Parser();
+    private final CompilationContext context;
+
+    private final Map<String, FileSymbols> files = new LinkedHashMap<>();
+    private final Map<String, Set<String>> definingFiles = new HashMap<>();
+    private final Map<String, Set<String>> usingFiles = new HashMap<>();
+    private final Map<String, List<String>> validationCache = new HashMap<>();
+
+    /**
+     * Creates an index that only treats names defined in indexed files as resolvable.
+     */
+    public FlowSymbolIndex() {
+        this( new CompilationContext.Builder( null ) );
+    }
+
+    /**
+     * @param context
+     *            A context whose flows and values are treated as defined for every indexed file.
+     *            Must not be null.
+     */
+    public FlowSymbolIndex( final CompilationContext context ) {
+        this.context = context;
+    }
+
+    /**
+     * <p>
+     * Parses and (re-)indexes a file, replacing any symbols previously indexed for the same key.
+     * A file that fails to parse is still indexed, without symbols, so that it is reported as
+     * invalid.
+     *
+     * @param file
+     *            The key identifying the file. Must not be null.
+     * @param source
+     *            The flow language source of the file. Must not be null.
+     */
+    public void update( final String file, final String source ) {
+        List<Statement> stmts;
+        String parseProblem = null;
+        try {
+            stmts = parser.parse( source );
+        } catch ( final RuntimeException e ) {
+            stmts = Collections.emptyList();
+            parseProblem = "Unable to parse [" + file + "]: " + e.getMessage();
+        }
+        update( file, stmts );
+        if ( parseProblem != null ) {
+            files.get( file ).problems.add( parseProblem );
+        }
+    }
+
+    /**
+     * <p>
+     * Indexes a file that has already been parsed, replacing any symbols previously indexed for
+     * the same key.
+     *
+     * @param file
+     *            The key identifying the file. Must not be null.
+     * @param stmts
+     *            The parsed statements of the file. Must not be null.
+     */
+    public void update( final String file, final List<Statement> stmts ) {
+        final Map<String, Symbol> oldExports = removeInternal( file );
+        final FileSymbols symbols = collectSymbols( file, stmts );
+        files.put( file, symbols );
+        symbols.definitions.forEach( symbol -> addTo( definingFiles, symbol.name, file ) );
+        symbols.uses.forEach( use -> addTo( usingFiles, use.name, file ) );
+        symbols
+            .definitions
+            .stream()
+            .filter( symbol -> symbol.kind == SymbolKind.IMPORT )
+            .forEach( symbol -> addTo( usingFiles, symbol.name, file ) );
+
+        validationCache.remove( file );
+        invalidateDependents( file, oldExports, symbols.exports() );
+    }
+
+    /**
+     * @param file
+     *            The key of a file to remove from the index. Must not be null.
+     */
+    public void remove( final String file ) {
+        if ( files.containsKey( file ) ) {
+            final Map<String, Symbol> oldExports = removeInternal( file );
+            invalidateDependents( file, oldExports, Collections.emptyMap() );
+        }
+    }
+
+    /**
+     * @return The keys of all indexed files, in the order they were first indexed.
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet( files.keySet() );
+    }
+
+    /**
+     * @param name
+     *            The name of a flow or value. Must not be null.
+     * @return All exports, assignments, and imports of the given name across indexed files.
+     */
+    public List<Symbol> findDefinitions( final String name ) {
+        final List<Symbol> retVal = new ArrayList<>();
+        definingFiles
+            .getOrDefault( name, Collections.emptySet() )
+            .forEach( file -> files.get( file )
+                                   .definitions
+                                   .stream()
+                                   .filter( symbol -> symbol.name.equals( name ) )
+                                   .forEach( retVal::add ) );
+        return retVal;
+    }
+
+    /**
+     * @param name
+     *            The name of a flow or value. Must not be null.
+     * @return All uses of the given name across indexed files.
+     */
+    public List<UseSite> findUses( final String name ) {
+        final List<UseSite> retVal = new ArrayList<>();
+        usingFiles
+            .getOrDefault( name, Collections.emptySet() )
+            .forEach( file -> files.get( file )
+                                   .uses
+                                   .stream()
+                                   .filter( use -> use.name.equals( name ) )
+                                   .forEach( retVal::add ) );
+        return retVal;
+    }
+
+    /**
+     * @param file
+     *            The key of an indexed file. Must not be null.
+     * @return The exported flows of the given file (by name), or an empty map if the file is not
+     *         indexed.
+     */
+    public Map<String, Symbol> getExports( final String file ) {
+        return Optional.ofNullable( files.get( file ) ).map( FileSymbols::exports ).orElse( Collections.emptyMap() );
+    }
+
+    /**
+     * @param file
+     *            The key of an indexed file. Must not be null.
+     * @return A list of problems in the given file. An empty list means that the file is valid.
+     */
+    public List<String> validate( final String file ) {
+        final FileSymbols symbols = files.get( file );
+        if ( symbols == null ) {
+            return Collections.singletonList( "No indexed flow file [" + file + "]." );
+        }
+
+        return validationCache.computeIfAbsent( file, f -> Collections.unmodifiableList( validateInternal( f, symbols ) ) );
+    }
+
+    /**
+     * @param file
+     *            The key of an indexed file. Must not be null.
+     * @return True iff {@link #validate(String)} reports no problems for the given file.
+     */
+    public boolean isValid( final String file ) {
+        return validate( file ).isEmpty();
+    }
+
+    private List<String> validateInternal( final String file, final FileSymbols symbols ) {
+        final List<String> problems = new ArrayList<>( symbols.problems );
+        final Set<String> localNames = new HashSet<>();
+        final Set<String> importedNames = new HashSet<>();
+        for ( final Symbol symbol : symbols.definitions ) {
+            if ( symbol.kind == SymbolKind.IMPORT ) {
+                importedNames.add( symbol.name );
+                validateImportAgainstExports( file, symbol, problems );
+            }
+            else if ( !localNames.add( symbol.name ) ) {
+                problems.add( "Identifier [" + symbol.name + "] is assigned more than once." );
+            }
+        }
+
+        final Set<String> reported = new HashSet<>();
+        for ( final UseSite use : symbols.uses ) {
+            final boolean resolved = localNames.contains( use.name )
+                    || importedNames.contains( use.name )
+                    || symbols.boundByAssignment.getOrDefault( use.enclosingAssignment, Collections.emptySet() ).contains( use.name )
+                    || isExportedByOtherFile( file, use.name )
+                    || context.resolveFlow( use.name ).isPresent()
+                    || context.resolveValue( use.name ).isPresent();
+            if ( !resolved && reported.add( use.name ) ) {
+                problems.add( "Identifier [" + use.name + "] used but never assigned." );
+            }
+        }
+
+        return problems;
+    }
+
+    private void validateImportAgainstExports( final String file, final Symbol imported, final List<String> problems ) {
+        for ( final Symbol export : findDefinitions( imported.name ) ) {
+            if ( export.kind == SymbolKind.EXPORT
+                    && !export.file.equals( file )
+                    && export.type.isPresent()
+                    && !export.type.get().equals( imported.type.orElse( null ) ) ) {
+                problems.add( "Import of [" + imported.name + "] with type [" + imported.type.map( Object::toString ).orElse( "" )
+                              + "] does not match type [" + export.type.get() + "] exported by [" + export.file + "]." );
+            }
+        }
+    }
+
+    private boolean isExportedByOtherFile( final String file, final String name ) {
+        return definingFiles
+                .getOrDefault( name, Collections.emptySet() )
+                .stream()
+                .anyMatch( other -> !other.equals( file ) && files.get( other ).exports().containsKey( name ) );
+    }
+
+    private Map<String, Symbol> removeInternal( final String file ) {
+        final FileSymbols old = files.remove( file );
+        validationCache.remove( file );
+        if ( old == null ) {
+            return Collections.emptyMap();
+        }
+        old.definitions.forEach( symbol -> removeFrom( definingFiles, symbol.name, file ) );
+        old.uses.forEach( use -> removeFrom( usingFiles, use.name, file ) );
+        old
+            .definitions
+            .stream()
+            .filter( symbol -> symbol.kind == SymbolKind.IMPORT )
+            .forEach( symbol -> removeFrom( usingFiles, symbol.name, file ) );
+
+        return old.exports();
+    }
+
+    /*
+     * Only files that use or import a name whose export changed can have a different validation
+     * result, so only those cache entries are dropped.
+     */
+    private void invalidateDependents( final String file,
+                                       final Map<String, Symbol> oldExports,
+                                       final Map<String, Symbol> newExports ) {
+        final Set<String> changed = new HashSet<>();
+        oldExports.forEach( ( name, symbol ) -> {
+            if ( !symbol.equals( newExports.get( name ) ) ) {
+                changed.add( name );
+            }
+        } );
+        newExports.forEach( ( name, symbol ) -> {
+            if ( !symbol.equals( oldExports.get( name ) ) ) {
+                changed.add( name );
+            }
+        } );
+
+        for ( final String name : changed ) {
+            usingFiles
+                .getOrDefault( name, Collections.emptySet() )
+                .stream()
+                .filter( other -> !other.equals( file ) )
+                .forEach( validationCache::remove );
+        }
+    }
+
+    private FileSymbols collectSymbols( final String file, final List<Statement> stmts ) {
+        final FileSymbols symbols = new FileSymbols();
+        for ( final Statement stmt : stmts ) {
+            if ( stmt instanceof ImportIdentifier ) {
+                final ImportIdentifier imp = (ImportIdentifier) stmt;
+                symbols.definitions.add( new Symbol( file, imp.id.value, SymbolKind.IMPORT, Optional.of( imp.type ) ) );
+            }
+            else if ( stmt instanceof ExportFlow ) {
+                collectAssignment( file, ((ExportFlow) stmt).assignment, SymbolKind.EXPORT, symbols );
+            }
+            else if ( stmt instanceof Assignment ) {
+                collectAssignment( file, (Assignment) stmt, SymbolKind.ASSIGNMENT, symbols );
+            }
+        }
+
+        return symbols;
+    }
+
+    private void collectAssignment( final String file,
+                                    final Assignment assignment,
+                                    final SymbolKind kind,
+                                    final FileSymbols symbols ) {
+        final String name = assignment.assignedId.value;
+        symbols.definitions.add( new Symbol( file, name, kind, assignment.type ) );
+
+        final Set<String> used = new LinkedHashSet<>();
+        final Set<String> bound = symbols.boundByAssignment.computeIfAbsent( name, n -> new HashSet<>() );
+        collectNames( assignment.value, used, bound );
+        used.forEach( usedName -> symbols.uses.add( new UseSite( file, usedName, name ) ) );
+    }
+
+    private void collectNames( final Expression exp, final Collection<String> used, final Set<String> bound ) {
+        if ( exp instanceof Identifier ) {
+            used.add( ((Identifier) exp).value );
+        }
+        else if ( exp instanceof FlowExpression ) {
+            ((FlowExpression) exp).flowParts.forEach( part -> collectNames( part, used, bound ) );
+        }
+        else if ( exp instanceof MapExpression ) {
+            ((MapExpression) exp).mapping.forEach( ( key, value ) -> {
+                collectPatternNames( key, bound );
+                collectNames( value, used, bound );
+            } );
+        }
+        else if ( exp instanceof ConfigExpression ) {
+            final ConfigExpression cfgExp = (ConfigExpression) exp;
+            used.add( cfgExp.id.value );
+            cfgExp.config.values().forEach( val -> collectNames( val, used, bound ) );
+        }
+    }
+
+    private void collectPatternNames( final MatchableExpression pattern, final Set<String> names ) {
+        if ( pattern instanceof Identifier ) {
+            names.add( ((Identifier) pattern).value );
+        }
+        else if ( pattern instanceof ConstructorPattern ) {
+            ((ConstructorPattern) pattern).args.forEach( arg -> collectPatternNames( arg, names ) );
+        }
+    }
+
+    private static void addTo( final Map<String, Set<String>> multimap, final String key, final String value ) {
+        multimap.computeIfAbsent( key, k -> new LinkedHashSet<>() ).add( value );
+    }
+
+    private static void removeFrom( final Map<String, Set<String>> multimap, final String key, final String value ) {
+        final Set<String> values = multimap.get( key );
+        if ( values != null ) {
+            values.remove( value );
+            if ( values.isEmpty() ) {
+                multimap.remove( key );
+            }
+        }
+    }
+}
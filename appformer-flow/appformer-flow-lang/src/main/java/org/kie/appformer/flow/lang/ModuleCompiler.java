@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.jboss.errai.common.client.api.Assert;
+import org.kie.appformer.flow.api.AppFlow;
+import org.kie.appformer.flow.api.AppFlowFactory;
+import org.kie.appformer.flow.lang.AST.FlowType;
+import org.kie.appformer.flow.lang.AST.ImportIdentifier;
+import org.kie.appformer.flow.lang.AST.Statement;
+import org.kie.appformer.flow.lang.CompilationContext.Builder;
+import org.kie.appformer.flow.lang.CompilationContext.ConstantFlowData;
+
+/**
+ * <p>
+ * Compiles a set of flow language modules (i.e. source files, identified by an arbitrary key)
+ * separately from each other. Each successfully compiled module has an {@link InterfaceSummary}:
+ * the names and types of its exported flows. A module that imports a flow exported by another
+ * module is compiled against that summary only, and the imported flow is linked at runtime to the
+ * latest compiled version of the export.
+ * <p>
+ * Consequently, when a module is updated, the modules that import from it are only recompiled if
+ * its summary changed. A change to the body of an exported flow that keeps its type only
+ * recompiles the changed module.
+ * <p>
+ * Flows and values in the built-in {@link CompilationContext} shadow exports of modules with the
+ * same name. A name exported by more than one module cannot be imported. Modules that import from
+ * each other are recompiled at most once per update, so an import cycle may require an
+ * additional update to settle.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ModuleCompiler {
+
+    /**
+     * <p>
+     * The names and types of the flows exported by a compiled module.
+     */
+    public static class InterfaceSummary {
+        public final Map<String, FlowType> exports;
+
+        InterfaceSummary( final Map<String, FlowType> exports ) {
+            this.exports = Collections.unmodifiableMap( exports );
+        }
+
+        @Override
+        public boolean equals( final Object obj ) {
+            return obj instanceof InterfaceSummary && exports.equals( ((InterfaceSummary) obj).exports );
+        }
+
+        @Override
+        public int hashCode() {
+            return exports.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "InterfaceSummary" + exports;
+        }
+    }
+
+    private static class Module {
+        final List<Statement> stmts;
+        final Set<String> importedNames = new HashSet<>();
+        Try<List<String>, Map<String, ConstantFlowData>> result;
+        Optional<InterfaceSummary> summary = Optional.empty();
+
+        Module( final List<Statement> stmts ) {
+            this.stmts = stmts;
+            stmts
+                .stream()
+                .filter( stmt -> stmt instanceof ImportIdentifier )
+                .forEach( stmt -> importedNames.add( ((ImportIdentifier) stmt).id.value ) );
+        }
+    }
+
+    private final Parser parser;
+    private final CompilationContext builtinCtx;
+    private final AppFlowFactory factory;
+    private final boolean optimize;
+
+    private final Map<String, Module> modules = new LinkedHashMap<>();
+    private final Map<String, Set<String>> providers = new HashMap<>();
+
+    /**
+     * @param parser
+     *            For parsing source files. Must not be null.
+     * @param builtinCtx
+     *            A context containing all built-in flows and other data that can be used in
+     *            every module. Must not be null.
+     * @param factory
+     *            A factory for constructing {@link AppFlow AppFlows}. Must not be null.
+     * @param optimize
+     *            If true, the {@link Optimizer} is run on every module before it is compiled.
+     */
+    public ModuleCompiler( final Parser parser, final CompilationContext builtinCtx, final AppFlowFactory factory, final boolean optimize ) {
+        this.parser = Assert.notNull( parser );
+        this.builtinCtx = Assert.notNull( builtinCtx );
+        this.factory = Assert.notNull( factory );
+        this.optimize = optimize;
+    }
+
+    /**
+     * <p>
+     * Parses and compiles a new or changed module, and recompiles the modules whose imports are
+     * affected by a change to its {@link InterfaceSummary}.
+     *
+     * @param module
+     *            The key identifying the module. Must not be null.
+     * @param source
+     *            The flow language source of the module. Must not be null.
+     * @return The keys of every module that was compiled, in compilation order.
+     */
+    public List<String> update( final String module, final String source ) {
+        return update( module, parser.parse( source ) );
+    }
+
+    /**
+     * <p>
+     * Compiles a new or changed module that has already been parsed, and recompiles the modules
+     * whose imports are affected by a change to its {@link InterfaceSummary}.
+     *
+     * @param module
+     *            The key identifying the module. Must not be null.
+     * @param stmts
+     *            The parsed statements of the module. Must not be null.
+     * @return The keys of every module that was compiled, in compilation order.
+     */
+    public List<String> update( final String module, final List<Statement> stmts ) {
+        final Map<String, FlowType> oldExports = exportsOf( modules.get( module ) );
+        oldExports.keySet().forEach( name -> removeProvider( name, module ) );
+        modules.put( module, new Module( stmts ) );
+        compile( module );
+
+        final List<String> compiled = new ArrayList<>();
+        compiled.add( module );
+        recompileDependents( module, oldExports, compiled );
+
+        return compiled;
+    }
+
+    /**
+     * <p>
+     * Removes a module, and recompiles the modules that imported any of its exports.
+     *
+     * @param module
+     *            The key identifying the module. Must not be null.
+     * @return The keys of every module that was recompiled, in compilation order.
+     */
+    public List<String> remove( final String module ) {
+        final Module removed = modules.remove( module );
+        if ( removed == null ) {
+            return Collections.emptyList();
+        }
+        final Map<String, FlowType> oldExports = exportsOf( removed );
+        oldExports.keySet().forEach( name -> removeProvider( name, module ) );
+
+        final List<String> compiled = new ArrayList<>();
+        recompileDependents( module, oldExports, compiled );
+
+        return compiled;
+    }
+
+    /**
+     * @param module
+     *            The key identifying a module. Must not be null.
+     * @return The result of the last compilation of the given module: either a list of failure
+     *         messages or the module's exported flows. An empty optional if no such module exists.
+     */
+    public Optional<Try<List<String>, Map<String, AppFlow<?, ?>>>> getResult( final String module ) {
+        return Optional
+                .ofNullable( modules.get( module ) )
+                .map( m -> m.result.successMap( exports -> {
+                    final Map<String, AppFlow<?, ?>> flows = new HashMap<>();
+                    exports.forEach( ( name, data ) -> flows.put( name, data.flow ) );
+                    return flows;
+                } ) );
+    }
+
+    /**
+     * @param module
+     *            The key identifying a module. Must not be null.
+     * @return The interface summary of the given module, or an empty optional if no such module
+     *         exists or its last compilation failed.
+     */
+    public Optional<InterfaceSummary> getSummary( final String module ) {
+        return Optional.ofNullable( modules.get( module ) ).flatMap( m -> m.summary );
+    }
+
+    private void recompileDependents( final String changedModule,
+                                      final Map<String, FlowType> oldExports,
+                                      final List<String> compiled ) {
+        final Set<String> done = new HashSet<>( compiled );
+        final Deque<String> changedModules = new ArrayDeque<>();
+        final Map<String, Map<String, FlowType>> previousExports = new HashMap<>();
+        changedModules.add( changedModule );
+        previousExports.put( changedModule, oldExports );
+
+        while ( !changedModules.isEmpty() ) {
+            final String cur = changedModules.pop();
+            final Set<String> changedNames = changedNames( previousExports.get( cur ), exportsOf( modules.get( cur ) ) );
+            if ( changedNames.isEmpty() ) {
+                continue;
+            }
+
+            for ( final Map.Entry<String, Module> entry : modules.entrySet() ) {
+                final String dependent = entry.getKey();
+                if ( !done.contains( dependent )
+                        && entry.getValue().importedNames.stream().anyMatch( changedNames::contains ) ) {
+                    final Map<String, FlowType> dependentOldExports = exportsOf( entry.getValue() );
+                    compile( dependent );
+                    done.add( dependent );
+                    compiled.add( dependent );
+                    previousExports.put( dependent, dependentOldExports );
+                    changedModules.add( dependent );
+                }
+            }
+        }
+    }
+
+    private void compile( final String moduleKey ) {
+        final Module module = modules.get( moduleKey );
+        exportsOf( module ).keySet().forEach( name -> removeProvider( name, moduleKey ) );
+
+        final Builder moduleCtx = new CompilationContext.Builder( builtinCtx );
+        final List<String> linkProblems = new ArrayList<>();
+        for ( final String name : module.importedNames ) {
+            if ( builtinCtx.resolveFlow( name ).isPresent() || builtinCtx.resolveValue( name ).isPresent() ) {
+                continue;
+            }
+            final Set<String> candidates = new LinkedHashSet<>( providers.getOrDefault( name, Collections.emptySet() ) );
+            candidates.remove( moduleKey );
+            if ( candidates.size() > 1 ) {
+                linkProblems.add( "Imported flow [" + name + "] is exported by more than one module: " + candidates + "." );
+            }
+            else if ( candidates.size() == 1 ) {
+                final String provider = candidates.iterator().next();
+                final FlowType type = modules.get( provider ).summary.get().exports.get( name );
+                moduleCtx.addFlow( name, type.inputId.value, type.outputId.value, linkedFlow( provider, name ) );
+            }
+        }
+
+        if ( linkProblems.isEmpty() ) {
+            module.result = new Compiler( parser, moduleCtx, factory, optimize ).compileExports( module.stmts );
+        }
+        else {
+            module.result = Try.failure( linkProblems );
+        }
+
+        module.summary = module.result.success().map( exports -> {
+            final Map<String, FlowType> summary = new LinkedHashMap<>();
+            exports.forEach( ( name, data ) -> summary.put( name, AST.flowType( data.input, data.output ) ) );
+            return new InterfaceSummary( summary );
+        } );
+        exportsOf( module ).keySet().forEach( name -> providers.computeIfAbsent( name, n -> new LinkedHashSet<>() ).add( moduleKey ) );
+    }
+
+    /*
+     * The returned flow looks up the export each time it is executed, so that importers keep
+     * working when the providing module is recompiled with the same interface summary.
+     */
+    @SuppressWarnings( "unchecked" )
+    private AppFlow<?, ?> linkedFlow( final String provider, final String name ) {
+        return factory.buildFromTransition( ( final Object input ) -> {
+            final Module module = modules.get( provider );
+            final Map<String, ConstantFlowData> exports = ( module != null ? module.result.success().orElse( null ) : null );
+            if ( exports == null || !exports.containsKey( name ) ) {
+                throw new IllegalStateException( "Flow [" + name + "] from module [" + provider + "] is no longer available." );
+            }
+            return ((AppFlow<Object, Object>) exports.get( name ).flow).withInput( input );
+        } );
+    }
+
+    private Set<String> changedNames( final Map<String, FlowType> oldExports, final Map<String, FlowType> newExports ) {
+        final Set<String> changed = new HashSet<>();
+        oldExports.forEach( ( name, type ) -> {
+            if ( !type.equals( newExports.get( name ) ) ) {
+                changed.add( name );
+            }
+        } );
+        newExports.forEach( ( name, type ) -> {
+            if ( !type.equals( oldExports.get( name ) ) ) {
+                changed.add( name );
+            }
+        } );
+
+        return changed;
+    }
+
+    private void removeProvider( final String name, final String module ) {
+        final Set<String> moduleKeys = providers.get( name );
+        if ( moduleKeys != null ) {
+            moduleKeys.remove( module );
+            if ( moduleKeys.isEmpty() ) {
+                providers.remove( name );
+            }
+        }
+    }
+
+    private static Map<String, FlowType> exportsOf( final Module module ) {
+        if ( module == null ) {
+            return Collections.emptyMap();
+        }
+        return module.summary.map( summary -> summary.exports ).orElse( Collections.emptyMap() );
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.kie.appformer.flow.api.AppFlow;
+import org.kie.appformer.flow.lang.AST.Assignment;
+import org.kie.appformer.flow.lang.AST.ConfigExpression;
+import org.kie.appformer.flow.lang.AST.ConstructorPattern;
+import org.kie.appformer.flow.lang.AST.ExportFlow;
+import org.kie.appformer.flow.lang.AST.Expression;
+import org.kie.appformer.flow.lang.AST.FlowExpression;
+import org.kie.appformer.flow.lang.AST.Identifier;
+import org.kie.appformer.flow.lang.AST.Literal;
+import org.kie.appformer.flow.lang.AST.MapExpression;
+import org.kie.appformer.flow.lang.AST.MatchableExpression;
+import org.kie.appformer.flow.lang.AST.SimpleExpression;
+import org.kie.appformer.flow.lang.AST.Statement;
+import org.kie.appformer.flow.lang.CompilationContext.Builder;
+import org.kie.appformer.flow.lang.CompilationContext.ConstantFlowData;
+import org.kie.appformer.flow.lang.CompilationContext.ConstantValueData;
+import org.kie.appformer.flow.lang.CompilationContext.FlowData;
+import org.kie.appformer.flow.lang.CompilationContext.RuntimeFlowData;
+import org.kie.appformer.flow.lang.CompilationContext.ValueData;
+
+/**
+ * <p>
+ * Rewrites a flow language AST before it is compiled so that the {@link Compiler} constructs fewer
+ * runtime nodes. The following rewrites are performed:
+ * <ul>
+ * <li>Alias chains (i.e. <code>A = B ;</code>) are collapsed so that uses of {@code A} refer to
+ * {@code B} directly.
+ * <li>Identifiers for constant {@code Integer} or {@code Boolean} values (either local untyped
+ * literal assignments or constant values in the {@link CompilationContext}) are inlined as
+ * {@link Literal literals}.
+ * <li>{@link ConfigExpression Config expressions} with only literal arguments are applied once
+ * during optimization, and every occurrence of the same expression shares the constructed flow.
+ * <li>Assignments that are not reachable from an exported flow are removed. The {@link Compiler}
+ * only builds assignments reachable from an export, so this does not hide type or resolution
+ * errors: those of an unreferenced assignment are not reported with or without the optimizer.
+ * </ul>
+ * <p>
+ * Identifiers that are bound by patterns in {@link MapExpression map expressions}, identifiers
+ * used as the name of a config expression, and local assignments shadowed by a name in the
+ * {@link CompilationContext} are never rewritten, since their resolution depends on the order in
+ * which the compiler builds assignments.
+ */
+public class Optimizer {
+
+    /**
+     * <p>
+     * The output of {@link Optimizer#optimize(List, CompilationContext)}: a rewritten list of
+     * statements and a context to compile them against.
+     */
+    public static class Result {
+        public final List<Statement> statements;
+        public final CompilationContext context;
+
+        Result( final List<Statement> statements, final CompilationContext context ) {
+            this.statements = statements;
+            this.context = context;
+        }
+    }
+
+    /**
+     * @param stmts
+     *            A list of flow language statements. Must not be null.
+     * @param ctx
+     *            The context that the statements will be compiled against. Must not be null.
+     * @return The optimized statements, along with a child of the given context containing any
+     *         flows that were constructed during optimization.
+     */
+    public Result optimize( final List<Statement> stmts, final CompilationContext ctx ) {
+        final Map<String, Assignment> assignments = new LinkedHashMap<>();
+        final Set<String> exported = new HashSet<>();
+        for ( final Statement stmt : stmts ) {
+            if ( stmt instanceof ExportFlow ) {
+                final Assignment assignment = ((ExportFlow) stmt).assignment;
+                assignments.put( assignment.assignedId.value, assignment );
+                exported.add( assignment.assignedId.value );
+            }
+            else if ( stmt instanceof Assignment ) {
+                final Assignment assignment = (Assignment) stmt;
+                assignments.put( assignment.assignedId.value, assignment );
+            }
+        }
+
+        final Set<String> pinned = new HashSet<>();
+        assignments.values().forEach( assignment -> collectPinnedNames( assignment.value, pinned ) );
+
+        final Map<String, String> aliases = collectAliases( assignments, exported, pinned, ctx );
+        final Map<String, Literal> constants = collectConstants( assignments, exported, pinned, ctx );
+        final Function<Identifier, SimpleExpression> inliner = id -> {
+            final String name = resolveAlias( id.value, aliases );
+            if ( constants.containsKey( name ) ) {
+                return constants.get( name );
+            }
+            else if ( !name.equals( id.value ) ) {
+                return AST.identifier( name );
+            }
+            else {
+                return id;
+            }
+        };
+
+        final Builder optimizedCtx = new CompilationContext.Builder( ctx );
+        final Map<ConfigExpression, Identifier> preApplied = new HashMap<>();
+        final Function<ConfigExpression, Expression> configFolder =
+                cfgExp -> preApplyConfig( cfgExp, assignments.keySet(), optimizedCtx, preApplied );
+
+        final List<Statement> rewritten = new ArrayList<>( stmts.size() );
+        for ( final Statement stmt : stmts ) {
+            if ( stmt instanceof ExportFlow ) {
+                final Assignment assignment = ((ExportFlow) stmt).assignment;
+                rewritten.add( AST.export( rewriteAssignment( assignment, inliner, configFolder ) ) );
+            }
+            else if ( stmt instanceof Assignment ) {
+                rewritten.add( rewriteAssignment( (Assignment) stmt, inliner, configFolder ) );
+            }
+            else {
+                rewritten.add( stmt );
+            }
+        }
+
+        return new Result( removeUnreferencedAssignments( rewritten, exported ), optimizedCtx );
+    }
+
+    private Map<String, String> collectAliases( final Map<String, Assignment> assignments,
+                                                final Set<String> exported,
+                                                final Set<String> pinned,
+                                                final CompilationContext ctx ) {
+        final Map<String, String> aliases = new HashMap<>();
+        assignments.forEach( ( name, assignment ) -> {
+            if ( assignment.value instanceof Identifier
+                    && isRewritable( name, assignment, exported, pinned, ctx )
+                    && !pinned.contains( ((Identifier) assignment.value).value ) ) {
+                aliases.put( name, ((Identifier) assignment.value).value );
+            }
+        } );
+
+        // Aliases that form a cycle cannot be collapsed.
+        final Set<String> cyclic = new HashSet<>();
+        for ( final String name : aliases.keySet() ) {
+            final List<String> chain = new ArrayList<>();
+            String cur = name;
+            while ( aliases.containsKey( cur ) && !chain.contains( cur ) ) {
+                chain.add( cur );
+                cur = aliases.get( cur );
+            }
+            if ( chain.contains( cur ) ) {
+                cyclic.addAll( chain.subList( chain.indexOf( cur ), chain.size() ) );
+            }
+        }
+        cyclic.forEach( aliases::remove );
+
+        return aliases;
+    }
+
+    private Map<String, Literal> collectConstants( final Map<String, Assignment> assignments,
+                                                   final Set<String> exported,
+                                                   final Set<String> pinned,
+                                                   final CompilationContext ctx ) {
+        final Map<String, Literal> constants = new HashMap<>();
+        assignments.forEach( ( name, assignment ) -> {
+            if ( assignment.value instanceof Literal && isRewritable( name, assignment, exported, pinned, ctx ) ) {
+                constants.put( name, (Literal) assignment.value );
+            }
+        } );
+
+        final Set<String> referenced = new HashSet<>();
+        assignments.values().forEach( assignment -> collectReferencedNames( assignment.value, referenced ) );
+        for ( final String name : referenced ) {
+            if ( assignments.containsKey( name ) || pinned.contains( name ) ) {
+                continue;
+            }
+            final Optional<ValueData> oValue = ctx.resolveValue( name );
+            if ( oValue.isPresent() && !ctx.resolveFlow( name ).isPresent() && oValue.get() instanceof ConstantValueData ) {
+                final ConstantValueData data = (ConstantValueData) oValue.get();
+                if ( ( "Integer".equals( data.type ) && data.value instanceof Integer )
+                        || ( "Boolean".equals( data.type ) && data.value instanceof Boolean ) ) {
+                    constants.put( name, AST.literal( String.valueOf( data.value ) ) );
+                }
+            }
+        }
+
+        return constants;
+    }
+
+    private boolean isRewritable( final String name,
+                                  final Assignment assignment,
+                                  final Set<String> exported,
+                                  final Set<String> pinned,
+                                  final CompilationContext ctx ) {
+        return !exported.contains( name )
+                && !assignment.type.isPresent()
+                && !pinned.contains( name )
+                && !ctx.resolveFlow( name ).isPresent()
+                && !ctx.resolveValue( name ).isPresent();
+    }
+
+    private String resolveAlias( final String name, final Map<String, String> aliases ) {
+        String cur = name;
+        while ( aliases.containsKey( cur ) ) {
+            cur = aliases.get( cur );
+        }
+        return cur;
+    }
+
+    private Expression preApplyConfig( final ConfigExpression cfgExp,
+                                       final Set<String> locals,
+                                       final Builder optimizedCtx,
+                                       final Map<ConfigExpression, Identifier> preApplied ) {
+        if ( preApplied.containsKey( cfgExp ) ) {
+            return preApplied.get( cfgExp );
+        }
+        if ( locals.contains( cfgExp.id.value )
+                || !cfgExp.config.values().stream().allMatch( val -> val instanceof Literal ) ) {
+            return cfgExp;
+        }
+
+        final Optional<FlowData> oFlowData = optimizedCtx.resolveFlow( cfgExp.id.value );
+        if ( !oFlowData.isPresent() || !( oFlowData.get() instanceof RuntimeFlowData ) ) {
+            return cfgExp;
+        }
+
+        final RuntimeFlowData configData = (RuntimeFlowData) oFlowData.get();
+        final Map<String, Object> props = new HashMap<>();
+        cfgExp.config.forEach( ( id, val ) -> props.put( id.value, Compiler.loadLiteral( (Literal) val ).value ) );
+        final Try<String, AppFlow<?, ?>> tFlow = configData.ctor.apply( props );
+        if ( tFlow.success().isPresent() ) {
+            /*
+             * The printed form of a config expression contains whitespace, so it can never clash
+             * with a parsed identifier.
+             */
+            final Identifier preAppliedId = AST.identifier( cfgExp.toString() );
+            optimizedCtx.addData( preAppliedId.value,
+                                  new ConstantFlowData( configData.input, configData.output, tFlow.success().get() ) );
+            preApplied.put( cfgExp, preAppliedId );
+            return preAppliedId;
+        }
+        else {
+            // Leave the expression as is so that the compiler reports the failure.
+            return cfgExp;
+        }
+    }
+
+    private Assignment rewriteAssignment( final Assignment assignment,
+                                          final Function<Identifier, SimpleExpression> inliner,
+                                          final Function<ConfigExpression, Expression> configFolder ) {
+        final Expression value = rewriteExpression( assignment.value, inliner, configFolder );
+        if ( value == assignment.value ) {
+            return assignment;
+        }
+        else {
+            return new Assignment( assignment.assignedId, assignment.type, value );
+        }
+    }
+
+    private Expression rewriteExpression( final Expression exp,
+                                          final Function<Identifier, SimpleExpression> inliner,
+                                          final Function<ConfigExpression, Expression> configFolder ) {
+        if ( exp instanceof Identifier ) {
+            return inliner.apply( (Identifier) exp );
+        }
+        else if ( exp instanceof FlowExpression ) {
+            final List<Expression> parts = new ArrayList<>();
+            boolean changed = false;
+            for ( final Expression part : ((FlowExpression) exp).flowParts ) {
+                final Expression rewrittenPart = rewriteExpression( part, inliner, configFolder );
+                changed |= rewrittenPart != part;
+                parts.add( rewrittenPart );
+            }
+            return ( changed ? new FlowExpression( parts ) : exp );
+        }
+        else if ( exp instanceof MapExpression ) {
+            final LinkedHashMap<MatchableExpression, Expression> mapping = new LinkedHashMap<>();
+            boolean changed = false;
+            for ( final Map.Entry<MatchableExpression, Expression> entry : ((MapExpression) exp).mapping.entrySet() ) {
+                final Expression rewrittenValue = rewriteExpression( entry.getValue(), inliner, configFolder );
+                changed |= rewrittenValue != entry.getValue();
+                mapping.put( entry.getKey(), rewrittenValue );
+            }
+            return ( changed ? new MapExpression( mapping ) : exp );
+        }
+        else if ( exp instanceof ConfigExpression ) {
+            final ConfigExpression cfgExp = (ConfigExpression) exp;
+            final Map<Identifier, SimpleExpression> config = new LinkedHashMap<>();
+            boolean changed = false;
+            for ( final Map.Entry<Identifier, SimpleExpression> entry : cfgExp.config.entrySet() ) {
+                final SimpleExpression val = entry.getValue();
+                final SimpleExpression rewrittenVal = ( val instanceof Identifier ? inliner.apply( (Identifier) val ) : val );
+                changed |= rewrittenVal != val;
+                config.put( entry.getKey(), rewrittenVal );
+            }
+            return configFolder.apply( changed ? new ConfigExpression( cfgExp.id, config ) : cfgExp );
+        }
+        else {
+            return exp;
+        }
+    }
+
+    private List<Statement> removeUnreferencedAssignments( final List<Statement> stmts, final Set<String> exported ) {
+        final Map<String, Expression> values = new HashMap<>();
+        for ( final Statement stmt : stmts ) {
+            if ( stmt instanceof ExportFlow ) {
+                values.put( ((ExportFlow) stmt).assignment.assignedId.value, ((ExportFlow) stmt).assignment.value );
+            }
+            else if ( stmt instanceof Assignment ) {
+                values.put( ((Assignment) stmt).assignedId.value, ((Assignment) stmt).value );
+            }
+        }
+
+        final Set<String> live = new HashSet<>();
+        final Deque<String> pending = new ArrayDeque<>( exported );
+        while ( !pending.isEmpty() ) {
+            final String name = pending.pop();
+            if ( live.add( name ) && values.containsKey( name ) ) {
+                final Set<String> referenced = new HashSet<>();
+                collectReferencedNames( values.get( name ), referenced );
+                pending.addAll( referenced );
+            }
+        }
+
+        final List<Statement> retVal = new ArrayList<>( stmts.size() );
+        for ( final Statement stmt : stmts ) {
+            if ( !( stmt instanceof Assignment ) || live.contains( ((Assignment) stmt).assignedId.value ) ) {
+                retVal.add( stmt );
+            }
+        }
+
+        return retVal;
+    }
+
+    /*
+     * Collects names whose meaning depends on where they are resolved: identifiers in patterns
+     * (which may bind new variables) and the names of config expressions (which are only resolved
+     * against the flows already built by the compiler).
+     */
+    private void collectPinnedNames( final Expression exp, final Set<String> pinned ) {
+        if ( exp instanceof FlowExpression ) {
+            ((FlowExpression) exp).flowParts.forEach( part -> collectPinnedNames( part, pinned ) );
+        }
+        else if ( exp instanceof MapExpression ) {
+            ((MapExpression) exp).mapping.forEach( ( key, value ) -> {
+                collectPatternNames( key, pinned );
+                collectPinnedNames( value, pinned );
+            } );
+        }
+        else if ( exp instanceof ConfigExpression ) {
+            pinned.add( ((ConfigExpression) exp).id.value );
+        }
+    }
+
+    private void collectPatternNames( final MatchableExpression pattern, final Set<String> names ) {
+        if ( pattern instanceof Identifier ) {
+            names.add( ((Identifier) pattern).value );
+        }
+        else if ( pattern instanceof ConstructorPattern ) {
+            ((ConstructorPattern) pattern).args.forEach( arg -> collectPatternNames( arg, names ) );
+        }
+    }
+
+    private void collectReferencedNames( final Expression exp, final Set<String> names ) {
+        if ( exp instanceof Identifier ) {
+            names.add( ((Identifier) exp).value );
+        }
+        else if ( exp instanceof FlowExpression ) {
+            ((FlowExpression) exp).flowParts.forEach( part -> collectReferencedNames( part, names ) );
+        }
+        else if ( exp instanceof MapExpression ) {
+            ((MapExpression) exp).mapping.forEach( ( key, value ) -> {
+                collectPatternNames( key, names );
+                collectReferencedNames( value, names );
+            } );
+        }
+        else if ( exp instanceof ConfigExpression ) {
+            final ConfigExpression cfgExp = (ConfigExpression) exp;
+            names.add( cfgExp.id.value );
+            cfgExp.config.values().forEach( val -> collectReferencedNames( val, names ) );
+        }
+    }
+}
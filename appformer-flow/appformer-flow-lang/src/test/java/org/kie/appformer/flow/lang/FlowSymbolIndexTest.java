@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kie.appformer.flow.lang.AST.flowType;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kie.appformer.flow.impl.RuntimeAppFlowFactory;
+import org.kie.appformer.flow.lang.FlowSymbolIndex.Symbol;
+import org.kie.appformer.flow.lang.FlowSymbolIndex.SymbolKind;
+import org.kie.appformer.flow.lang.FlowSymbolIndex.UseSite;
+
+@RunWith( JUnit4.class )
+public class FlowSymbolIndexTest {
+
+    FlowSymbolIndex index;
+
+    @Before
+    public void setup() {
+        final CompilationContext.Builder builder = new CompilationContext.Builder( null );
+        builder.addFlow( "One", "Unit", "Integer", new RuntimeAppFlowFactory().buildFromConstant( 1 ) );
+        index = new FlowSymbolIndex( builder );
+    }
+
+    @Test
+    public void findDefinitionsAndUsesAcrossFiles() throws Exception {
+        index.update( "lib.flow", "export Two : Unit -> Integer = One -> Double ;\n"
+                                  + "import Double : Integer -> Integer ;" );
+        index.update( "main.flow", "import Two : Unit -> Integer ;\n"
+                                   + "Four = Two -> Double ;\n"
+                                   + "export Main = Four ;" );
+
+        final List<Symbol> defs = index.findDefinitions( "Two" );
+        assertEquals( 2, defs.size() );
+        assertTrue( defs.contains( new Symbol( "lib.flow", "Two", SymbolKind.EXPORT, Optional.of( flowType( "Unit", "Integer" ) ) ) ) );
+        assertTrue( defs.contains( new Symbol( "main.flow", "Two", SymbolKind.IMPORT, Optional.of( flowType( "Unit", "Integer" ) ) ) ) );
+
+        final List<UseSite> uses = index.findUses( "Double" );
+        assertEquals( 2, uses.size() );
+        assertTrue( uses.contains( new UseSite( "lib.flow", "Double", "Two" ) ) );
+        assertTrue( uses.contains( new UseSite( "main.flow", "Double", "Four" ) ) );
+
+        assertEquals( 1, index.getExports( "main.flow" ).size() );
+        assertTrue( index.getExports( "main.flow" ).containsKey( "Main" ) );
+    }
+
+    @Test
+    public void updateReplacesPreviousSymbols() throws Exception {
+        index.update( "a.flow", "export A = One ;" );
+        index.update( "a.flow", "export B = One ;" );
+
+        assertTrue( index.findDefinitions( "A" ).isEmpty() );
+        assertEquals( 1, index.findDefinitions( "B" ).size() );
+        assertEquals( 1, index.findUses( "One" ).size() );
+
+        index.remove( "a.flow" );
+        assertTrue( index.findDefinitions( "B" ).isEmpty() );
+        assertTrue( index.findUses( "One" ).isEmpty() );
+        assertTrue( index.getFiles().isEmpty() );
+    }
+
+    @Test
+    public void validFileWithPatternBoundIdentifiers() throws Exception {
+        index.update( "a.flow", "import toUnit : ? -> Unit ;\n"
+                                + "import unit : Unit ;\n"
+                                + "M = {\n"
+                                + "    Some ( x ) : x -> toUnit ,\n"
+                                + "    None : unit\n"
+                                + "} ;\n"
+                                + "export Main = One -> M ;" );
+
+        assertTrue( index.validate( "a.flow" ).toString(), index.isValid( "a.flow" ) );
+    }
+
+    @Test
+    public void unknownIdentifierIsInvalid() throws Exception {
+        index.update( "a.flow", "export Main = One -> Missing ;" );
+
+        final List<String> problems = index.validate( "a.flow" );
+        assertEquals( 1, problems.size() );
+        assertTrue( problems.get( 0 ).contains( "Missing" ) );
+    }
+
+    @Test
+    public void duplicateAssignmentIsInvalid() throws Exception {
+        index.update( "a.flow", "A = One ;\nexport A = One ;" );
+
+        assertFalse( index.isValid( "a.flow" ) );
+    }
+
+    @Test
+    public void unparseableFileIsInvalid() throws Exception {
+        index.update( "a.flow", "= One ;" );
+
+        assertFalse( index.isValid( "a.flow" ) );
+        assertTrue( index.getFiles().contains( "a.flow" ) );
+    }
+
+    @Test
+    public void validationIsRecomputedWhenDependencyExportChanges() throws Exception {
+        index.update( "main.flow", "export Main = One -> Lib ;" );
+        assertFalse( index.isValid( "main.flow" ) );
+
+        index.update( "lib.flow", "export Lib : Integer -> Integer = Double ;\nimport Double : Integer -> Integer ;" );
+        assertTrue( index.validate( "main.flow" ).toString(), index.isValid( "main.flow" ) );
+
+        index.remove( "lib.flow" );
+        assertFalse( index.isValid( "main.flow" ) );
+    }
+
+    @Test
+    public void importMustMatchExportedType() throws Exception {
+        index.update( "lib.flow", "export Lib : Integer -> Integer = Double ;\nimport Double : Integer -> Integer ;" );
+        index.update( "main.flow", "import Lib : Unit -> Integer ;\nexport Main = Lib ;" );
+
+        final List<String> problems = index.validate( "main.flow" );
+        assertEquals( problems.stream().collect( Collectors.joining( "\n" ) ), 1, problems.size() );
+        assertTrue( problems.get( 0 ).contains( "lib.flow" ) );
+
+        index.update( "lib.flow", "export Lib : Unit -> Integer = One ;" );
+        assertTrue( index.validate( "main.flow" ).toString(), index.isValid( "main.flow" ) );
+    }
+}
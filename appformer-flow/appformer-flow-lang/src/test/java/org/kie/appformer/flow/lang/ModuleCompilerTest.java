@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.kie.appformer.flow.lang.AST.flowType;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kie.appformer.flow.api.AppFlow;
+import org.kie.appformer.flow.api.AppFlowExecutor;
+import org.kie.appformer.flow.api.AppFlowFactory;
+import org.kie.appformer.flow.api.Unit;
+import org.kie.appformer.flow.impl.RuntimeAppFlowExecutor;
+import org.kie.appformer.flow.impl.RuntimeAppFlowFactory;
+import org.kie.appformer.flow.lang.CompilationContext.Builder;
+
+@RunWith( JUnit4.class )
+@SuppressWarnings( "unchecked" )
+public class ModuleCompilerTest {
+
+    ModuleCompiler compiler;
+    AppFlowFactory factory = new RuntimeAppFlowFactory();
+    AppFlowExecutor executor = new RuntimeAppFlowExecutor();
+
+    @Before
+    public void setup() {
+        final Builder builder = new CompilationContext.Builder( null );
+        builder.addFlow( "One", "Unit", "Integer", factory.buildFromConstant( 1 ) );
+        builder.addFlow( "Double", "Integer", "Integer", factory.buildFromFunction( (final Integer x) -> 2*x ) );
+        builder.addFlow( "Same", "Integer", "Integer", factory.buildFromFunction( (final Integer x) -> x ) );
+        compiler = new ModuleCompiler( new Parser(), builder, factory, true );
+    }
+
+    @Test
+    public void importFlowExportedByOtherModule() throws Exception {
+        compiler.update( "lib", "import One : Unit -> Integer ;\n"
+                                + "export Two = One -> Double ;" );
+        assertEquals( flowType( "Unit", "Integer" ), compiler.getSummary( "lib" ).get().exports.get( "Two" ) );
+
+        compiler.update( "main", "import Two : Unit -> Integer ;\n"
+                                 + "export Four : Unit -> Integer = Two -> Double ;" );
+
+        assertEquals( 4, execute( "main", "Four" ).intValue() );
+    }
+
+    @Test
+    public void implementationChangeOnlyRecompilesChangedModule() throws Exception {
+        compiler.update( "lib", "export Two : Unit -> Integer = One -> Double ;" );
+        compiler.update( "main", "import Two : Unit -> Integer ;\n"
+                                 + "export Four : Unit -> Integer = Two -> Double ;" );
+
+        final List<String> compiled = compiler.update( "lib", "export Two : Unit -> Integer = One -> Double -> Double ;" );
+
+        assertEquals( asList( "lib" ), compiled );
+        assertEquals( 8, execute( "main", "Four" ).intValue() );
+    }
+
+    @Test
+    public void summaryChangeRecompilesDependents() throws Exception {
+        compiler.update( "lib", "export Two : Unit -> Integer = One -> Double ;" );
+        compiler.update( "mid", "import Two : Unit -> Integer ;\n"
+                                + "export Four = Two -> Double ;" );
+        compiler.update( "main", "import Four : Unit -> Integer ;\n"
+                                 + "export Main = Four -> Same ;" );
+        compiler.update( "other", "export Other = One ;" );
+
+        final List<String> compiled = compiler.update( "lib", "export Two : Integer -> Integer = Double ;" );
+
+        assertEquals( asList( "lib", "mid", "main" ), compiled );
+        assertFalse( compiler.getResult( "mid" ).get().success().isPresent() );
+        assertFalse( compiler.getSummary( "mid" ).isPresent() );
+        assertFalse( compiler.getResult( "main" ).get().success().isPresent() );
+        assertTrue( compiler.getResult( "other" ).get().success().isPresent() );
+    }
+
+    @Test
+    public void removingModuleRecompilesImporters() throws Exception {
+        compiler.update( "lib", "export Two : Unit -> Integer = One -> Double ;" );
+        compiler.update( "main", "import Two : Unit -> Integer ;\n"
+                                 + "export Four = Two -> Double ;" );
+
+        assertEquals( asList( "main" ), compiler.remove( "lib" ) );
+        assertFalse( compiler.getResult( "main" ).get().success().isPresent() );
+        assertEquals( emptyList(), compiler.remove( "lib" ) );
+    }
+
+    @Test
+    public void ambiguousImportFails() throws Exception {
+        compiler.update( "a", "export Two : Unit -> Integer = One -> Double ;" );
+        compiler.update( "b", "export Two : Unit -> Integer = One -> Double ;" );
+        compiler.update( "main", "import Two : Unit -> Integer ;\n"
+                                 + "export Four = Two -> Double ;" );
+
+        final List<String> problems = compiler.getResult( "main" ).get().failure().get();
+        assertEquals( 1, problems.size() );
+        assertTrue( problems.get( 0 ).contains( "more than one module" ) );
+    }
+
+    private Integer execute( final String module, final String export ) {
+        final Map<String, AppFlow<?, ?>> flows = compiler.getResult( module ).get().success().get();
+        final AppFlow<Unit, Integer> flow = (AppFlow<Unit, Integer>) flows.get( export );
+        class Ref {
+            Integer o;
+        }
+        final Ref ref = new Ref();
+        executor.execute( Unit.INSTANCE, flow, o -> {
+            ref.o = o;
+        } );
+        assertNotNull( "Flow was not synchronous!", ref.o );
+
+        return ref.o;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kie.appformer.flow.lang;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kie.appformer.flow.lang.AST.assignment;
+import static org.kie.appformer.flow.lang.AST.export;
+import static org.kie.appformer.flow.lang.AST.flowExpression;
+import static org.kie.appformer.flow.lang.AST.flowType;
+import static org.kie.appformer.flow.lang.AST.identifier;
+import static org.kie.appformer.flow.lang.AST.importFlow;
+import static org.kie.appformer.flow.lang.AST.literal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kie.appformer.flow.api.AppFlow;
+import org.kie.appformer.flow.api.AppFlowFactory;
+import org.kie.appformer.flow.impl.RuntimeAppFlowFactory;
+import org.kie.appformer.flow.lang.AST.Statement;
+import org.kie.appformer.flow.lang.CompilationContext.Builder;
+import org.kie.appformer.flow.lang.CompilationContext.ConstantFlowData;
+
+@RunWith( JUnit4.class )
+public class OptimizerTest {
+
+    Parser parser;
+    Optimizer optimizer;
+    CompilationContext ctx;
+    AtomicInteger intConstructions;
+    AppFlowFactory factory = new RuntimeAppFlowFactory();
+
+    @Before
+    public void setup() {
+        parser = new Parser();
+        optimizer = new Optimizer();
+        intConstructions = new AtomicInteger();
+        final Builder builder = new CompilationContext.Builder( null );
+        builder.addValue( "Num", "Integer", 1 );
+        builder.addValue( "Name", "String", "foo" );
+        builder.addFlow( "One", "Unit", "Integer", factory.buildFromConstant( 1 ) );
+        builder.addFlow( "Double", "Integer", "Integer", factory.buildFromFunction( (final Integer x) -> 2*x ) );
+        builder.addFlowConstructor( "Int", "Unit", "Integer", props -> {
+            intConstructions.incrementAndGet();
+            final Object val = props.getOrDefault( "num", 0 );
+            if ( val instanceof Integer ) {
+                return new Success<>( factory.buildFromConstant( (Integer) val ) );
+            }
+            else {
+                return new Failure<>( "Must have Integer property \"num\"." );
+            }
+        } );
+        ctx = builder;
+    }
+
+    @Test
+    public void collapseAliasChain() throws Exception {
+        final String source =
+                  "import One : Unit -> Integer ;\n"
+                + "A = One ;\n"
+                + "B = A ;\n"
+                + "export Two : Unit -> Integer = B -> Double ;\n";
+
+        final List<Statement> optimized = optimizer.optimize( parser.parse( source ), ctx ).statements;
+
+        assertEquals( asList( importFlow( "One", "Unit", "Integer" ),
+                              export( assignment( "Two", flowType( "Unit", "Integer" ), flowExpression( identifier( "One" ), identifier( "Double" ) ) ) ) ),
+                      optimized );
+    }
+
+    @Test
+    public void cyclicAliasesAreNotCollapsed() throws Exception {
+        final String source =
+                  "A = B ;\n"
+                + "B = A ;\n"
+                + "export C = A ;\n";
+
+        final List<Statement> stmts = parser.parse( source );
+        final List<Statement> optimized = optimizer.optimize( stmts, ctx ).statements;
+
+        assertEquals( stmts, optimized );
+    }
+
+    @Test
+    public void inlineLocalAndContextConstants() throws Exception {
+        final String source =
+                  "val = 2 ;\n"
+                + "export Two = val -> Double ;\n"
+                + "export Also = Num -> Double ;\n";
+
+        final List<Statement> optimized = optimizer.optimize( parser.parse( source ), ctx ).statements;
+
+        assertEquals( asList( export( assignment( "Two", flowExpression( literal( "2" ), identifier( "Double" ) ) ) ),
+                              export( assignment( "Also", flowExpression( literal( "1" ), identifier( "Double" ) ) ) ) ),
+                      optimized );
+    }
+
+    @Test
+    public void nonLiteralConstantsAreNotInlined() throws Exception {
+        final String source = "export N = Name ;\n";
+
+        final List<Statement> stmts = parser.parse( source );
+        final List<Statement> optimized = optimizer.optimize( stmts, ctx ).statements;
+
+        assertEquals( stmts, optimized );
+    }
+
+    @Test
+    public void patternBoundIdentifiersAreNotRewritten() throws Exception {
+        final String source =
+                  "n = 2 ;\n"
+                + "export Same : Integer -> Integer = {\n"
+                + "    n : n\n"
+                + "} ;";
+
+        final List<Statement> stmts = parser.parse( source );
+        final List<Statement> optimized = optimizer.optimize( stmts, ctx ).statements;
+
+        assertEquals( stmts, optimized );
+    }
+
+    @Test
+    public void preApplyConstantConfigExpressionOnce() throws Exception {
+        final String source =
+                  "import Int : Unit -> Integer ;\n"
+                + "val = 2 ;\n"
+                + "export Two = Int ( num = val ) ;\n"
+                + "export Four = Int ( num = 2 ) -> Double ;\n";
+
+        final Optimizer.Result res = optimizer.optimize( parser.parse( source ), ctx );
+
+        assertEquals( 1, intConstructions.get() );
+        assertEquals( asList( importFlow( "Int", "Unit", "Integer" ),
+                              export( assignment( "Two", identifier( "Int ( num = 2 )" ) ) ),
+                              export( assignment( "Four", flowExpression( identifier( "Int ( num = 2 )" ), identifier( "Double" ) ) ) ) ),
+                      res.statements );
+        assertTrue( res.context.resolveFlow( "Int ( num = 2 )" ).get() instanceof ConstantFlowData );
+    }
+
+    @Test
+    public void failingConfigExpressionIsLeftForCompiler() throws Exception {
+        final String source = "export Bad = Int ( num = true ) ;\n";
+
+        final List<Statement> stmts = parser.parse( source );
+        final List<Statement> optimized = optimizer.optimize( stmts, ctx ).statements;
+
+        assertEquals( stmts, optimized );
+    }
+
+    @Test
+    public void removeUnreferencedAssignments() throws Exception {
+        final String source =
+                  "import One : Unit -> Integer ;\n"
+                + "Unused : Unit -> Integer = One -> Double ;\n"
+                + "Used : Unit -> Integer = One -> Double ;\n"
+                + "export Four = Used -> Double ;\n";
+
+        final List<Statement> stmts = parser.parse( source );
+        final List<Statement> optimized = optimizer.optimize( stmts, ctx ).statements;
+
+        assertEquals( asList( stmts.get( 0 ), stmts.get( 2 ), stmts.get( 3 ) ), optimized );
+    }
+
+    @Test
+    public void optimizingCompilerInlinesConfigExpressionIdentifierValue() throws Exception {
+        final String source =
+                  "import Int : Unit -> Integer ;\n"
+                + "val = 2 ;\n"
+                + "export Two : Unit -> Integer = Int ( num = val ) ;\n";
+
+        final Compiler compiler = new Compiler( parser, ctx, factory, true );
+        final Try<List<String>, Map<String, AppFlow<?, ?>>> res = compiler.compileFlows( source );
+
+        assertTrue( "Problems: " + res.failure().orElse( asList() ), res.success().isPresent() );
+        assertTrue( res.success().get().containsKey( "Two" ) );
+        assertEquals( 1, intConstructions.get() );
+    }
+
+    /*
+     * The compiler only builds assignments reachable from an export, so removing unreferenced
+     * assignments does not hide any problem that the unoptimized compilation reports.
+     */
+    @Test
+    public void unreferencedAssignmentsReportTheSameProblemsWithAndWithoutOptimizer() throws Exception {
+        final String source =
+                  "import One : Unit -> Integer ;\n"
+                + "Unused : Unit -> Integer = One -> Missing ;\n"
+                + "export Two = One -> Double ;\n";
+
+        final Try<List<String>, Map<String, AppFlow<?, ?>>> optimized = new Compiler( parser, ctx, factory, true ).compileFlows( source );
+        final Try<List<String>, Map<String, AppFlow<?, ?>>> unoptimized = new Compiler( parser, ctx, factory, false ).compileFlows( source );
+
+        assertTrue( "Problems: " + optimized.failure().orElse( asList() ), optimized.success().isPresent() );
+        assertTrue( "Problems: " + unoptimized.failure().orElse( asList() ), unoptimized.success().isPresent() );
+        assertEquals( optimized.success().get().keySet(), unoptimized.success().get().keySet() );
+    }
+
+    @Test
+    public void referencedAssignmentProblemsAreReportedWithOptimizer() throws Exception {
+        final String source =
+                  "import One : Unit -> Integer ;\n"
+                + "Used : Unit -> Integer = One -> Missing ;\n"
+                + "export Two = Used -> Double ;\n";
+
+        final Try<List<String>, Map<String, AppFlow<?, ?>>> optimized = new Compiler( parser, ctx, factory, true ).compileFlows( source );
+
+        assertFalse( optimized.success().isPresent() );
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects the timers and counters of form source generation, so that save latency can be
+ * monitored and regressions caught when generators change.
+ * <p>
+ * Metrics are identified by dotted names and created on first use. The built in names form a
+ * fixed set, so the number of metrics does not grow with the number of forms:
+ * <ul>
+ * <li><code>generation.entity</code>, <code>generation.form</code>,
+ * <code>generation.project</code>: timers of a complete generation request.</li>
+ * <li><code>generation.diff</code>: timer of a dry run producing a {@link FormSourcesDiff}.</li>
+ * <li><code>generator.&lt;artifact&gt;</code>: timer per source generator.</li>
+ * <li><code>generator.skipped</code>: artifacts not regenerated because the form change did not
+ * affect them.</li>
+ * <li><code>writer.written</code>, <code>writer.skipped</code>, <code>writer.bytesWritten</code>:
+ * files written, files left untouched because their content did not change, and bytes
+ * written.</li>
+ * <li><code>writer.dryRun</code>: files recorded in a {@link FormSourcesDiff} instead of being
+ * written.</li>
+ * <li><code>formIndex.scan</code>, <code>formIndex.reads</code>: project form scans and form files
+ * read.</li>
+ * <li><code>dataModel.load</code>, <code>dataModel.hits</code>: data model loads and cache
+ * hits.</li>
+ * <li><code>events.received</code>, <code>events.coalesced</code>, <code>events.batch</code>: Data
+ * Object change events, events merged into a pending batch and processed batches.</li>
+ * <li><code>packages.resolve</code>, <code>packages.hits</code>: package lookups in the project
+ * and package cache hits.</li>
+ * <li><code>memo.hits</code>, <code>memo.misses</code>, <code>memo.evictions</code>: generator
+ * outputs read from the on-disk output cache, generated and evicted from it.</li>
+ * <li><code>template.compile</code>: MVEL template compilations.</li>
+ * <li><code>lock.contended</code>, <code>lock.wait.project</code>, <code>lock.wait.package</code>,
+ * <code>lock.wait.file</code>: generation locks that were not immediately available, and the time
+ * spent waiting for project, package and shared file locks.</li>
+ * <li><code>jobs.submitted</code>, <code>jobs.superseded</code>, <code>jobs.failed</code>,
+ * <code>jobs.wait</code>, <code>jobs.run</code>: generation jobs submitted to the
+ * {@link FormSourcesGenerationQueue}, replaced before they started and failed, and the time jobs
+ * waited and ran.</li>
+ * </ul>
+ * Other implementations can be provided as CDI alternatives to forward the metrics to an external
+ * registry.
+ */
+public interface CodegenMetrics {
+
+    /**
+     * Adds the given delta to a counter.
+     */
+    void increment( String name,
+                    long delta );
+
+    default void increment( final String name ) {
+        increment( name, 1 );
+    }
+
+    /**
+     * Records one timed execution of the given duration.
+     */
+    void record( String name,
+                 long nanos );
+
+    /**
+     * Runs the task and records its duration, whether or not it completes normally.
+     */
+    default <T> T time( final String name,
+                        final Supplier<T> task ) {
+        final long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            record( name, System.nanoTime() - start );
+        }
+    }
+
+    /**
+     * @return A task recording its duration under the given name each time it runs.
+     */
+    default <T> Supplier<T> timed( final String name,
+                                   final Supplier<T> task ) {
+        return () -> time( name, task );
+    }
+
+    /**
+     * @return The current value of every counter, by name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return A snapshot of every timer, by name.
+     */
+    Map<String, CodegenTimerStats> getTimers();
+
+    /**
+     * Discards every counter and timer.
+     */
+    void reset();
+}
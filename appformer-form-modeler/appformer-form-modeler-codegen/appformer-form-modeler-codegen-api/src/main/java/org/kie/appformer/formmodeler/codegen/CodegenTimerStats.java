@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.appformer.formmodeler.codegen;
+
+/**
+ * A snapshot of a timer of {@link CodegenMetrics}.
+ */
+public class CodegenTimerStats {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    public CodegenTimerStats( final long count,
+                              final long totalNanos,
+                              final long maxNanos ) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return "CodegenTimerStats[count=" + count + ", meanMillis=" + getMeanMillis() + ", maxMillis=" + getMaxMillis() + "]";
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.Objects;
+
+/**
+ * The author of the VFS commits of a generation, captured on the thread of the request that
+ * asked for it. The user and session of a request cannot be resolved on the threads that run
+ * queued or batched generations, so the identity travels with the work instead.
+ */
+public class CommitIdentity {
+
+    private final String sessionId;
+    private final String name;
+    private final String email;
+
+    public CommitIdentity( final String sessionId,
+                           final String name,
+                           final String email ) {
+        this.sessionId = sessionId;
+        this.name = name;
+        this.email = email;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public boolean equals( final Object obj ) {
+        if ( !( obj instanceof CommitIdentity ) ) {
+            return false;
+        }
+        final CommitIdentity other = (CommitIdentity) obj;
+        return Objects.equals( sessionId, other.sessionId ) && Objects.equals( name, other.name ) && Objects.equals( email, other.email );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( sessionId, name, email );
+    }
+
+    @Override
+    public String toString() {
+        return "CommitIdentity[sessionId=" + sessionId + ", name=" + name + ", email=" + email + "]";
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.Optional;
+
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Shares the {@link DataModel} of each project between the code generators, so that the Java
+ * sources of a project are only parsed again after one of them changes.
+ */
+public interface DataModelCache {
+
+    /**
+     * @return The current data model of the project, loading it if a Java source of the project
+     * changed since it was last loaded. Never null.
+     */
+    DataModel getDataModel( KieProject project );
+
+    /**
+     * @return The last loaded data model of the project, even if it is out of date or being
+     * reloaded. Never blocks and never loads the model.
+     */
+    Optional<DataModel> getSnapshot( KieProject project );
+
+    /**
+     * Discards the cached data model of the project.
+     */
+    void invalidate( KieProject project );
+
+    /**
+     * Discards the cached data model of the project containing the given Java source. Paths of
+     * other files are ignored.
+     */
+    void invalidate( Path path );
+
+    DataModelCacheStats getStats();
+}
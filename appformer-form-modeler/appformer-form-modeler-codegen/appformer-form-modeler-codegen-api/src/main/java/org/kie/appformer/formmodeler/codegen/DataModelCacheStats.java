@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.appformer.formmodeler.codegen;
+
+/**
+ * A snapshot of the counters of a {@link DataModelCache}.
+ */
+public class DataModelCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long snapshotReads;
+    private final long invalidations;
+    private final long totalLoadMillis;
+
+    public DataModelCacheStats( final long hits,
+                                final long misses,
+                                final long snapshotReads,
+                                final long invalidations,
+                                final long totalLoadMillis ) {
+        this.hits = hits;
+        this.misses = misses;
+        this.snapshotReads = snapshotReads;
+        this.invalidations = invalidations;
+        this.totalLoadMillis = totalLoadMillis;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of requests that loaded the model.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getSnapshotReads() {
+        return snapshotReads;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public long getTotalLoadMillis() {
+        return totalLoadMillis;
+    }
+
+    public double getHitRatio() {
+        final long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "DataModelCacheStats[hits=" + hits + ", misses=" + misses + ", snapshotReads=" + snapshotReads
+                + ", invalidations=" + invalidations + ", loadMillis=" + totalLoadMillis + "]";
+    }
+}
@@ -17,9 +17,17 @@
 package org.kie.appformer.formmodeler.codegen;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ErraiAppPropertiesGenerator {
 
     public String generate( Collection<String> fullyQualifiedClassNames );
 
+    /**
+     * @return The serializable types declared in the given ErraiApp.properties content, in
+     * declaration order, or an empty optional if the content has no such declaration.
+     */
+    public Optional<List<String>> parseSerializableTypes( String properties );
+
 }
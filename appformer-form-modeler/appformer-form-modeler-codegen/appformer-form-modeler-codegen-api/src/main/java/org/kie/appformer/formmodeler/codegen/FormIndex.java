@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Looks up the forms of a project without reading every form file of the project on each lookup.
+ * The forms of a project are indexed by id and model type when the project is first used, and
+ * the index is kept up to date as form files change.
+ * <p>
+ * The index also keeps the edges between forms that embed other forms in SubForm or
+ * MultipleSubForm fields and the embedded forms and types, so that the forms affected by a change
+ * can be found without inspecting every form.
+ * <p>
+ * The returned forms are shared with other callers and must not be modified.
+ */
+public interface FormIndex {
+
+    /**
+     * @return Every form of the project containing the given path.
+     */
+    List<FormDefinition> findAllForms( Path path );
+
+    /**
+     * @return Every form of the project containing the given path, by the path of its form file.
+     */
+    Map<Path, FormDefinition> findAllFormsByPath( Path path );
+
+    /**
+     * @return The forms of the project containing the given path whose model is of the given type.
+     */
+    List<FormDefinition> findFormsForType( String typeName,
+                                           Path path );
+
+    /**
+     * @return The form with the given id in the project containing the given path.
+     */
+    Optional<FormDefinition> findFormById( String formId,
+                                           Path path );
+
+    /**
+     * @return The forms of the project containing the given path that embed the form with the
+     * given id in a SubForm or MultipleSubForm field, by the path of their form file.
+     */
+    Map<Path, FormDefinition> findEmbeddingForms( String formId,
+                                                  Path path );
+
+    /**
+     * @return The forms of the project containing the given path with a SubForm or MultipleSubForm
+     * field bound to the given type, by the path of their form file.
+     */
+    Map<Path, FormDefinition> findFormsEmbeddingType( String typeName,
+                                                      Path path );
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * The result of a dry run of a {@link FormSourcesGenerator}: the files the generation would write,
+ * compared with their current content. Nothing is written during a dry run, so the paths reported
+ * as changed are those that would be written.
+ */
+public class FormSourcesDiff extends FormSourcesGenerationResult {
+
+    private static final int CONTEXT_LINES = 3;
+
+    public enum Status {
+        ADDED,
+        MODIFIED,
+        UNCHANGED
+    }
+
+    /**
+     * A generated file compared with the current content of its path.
+     */
+    public static class FileDiff {
+
+        private final Path path;
+        private final String currentContent;
+        private final String generatedContent;
+
+        public FileDiff( final Path path,
+                         final String currentContent,
+                         final String generatedContent ) {
+            this.path = path;
+            this.currentContent = currentContent;
+            this.generatedContent = generatedContent;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public Status getStatus() {
+            if ( currentContent == null ) {
+                return Status.ADDED;
+            }
+            return currentContent.equals( generatedContent ) ? Status.UNCHANGED : Status.MODIFIED;
+        }
+
+        /**
+         * @return The current content of the file, or null if it does not exist.
+         */
+        public String getCurrentContent() {
+            return currentContent;
+        }
+
+        public String getGeneratedContent() {
+            return generatedContent;
+        }
+
+        /**
+         * @return The changes from the current to the generated content in unified diff format,
+         * with three lines of context. Empty if the file is unchanged.
+         */
+        public String getUnifiedDiff() {
+            if ( getStatus() == Status.UNCHANGED ) {
+                return "";
+            }
+            return unifiedDiff( path.toURI(),
+                                currentContent == null ? Collections.emptyList() : lines( currentContent ),
+                                lines( generatedContent ) );
+        }
+
+        @Override
+        public String toString() {
+            return "FileDiff[" + getStatus() + " " + path + "]";
+        }
+    }
+
+    private final Map<String, FileDiff> files = new LinkedHashMap<>();
+
+    /**
+     * Records the content the generation would write to the given path.
+     *
+     * @param currentContent The current content of the path, or null if it does not exist.
+     */
+    public void addFile( final Path path,
+                         final String currentContent,
+                         final String generatedContent ) {
+        final FileDiff file = new FileDiff( path, currentContent, generatedContent );
+        files.put( path.toURI(), file );
+        if ( file.getStatus() == Status.UNCHANGED ) {
+            addUnchanged( path );
+        } else {
+            addChanged( path );
+        }
+    }
+
+    /**
+     * @return Every generated file, in generation order.
+     */
+    public List<FileDiff> getFiles() {
+        return Collections.unmodifiableList( new ArrayList<>( files.values() ) );
+    }
+
+    /**
+     * @return The generated files that would be added or modified.
+     */
+    public List<FileDiff> getChangedFiles() {
+        final List<FileDiff> changed = new ArrayList<>();
+        files.values().forEach( file -> {
+            if ( file.getStatus() != Status.UNCHANGED ) {
+                changed.add( file );
+            }
+        } );
+        return changed;
+    }
+
+    /**
+     * @return The generated file with the given URI, if it was generated in this run.
+     */
+    public Optional<FileDiff> getFile( final String uri ) {
+        return Optional.ofNullable( files.get( uri ) );
+    }
+
+    /**
+     * @return The unified diffs of every added or modified file, concatenated.
+     */
+    public String getUnifiedDiff() {
+        final StringBuilder diff = new StringBuilder();
+        getChangedFiles().forEach( file -> diff.append( file.getUnifiedDiff() ) );
+        return diff.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "FormSourcesDiff" + files.values();
+    }
+
+    private static List<String> lines( final String content ) {
+        final List<String> lines = new ArrayList<>();
+        int start = 0;
+        for ( int i = 0; i < content.length(); i++ ) {
+            if ( content.charAt( i ) == '\n' ) {
+                lines.add( content.substring( start, i ) );
+                start = i + 1;
+            }
+        }
+        if ( start < content.length() ) {
+            lines.add( content.substring( start ) );
+        }
+        return lines;
+    }
+
+    /*
+     * Common leading and trailing lines are matched first, and the longest common subsequence of
+     * the remaining lines is computed, so that the quadratic part is limited to the changed region.
+     */
+    private static String unifiedDiff( final String name,
+                                       final List<String> before,
+                                       final List<String> after ) {
+        int prefix = 0;
+        while ( prefix < before.size() && prefix < after.size() && before.get( prefix ).equals( after.get( prefix ) ) ) {
+            prefix++;
+        }
+        int suffix = 0;
+        while ( suffix < before.size() - prefix && suffix < after.size() - prefix
+                && before.get( before.size() - 1 - suffix ).equals( after.get( after.size() - 1 - suffix ) ) ) {
+            suffix++;
+        }
+
+        final int n = before.size() - prefix - suffix;
+        final int m = after.size() - prefix - suffix;
+        final int[][] lcs = new int[n + 1][m + 1];
+        for ( int i = n - 1; i >= 0; i-- ) {
+            for ( int j = m - 1; j >= 0; j-- ) {
+                lcs[i][j] = before.get( prefix + i ).equals( after.get( prefix + j ) )
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max( lcs[i + 1][j], lcs[i][j + 1] );
+            }
+        }
+
+        // One operation per line: ' ' kept, '-' removed, '+' added.
+        final StringBuilder ops = new StringBuilder();
+        for ( int i = 0; i < prefix; i++ ) {
+            ops.append( ' ' );
+        }
+        int i = 0;
+        int j = 0;
+        while ( i < n || j < m ) {
+            if ( i < n && j < m && before.get( prefix + i ).equals( after.get( prefix + j ) ) ) {
+                ops.append( ' ' );
+                i++;
+                j++;
+            } else if ( i < n && ( j == m || lcs[i + 1][j] >= lcs[i][j + 1] ) ) {
+                ops.append( '-' );
+                i++;
+            } else {
+                ops.append( '+' );
+                j++;
+            }
+        }
+        for ( int k = 0; k < suffix; k++ ) {
+            ops.append( ' ' );
+        }
+
+        final StringBuilder diff = new StringBuilder();
+        diff.append( "--- a/" ).append( name ).append( '\n' );
+        diff.append( "+++ b/" ).append( name ).append( '\n' );
+
+        int op = 0;
+        int beforeLine = 0;
+        int afterLine = 0;
+        while ( op < ops.length() ) {
+            if ( ops.charAt( op ) == ' ' ) {
+                op++;
+                beforeLine++;
+                afterLine++;
+                continue;
+            }
+
+            // A hunk starts with up to three lines of context and ends once more than six
+            // consecutive lines are unchanged.
+            final int context = Math.min( CONTEXT_LINES, Math.min( beforeLine, afterLine ) );
+            int end = op;
+            int unchanged = 0;
+            while ( end < ops.length() && unchanged <= 2 * CONTEXT_LINES ) {
+                unchanged = ops.charAt( end ) == ' ' ? unchanged + 1 : 0;
+                end++;
+            }
+            end -= Math.max( 0, unchanged - CONTEXT_LINES );
+
+            final StringBuilder hunk = new StringBuilder();
+            int beforeCount = 0;
+            int afterCount = 0;
+            int b = beforeLine - context;
+            int a = afterLine - context;
+            for ( int k = 0; k < context; k++ ) {
+                hunk.append( ' ' ).append( before.get( b + k ) ).append( '\n' );
+            }
+            beforeCount += context;
+            afterCount += context;
+            b += context;
+            a += context;
+            for ( int k = op; k < end; k++ ) {
+                switch ( ops.charAt( k ) ) {
+                    case ' ':
+                        hunk.append( ' ' ).append( before.get( b++ ) ).append( '\n' );
+                        a++;
+                        beforeCount++;
+                        afterCount++;
+                        break;
+                    case '-':
+                        hunk.append( '-' ).append( before.get( b++ ) ).append( '\n' );
+                        beforeCount++;
+                        break;
+                    default:
+                        hunk.append( '+' ).append( after.get( a++ ) ).append( '\n' );
+                        afterCount++;
+                }
+            }
+
+            diff.append( "@@ -" ).append( beforeLine - context + ( beforeCount == 0 ? 0 : 1 ) ).append( ',' ).append( beforeCount )
+                    .append( " +" ).append( afterLine - context + ( afterCount == 0 ? 0 : 1 ) ).append( ',' ).append( afterCount )
+                    .append( " @@\n" ).append( hunk );
+
+            op = end;
+            beforeLine = b;
+            afterLine = a;
+        }
+
+        return diff.toString();
+    }
+}
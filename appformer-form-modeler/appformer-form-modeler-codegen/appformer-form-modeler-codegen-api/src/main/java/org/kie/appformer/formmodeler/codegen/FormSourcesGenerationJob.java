@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * An immutable snapshot of a job of the {@link FormSourcesGenerationQueue}.
+ */
+public class FormSourcesGenerationJob {
+
+    public enum Kind {
+        FORM,
+        ENTITY,
+        PROJECT
+    }
+
+    /**
+     * Jobs of the same project run one at a time, interactive jobs before bulk jobs.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        /**
+         * Replaced by a newer job for the same resource before it started.
+         */
+        SUPERSEDED;
+
+        public boolean isDone() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final long id;
+    private final Kind kind;
+    private final Priority priority;
+    private final Path path;
+    private final State state;
+    private final FormSourcesGenerationResult result;
+    private final String failure;
+    private final long supersededBy;
+    private final long queuedMillis;
+    private final long runMillis;
+
+    public FormSourcesGenerationJob( final long id,
+                                     final Kind kind,
+                                     final Priority priority,
+                                     final Path path,
+                                     final State state,
+                                     final FormSourcesGenerationResult result,
+                                     final String failure,
+                                     final long supersededBy,
+                                     final long queuedMillis,
+                                     final long runMillis ) {
+        this.id = id;
+        this.kind = kind;
+        this.priority = priority;
+        this.path = path;
+        this.state = state;
+        this.result = result;
+        this.failure = failure;
+        this.supersededBy = supersededBy;
+        this.queuedMillis = queuedMillis;
+        this.runMillis = runMillis;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return The form, or the project root of a {@link Kind#PROJECT} job.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return The generated files of a {@link State#COMPLETED} job, otherwise null.
+     */
+    public FormSourcesGenerationResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return The error message of a {@link State#FAILED} job, otherwise null.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return The id of the job that replaced a {@link State#SUPERSEDED} job, otherwise 0.
+     */
+    public long getSupersededBy() {
+        return supersededBy;
+    }
+
+    /**
+     * @return The time the job waited before it started, or has waited so far.
+     */
+    public long getQueuedMillis() {
+        return queuedMillis;
+    }
+
+    /**
+     * @return The time the job ran, or has run so far.
+     */
+    public long getRunMillis() {
+        return runMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "FormSourcesGenerationJob[id=" + id + ", kind=" + kind + ", priority=" + priority + ", path=" + path
+                + ", state=" + state + ", queuedMillis=" + queuedMillis + ", runMillis=" + runMillis + "]";
+    }
+}
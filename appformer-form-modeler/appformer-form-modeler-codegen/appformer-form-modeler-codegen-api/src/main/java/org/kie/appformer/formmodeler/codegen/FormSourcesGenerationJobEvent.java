@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+/**
+ * Fired by the {@link FormSourcesGenerationQueue} each time a job completes, fails or is
+ * superseded.
+ */
+public class FormSourcesGenerationJobEvent {
+
+    private final FormSourcesGenerationJob job;
+
+    public FormSourcesGenerationJobEvent( final FormSourcesGenerationJob job ) {
+        this.job = job;
+    }
+
+    public FormSourcesGenerationJob getJob() {
+        return job;
+    }
+
+    @Override
+    public String toString() {
+        return "FormSourcesGenerationJobEvent[" + job + "]";
+    }
+}
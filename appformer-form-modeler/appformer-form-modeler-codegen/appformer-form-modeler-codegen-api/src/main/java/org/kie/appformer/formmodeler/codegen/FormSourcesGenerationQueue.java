@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Runs {@link FormSourcesGenerator} requests in the background, so that the thread saving a form
+ * does not wait for its sources.
+ * <p>
+ * Jobs of the same project run one at a time in submission order, except that
+ * {@link Priority#INTERACTIVE} jobs run before {@link Priority#BULK} jobs. A job submitted while a
+ * job of the same kind for the same resource is still queued replaces it. A
+ * {@link FormSourcesGenerationJobEvent} is fired when a job is done.
+ * <p>
+ * The {@link CommitIdentity} of the user of the current request is captured when a job is
+ * submitted, and the generated files are committed as that user.
+ */
+public interface FormSourcesGenerationQueue {
+
+    /**
+     * Queues {@link FormSourcesGenerator#generateFormSources(FormDefinition, Path)}.
+     *
+     * @return The id of the job.
+     */
+    long submitFormSources( FormDefinition form,
+                            Path resourcePath,
+                            Priority priority );
+
+    /**
+     * Queues {@link FormSourcesGenerator#generateEntityFormSources(FormDefinition, Path)}.
+     *
+     * @return The id of the job.
+     */
+    long submitEntityFormSources( FormDefinition form,
+                                  Path resourcePath,
+                                  Priority priority );
+
+    /**
+     * Queues {@link FormSourcesGenerator#generateEntityFormSources(FormDefinition, Path, CommitIdentity)},
+     * for submissions made after the request that caused them, on another thread.
+     *
+     * @return The id of the job.
+     */
+    long submitEntityFormSources( FormDefinition form,
+                                  Path resourcePath,
+                                  Priority priority,
+                                  CommitIdentity identity );
+
+    /**
+     * Queues {@link FormSourcesGenerator#generateProjectFormSources(Path)}.
+     *
+     * @return The id of the job.
+     */
+    long submitProjectFormSources( Path projectPath,
+                                   Priority priority );
+
+    /**
+     * @return The identity of the user of the current request, or null if there is no request on
+     * the calling thread.
+     */
+    CommitIdentity getCommitIdentity();
+
+    /**
+     * @return The current state of the given job, or an empty optional if the job is unknown or
+     * finished too long ago to be remembered.
+     */
+    Optional<FormSourcesGenerationJob> getJob( long id );
+
+    /**
+     * @return The jobs that are queued or running.
+     */
+    List<FormSourcesGenerationJob> getActiveJobs();
+
+    /**
+     * Waits until the given job is done. A superseded job is done once the job that replaced it is.
+     *
+     * @return The final state of the job, or an empty optional if it is unknown or still running
+     * when the timeout expires.
+     */
+    Optional<FormSourcesGenerationJob> await( long id,
+                                              long timeout,
+                                              TimeUnit unit );
+}
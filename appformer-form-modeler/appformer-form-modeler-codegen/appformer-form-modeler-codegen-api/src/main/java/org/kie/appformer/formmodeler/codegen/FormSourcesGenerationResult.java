@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Reports which generated files were actually written by a {@link FormSourcesGenerator}, and which
+ * were skipped because their content was already up to date.
+ */
+public class FormSourcesGenerationResult {
+
+    private final List<Path> changedPaths = new ArrayList<>();
+    private final List<Path> unchangedPaths = new ArrayList<>();
+
+    public void addChanged( final Path path ) {
+        changedPaths.add( path );
+    }
+
+    public void addUnchanged( final Path path ) {
+        unchangedPaths.add( path );
+    }
+
+    /**
+     * @return Paths of generated files that were created or whose content changed.
+     */
+    public List<Path> getChangedPaths() {
+        return Collections.unmodifiableList( changedPaths );
+    }
+
+    /**
+     * @return Paths of generated files that already had the generated content and were not written.
+     */
+    public List<Path> getUnchangedPaths() {
+        return Collections.unmodifiableList( unchangedPaths );
+    }
+
+    public boolean hasChanges() {
+        return !changedPaths.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "FormSourcesGenerationResult[changed=" + changedPaths + ", unchanged=" + unchangedPaths + "]";
+    }
+}
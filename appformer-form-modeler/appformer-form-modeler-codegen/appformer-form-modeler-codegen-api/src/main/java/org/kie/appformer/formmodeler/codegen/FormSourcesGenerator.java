@@ -19,9 +19,70 @@ package org.kie.appformer.formmodeler.codegen;
 import org.kie.workbench.common.forms.model.FormDefinition;
 import org.uberfire.backend.vfs.Path;
 
+/**
+ * The methods that write commit as the user of the current request. The overloads taking a
+ * {@link CommitIdentity} commit as the given user instead, for generations that run outside the
+ * request, for example on the threads of the {@link FormSourcesGenerationQueue}.
+ */
 public interface FormSourcesGenerator {
 
-    void generateEntityFormSources( FormDefinition form, Path resourcePath );
+    /**
+     * @return The identity of the user of the current request, or null if there is no request on
+     * the calling thread.
+     */
+    CommitIdentity getCommitIdentity();
+
+    /**
+     * Generates and writes every artifact for the entity of the given form.
+     *
+     * @return The generated files that were written, and those skipped because they were unchanged.
+     */
+    FormSourcesGenerationResult generateEntityFormSources( FormDefinition form, Path resourcePath );
+
+    FormSourcesGenerationResult generateEntityFormSources( FormDefinition form, Path resourcePath, CommitIdentity identity );
+
+    /**
+     * Generates and writes the form model and form view artifacts of the given form.
+     *
+     * @return The generated files that were written, and those skipped because they were unchanged.
+     */
+    FormSourcesGenerationResult generateFormSources( FormDefinition form, Path resourcePath );
+
+    FormSourcesGenerationResult generateFormSources( FormDefinition form, Path resourcePath, CommitIdentity identity );
+
+    /**
+     * Regenerates the artifacts of every form in the project containing the given path, for
+     * example after the generators changed. Forms of Data Objects get every entity artifact, other
+     * forms get their form model and form view. The project model and forms are loaded once, and
+     * <code>ErraiApp.properties</code> and <code>Main.flow</code> are written once.
+     *
+     * @return The generated files that were written, and those skipped because they were unchanged.
+     */
+    FormSourcesGenerationResult generateProjectFormSources( Path projectPath );
+
+    FormSourcesGenerationResult generateProjectFormSources( Path projectPath, CommitIdentity identity );
+
+    /**
+     * Runs the same generation as {@link #generateEntityFormSources(FormDefinition, Path)} without
+     * writing anything.
+     *
+     * @return Every file the generation would write, compared with its current content.
+     */
+    FormSourcesDiff diffEntityFormSources( FormDefinition form, Path resourcePath );
+
+    /**
+     * Runs the same generation as {@link #generateFormSources(FormDefinition, Path)} without
+     * writing anything.
+     *
+     * @return Every file the generation would write, compared with its current content.
+     */
+    FormSourcesDiff diffFormSources( FormDefinition form, Path resourcePath );
 
-    void generateFormSources( FormDefinition form, Path resourcePath );
+    /**
+     * Runs the same generation as {@link #generateProjectFormSources(Path)} without writing
+     * anything, for example to check the effect of a template upgrade before applying it.
+     *
+     * @return Every file the generation would write, compared with its current content.
+     */
+    FormSourcesDiff diffProjectFormSources( Path projectPath );
 }
@@ -16,6 +16,8 @@
 
 package org.kie.appformer.formmodeler.codegen;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.kie.workbench.common.forms.model.FormDefinition;
@@ -25,12 +27,25 @@ import org.guvnor.common.services.project.model.Package;
 public class SourceGenerationContext {
     public static final String FORM_MODEL_SUFFIX = "FormModel";
     public static final String FORM_VIEW_SUFFIX = "FormView";
+    public static final String FORM_VALIDATOR_SUFFIX = "FormValidator";
     public static final String LIST_VIEW_SUFFIX = "ListView";
     public static final String REST_SERVICE_SUFFIX = "RestService";
     public static final String ENTITY_SERVICE_SUFFIX = "EntityService";
     public static final String REST_IMPL_SUFFIX = "RestServiceImpl";
     public static final String FLOW_PRODUCER_SUFFIX = "FlowProducer";
 
+    /**
+     * Suffixes of every class generated from a form. Data objects never end with one of these.
+     */
+    public static final List<String> GENERATED_CLASS_SUFFIXES = Collections.unmodifiableList( Arrays.asList( FORM_MODEL_SUFFIX,
+                                                                                                            FORM_VIEW_SUFFIX,
+                                                                                                            FORM_VALIDATOR_SUFFIX,
+                                                                                                            LIST_VIEW_SUFFIX,
+                                                                                                            REST_SERVICE_SUFFIX,
+                                                                                                            ENTITY_SERVICE_SUFFIX,
+                                                                                                            REST_IMPL_SUFFIX,
+                                                                                                            FLOW_PRODUCER_SUFFIX ) );
+
     private FormDefinition formDefinition;
     private final Path path;
     private final Package root;
@@ -75,6 +90,10 @@ public class SourceGenerationContext {
         return formDefinition.getName() + FORM_VIEW_SUFFIX;
     }
 
+    public String getFormValidatorName() {
+        return formDefinition.getName() + FORM_VALIDATOR_SUFFIX;
+    }
+
     public String getListViewName() {
         return formDefinition.getName() + LIST_VIEW_SUFFIX;
     }
@@ -118,4 +137,8 @@ public class SourceGenerationContext {
     public List<FormDefinition> getProjectForms() {
         return projectForms;
     }
+
+    public static boolean isGeneratedClassName( final String className ) {
+        return GENERATED_CLASS_SUFFIXES.stream().anyMatch( className::endsWith );
+    }
 }
@@ -51,6 +51,7 @@ public interface SourceGenerationUtil {
 
     public static final String FORM_MODEL_CLASS = "org.kie.appformer.formmodeler.rendering.client.shared.FormModel";
     public static final String FORM_VIEW_CLASS = "org.kie.appformer.formmodeler.rendering.client.view.FormView";
+    public static final String FORM_MODEL_VALIDATOR_CLASS = "org.kie.appformer.formmodeler.rendering.client.view.validation.FormModelValidator";
     public static final String LIST_VIEW_CLASS = "org.kie.appformer.formmodeler.rendering.client.view.ListView";
 
     public static final String COLUMN_META_CLASS_NAME = "org.uberfire.ext.widgets.table.client.ColumnMeta";
@@ -61,6 +62,8 @@ public interface SourceGenerationUtil {
 
     public static final String ENTITY_SERVICE_CLASS = "org.kie.appformer.formmodeler.rendering.server.rest.BaseEntityService";
 
+    public static final String REST_SERVICE_IMPL_CLASS = "org.kie.appformer.formmodeler.rendering.server.rest.BaseRestServiceImpl";
+
     public static final String BASE_REST_SERVICE = "org.kie.appformer.formmodeler.rendering.client.shared.AppFormerRestService";
 
     public static final String READONLY_PARAM = "readOnly";
@@ -87,4 +90,6 @@ public interface SourceGenerationUtil {
     public static final String DO_EXTRA_VALIDATIONS_METHOD = "doExtraValidations";
     public static final String SET_MODEL_METHOD = "setModel";
     public static final String SET_READONLY_METHOD = "setReadOnly";
+    public static final String GET_FIELD_VALIDATOR_METHOD = "getFieldValidator";
+    public static final String VALIDATE_FIELD_METHOD = "validateField";
 }
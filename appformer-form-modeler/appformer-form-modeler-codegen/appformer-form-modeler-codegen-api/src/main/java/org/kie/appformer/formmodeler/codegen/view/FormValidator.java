@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+
+/**
+ * Used for implementations of {@link JavaSourceGenerator} that generate the validator of the
+ * fields of a form view.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Qualifier
+public @interface FormValidator {
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.lang.annotation.Annotation;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Minimal stand-in for the CDI container: sets injected fields by name and runs the
+ * {@link PostConstruct} and {@link PreDestroy} methods, superclass methods first.
+ */
+final class Beans {
+
+    private Beans() {
+    }
+
+    static <T> T inject(final T bean,
+                        final String fieldName,
+                        final Object value) {
+        for (Class<?> type = bean.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(bean,
+                          value);
+                return bean;
+            } catch (final NoSuchFieldException e) {
+                // Declared by a superclass.
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " in " + bean.getClass().getName());
+    }
+
+    static <T> T postConstruct(final T bean) {
+        return invokeAnnotated(bean,
+                               PostConstruct.class);
+    }
+
+    static <T> T preDestroy(final T bean) {
+        return invokeAnnotated(bean,
+                               PreDestroy.class);
+    }
+
+    private static <T> T invokeAnnotated(final T bean,
+                                         final Class<? extends Annotation> annotation) {
+        final Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> type = bean.getClass(); type != null; type = type.getSuperclass()) {
+            hierarchy.push(type);
+        }
+
+        for (final Class<?> type : hierarchy) {
+            for (final Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(annotation)) {
+                    try {
+                        method.setAccessible(true);
+                        method.invoke(bean);
+                    } catch (final ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.enterprise.inject.Instance;
+
+import org.guvnor.common.services.backend.util.CommentedOptionFactory;
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.common.services.project.model.Project;
+import org.kie.appformer.formmodeler.codegen.DataModelCache;
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGeneratorImpl;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.cache.GeneratorOutputCache;
+import org.kie.appformer.formmodeler.codegen.cache.PackageCache;
+import org.kie.appformer.formmodeler.codegen.concurrent.GenerationLocks;
+import org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor;
+import org.kie.appformer.formmodeler.codegen.flow.impl.DirectFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.flow.impl.MainFlowGenerator;
+import org.kie.appformer.formmodeler.codegen.flow.impl.RoasterFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.incremental.FormDependencyGraph;
+import org.kie.appformer.formmodeler.codegen.io.GeneratedSourceWriter;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.appformer.formmodeler.codegen.model.impl.ConstructorGenerator;
+import org.kie.appformer.formmodeler.codegen.model.impl.RoasterFormModelSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.persistence.EntityIndexesGenerator;
+import org.kie.appformer.formmodeler.codegen.properties.impl.ErraiAppPropertiesGeneratorImpl;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectRestImplSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.RoasterEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.RoasterRestApiSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.RoasterRestImplSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.InputTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.ListHTMLTemplateSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELFormHTMLTemplateSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELTemplateRegistry;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.CheckBoxTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.DatePickerTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.ListBoxTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.MultipleSubFormTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.NumberBoxTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.ObjectSelectorTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.PictureTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.RadioGroupTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.SliderTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.SubFormTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.TextAreaTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.inputs.TextBoxTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.RoasterFormValidatorSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.RoasterFormViewSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.RoasterListViewSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.InputCreatorHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.CheckBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.DatePickerHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.DecimalBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.IntegerBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.ListBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.MultipleSubFormHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.ObjectSelectorBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.PictureHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.RadioGroupHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.SliderHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.SubFormHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.TextAreaHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.impl.TextBoxHelper;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.tableColumns.ColumnMetaGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.tableColumns.impl.BooleanBasicTypeColumnMetaGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.tableColumns.impl.BooleanColumnMetaGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.tableColumns.impl.ColumnMetaGeneratorManagerImpl;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.tableColumns.impl.DefaultColumnMetaGenerator;
+import org.kie.workbench.common.forms.commons.shared.layout.FormLayoutTemplateGenerator;
+import org.kie.workbench.common.forms.data.modeller.service.DataObjectFinderService;
+import org.kie.workbench.common.forms.fields.test.TestFieldManager;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.serialization.FormDefinitionSerializer;
+import org.kie.workbench.common.forms.service.shared.FieldManager;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.MockSettings;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.io.IOService;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Wires the real source generators the way the CDI container does, around a
+ * {@link SyntheticProject} and an in-memory {@link IOService}.
+ * <p>
+ * Collaborators that are not part of code generation (project service, form index, data model
+ * cache, form serialization) are stubbed. Stubs are created with {@link MockSettings#stubOnly()}
+ * so that they do not record invocations across benchmark iterations.
+ */
+public class CodegenFixture implements AutoCloseable {
+
+    final SyntheticProject project;
+
+    final InMemoryFiles files = new InMemoryFiles();
+
+    final CodegenMetricsImpl metrics = new CodegenMetricsImpl();
+
+    final RoasterFormModelSourceGenerator formModelGenerator = new RoasterFormModelSourceGenerator(new ConstructorGenerator());
+    final RoasterFormViewSourceGenerator formViewGenerator;
+    final RoasterFormValidatorSourceGenerator formValidatorGenerator = new RoasterFormValidatorSourceGenerator();
+    final RoasterListViewSourceGenerator listViewGenerator;
+    final RoasterRestApiSourceGenerator restApiGenerator = new RoasterRestApiSourceGenerator();
+    final RoasterRestImplSourceGenerator restImplGenerator = new RoasterRestImplSourceGenerator();
+    final RoasterEntityServiceSourceGenerator entityServiceGenerator = new RoasterEntityServiceSourceGenerator();
+    final RoasterFlowProducerSourceGenerator flowProducerGenerator = new RoasterFlowProducerSourceGenerator();
+    final DirectRestImplSourceGenerator directRestImplGenerator = new DirectRestImplSourceGenerator();
+    final DirectEntityServiceSourceGenerator directEntityServiceGenerator = new DirectEntityServiceSourceGenerator();
+    final DirectFlowProducerSourceGenerator directFlowProducerGenerator = new DirectFlowProducerSourceGenerator();
+    final MVELFormHTMLTemplateSourceGenerator formTemplateGenerator;
+    final ListHTMLTemplateSourceGenerator listTemplateGenerator;
+    final HTMLTemplateFormatter formatter = new HTMLTemplateFormatter();
+    final MainFlowGenerator mainFlowGenerator = new MainFlowGenerator();
+    final GeneratorExecutor generatorExecutor;
+    final MVELTemplateRegistry templateRegistry;
+    final FormSourcesGeneratorImpl formSourcesGenerator;
+
+    private final FieldManager fieldManager = new TestFieldManager();
+    private final ColumnMetaGeneratorManagerImpl columnMetaGeneratorManager;
+
+    public CodegenFixture(final int fieldCount) {
+        project = new SyntheticProject(fieldCount);
+
+        columnMetaGeneratorManager = Beans.postConstruct(Beans.inject(new ColumnMetaGeneratorManagerImpl(),
+                                                                      "columnMetaGeneratorInstances",
+                                                                      instance(Arrays.<ColumnMetaGenerator>asList(new DefaultColumnMetaGenerator(),
+                                                                                                                  new BooleanColumnMetaGenerator(),
+                                                                                                                  new BooleanBasicTypeColumnMetaGenerator()))));
+
+        final DataObjectFinderService dataObjectFinder = mock(DataObjectFinderService.class,
+                                                              stubOnly());
+        when(dataObjectFinder.getDataObject(anyString(),
+                                            any(Path.class))).then(invocation -> project.dataModel.getDataObject((String) invocation.getArguments()[0]));
+
+        final List<InputCreatorHelper> inputHelpers = Arrays.asList(new TextBoxHelper(),
+                                                                    new TextAreaHelper(),
+                                                                    new CheckBoxHelper(),
+                                                                    new DatePickerHelper(),
+                                                                    new SliderHelper(),
+                                                                    new IntegerBoxHelper(),
+                                                                    new DecimalBoxHelper(),
+                                                                    new ListBoxHelper(),
+                                                                    new RadioGroupHelper(),
+                                                                    new PictureHelper(),
+                                                                    new ObjectSelectorBoxHelper(),
+                                                                    new SubFormHelper(),
+                                                                    new MultipleSubFormHelper(dataObjectFinder,
+                                                                                              columnMetaGeneratorManager));
+        formViewGenerator = Beans.postConstruct(new RoasterFormViewSourceGenerator(instance(inputHelpers)));
+        listViewGenerator = Beans.inject(new RoasterListViewSourceGenerator(),
+                                         "columnMetaGeneratorManager",
+                                         columnMetaGeneratorManager);
+
+        generatorExecutor = Beans.postConstruct(new GeneratorExecutor());
+        templateRegistry = Beans.postConstruct(new MVELTemplateRegistry(generatorExecutor,
+                                                                        metrics));
+        templateRegistry.awaitWarmUp();
+
+        formTemplateGenerator = formTemplateGenerator(formatter);
+        listTemplateGenerator = Beans.inject(Beans.inject(new ListHTMLTemplateSourceGenerator(),
+                                                          "formatter",
+                                                          formatter),
+                                             "templates",
+                                             templateRegistry);
+
+        formSourcesGenerator = formSourcesGenerator();
+    }
+
+    /**
+     * @return The generation context of the synthetic entity form.
+     */
+    public SourceGenerationContext entityContext() {
+        final Package root = project.rootPackage;
+        return new SourceGenerationContext(project.entityForm,
+                                           project.entityPath,
+                                           root,
+                                           packageOf(root,
+                                                     "client/local"),
+                                           packageOf(root,
+                                                     "client/shared"),
+                                           packageOf(root,
+                                                     "server"),
+                                           project.forms);
+    }
+
+    /**
+     * @return The HTML template of the entity form as rendered by MVEL, before formatting.
+     */
+    public String renderUnformattedFormTemplate(final SourceGenerationContext context) {
+        return formTemplateGenerator(new HTMLTemplateFormatter() {
+            @Override
+            public String formatHTMLCode(final String htmlTemplate) {
+                return htmlTemplate;
+            }
+        }).generateHTMLTemplate(context);
+    }
+
+    @Override
+    public void close() {
+        Beans.preDestroy(generatorExecutor);
+    }
+
+    private MVELFormHTMLTemplateSourceGenerator formTemplateGenerator(final HTMLTemplateFormatter formatter) {
+        final List<InputTemplateProvider> providers = Arrays.asList(new TextBoxTemplateProvider(fieldManager),
+                                                                    new TextAreaTemplateProvider(fieldManager),
+                                                                    new CheckBoxTemplateProvider(fieldManager),
+                                                                    new DatePickerTemplateProvider(fieldManager),
+                                                                    new SliderTemplateProvider(fieldManager),
+                                                                    new NumberBoxTemplateProvider(fieldManager),
+                                                                    new ListBoxTemplateProvider(fieldManager),
+                                                                    new RadioGroupTemplateProvider(fieldManager),
+                                                                    new PictureTemplateProvider(fieldManager),
+                                                                    new ObjectSelectorTemplateProvider(fieldManager),
+                                                                    new SubFormTemplateProvider(fieldManager),
+                                                                    new MultipleSubFormTemplateProvider(fieldManager));
+        final MVELFormHTMLTemplateSourceGenerator generator = new MVELFormHTMLTemplateSourceGenerator();
+        Beans.inject(generator,
+                     "providers",
+                     instance(providers));
+        Beans.inject(generator,
+                     "formatter",
+                     formatter);
+        Beans.inject(generator,
+                     "templates",
+                     templateRegistry);
+        return Beans.postConstruct(generator);
+    }
+
+    private FormSourcesGeneratorImpl formSourcesGenerator() {
+        final IOService ioService = mock(IOService.class,
+                                         stubOnly().defaultAnswer(files));
+
+        final KieProject kieProject = mock(KieProject.class,
+                                           stubOnly());
+        when(kieProject.getRootPath()).thenReturn(project.rootPath);
+        when(kieProject.getProjectName()).thenReturn("benchmark");
+
+        final KieProjectService projectService = mock(KieProjectService.class,
+                                                      stubOnly());
+        when(projectService.resolveProject(any(Path.class))).thenReturn(kieProject);
+        when(projectService.resolvePackage(any(Path.class))).then(invocation -> project.resolvePackage((Path) invocation.getArguments()[0]));
+        when(projectService.resolveDefaultPackage(any(Project.class))).thenReturn(project.defaultPackage);
+
+        final DataModelCache dataModelCache = mock(DataModelCache.class,
+                                                   stubOnly());
+        when(dataModelCache.getDataModel(any(KieProject.class))).thenReturn(project.dataModel);
+
+        final FormIndex formIndex = mock(FormIndex.class,
+                                         stubOnly());
+        when(formIndex.findAllForms(any(Path.class))).thenReturn(project.forms);
+        when(formIndex.findAllFormsByPath(any(Path.class))).thenReturn(project.formsByPath);
+
+        // Form serialization belongs to the form modeler, so a serialized form is only a key.
+        final Map<String, FormDefinition> serializedForms = new ConcurrentHashMap<>();
+        final FormDefinitionSerializer formSerializer = mock(FormDefinitionSerializer.class,
+                                                             stubOnly());
+        when(formSerializer.serialize(any(FormDefinition.class))).then(invocation -> {
+            final FormDefinition form = (FormDefinition) invocation.getArguments()[0];
+            final String serialized = "{\"id\":\"" + form.getId() + "\"}";
+            serializedForms.put(serialized,
+                                form);
+            return serialized;
+        });
+        when(formSerializer.deserialize(anyString())).then(invocation -> serializedForms.get(invocation.getArguments()[0]));
+
+        final FormSourcesGeneratorImpl generator = new FormSourcesGeneratorImpl();
+        Beans.inject(generator,
+                     "ioService",
+                     ioService);
+        Beans.inject(generator,
+                     "projectService",
+                     projectService);
+        Beans.inject(generator,
+                     "dataModelCache",
+                     dataModelCache);
+        Beans.inject(generator,
+                     "packageCache",
+                     new PackageCache(projectService,
+                                      metrics));
+        // The generator output cache is not initialized, so every benchmark iteration generates.
+        Beans.inject(generator,
+                     "outputCache",
+                     new GeneratorOutputCache(metrics));
+        Beans.inject(generator,
+                     "formModelSourceGenerator",
+                     formModelGenerator);
+        Beans.inject(generator,
+                     "formViewSourceGenerator",
+                     formViewGenerator);
+        Beans.inject(generator,
+                     "formViewTemplateGenerator",
+                     formTemplateGenerator);
+        Beans.inject(generator,
+                     "formValidatorSourceGenerator",
+                     formValidatorGenerator);
+        Beans.inject(generator,
+                     "templateRegistry",
+                     templateRegistry);
+        Beans.inject(generator,
+                     "formDefinitionSerializer",
+                     formSerializer);
+        Beans.inject(generator,
+                     "formLayoutTemplateGenerator",
+                     mock(FormLayoutTemplateGenerator.class,
+                          stubOnly()));
+        Beans.inject(generator,
+                     "listViewSourceGenerator",
+                     listViewGenerator);
+        Beans.inject(generator,
+                     "listViewTemplateGenerator",
+                     listTemplateGenerator);
+        Beans.inject(generator,
+                     "restApiSourceGenerator",
+                     restApiGenerator);
+        Beans.inject(generator,
+                     "entityServiceSourceGenerator",
+                     entityServiceGenerator);
+        Beans.inject(generator,
+                     "restImplSourceGenerator",
+                     restImplGenerator);
+        Beans.inject(generator,
+                     "flowProducerSourceGenerator",
+                     flowProducerGenerator);
+        Beans.inject(generator,
+                     "directRestImplSourceGenerator",
+                     directRestImplGenerator);
+        Beans.inject(generator,
+                     "directEntityServiceSourceGenerator",
+                     directEntityServiceGenerator);
+        Beans.inject(generator,
+                     "directFlowProducerSourceGenerator",
+                     directFlowProducerGenerator);
+        Beans.inject(generator,
+                     "mainFlowGenerator",
+                     mainFlowGenerator);
+        Beans.inject(generator,
+                     "serializableTypesGenerator",
+                     new ErraiAppPropertiesGeneratorImpl());
+        Beans.inject(generator,
+                     "entityIndexesGenerator",
+                     new EntityIndexesGenerator());
+        Beans.inject(generator,
+                     "formIndex",
+                     formIndex);
+        Beans.inject(generator,
+                     "dependencyGraph",
+                     new FormDependencyGraph(formIndex));
+        Beans.inject(generator,
+                     "commentedOptionFactory",
+                     mock(CommentedOptionFactory.class,
+                          stubOnly()));
+        Beans.inject(generator,
+                     "generatorExecutor",
+                     generatorExecutor);
+        Beans.inject(generator,
+                     "locks",
+                     Beans.postConstruct(new GenerationLocks(metrics)));
+        Beans.inject(generator,
+                     "sourceWriter",
+                     new GeneratedSourceWriter(ioService,
+                                               metrics));
+        Beans.inject(generator,
+                     "metrics",
+                     metrics);
+        return generator;
+    }
+
+    private Package packageOf(final Package root,
+                              final String relativePath) {
+        return project.packagesByUri.get(root.getPackageMainSrcPath().toURI() + "/" + relativePath);
+    }
+
+    private static MockSettings stubOnly() {
+        return withSettings().stubOnly();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Instance<T> instance(final List<? extends T> beans) {
+        final Instance<T> instance = mock(Instance.class,
+                                          stubOnly());
+        when(instance.iterator()).then(invocation -> ((List<T>) beans).iterator());
+        return instance;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the complete generation of the entity form sources, including the writes to an
+ * in-memory {@link org.uberfire.io.IOService}, both on an empty project and on a project whose
+ * sources are already up to date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormSourcesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FreshProject {
+
+        @Param({"5", "50", "500"})
+        public int fields;
+
+        CodegenFixture fixture;
+
+        @Setup
+        public void setUp() {
+            fixture = new CodegenFixture(fields);
+        }
+
+        @Setup(Level.Invocation)
+        public void clearFiles() {
+            fixture.files.clear();
+        }
+
+        @TearDown
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GeneratedProject {
+
+        @Param({"5", "50", "500"})
+        public int fields;
+
+        CodegenFixture fixture;
+
+        @Setup
+        public void setUp() {
+            fixture = new CodegenFixture(fields);
+            fixture.formSourcesGenerator.generateEntityFormSources(fixture.project.entityForm,
+                                                                   fixture.project.entityFormPath);
+        }
+
+        @TearDown
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    public FormSourcesGenerationResult generateEntity(final FreshProject state) {
+        return state.fixture.formSourcesGenerator.generateEntityFormSources(state.fixture.project.entityForm,
+                                                                            state.fixture.project.entityFormPath);
+    }
+
+    @Benchmark
+    public FormSourcesGenerationResult regenerateUnchangedEntity(final GeneratedProject state) {
+        return state.fixture.formSourcesGenerator.generateEntityFormSources(state.fixture.project.entityForm,
+                                                                            state.fixture.project.entityFormPath);
+    }
+
+    @Benchmark
+    public FormSourcesGenerationResult regenerateProject(final GeneratedProject state) {
+        return state.fixture.formSourcesGenerator.generateProjectFormSources(state.fixture.project.rootPath);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter.Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the individual source generators on the entity form of a {@link SyntheticProject},
+ * without any VFS access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    private static final HTMLTemplateFormatter STREAMING_FORMATTER = new HTMLTemplateFormatter(Format.STREAMING);
+    private static final HTMLTemplateFormatter JSOUP_FORMATTER = new HTMLTemplateFormatter(Format.JSOUP);
+
+    @Param({"5", "50", "500"})
+    public int fields;
+
+    private CodegenFixture fixture;
+    private SourceGenerationContext context;
+    private String unformattedTemplate;
+    private String mainFlowSource;
+
+    @Setup
+    public void setUp() {
+        fixture = new CodegenFixture(fields);
+        context = fixture.entityContext();
+        unformattedTemplate = fixture.renderUnformattedFormTemplate(context);
+        mainFlowSource = fixture.mainFlowGenerator.generateInitialFlowSource(context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String formView() {
+        return fixture.formViewGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String formValidator() {
+        return fixture.formValidatorGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String listView() {
+        return fixture.listViewGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String restImpl() {
+        return fixture.restImplGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String restImplDirect() {
+        return fixture.directRestImplGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String flowProducer() {
+        return fixture.flowProducerGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String flowProducerDirect() {
+        return fixture.directFlowProducerGenerator.generateJavaSource(context);
+    }
+
+    @Benchmark
+    public String formTemplate() {
+        return fixture.formTemplateGenerator.generateHTMLTemplate(context);
+    }
+
+    @Benchmark
+    public String formatTemplate() {
+        return STREAMING_FORMATTER.formatHTMLCode(unformattedTemplate);
+    }
+
+    @Benchmark
+    public String formatTemplateJsoup() {
+        return JSOUP_FORMATTER.formatHTMLCode(unformattedTemplate);
+    }
+
+    @Benchmark
+    public String mainFlowInitial() {
+        return fixture.mainFlowGenerator.generateInitialFlowSource(context);
+    }
+
+    @Benchmark
+    public Optional<String> mainFlowUpdate() {
+        return fixture.mainFlowGenerator.updateSource(context,
+                                                      mainFlowSource);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.NoSuchFileException;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Backs a mocked {@link IOService} with a map of file contents, so that the benchmarks measure the
+ * generators rather than a VFS. Only the operations used by the form source generators are
+ * supported.
+ */
+class InMemoryFiles implements Answer<Object> {
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    private final Set<String> authors = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @Override
+    public Object answer(final InvocationOnMock invocation) {
+        final Object[] args = invocation.getArguments();
+        switch (invocation.getMethod().getName()) {
+            case "exists":
+                return files.containsKey(key(args[0]));
+            case "readAllBytes":
+                return read(args[0]);
+            case "readAllString":
+                return new String(read(args[0]),
+                                  StandardCharsets.UTF_8);
+            case "write":
+                files.put(key(args[0]),
+                          args[1] instanceof byte[] ? (byte[]) args[1] : ((String) args[1]).getBytes(StandardCharsets.UTF_8));
+                recordAuthor(args);
+                return args[0];
+            case "startBatch":
+            case "endBatch":
+                return null;
+            default:
+                throw new UnsupportedOperationException("IOService." + invocation.getMethod().getName());
+        }
+    }
+
+    int size() {
+        return files.size();
+    }
+
+    void clear() {
+        files.clear();
+        authors.clear();
+    }
+
+    /**
+     * @return The names of the authors of the commits made by the writes.
+     */
+    Set<String> authors() {
+        return Collections.unmodifiableSet(authors);
+    }
+
+    private void recordAuthor(final Object[] args) {
+        for (int i = 2; i < args.length; i++) {
+            final Object[] options = args[i] instanceof Object[] ? (Object[]) args[i] : new Object[]{args[i]};
+            for (final Object option : options) {
+                if (option instanceof CommentedOption && ((CommentedOption) option).getName() != null) {
+                    authors.add(((CommentedOption) option).getName());
+                }
+            }
+        }
+    }
+
+    private byte[] read(final Object path) {
+        final byte[] content = files.get(key(path));
+        if (content == null) {
+            throw new NoSuchFileException(key(path));
+        }
+        return content;
+    }
+
+    private static String key(final Object path) {
+        return ((Path) path).toUri().toString();
+    }
+}
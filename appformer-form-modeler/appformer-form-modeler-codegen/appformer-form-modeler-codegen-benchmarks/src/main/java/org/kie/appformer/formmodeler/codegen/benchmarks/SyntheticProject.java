@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.guvnor.common.services.project.model.Package;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.checkBox.definition.CheckBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.datePicker.definition.DatePickerFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.decimalBox.definition.DecimalBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.integerBox.definition.IntegerBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textArea.definition.TextAreaFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.TableColumnMeta;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.multipleSubform.definition.MultipleSubFormFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.datamodeller.core.impl.DataModelImpl;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.ext.layout.editor.api.editor.LayoutColumn;
+import org.uberfire.ext.layout.editor.api.editor.LayoutComponent;
+import org.uberfire.ext.layout.editor.api.editor.LayoutRow;
+import org.uberfire.ext.layout.editor.api.editor.LayoutTemplate;
+
+/**
+ * A synthetic project with one entity of a given number of fields, plus an <code>Address</code>
+ * entity embedded by the first one both as a SubForm and as a MultipleSubForm. The scalar fields
+ * cycle through text, number, decimal, check box, date and text area inputs.
+ */
+class SyntheticProject {
+
+    static final String ROOT_URI = "file:///appformer-benchmarks/project";
+    static final String PACKAGE_NAME = "org.bench";
+    static final String ENTITY_TYPE = PACKAGE_NAME + ".Entity";
+    static final String ADDRESS_TYPE = PACKAGE_NAME + ".Address";
+
+    private static final int ADDRESS_FIELDS = 5;
+    private static final String FIELD_COMPONENT = "org.kie.workbench.common.forms.editor.client.editor.rendering.EditorFieldLayoutComponent";
+
+    final Path rootPath = path(ROOT_URI);
+    final Path entityPath = path(ROOT_URI + "/src/main/java/org/bench/Entity.java");
+    final Path entityFormPath = formPath("Entity");
+
+    final Package defaultPackage;
+    final Package rootPackage;
+    final Map<String, Package> packagesByUri = new LinkedHashMap<>();
+
+    final DataModel dataModel = new DataModelImpl();
+    final FormDefinition entityForm;
+    final FormDefinition addressForm;
+    final List<FormDefinition> forms = new ArrayList<>();
+    final Map<Path, FormDefinition> formsByPath = new LinkedHashMap<>();
+
+    SyntheticProject(final int fieldCount) {
+        defaultPackage = addPackage("");
+        rootPackage = addPackage(PACKAGE_NAME);
+        addPackage(PACKAGE_NAME + ".client");
+        addPackage(PACKAGE_NAME + ".client.local");
+        addPackage(PACKAGE_NAME + ".client.shared");
+        addPackage(PACKAGE_NAME + ".server");
+
+        addressForm = form(ADDRESS_TYPE,
+                           "Address");
+        final DataObject address = dataModel.addDataObject(ADDRESS_TYPE);
+        for (int i = 0; i < ADDRESS_FIELDS; i++) {
+            addField(addressForm,
+                     address,
+                     scalarField(i),
+                     "line" + i,
+                     false);
+        }
+
+        entityForm = form(ENTITY_TYPE,
+                          "Entity");
+        final DataObject entity = dataModel.addDataObject(ENTITY_TYPE);
+        for (int i = 0; i < fieldCount; i++) {
+            addField(entityForm,
+                     entity,
+                     scalarField(i),
+                     "field" + i,
+                     false);
+        }
+
+        final SubFormFieldDefinition subForm = new SubFormFieldDefinition();
+        subForm.setStandaloneClassName(ADDRESS_TYPE);
+        subForm.setNestedForm(addressForm.getId());
+        addField(entityForm,
+                 entity,
+                 subForm,
+                 "address",
+                 false);
+
+        final MultipleSubFormFieldDefinition multipleSubForm = new MultipleSubFormFieldDefinition();
+        multipleSubForm.setStandaloneClassName(ADDRESS_TYPE);
+        multipleSubForm.setCreationForm(addressForm.getId());
+        multipleSubForm.setEditionForm(addressForm.getId());
+        final List<TableColumnMeta> columns = new ArrayList<>();
+        addressForm.getFields().forEach(field -> columns.add(new TableColumnMeta(field.getLabel(),
+                                                                                 field.getBinding())));
+        multipleSubForm.setColumnMetas(columns);
+        addField(entityForm,
+                 entity,
+                 multipleSubForm,
+                 "addresses",
+                 true);
+
+        addForm(addressForm);
+        addForm(entityForm);
+    }
+
+    /**
+     * @return The package containing the given path, or the root package of the entities.
+     */
+    Package resolvePackage(final Path path) {
+        final String uri = path.toURI();
+        final Package exact = packagesByUri.get(uri);
+        if (exact != null) {
+            return exact;
+        }
+
+        final Package parent = packagesByUri.get(uri.substring(0,
+                                                               uri.lastIndexOf('/')));
+        return parent != null ? parent : rootPackage;
+    }
+
+    private Package addPackage(final String name) {
+        final String relativePath = name.isEmpty() ? "" : "/" + name.replace('.',
+                                                                             '/');
+        final Package pkg = new Package(rootPath,
+                                        path(ROOT_URI + "/src/main/java" + relativePath),
+                                        path(ROOT_URI + "/src/test/java" + relativePath),
+                                        path(ROOT_URI + "/src/main/resources" + relativePath),
+                                        path(ROOT_URI + "/src/test/resources" + relativePath),
+                                        name,
+                                        name,
+                                        name);
+        packagesByUri.put(pkg.getPackageMainSrcPath().toURI(),
+                          pkg);
+        packagesByUri.put(pkg.getPackageMainResourcesPath().toURI(),
+                          pkg);
+        return pkg;
+    }
+
+    private void addForm(final FormDefinition form) {
+        forms.add(form);
+        formsByPath.put(formPath(form.getName()),
+                        form);
+    }
+
+    private static FormDefinition form(final String type,
+                                       final String name) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(type);
+        form.setName(name);
+        form.setModel(new DataObjectFormModel(name.toLowerCase(),
+                                              type));
+        form.setLayoutTemplate(new LayoutTemplate());
+        return form;
+    }
+
+    private static void addField(final FormDefinition form,
+                                 final DataObject dataObject,
+                                 final FieldDefinition field,
+                                 final String name,
+                                 final boolean multiple) {
+        field.setId(name);
+        field.setName(name);
+        field.setBinding(name);
+        field.setLabel(name);
+        form.getFields().add(field);
+
+        dataObject.addProperty(name,
+                               field.getStandaloneClassName(),
+                               multiple);
+
+        final LayoutComponent component = new LayoutComponent(FIELD_COMPONENT);
+        component.addProperty("form_id",
+                              form.getId());
+        component.addProperty("field_id",
+                              field.getId());
+        final LayoutColumn column = new LayoutColumn("12");
+        column.add(component);
+        final LayoutRow row = new LayoutRow();
+        row.add(column);
+        form.getLayoutTemplate().addRow(row);
+    }
+
+    private static FieldDefinition scalarField(final int index) {
+        final FieldDefinition field;
+        switch (index % 6) {
+            case 0:
+                field = new TextBoxFieldDefinition();
+                field.setStandaloneClassName(String.class.getName());
+                break;
+            case 1:
+                field = new IntegerBoxFieldDefinition();
+                field.setStandaloneClassName(Integer.class.getName());
+                break;
+            case 2:
+                field = new DecimalBoxFieldDefinition();
+                field.setStandaloneClassName(Double.class.getName());
+                break;
+            case 3:
+                field = new CheckBoxFieldDefinition();
+                field.setStandaloneClassName(Boolean.class.getName());
+                break;
+            case 4:
+                field = new DatePickerFieldDefinition();
+                field.setStandaloneClassName(Date.class.getName());
+                break;
+            default:
+                field = new TextAreaFieldDefinition();
+                field.setStandaloneClassName(String.class.getName());
+        }
+        return field;
+    }
+
+    private static Path formPath(final String formName) {
+        return path(ROOT_URI + "/src/main/resources/org/bench/" + formName + ".frm");
+    }
+
+    private static Path path(final String uri) {
+        return PathFactory.newPath(uri.substring(uri.lastIndexOf('/') + 1),
+                                   uri);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.benchmarks;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationResult;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+
+import static org.junit.Assert.*;
+
+public class CodegenFixtureTest {
+
+    private CodegenFixture fixture;
+
+    @Before
+    public void setUp() {
+        fixture = new CodegenFixture(5);
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testGeneratorsProduceSources() {
+        final SourceGenerationContext context = fixture.entityContext();
+
+        assertTrue(fixture.formViewGenerator.generateJavaSource(context).contains("field4"));
+        assertTrue(fixture.listViewGenerator.generateJavaSource(context).contains("class"));
+        assertTrue(fixture.restImplGenerator.generateJavaSource(context).contains("class"));
+        assertTrue(fixture.formTemplateGenerator.generateHTMLTemplate(context).contains("field4"));
+        assertNotNull(fixture.mainFlowGenerator.generateInitialFlowSource(context));
+    }
+
+    @Test
+    public void testEntityGenerationWritesToMemory() {
+        final FormSourcesGenerationResult result = fixture.formSourcesGenerator.generateEntityFormSources(fixture.project.entityForm,
+                                                                                                          fixture.project.entityFormPath);
+
+        assertFalse(result.getChangedPaths().isEmpty());
+        assertTrue(fixture.files.size() >= result.getChangedPaths().size());
+    }
+
+    @Test
+    public void testGenerationCommitsAsGivenIdentity() {
+        final FormSourcesGenerationResult result = fixture.formSourcesGenerator.generateEntityFormSources(fixture.project.entityForm,
+                                                                                                          fixture.project.entityFormPath,
+                                                                                                          new CommitIdentity("session1",
+                                                                                                                             "alice",
+                                                                                                                             null));
+
+        assertFalse(result.getChangedPaths().isEmpty());
+        assertEquals(Collections.singleton("alice"),
+                     fixture.files.authors());
+    }
+}
@@ -16,9 +16,24 @@
 
 package org.kie.appformer.formmodeler.codegen;
 
+import static org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor.await;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -26,21 +41,39 @@ import javax.inject.Named;
 import org.apache.commons.lang3.StringUtils;
 import org.guvnor.common.services.backend.util.CommentedOptionFactory;
 import org.guvnor.common.services.project.model.Package;
+import org.kie.appformer.formmodeler.codegen.cache.GeneratorOutputCache;
+import org.kie.appformer.formmodeler.codegen.cache.PackageCache;
+import org.kie.appformer.formmodeler.codegen.concurrent.GenerationLocks;
+import org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor;
+import org.kie.appformer.formmodeler.codegen.emitter.JavaEmitter;
 import org.kie.appformer.formmodeler.codegen.flow.FlowLangSourceGenerator;
 import org.kie.appformer.formmodeler.codegen.flow.FlowProducer;
+import org.kie.appformer.formmodeler.codegen.flow.impl.DirectFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.incremental.FormDefinitionDiff;
+import org.kie.appformer.formmodeler.codegen.incremental.FormDependencyGraph;
+import org.kie.appformer.formmodeler.codegen.incremental.GeneratedArtifact;
+import org.kie.appformer.formmodeler.codegen.index.FormIndexImpl;
+import org.kie.appformer.formmodeler.codegen.io.GeneratedSourceWriter;
 import org.kie.appformer.formmodeler.codegen.model.FormModel;
+import org.kie.appformer.formmodeler.codegen.persistence.EntityIndexesGenerator;
 import org.kie.appformer.formmodeler.codegen.rest.EntityService;
 import org.kie.appformer.formmodeler.codegen.rest.RestApi;
 import org.kie.appformer.formmodeler.codegen.rest.RestImpl;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectRestImplSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.FormValidator;
 import org.kie.appformer.formmodeler.codegen.view.FormView;
 import org.kie.appformer.formmodeler.codegen.view.HTMLTemplateGenerator;
 import org.kie.appformer.formmodeler.codegen.view.ListView;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELTemplateRegistry;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter;
 import org.kie.workbench.common.forms.commons.shared.layout.FormLayoutTemplateGenerator;
 import org.kie.workbench.common.forms.commons.shared.layout.Static;
-import org.kie.workbench.common.forms.editor.service.shared.VFSFormFinderService;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.multipleSubform.definition.MultipleSubFormFieldDefinition;
 import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.model.JavaFormModel;
 import org.kie.workbench.common.forms.serialization.FormDefinitionSerializer;
-import org.kie.workbench.common.screens.datamodeller.service.DataModelerService;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
 import org.kie.workbench.common.services.datamodeller.core.DataObject;
 import org.kie.workbench.common.services.shared.project.KieProject;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
@@ -51,12 +84,26 @@ import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.FileSystem;
 
 @ApplicationScoped
 public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
 
+    /**
+     * If true (the default), generating the sources of one entity only adds its type to the
+     * existing ErraiApp.properties instead of rebuilding the file from the project model.
+     */
+    public static final String INCREMENTAL_ERRAI_APP_PROPERTY = "org.kie.appformer.codegen.erraiapp.incremental";
+
     private static transient Logger log = LoggerFactory.getLogger(FormSourcesGeneratorImpl.class);
 
+    private static final String GENERATOR_VERSION = GeneratorOutputCache.generatorVersion();
+
+    private final boolean incrementalSerializableTypes = Boolean.parseBoolean(System.getProperty(INCREMENTAL_ERRAI_APP_PROPERTY,
+                                                                                                 "true"));
+
+    private final Map<GeneratedArtifact, JavaEmitter> javaEmitters = JavaEmitter.fromSystemProperties();
+
     @Inject
     @Named("ioStrategy")
     private IOService ioService;
@@ -65,7 +112,13 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
     private KieProjectService projectService;
 
     @Inject
-    private DataModelerService dataModelerService;
+    private DataModelCache dataModelCache;
+
+    @Inject
+    private PackageCache packageCache;
+
+    @Inject
+    private GeneratorOutputCache outputCache;
 
     @Inject
     @FormModel
@@ -79,6 +132,13 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
     @FormView
     private HTMLTemplateGenerator formViewTemplateGenerator;
 
+    @Inject
+    @FormValidator
+    private JavaSourceGenerator formValidatorSourceGenerator;
+
+    @Inject
+    private MVELTemplateRegistry templateRegistry;
+
     @Inject
     private FormDefinitionSerializer formDefinitionSerializer;
 
@@ -110,6 +170,15 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
     @FlowProducer
     private JavaSourceGenerator flowProducerSourceGenerator;
 
+    @Inject
+    private DirectEntityServiceSourceGenerator directEntityServiceSourceGenerator;
+
+    @Inject
+    private DirectRestImplSourceGenerator directRestImplSourceGenerator;
+
+    @Inject
+    private DirectFlowProducerSourceGenerator directFlowProducerSourceGenerator;
+
     @Inject
     private FlowLangSourceGenerator mainFlowGenerator;
 
@@ -117,199 +186,608 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
     private ErraiAppPropertiesGenerator serializableTypesGenerator;
 
     @Inject
-    private VFSFormFinderService vfsFormFinderService;
+    private EntityIndexesGenerator entityIndexesGenerator;
+
+    @Inject
+    private FormIndex formIndex;
+
+    @Inject
+    private FormDependencyGraph dependencyGraph;
 
     @Inject
     private CommentedOptionFactory commentedOptionFactory;
 
-    @Override
-    public void generateEntityFormSources(final FormDefinition form,
-                                          final Path resourcePath) {
-        final Package resPackage = projectService.resolvePackage(resourcePath);
-        final KieProject project = projectService.resolveProject(resourcePath);
+    @Inject
+    private GeneratorExecutor generatorExecutor;
 
-        final Package root = getRootPackage(resPackage);
+    @Inject
+    private GenerationLocks locks;
 
-        final Package client = getOrCreateClientPackage(root);
-        final Package local = getOrCreateLocalPackage(client);
-        final Package shared = getOrCreateSharedPackage(client);
-        final Package server = getOrCreateServerPackage(root);
+    @Inject
+    private GeneratedSourceWriter sourceWriter;
 
-        final SourceGenerationContext context = new SourceGenerationContext(form,
-                                                                            resourcePath,
-                                                                            root,
-                                                                            local,
-                                                                            shared,
-                                                                            server,
-                                                                            vfsFormFinderService.findAllForms(resourcePath));
+    @Inject
+    private CodegenMetrics metrics;
+
+    /*
+     * The artifacts generated for forms that are not bound to a Data Object of the project.
+     */
+    private static final Set<GeneratedArtifact> FORM_ARTIFACTS = EnumSet.of(GeneratedArtifact.FORM_MODEL,
+                                                                            GeneratedArtifact.FORM_VIEW,
+                                                                            GeneratedArtifact.FORM_VIEW_TEMPLATE,
+                                                                            GeneratedArtifact.FORM_VALIDATOR);
+
+    /*
+     * The packages the sources generated for a form are written to.
+     */
+    private static class TargetPackages {
+
+        final Package root;
+        final Package local;
+        final Package shared;
+        final Package server;
+
+        TargetPackages(final Package root,
+                       final Package local,
+                       final Package shared,
+                       final Package server) {
+            this.root = root;
+            this.local = local;
+            this.shared = shared;
+            this.server = server;
+        }
+    }
 
-        final String formModelSource = formModelSourceGenerator.generateJavaSource(context);
+    /*
+     * The serializable types declaration, and the content of ErraiApp.properties it was generated
+     * from.
+     */
+    private static class SerializableTypes {
 
-        if (form.getLayoutTemplate() == null) {
-            formLayoutTemplateGenerator.generateLayoutTemplate(form);
+        final String basis;
+        final String declaration;
+
+        SerializableTypes(final String basis,
+                          final String declaration) {
+            this.basis = basis;
+            this.declaration = declaration;
         }
+    }
 
-        final String formTemplateLayout = formDefinitionSerializer.serialize(form);
+    /*
+     * The pending generation of the sources of one form.
+     */
+    private static class FormSources {
+
+        final Path resourcePath;
+        final TargetPackages packages;
+        final SourceGenerationContext context;
+        final Map<GeneratedArtifact, CompletableFuture<String>> tasks = new EnumMap<>(GeneratedArtifact.class);
+
+        FormSources(final Path resourcePath,
+                    final TargetPackages packages,
+                    final SourceGenerationContext context) {
+            this.resourcePath = resourcePath;
+            this.packages = packages;
+            this.context = context;
+        }
+    }
 
-        final String formViewSource = formViewSourceGenerator.generateJavaSource(context);
-        final String formViewTemplate = formViewTemplateGenerator.generateHTMLTemplate(context);
+    /*
+     * The user and session are request scoped, so they cannot be resolved outside a request.
+     */
+    @Override
+    public CommitIdentity getCommitIdentity() {
+        try {
+            final CommentedOption option = commentedOptionFactory.makeCommentedOption("");
+            return option != null ? new CommitIdentity(option.getSessionId(),
+                                                       option.getName(),
+                                                       option.getEmail()) : null;
+        } catch (final RuntimeException e) {
+            log.debug("No commit identity on thread {}: {}",
+                      Thread.currentThread().getName(),
+                      e.getMessage());
+            return null;
+        }
+    }
 
-        final String listViewSource = listViewSourceGenerator.generateJavaSource(context);
-        final String listViewTemplate = listViewTemplateGenerator.generateHTMLTemplate(context);
+    @Override
+    public FormSourcesGenerationResult generateEntityFormSources(final FormDefinition form,
+                                                                 final Path resourcePath) {
+        return generateEntityFormSources(form,
+                                         resourcePath,
+                                         getCommitIdentity());
+    }
 
-        final String restApiSource = restApiSourceGenerator.generateJavaSource(context);
-        final String restImplSource = restImplSourceGenerator.generateJavaSource(context);
-        final String entityServiceSource = entityServiceSourceGenerator.generateJavaSource(context);
+    @Override
+    public FormSourcesGenerationResult generateEntityFormSources(final FormDefinition form,
+                                                                 final Path resourcePath,
+                                                                 final CommitIdentity identity) {
+        return metrics.time("generation.entity",
+                            () -> generateEntitySources(form,
+                                                        resourcePath,
+                                                        identity,
+                                                        new FormSourcesGenerationResult()));
+    }
 
-        final String flowProducerSource = flowProducerSourceGenerator.generateJavaSource(context);
+    @Override
+    public FormSourcesGenerationResult generateProjectFormSources(final Path projectPath) {
+        return generateProjectFormSources(projectPath,
+                                          getCommitIdentity());
+    }
 
-        final String mainFlowSource = mainFlowGenerator.generateInitialFlowSource(context);
+    @Override
+    public FormSourcesGenerationResult generateProjectFormSources(final Path projectPath,
+                                                                  final CommitIdentity identity) {
+        return metrics.time("generation.project",
+                            () -> generateProjectSources(projectPath,
+                                                         identity,
+                                                         new FormSourcesGenerationResult()));
+    }
 
-        final String serializableTypesDeclaration = serializableTypesGenerator.generate(getSerializableTypeClassNames(project));
+    @Override
+    public FormSourcesGenerationResult generateFormSources(final FormDefinition form,
+                                                           final Path resourcePath) {
+        return generateFormSources(form,
+                                   resourcePath,
+                                   getCommitIdentity());
+    }
 
-        if (!allNonEmpty(resourcePath,
-                         formModelSource,
-                         formTemplateLayout,
-                         formViewSource,
-                         formViewTemplate,
-                         listViewSource,
-                         listViewTemplate,
-                         restApiSource,
-                         restImplSource,
-                         entityServiceSource,
-                         flowProducerSource,
-                         mainFlowSource,
-                         serializableTypesDeclaration)) {
+    @Override
+    public FormSourcesGenerationResult generateFormSources(final FormDefinition form,
+                                                           final Path resourcePath,
+                                                           final CommitIdentity identity) {
+        return metrics.time("generation.form",
+                            () -> generateStandaloneFormSources(form,
+                                                                resourcePath,
+                                                                identity,
+                                                                new FormSourcesGenerationResult()));
+    }
+
+    @Override
+    public FormSourcesDiff diffEntityFormSources(final FormDefinition form,
+                                                 final Path resourcePath) {
+        return metrics.time("generation.diff",
+                            () -> generateEntitySources(form,
+                                                        resourcePath,
+                                                        null,
+                                                        new FormSourcesDiff()));
+    }
+
+    @Override
+    public FormSourcesDiff diffFormSources(final FormDefinition form,
+                                           final Path resourcePath) {
+        return metrics.time("generation.diff",
+                            () -> generateStandaloneFormSources(form,
+                                                                resourcePath,
+                                                                null,
+                                                                new FormSourcesDiff()));
+    }
+
+    @Override
+    public FormSourcesDiff diffProjectFormSources(final Path projectPath) {
+        return metrics.time("generation.diff",
+                            () -> generateProjectSources(projectPath,
+                                                         null,
+                                                         new FormSourcesDiff()));
+    }
+
+    /*
+     * The result collects the outcome of every write. A FormSourcesDiff turns the generation into a
+     * dry run: the writer records the generated files in it and no package is created. Every
+     * write is committed as the given identity.
+     *
+     * Generating the sources of a form holds the lock of its project shared, so that saves in the
+     * same project only wait for each other on the files they both write.
+     */
+    private <R extends FormSourcesGenerationResult> R generateEntitySources(final FormDefinition form,
+                                                                            final Path resourcePath,
+                                                                            final CommitIdentity identity,
+                                                                            final R result) {
+        final KieProject project = projectService.resolveProject(resourcePath);
+        try (final GenerationLocks.Held projectLock = locks.lockProject(project.getRootPath().toURI(),
+                                                                        false)) {
+            return generateEntitySources(form,
+                                         resourcePath,
+                                         project,
+                                         identity,
+                                         result);
+        }
+    }
+
+    private <R extends FormSourcesGenerationResult> R generateEntitySources(final FormDefinition form,
+                                                                            final Path resourcePath,
+                                                                            final KieProject project,
+                                                                            final CommitIdentity identity,
+                                                                            final R result) {
+        final boolean dryRun = result instanceof FormSourcesDiff;
+        final TargetPackages packages = resolveTargetPackages(packageCache.resolvePackage(resourcePath),
+                                                              true,
+                                                              dryRun);
+
+        // The layout is generated in place on the form, so it must exist before any generator runs.
+        if (form.getLayoutTemplate() == null) {
+            formLayoutTemplateGenerator.generateLayoutTemplate(form);
+        }
+
+        final Optional<FormDefinition> previous = readPreviousForm(form,
+                                                                   packages.shared);
+        final List<FormDefinition> projectForms = withForm(formIndex.findAllForms(resourcePath),
+                                                           form);
+        final FormSources sources = submitFormSources(form,
+                                                      resourcePath,
+                                                      packages,
+                                                      projectForms,
+                                                      EnumSet.allOf(GeneratedArtifact.class),
+                                                      getAffectedArtifacts(previous,
+                                                                           form));
+        final List<FormSources> dependentSources = submitDependentSources(previous.orElse(null),
+                                                                          form,
+                                                                          resourcePath,
+                                                                          projectForms,
+                                                                          dryRun);
+        final CompletableFuture<String> mainFlowTask = generatorExecutor.submit(metrics.timed("generator.MAIN_FLOW",
+                                                                                              () -> mainFlowGenerator.generateInitialFlowSource(sources.context)));
+        final CompletableFuture<SerializableTypes> serializableTypesTask = generatorExecutor.submit(metrics.timed("generator.ERRAI_APP_PROPERTIES",
+                                                                                                                  () -> generateSerializableTypes(project,
+                                                                                                                                                  form)));
+
+        final Optional<Map<GeneratedArtifact, String>> generated = awaitFormSources(sources);
+        final Map<FormSources, Map<GeneratedArtifact, String>> dependents = awaitDependentSources(dependentSources);
+        final String mainFlowSource = await(mainFlowTask);
+        final SerializableTypes serializableTypes = await(serializableTypesTask);
+
+        if (!generated.isPresent() || !allNonEmpty(resourcePath,
+                                                   mainFlowSource,
+                                                   serializableTypes.declaration)) {
             log.warn("Unable to generate the required form assets for Data Object: {}",
                      resourcePath);
-            return;
+            return result;
         }
 
         final org.uberfire.java.nio.file.Path parent = Paths.convert(resourcePath).getParent();
 
-        ioService.startBatch(parent.getFileSystem());
+        startBatch(parent.getFileSystem(),
+                   dryRun);
         try {
-            writeJavaSource(resourcePath,
-                            context.getFormModelName(),
-                            formModelSource,
-                            shared);
-            writeFormTemplate(resourcePath,
-                              form.getName(),
-                              formTemplateLayout,
-                              shared);
+            writeFormSources(sources,
+                             generated.get(),
+                             identity,
+                             result);
+            dependents.forEach((dependent, sourceFiles) -> writeFormSources(dependent,
+                                                                             sourceFiles,
+                                                                             identity,
+                                                                             result));
+
+            writeSerializableTypes(serializableTypes,
+                                   project,
+                                   form,
+                                   identity,
+                                   result);
+            writeEntityIndexes(project,
+                               projectForms,
+                               identity,
+                               result);
+
+            writeFlowSource(resourcePath,
+                            "Main",
+                            mainFlowSource,
+                            packages.local,
+                            Collections.singletonList(sources.context),
+                            identity,
+                            result);
+        } catch (final Exception e) {
+            log.error("It was not possible to generate form sources for file: " + resourcePath + " due to the following errors.",
+                      e);
+        } finally {
+            endBatch(dryRun);
+        }
 
-            writeJavaSource(resourcePath,
-                            context.getFormViewName(),
-                            formViewSource,
-                            local);
-            writeJavaSource(resourcePath,
-                            context.getListViewName(),
-                            listViewSource,
-                            local);
-            writeJavaSource(resourcePath,
-                            context.getFlowProducerName(),
-                            flowProducerSource,
-                            local);
-            writeJavaSource(resourcePath,
-                            context.getRestServiceName(),
-                            restApiSource,
-                            shared);
-            writeJavaSource(resourcePath,
-                            context.getRestServiceImplName(),
-                            restImplSource,
-                            server);
-            writeJavaSource(resourcePath,
-                            context.getEntityServiceName(),
-                            entityServiceSource,
-                            server);
+        log.debug("Generated sources for {}: {}",
+                  resourcePath,
+                  result);
+        return result;
+    }
 
-            writeHTMLSource(resourcePath,
-                            context.getFormViewName(),
-                            formViewTemplate,
-                            local);
-            writeHTMLSource(resourcePath,
-                            context.getListViewName(),
-                            listViewTemplate,
-                            local);
-
-            writeErraiAppProperties(serializableTypesDeclaration,
-                                    project);
-
-            maybeWriteFlowSource(resourcePath,
-                                 "Main",
-                                 mainFlowSource,
-                                 local);
-            maybeUpdateFlowSourceImports(resourcePath,
-                                         "Main",
-                                         local,
-                                         context);
+    /*
+     * Regenerating a project holds its lock exclusively, so that no form of the project is
+     * generated at the same time.
+     */
+    private <R extends FormSourcesGenerationResult> R generateProjectSources(final Path projectPath,
+                                                                             final CommitIdentity identity,
+                                                                             final R result) {
+        final KieProject project = projectService.resolveProject(projectPath);
+        if (project == null) {
+            log.warn("Unable to regenerate form sources: {} is not in a project.",
+                     projectPath);
+            return result;
+        }
+
+        try (final GenerationLocks.Held projectLock = locks.lockProject(project.getRootPath().toURI(),
+                                                                        true)) {
+            return generateProjectSources(projectPath,
+                                          project,
+                                          identity,
+                                          result);
+        }
+    }
+
+    private <R extends FormSourcesGenerationResult> R generateProjectSources(final Path projectPath,
+                                                                             final KieProject project,
+                                                                             final CommitIdentity identity,
+                                                                             final R result) {
+        final boolean dryRun = result instanceof FormSourcesDiff;
+        final long start = System.currentTimeMillis();
+        final DataModel dataModel = dataModelCache.getDataModel(project);
+        final Map<Path, FormDefinition> forms = withoutGeneratedCopies(formIndex.findAllFormsByPath(projectPath));
+        final List<FormDefinition> projectForms = new ArrayList<>(forms.values());
+        final Map<String, TargetPackages> packagesByName = new HashMap<>();
+
+        final List<FormSources> entitySources = new ArrayList<>();
+        final List<FormSources> formSources = new ArrayList<>();
+        forms.forEach((formPath, form) -> {
+            if (form.getLayoutTemplate() == null) {
+                log.warn("Skipping form {} without layout.",
+                         formPath);
+                return;
+            }
+            final boolean entity = dataModel.getDataObject(form.getId()) != null;
+            final Package resPackage = packageCache.resolvePackage(formPath);
+            final TargetPackages packages = packagesByName.computeIfAbsent(resPackage.getPackageName() + ":" + entity,
+                                                                           key -> resolveTargetPackages(resPackage,
+                                                                                                        entity,
+                                                                                                        dryRun));
+            final FormSources sources = submitFormSources(form,
+                                                          formPath,
+                                                          packages,
+                                                          projectForms,
+                                                          entity ? EnumSet.allOf(GeneratedArtifact.class) : FORM_ARTIFACTS,
+                                                          entity ? EnumSet.allOf(GeneratedArtifact.class) : FORM_ARTIFACTS);
+            (entity ? entitySources : formSources).add(sources);
+        });
+        final CompletableFuture<String> serializableTypesTask = generatorExecutor.submit(metrics.timed("generator.ERRAI_APP_PROPERTIES",
+                                                                                                       () -> serializableTypesGenerator.generate(getSerializableTypeClassNames(project))));
+
+        final Map<FormSources, Map<GeneratedArtifact, String>> generated = new LinkedHashMap<>();
+        for (final FormSources sources : concat(entitySources,
+                                                formSources)) {
+            final Optional<Map<GeneratedArtifact, String>> sourceFiles = awaitFormSources(sources);
+            if (sourceFiles.isPresent()) {
+                generated.put(sources,
+                              sourceFiles.get());
+            } else {
+                log.warn("Unable to generate the required form assets for: {}",
+                         sources.resourcePath);
+            }
+        }
+        final String serializableTypesDeclaration = await(serializableTypesTask);
+
+        startBatch(Paths.convert(projectPath).getFileSystem(),
+                   dryRun);
+        try {
+            generated.forEach((sources, sourceFiles) -> writeFormSources(sources,
+                                                                         sourceFiles,
+                                                                         identity,
+                                                                         result));
+
+            if (!StringUtils.isEmpty(serializableTypesDeclaration)) {
+                writeErraiAppProperties(serializableTypesDeclaration,
+                                        erraiAppPropertiesPath(project),
+                                        identity,
+                                        result);
+            }
+            writeEntityIndexes(project,
+                               projectForms,
+                               identity,
+                               result);
+
+            if (!entitySources.isEmpty()) {
+                final FormSources first = entitySources.get(0);
+                writeFlowSource(projectPath,
+                                "Main",
+                                mainFlowGenerator.generateInitialFlowSource(first.context),
+                                first.packages.local,
+                                entitySources.stream().map(sources -> sources.context).collect(Collectors.toList()),
+                                identity,
+                                result);
+            }
         } catch (final Exception e) {
-            log.error("It was not possible to generate form sources for file: " + resourcePath + " due to the following errors.",
+            log.error("It was not possible to regenerate form sources for project: " + projectPath + " due to the following errors.",
                       e);
         } finally {
-            ioService.endBatch();
+            endBatch(dryRun);
         }
+
+        log.info("{} sources of {} forms in project {} in {} ms: {} files changed, {} unchanged.",
+                 dryRun ? "Compared" : "Regenerated",
+                 generated.size(),
+                 project.getProjectName(),
+                 System.currentTimeMillis() - start,
+                 result.getChangedPaths().size(),
+                 result.getUnchangedPaths().size());
+        return result;
     }
 
-    @Override
-    public void generateFormSources(final FormDefinition form,
-                                    final Path resourcePath) {
-        final Package resPackage = projectService.resolvePackage(resourcePath);
+    /*
+     * The layout of every generated form is also written to the client.shared package, so the
+     * project holds two forms with the same id. Only one form is kept per id: the original one,
+     * unless it no longer exists.
+     */
+    private Map<Path, FormDefinition> withoutGeneratedCopies(final Map<Path, FormDefinition> forms) {
+        final Map<String, Path> pathsById = new LinkedHashMap<>();
+        forms.forEach((formPath, form) -> pathsById.merge(form.getId(),
+                                                          formPath,
+                                                          (kept, other) -> isGeneratedCopy(kept) ? other : kept));
+
+        final Map<Path, FormDefinition> unique = new LinkedHashMap<>();
+        pathsById.values().forEach(formPath -> unique.put(formPath,
+                                                          forms.get(formPath)));
+        return unique;
+    }
+
+    private boolean isGeneratedCopy(final Path formPath) {
+        final Package formPackage = packageCache.resolvePackage(formPath);
+        return formPackage != null && formPackage.getPackageName().endsWith("client.shared");
+    }
 
+    private <R extends FormSourcesGenerationResult> R generateStandaloneFormSources(final FormDefinition form,
+                                                                                    final Path resourcePath,
+                                                                                    final CommitIdentity identity,
+                                                                                    final R result) {
+        final Package resPackage = packageCache.resolvePackage(resourcePath);
+        try (final GenerationLocks.Held projectLock = locks.lockProject(resPackage.getProjectRootPath().toURI(),
+                                                                        false)) {
+            return generateStandaloneFormSources(form,
+                                                 resourcePath,
+                                                 resPackage,
+                                                 identity,
+                                                 result);
+        }
+    }
+
+    private <R extends FormSourcesGenerationResult> R generateStandaloneFormSources(final FormDefinition form,
+                                                                                    final Path resourcePath,
+                                                                                    final Package resPackage,
+                                                                                    final CommitIdentity identity,
+                                                                                    final R result) {
+        final boolean dryRun = result instanceof FormSourcesDiff;
         final Package root = getRootPackage(resPackage);
 
-        final Package client = getOrCreateClientPackage(root);
-        final Package local = getOrCreateLocalPackage(client);
-        final Package shared = getOrCreateSharedPackage(client);
+        final Package client = getOrCreateClientPackage(root,
+                                                        dryRun);
+        final Package local = getOrCreateLocalPackage(client,
+                                                      dryRun);
+        final Package shared = getOrCreateSharedPackage(client,
+                                                        dryRun);
 
+        final List<FormDefinition> projectForms = withForm(formIndex.findAllForms(resourcePath),
+                                                           form);
         final SourceGenerationContext context = new SourceGenerationContext(form,
                                                                             resourcePath,
                                                                             root,
                                                                             local,
                                                                             shared,
                                                                             null,
-                                                                            vfsFormFinderService.findAllForms(resourcePath));
-
-        final String modelSource = formModelSourceGenerator.generateJavaSource(context);
-
-        final String javaTemplate = formViewSourceGenerator.generateJavaSource(context);
-        final String htmlTemplate = formViewTemplateGenerator.generateHTMLTemplate(context);
+                                                                            projectForms);
+
+        final String inputDigest = inputDigest(context);
+        final CompletableFuture<String> modelTask = generatorExecutor.submit(generator(GeneratedArtifact.FORM_MODEL,
+                                                                                       context,
+                                                                                       inputDigest));
+        final CompletableFuture<String> javaTemplateTask = generatorExecutor.submit(generator(GeneratedArtifact.FORM_VIEW,
+                                                                                             context,
+                                                                                             inputDigest));
+        final CompletableFuture<String> htmlTemplateTask = generatorExecutor.submit(generator(GeneratedArtifact.FORM_VIEW_TEMPLATE,
+                                                                                              context,
+                                                                                              inputDigest));
+        final CompletableFuture<String> validatorTask = generatorExecutor.submit(generator(GeneratedArtifact.FORM_VALIDATOR,
+                                                                                           context,
+                                                                                           inputDigest));
+        // The version the embedding views were generated from is not known, so they are all checked.
+        final List<FormSources> dependentSources = submitDependentSources(null,
+                                                                          form,
+                                                                          resourcePath,
+                                                                          projectForms,
+                                                                          dryRun);
+
+        final String modelSource = await(modelTask);
+        final String javaTemplate = await(javaTemplateTask);
+        final String htmlTemplate = await(htmlTemplateTask);
+        final String validatorSource = await(validatorTask);
+        final Map<FormSources, Map<GeneratedArtifact, String>> dependents = awaitDependentSources(dependentSources);
 
         if (!allNonEmpty(resourcePath,
                          modelSource,
                          javaTemplate,
-                         htmlTemplate)) {
+                         htmlTemplate,
+                         validatorSource)) {
             log.warn("Unable to generate the required form assets for Data Object: {}",
                      resourcePath);
-            return;
+            return result;
         }
 
         final org.uberfire.java.nio.file.Path parent = Paths.convert(resourcePath).getParent();
 
-        ioService.startBatch(parent.getFileSystem());
+        startBatch(parent.getFileSystem(),
+                   dryRun);
         try {
             writeJavaSource(resourcePath,
                             context.getFormModelName(),
                             modelSource,
-                            shared);
+                            shared,
+                            identity,
+                            result);
             writeJavaSource(resourcePath,
                             context.getFormViewName(),
                             javaTemplate,
-                            local);
+                            local,
+                            identity,
+                            result);
             writeHTMLSource(resourcePath,
                             context.getFormViewName(),
                             htmlTemplate,
-                            local);
+                            local,
+                            identity,
+                            result);
+            writeJavaSource(resourcePath,
+                            context.getFormValidatorName(),
+                            validatorSource,
+                            local,
+                            identity,
+                            result);
+            dependents.forEach((dependent, sourceFiles) -> writeFormSources(dependent,
+                                                                             sourceFiles,
+                                                                             identity,
+                                                                             result));
         } catch (final Exception e) {
             log.error("It was not possible to generate form sources for file: " + resourcePath + " due to the following errors.",
                       e);
         } finally {
-            ioService.endBatch();
+            endBatch(dryRun);
         }
+
+        log.debug("Generated sources for {}: {}",
+                  resourcePath,
+                  result);
+        return result;
+    }
+
+    private SerializableTypes generateSerializableTypes(final KieProject project,
+                                                        final FormDefinition form) {
+        final String existing = readIfExists(erraiAppPropertiesPath(project));
+        return new SerializableTypes(existing,
+                                     generateSerializableTypes(project,
+                                                               form,
+                                                               existing));
+    }
+
+    /*
+     * In incremental mode the types declared in the existing ErraiApp.properties are kept in
+     * their order, and the type of the form is appended if missing. The project model is only
+     * scanned if the file does not exist or declares no types.
+     */
+    private String generateSerializableTypes(final KieProject project,
+                                             final FormDefinition form,
+                                             final String existing) {
+        if (incrementalSerializableTypes && form.getModel() instanceof JavaFormModel && existing != null) {
+            final Optional<List<String>> declaredTypes = serializableTypesGenerator.parseSerializableTypes(existing);
+            if (declaredTypes.isPresent()) {
+                final String type = ((JavaFormModel) form.getModel()).getType();
+                if (declaredTypes.get().contains(type)) {
+                    return existing;
+                }
+
+                final List<String> types = new ArrayList<>(declaredTypes.get());
+                types.add(type);
+                return serializableTypesGenerator.generate(types);
+            }
+        }
+
+        return serializableTypesGenerator.generate(getSerializableTypeClassNames(project));
     }
 
     private Collection<String> getSerializableTypeClassNames(final KieProject project) {
-        final Set<DataObject> dataObjects = dataModelerService.loadModel(project).getDataObjects();
+        final Set<DataObject> dataObjects = dataModelCache.getDataModel(project).getDataObjects();
         final Collection<String> retVal = new ArrayList<>(dataObjects.size());
 
         for (final DataObject dataObject : dataObjects) {
@@ -324,63 +802,196 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
 
     private boolean isNotDerivedObject(final String className) {
         // TODO figure out a less hacky implementation of this method
-        return !(className.endsWith(SourceGenerationContext.ENTITY_SERVICE_SUFFIX)
-                || className.endsWith(SourceGenerationContext.FORM_MODEL_SUFFIX)
-                || className.endsWith(SourceGenerationContext.FORM_VIEW_SUFFIX)
-                || className.endsWith(SourceGenerationContext.LIST_VIEW_SUFFIX)
-                || className.endsWith(SourceGenerationContext.REST_IMPL_SUFFIX)
-                || className.endsWith(SourceGenerationContext.REST_SERVICE_SUFFIX)
+        return !(SourceGenerationContext.isGeneratedClassName(className)
                 || className.contains(".builtin.")
                 || className.contains(".server.")
                 || className.contains(".backend."));
     }
 
+    /*
+     * The declaration was generated from ErraiApp.properties as it was before the sources were
+     * generated. If another save has changed the file since, the declaration is generated again
+     * from its current content while the file is locked, so that the type added by the other save
+     * is not lost.
+     */
+    private void writeSerializableTypes(final SerializableTypes serializableTypes,
+                                        final KieProject project,
+                                        final FormDefinition form,
+                                        final CommitIdentity identity,
+                                        final FormSourcesGenerationResult result) {
+        final org.uberfire.java.nio.file.Path filePath = erraiAppPropertiesPath(project);
+        try (final GenerationLocks.Held fileLock = locks.lockFile(filePath.toUri().toString())) {
+            final String current = readIfExists(filePath);
+            final String declaration;
+            if (Objects.equals(current,
+                               serializableTypes.basis)) {
+                declaration = serializableTypes.declaration;
+            } else {
+                log.debug("{} changed during generation, merging the serializable types again.",
+                          filePath);
+                declaration = generateSerializableTypes(project,
+                                                        form,
+                                                        current);
+            }
+            writeErraiAppProperties(declaration,
+                                    filePath,
+                                    identity,
+                                    result);
+        }
+    }
+
     private void writeErraiAppProperties(final String serializableTypesDeclaration,
-                                         final KieProject project) {
+                                         final org.uberfire.java.nio.file.Path filePath,
+                                         final CommitIdentity identity,
+                                         final FormSourcesGenerationResult result) {
+        try (final GenerationLocks.Held fileLock = locks.lockFile(filePath.toUri().toString())) {
+            sourceWriter.write(filePath,
+                               serializableTypesDeclaration,
+                               makeCommentedOption(identity,
+                                                   "Updated ErraiApp.properties."),
+                               result);
+        }
+    }
+
+    /*
+     * The indexes of every form of the project are declared in its mapping file. A mapping file
+     * that was not generated is never replaced, and none is created while no index is needed.
+     */
+    private void writeEntityIndexes(final KieProject project,
+                                    final List<FormDefinition> projectForms,
+                                    final CommitIdentity identity,
+                                    final FormSourcesGenerationResult result) {
+        if (!entityIndexesGenerator.isEnabled()) {
+            return;
+        }
+
+        final org.uberfire.java.nio.file.Path filePath = Paths.convert(projectService.resolveDefaultPackage(project).getPackageMainResourcesPath())
+                .resolve(EntityIndexesGenerator.MAPPING_FILE);
+        try (final GenerationLocks.Held fileLock = locks.lockFile(filePath.toUri().toString())) {
+            final String existing = readIfExists(filePath);
+            if (!entityIndexesGenerator.isGenerated(existing)) {
+                log.debug("Not generating entity indexes, {} was not generated.",
+                          filePath);
+                return;
+            }
+
+            final DataModel dataModel = dataModelCache.getDataModel(project);
+            final Map<String, List<EntityIndexesGenerator.EntityIndex>> indexes = entityIndexesGenerator.getIndexes(projectForms,
+                                                                                                                    dataModel);
+            if (indexes.isEmpty() && existing == null) {
+                return;
+            }
+            sourceWriter.write(filePath,
+                               metrics.time("generator.ENTITY_INDEXES",
+                                            () -> entityIndexesGenerator.generate(indexes,
+                                                                                  dataModel)),
+                               makeCommentedOption(identity,
+                                                   "Updated entity indexes."),
+                               result);
+        }
+    }
+
+    private String readIfExists(final org.uberfire.java.nio.file.Path path) {
+        return ioService.exists(path) ? ioService.readAllString(path) : null;
+    }
+
+    private org.uberfire.java.nio.file.Path erraiAppPropertiesPath(final KieProject project) {
         final Package defaultPackage = projectService.resolveDefaultPackage(project);
         final Path resourceRoot = defaultPackage.getPackageMainResourcesPath();
 
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(resourceRoot);
-        final org.uberfire.java.nio.file.Path filePath = parentPath.resolve("ErraiApp.properties");
-        ioService.write(filePath,
-                        serializableTypesDeclaration,
-                        makeCommentedOption("Updated ErraiApp.properties."));
+        return Paths.convert(resourceRoot).resolve("ErraiApp.properties");
     }
 
-    private Package getOrCreateServerPackage(final Package root) {
+    private Package getOrCreateServerPackage(final Package root,
+                                             final boolean dryRun) {
         return getOrCreateSubpackage(root,
-                                     "server");
+                                     "server",
+                                     dryRun);
     }
 
-    private Package getOrCreateSharedPackage(final Package client) {
+    private Package getOrCreateSharedPackage(final Package client,
+                                             final boolean dryRun) {
         return getOrCreateSubpackage(client,
-                                     "shared");
+                                     "shared",
+                                     dryRun);
     }
 
-    private Package getOrCreateLocalPackage(final Package client) {
+    private Package getOrCreateLocalPackage(final Package client,
+                                            final boolean dryRun) {
         return getOrCreateSubpackage(client,
-                                     "local");
+                                     "local",
+                                     dryRun);
     }
 
-    private Package getOrCreateClientPackage(final Package root) {
+    private Package getOrCreateClientPackage(final Package root,
+                                             final boolean dryRun) {
         return getOrCreateSubpackage(root,
-                                     "client");
+                                     "client",
+                                     dryRun);
     }
 
+    /*
+     * In a dry run a missing package is not created. The returned package only describes the
+     * paths it would have, so that the generated files can be reported at their target paths.
+     */
     private Package getOrCreateSubpackage(final Package root,
-                                          final String subPackage) {
-        final Path fullPath = PathFactory.newPath("/",
-                                                  root.getPackageMainSrcPath().toURI() + "/" + subPackage);
-        Package resolved = projectService.resolvePackage(fullPath);
-
-        if (resolved == null) {
-            resolved = projectService.newPackage(root,
-                                                 subPackage);
+                                          final String subPackage,
+                                          final boolean dryRun) {
+        Package resolved = packageCache.resolveSubpackage(root,
+                                                          subPackage);
+
+        if (resolved == null && dryRun) {
+            final String packageName = root.getPackageName().isEmpty() ? subPackage : root.getPackageName() + "." + subPackage;
+            resolved = new Package(root.getProjectRootPath(),
+                                   subPath(root.getPackageMainSrcPath(),
+                                           subPackage),
+                                   subPath(root.getPackageTestSrcPath(),
+                                           subPackage),
+                                   subPath(root.getPackageMainResourcesPath(),
+                                           subPackage),
+                                   subPath(root.getPackageTestResourcesPath(),
+                                           subPackage),
+                                   packageName,
+                                   subPackage,
+                                   packageName);
+        } else if (resolved == null) {
+            // Concurrent saves may both find the package missing, only the first one creates it.
+            try (final GenerationLocks.Held packageLock = locks.lockPackage(subPath(root.getPackageMainSrcPath(),
+                                                                                    subPackage).toURI())) {
+                resolved = packageCache.resolveSubpackage(root,
+                                                          subPackage);
+                if (resolved == null) {
+                    resolved = projectService.newPackage(root,
+                                                         subPackage);
+                    if (resolved != null) {
+                        packageCache.put(resolved);
+                    }
+                }
+            }
         }
 
         return resolved;
     }
 
+    private static Path subPath(final Path parent,
+                                final String name) {
+        return PathFactory.newPath(name,
+                                   parent.toURI() + "/" + name);
+    }
+
+    private void startBatch(final FileSystem fileSystem,
+                            final boolean dryRun) {
+        if (!dryRun) {
+            ioService.startBatch(fileSystem);
+        }
+    }
+
+    private void endBatch(final boolean dryRun) {
+        if (!dryRun) {
+            ioService.endBatch();
+        }
+    }
+
     private Package getRootPackage(final Package resPackage) {
         if (!resPackage.getPackageName().endsWith("client.shared")) {
             return resPackage;
@@ -405,77 +1016,517 @@ public class FormSourcesGeneratorImpl implements FormSourcesGenerator {
         return true;
     }
 
-    private void writeFormTemplate(final Path dataObjectPath,
-                                   final String name,
-                                   final String formTemplate,
-                                   final Package sourcePackage) {
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(sourcePackage.getPackageMainResourcesPath());
-        final org.uberfire.java.nio.file.Path htmlPath = parentPath.resolve(name + ".frm");
+    /*
+     * Submits the generation of the given artifacts of a form. Artifacts that are not affected by
+     * the changes to the form since the last generation are not generated again. The form view
+     * refers to the form validator, so the validator is submitted with it and generated if it
+     * does not exist yet.
+     */
+    private FormSources submitFormSources(final FormDefinition form,
+                                          final Path resourcePath,
+                                          final TargetPackages packages,
+                                          final List<FormDefinition> projectForms,
+                                          final Set<GeneratedArtifact> artifacts,
+                                          final Set<GeneratedArtifact> affected) {
+        final SourceGenerationContext context = new SourceGenerationContext(form,
+                                                                            resourcePath,
+                                                                            packages.root,
+                                                                            packages.local,
+                                                                            packages.shared,
+                                                                            packages.server,
+                                                                            projectForms);
+        final FormSources sources = new FormSources(resourcePath,
+                                                    packages,
+                                                    context);
+        final String inputDigest = inputDigest(context);
+        final Set<GeneratedArtifact> submitted = EnumSet.noneOf(GeneratedArtifact.class);
+        submitted.addAll(artifacts);
+        if (submitted.contains(GeneratedArtifact.FORM_VIEW)) {
+            submitted.add(GeneratedArtifact.FORM_VALIDATOR);
+        }
+        for (final GeneratedArtifact artifact : submitted) {
+            sources.tasks.put(artifact,
+                              generateIfAffected(affected,
+                                                 artifact,
+                                                 targetPath(artifact,
+                                                            context,
+                                                            packages),
+                                                 generator(artifact,
+                                                           context,
+                                                           inputDigest)));
+        }
+        return sources;
+    }
+
+    /*
+     * Submits the generation of the artifacts of other forms affected by the change of the given
+     * form. Dependent forms without a layout are skipped, like in project regeneration.
+     */
+    private List<FormSources> submitDependentSources(final FormDefinition previous,
+                                                     final FormDefinition form,
+                                                     final Path resourcePath,
+                                                     final List<FormDefinition> projectForms,
+                                                     final boolean dryRun) {
+        final Map<Path, Set<GeneratedArtifact>> dependents = dependencyGraph.getDependentArtifacts(previous,
+                                                                                                   form,
+                                                                                                   resourcePath);
+        if (dependents.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        ioService.write(htmlPath,
-                        formTemplate,
-                        makeCommentedOption("Added HTML Source for Form Template '" + dataObjectPath + "'"));
+        final Map<Path, FormDefinition> forms = formIndex.findAllFormsByPath(resourcePath);
+        final List<FormSources> dependentSources = new ArrayList<>(dependents.size());
+        dependents.forEach((formPath, artifacts) -> {
+            final FormDefinition dependent = forms.get(formPath);
+            if (dependent == null || dependent.getLayoutTemplate() == null) {
+                return;
+            }
+            log.debug("Regenerating {} of {} after changes to form {}.",
+                      artifacts,
+                      formPath,
+                      form.getName());
+            dependentSources.add(submitFormSources(dependent,
+                                                   formPath,
+                                                   resolveTargetPackages(packageCache.resolvePackage(formPath),
+                                                                         false,
+                                                                         dryRun),
+                                                   projectForms,
+                                                   artifacts,
+                                                   artifacts));
+        });
+        return dependentSources;
+    }
+
+    private Map<FormSources, Map<GeneratedArtifact, String>> awaitDependentSources(final List<FormSources> dependentSources) {
+        final Map<FormSources, Map<GeneratedArtifact, String>> generated = new LinkedHashMap<>();
+        for (final FormSources sources : dependentSources) {
+            try {
+                awaitFormSources(sources).ifPresent(sourceFiles -> generated.put(sources,
+                                                                                 sourceFiles));
+            } catch (final RuntimeException e) {
+                log.warn("Unable to regenerate the sources of dependent form {}: {}",
+                         sources.resourcePath,
+                         e.getMessage());
+            }
+        }
+        return generated;
+    }
+
+    /*
+     * The forms of the project, with the given version of the form replacing the indexed one.
+     */
+    private static List<FormDefinition> withForm(final List<FormDefinition> projectForms,
+                                                 final FormDefinition form) {
+        final List<FormDefinition> forms = new ArrayList<>(projectForms.size() + 1);
+        for (final FormDefinition projectForm : projectForms) {
+            if (!projectForm.getId().equals(form.getId())) {
+                forms.add(projectForm);
+            }
+        }
+        forms.add(form);
+        return forms;
+    }
+
+    private Optional<Map<GeneratedArtifact, String>> awaitFormSources(final FormSources sources) {
+        final Map<GeneratedArtifact, String> generated = new EnumMap<>(GeneratedArtifact.class);
+        for (final Map.Entry<GeneratedArtifact, CompletableFuture<String>> task : sources.tasks.entrySet()) {
+            generated.put(task.getKey(),
+                          await(task.getValue()));
+        }
+
+        if (!allNonEmpty(sources.resourcePath,
+                         generated.values().toArray(new String[generated.size()]))) {
+            return Optional.empty();
+        }
+        return Optional.of(generated);
+    }
+
+    private void writeFormSources(final FormSources sources,
+                                  final Map<GeneratedArtifact, String> generated,
+                                  final CommitIdentity identity,
+                                  final FormSourcesGenerationResult result) {
+        generated.forEach((artifact, source) -> {
+            final org.uberfire.java.nio.file.Path target = targetPath(artifact,
+                                                                      sources.context,
+                                                                      sources.packages);
+            final String message = target.getFileName().toString().endsWith(".java") ?
+                    "Added Java Source for Form Model '" + sources.resourcePath + "'" :
+                    "Added HTML Source for Form Template '" + sources.resourcePath + "'";
+            sourceWriter.write(target,
+                               source,
+                               makeCommentedOption(identity,
+                                                   message),
+                               result);
+        });
+    }
+
+    private org.uberfire.java.nio.file.Path targetPath(final GeneratedArtifact artifact,
+                                                       final SourceGenerationContext context,
+                                                       final TargetPackages packages) {
+        switch (artifact) {
+            case FORM_MODEL:
+                return javaSourcePath(packages.shared,
+                                      context.getFormModelName());
+            case FORM_LAYOUT:
+                return formTemplatePath(packages.shared,
+                                        context.getFormDefinition().getName());
+            case FORM_VIEW:
+                return javaSourcePath(packages.local,
+                                      context.getFormViewName());
+            case FORM_VIEW_TEMPLATE:
+                return htmlSourcePath(packages.local,
+                                      context.getFormViewName());
+            case FORM_VALIDATOR:
+                return javaSourcePath(packages.local,
+                                      context.getFormValidatorName());
+            case LIST_VIEW:
+                return javaSourcePath(packages.local,
+                                      context.getListViewName());
+            case LIST_VIEW_TEMPLATE:
+                return htmlSourcePath(packages.local,
+                                      context.getListViewName());
+            case REST_API:
+                return javaSourcePath(packages.shared,
+                                      context.getRestServiceName());
+            case REST_IMPL:
+                return javaSourcePath(packages.server,
+                                      context.getRestServiceImplName());
+            case ENTITY_SERVICE:
+                return javaSourcePath(packages.server,
+                                      context.getEntityServiceName());
+            case FLOW_PRODUCER:
+                return javaSourcePath(packages.local,
+                                      context.getFlowProducerName());
+            default:
+                throw new IllegalArgumentException("Unknown artifact: " + artifact);
+        }
+    }
+
+    /*
+     * The returned task records its duration under the generator.<artifact> timer. Its output is
+     * memoized under the digest of the inputs of the form, the artifact, the emitter and the
+     * generator version, and for HTML templates the HTML format and the version of the MVEL
+     * templates, which change the output without changing the generators. The form layout is the
+     * serialized form itself, and the form view of a form with multiple subforms also depends on
+     * the Data Objects of their types, so these are always generated.
+     */
+    private Supplier<String> generator(final GeneratedArtifact artifact,
+                                       final SourceGenerationContext context,
+                                       final String inputDigest) {
+        final Supplier<String> generator = metrics.timed("generator." + artifact,
+                                                         untimedGenerator(artifact,
+                                                                          context));
+        if (inputDigest == null
+                || artifact == GeneratedArtifact.FORM_LAYOUT
+                || (artifact == GeneratedArtifact.FORM_VIEW && hasMultipleSubForms(context.getFormDefinition()))) {
+            return generator;
+        }
+
+        final String key = GeneratorOutputCache.key(GENERATOR_VERSION,
+                                                    artifact.name(),
+                                                    javaEmitters.get(artifact).name(),
+                                                    templateVersion(artifact),
+                                                    inputDigest);
+        return () -> outputCache.computeIfAbsent(key,
+                                                 generator);
+    }
+
+    private String templateVersion(final GeneratedArtifact artifact) {
+        if (artifact != GeneratedArtifact.FORM_VIEW_TEMPLATE && artifact != GeneratedArtifact.LIST_VIEW_TEMPLATE) {
+            return "";
+        }
+        return System.getProperty(HTMLTemplateFormatter.FORMAT_PROPERTY,
+                                  "") + "/" + templateRegistry.getVersion();
+    }
+
+    /*
+     * Digests everything the generators read from the context: the form, the target packages and
+     * the forms it embeds. Null if the generator output cache is disabled.
+     */
+    private String inputDigest(final SourceGenerationContext context) {
+        if (!outputCache.isEnabled()) {
+            return null;
+        }
+
+        final FormDefinition form = context.getFormDefinition();
+        final List<String> inputs = new ArrayList<>();
+        inputs.add(formDefinitionSerializer.serialize(form));
+        inputs.add(packageName(context.getRootPackage()));
+        inputs.add(packageName(context.getLocalPackage()));
+        inputs.add(packageName(context.getSharedPackage()));
+        inputs.add(packageName(context.getServerPackage()));
+        final Set<String> embeddedIds = FormIndexImpl.embeddedFormIds(form);
+        for (final FormDefinition projectForm : context.getProjectForms()) {
+            if (embeddedIds.contains(projectForm.getId())) {
+                inputs.add(formDefinitionSerializer.serialize(projectForm));
+            }
+        }
+        return GeneratorOutputCache.key(inputs.toArray(new String[inputs.size()]));
+    }
+
+    private static String packageName(final Package pkg) {
+        return pkg != null ? pkg.getPackageName() : null;
+    }
+
+    private static boolean hasMultipleSubForms(final FormDefinition form) {
+        return form.getFields().stream().anyMatch(field -> field instanceof MultipleSubFormFieldDefinition);
+    }
+
+    private Supplier<String> untimedGenerator(final GeneratedArtifact artifact,
+                                              final SourceGenerationContext context) {
+        switch (artifact) {
+            case FORM_MODEL:
+                return () -> formModelSourceGenerator.generateJavaSource(context);
+            case FORM_LAYOUT:
+                return () -> formDefinitionSerializer.serialize(context.getFormDefinition());
+            case FORM_VIEW:
+                return () -> formViewSourceGenerator.generateJavaSource(context);
+            case FORM_VIEW_TEMPLATE:
+                return () -> formViewTemplateGenerator.generateHTMLTemplate(context);
+            case FORM_VALIDATOR:
+                return () -> formValidatorSourceGenerator.generateJavaSource(context);
+            case LIST_VIEW:
+                return () -> listViewSourceGenerator.generateJavaSource(context);
+            case LIST_VIEW_TEMPLATE:
+                return () -> listViewTemplateGenerator.generateHTMLTemplate(context);
+            case REST_API:
+                return () -> restApiSourceGenerator.generateJavaSource(context);
+            case REST_IMPL:
+                return () -> javaSourceGenerator(artifact,
+                                                 restImplSourceGenerator,
+                                                 directRestImplSourceGenerator).generateJavaSource(context);
+            case ENTITY_SERVICE:
+                return () -> javaSourceGenerator(artifact,
+                                                 entityServiceSourceGenerator,
+                                                 directEntityServiceSourceGenerator).generateJavaSource(context);
+            case FLOW_PRODUCER:
+                return () -> javaSourceGenerator(artifact,
+                                                 flowProducerSourceGenerator,
+                                                 directFlowProducerSourceGenerator).generateJavaSource(context);
+            default:
+                throw new IllegalArgumentException("Unknown artifact: " + artifact);
+        }
+    }
+
+    private JavaSourceGenerator javaSourceGenerator(final GeneratedArtifact artifact,
+                                                    final JavaSourceGenerator roasterGenerator,
+                                                    final JavaSourceGenerator directGenerator) {
+        return javaEmitters.get(artifact) == JavaEmitter.DIRECT ? directGenerator : roasterGenerator;
+    }
+
+    private TargetPackages resolveTargetPackages(final Package resPackage,
+                                                 final boolean withServer,
+                                                 final boolean dryRun) {
+        final Package root = getRootPackage(resPackage);
+        final Package client = getOrCreateClientPackage(root,
+                                                        dryRun);
+
+        return new TargetPackages(root,
+                                  getOrCreateLocalPackage(client,
+                                                          dryRun),
+                                  getOrCreateSharedPackage(client,
+                                                           dryRun),
+                                  withServer ? getOrCreateServerPackage(root,
+                                                                        dryRun) : null);
+    }
+
+    private static <T> List<T> concat(final List<T> first,
+                                      final List<T> second) {
+        final List<T> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    /*
+     * Reads the version of the form serialized by the previous generation, if any.
+     */
+    private Optional<FormDefinition> readPreviousForm(final FormDefinition form,
+                                                      final Package shared) {
+        final org.uberfire.java.nio.file.Path previousPath = formTemplatePath(shared,
+                                                                              form.getName());
+        if (!ioService.exists(previousPath)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.ofNullable(formDefinitionSerializer.deserialize(ioService.readAllString(previousPath)));
+        } catch (final Exception e) {
+            log.warn("Unable to read previously generated form '{}', regenerating all sources: {}",
+                     previousPath,
+                     e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /*
+     * Compares the form with the version serialized by the previous generation. Without a
+     * previous version every artifact is affected.
+     */
+    private Set<GeneratedArtifact> getAffectedArtifacts(final Optional<FormDefinition> previous,
+                                                        final FormDefinition form) {
+        if (!previous.isPresent()) {
+            return EnumSet.allOf(GeneratedArtifact.class);
+        }
+
+        final FormDefinitionDiff diff = FormDefinitionDiff.compare(previous.get(),
+                                                                   form);
+        log.debug("Changes to form {}: {}",
+                  form.getName(),
+                  diff);
+        return diff.getAffectedArtifacts();
+    }
+
+    /*
+     * Unaffected artifacts that already exist are not generated again. Their current content is
+     * returned instead, so that the writer records them as unchanged.
+     */
+    private CompletableFuture<String> generateIfAffected(final Set<GeneratedArtifact> affected,
+                                                         final GeneratedArtifact artifact,
+                                                         final org.uberfire.java.nio.file.Path target,
+                                                         final Supplier<String> generator) {
+        if (!affected.contains(artifact) && ioService.exists(target)) {
+            metrics.increment("generator.skipped");
+            return CompletableFuture.completedFuture(ioService.readAllString(target));
+        }
+
+        return generatorExecutor.submit(generator);
+    }
+
+    private org.uberfire.java.nio.file.Path javaSourcePath(final Package sourcePackage,
+                                                           final String name) {
+        return Paths.convert(sourcePackage.getPackageMainSrcPath()).resolve(name + ".java");
+    }
+
+    private org.uberfire.java.nio.file.Path htmlSourcePath(final Package sourcePackage,
+                                                           final String name) {
+        return Paths.convert(sourcePackage.getPackageMainResourcesPath()).resolve(name + ".html");
+    }
+
+    private org.uberfire.java.nio.file.Path formTemplatePath(final Package sourcePackage,
+                                                             final String name) {
+        return Paths.convert(sourcePackage.getPackageMainResourcesPath()).resolve(name + ".frm");
     }
 
     private void writeHTMLSource(final Path dataObjectPath,
                                  final String name,
                                  final String htmlTemplate,
-                                 final Package sourcePackage) {
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(sourcePackage.getPackageMainResourcesPath());
-        final org.uberfire.java.nio.file.Path htmlPath = parentPath.resolve(name + ".html");
+                                 final Package sourcePackage,
+                                 final CommitIdentity identity,
+                                 final FormSourcesGenerationResult result) {
+        final org.uberfire.java.nio.file.Path htmlPath = htmlSourcePath(sourcePackage,
+                                                                        name);
+
+        sourceWriter.write(htmlPath,
+                           htmlTemplate,
+                           makeCommentedOption(identity,
+                                               "Added HTML Source for Form Template '" + dataObjectPath + "'"),
+                           result);
+    }
 
-        ioService.write(htmlPath,
-                        htmlTemplate,
-                        makeCommentedOption("Added HTML Source for Form Template '" + dataObjectPath + "'"));
+    private org.uberfire.java.nio.file.Path flowSourcePath(final Package sourcePackage,
+                                                           final String name) {
+        return Paths.convert(sourcePackage.getProjectRootPath()).resolve("src/main/resources").resolve(name + ".flow");
+    }
+
+    /*
+     * Creates the flow if it does not exist and adds the imports of the given forms to it. The
+     * flow is shared by every form of the project, so it is locked from the first read to the
+     * last write.
+     */
+    private void writeFlowSource(final Path dataObjectPath,
+                                 final String name,
+                                 final String flowFileTemplate,
+                                 final Package sourcePackage,
+                                 final List<SourceGenerationContext> contexts,
+                                 final CommitIdentity identity,
+                                 final FormSourcesGenerationResult result) {
+        final org.uberfire.java.nio.file.Path flowPath = flowSourcePath(sourcePackage,
+                                                                        name);
+        try (final GenerationLocks.Held fileLock = locks.lockFile(flowPath.toUri().toString())) {
+            maybeWriteFlowSource(dataObjectPath,
+                                 flowPath,
+                                 flowFileTemplate,
+                                 identity,
+                                 result);
+            maybeUpdateFlowSourceImports(dataObjectPath,
+                                         flowPath,
+                                         contexts,
+                                         identity,
+                                         result);
+        }
     }
 
     private void maybeWriteFlowSource(final Path dataObjectPath,
-                                      final String name,
+                                      final org.uberfire.java.nio.file.Path flowPath,
                                       final String flowFileTemplate,
-                                      final Package sourcePackage) {
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(sourcePackage.getProjectRootPath()).resolve("src/main/resources");
-        final org.uberfire.java.nio.file.Path flowPath = parentPath.resolve(name + ".flow");
-
+                                      final CommitIdentity identity,
+                                      final FormSourcesGenerationResult result) {
         final boolean flowFileExists = ioService.exists(flowPath);
 
         if (!flowFileExists) {
-            ioService.write(flowPath,
-                            flowFileTemplate,
-                            makeCommentedOption("Added Flow Source for Form Template '" + dataObjectPath + "'"));
+            sourceWriter.write(flowPath,
+                               flowFileTemplate,
+                               makeCommentedOption(identity,
+                                                   "Added Flow Source for Form Template '" + dataObjectPath + "'"),
+                               result);
         }
     }
 
     private void maybeUpdateFlowSourceImports(final Path dataObjectPath,
-                                              final String name,
-                                              final Package sourcePackage,
-                                              final SourceGenerationContext context) {
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(sourcePackage.getProjectRootPath()).resolve("src/main/resources");
-        final org.uberfire.java.nio.file.Path flowPath = parentPath.resolve(name + ".flow");
-
-        final String originalFlowSource = ioService.readAllString(flowPath);
+                                              final org.uberfire.java.nio.file.Path flowPath,
+                                              final List<SourceGenerationContext> contexts,
+                                              final CommitIdentity identity,
+                                              final FormSourcesGenerationResult result) {
+        // In a dry run the flow may only exist as the content recorded by maybeWriteFlowSource.
+        final Optional<String> pendingFlowSource = result instanceof FormSourcesDiff
+                ? ((FormSourcesDiff) result).getFile(Paths.convert(flowPath).toURI()).map(FormSourcesDiff.FileDiff::getGeneratedContent)
+                : Optional.empty();
+        final String originalFlowSource = pendingFlowSource.orElseGet(() -> ioService.readAllString(flowPath));
+
+        String flowSource = originalFlowSource;
+        for (final SourceGenerationContext context : contexts) {
+            flowSource = mainFlowGenerator
+                    .updateSource(context,
+                                  flowSource)
+                    .orElse(flowSource);
+        }
 
-        mainFlowGenerator
-                .updateSource(context,
-                              originalFlowSource)
-                .ifPresent(newSrc -> {
-                    ioService.write(flowPath,
-                                    newSrc,
-                                    makeCommentedOption("Updated Flow Source imports for Form Template '" + dataObjectPath + "'"));
-                });
+        if (!flowSource.equals(originalFlowSource)) {
+            sourceWriter.write(flowPath,
+                               flowSource,
+                               makeCommentedOption(identity,
+                                                   "Updated Flow Source imports for Form Template '" + dataObjectPath + "'"),
+                               result);
+        }
     }
 
     private void writeJavaSource(final Path dataObjectPath,
                                  final String name,
                                  final String javaSource,
-                                 final Package sourcePackage) {
-        final org.uberfire.java.nio.file.Path parentPath = Paths.convert(sourcePackage.getPackageMainSrcPath());
-        final org.uberfire.java.nio.file.Path filePath = parentPath.resolve(name + ".java");
-        ioService.write(filePath,
-                        javaSource,
-                        makeCommentedOption("Added Java Source for Form Model '" + dataObjectPath + "'"));
+                                 final Package sourcePackage,
+                                 final CommitIdentity identity,
+                                 final FormSourcesGenerationResult result) {
+        final org.uberfire.java.nio.file.Path filePath = javaSourcePath(sourcePackage,
+                                                                        name);
+        sourceWriter.write(filePath,
+                           javaSource,
+                           makeCommentedOption(identity,
+                                               "Added Java Source for Form Model '" + dataObjectPath + "'"),
+                           result);
     }
 
-    public CommentedOption makeCommentedOption(final String commitMessage) {
-        return commentedOptionFactory.makeCommentedOption(commitMessage);
+    /*
+     * Without an identity the commit is made as the user of the current request.
+     */
+    public CommentedOption makeCommentedOption(final CommitIdentity identity,
+                                               final String commitMessage) {
+        if (identity == null) {
+            return commentedOptionFactory.makeCommentedOption(commitMessage);
+        }
+        return new CommentedOption(identity.getSessionId(),
+                                   identity.getName(),
+                                   identity.getEmail(),
+                                   commitMessage,
+                                   new Date());
     }
 }
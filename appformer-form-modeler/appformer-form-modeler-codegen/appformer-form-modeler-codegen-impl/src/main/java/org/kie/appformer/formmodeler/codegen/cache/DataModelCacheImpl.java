@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.DataModelCache;
+import org.kie.appformer.formmodeler.codegen.DataModelCacheStats;
+import org.kie.workbench.common.screens.datamodeller.service.DataModelerService;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * Caches the {@link DataModel} of each project until a resource event reports a change to one of
+ * the project's Java sources.
+ * <p>
+ * Each project has a version that is incremented by every such change. A model is only returned
+ * by {@link #getDataModel(KieProject)} if it was loaded at the current version; otherwise it is
+ * loaded again, by one thread at a time per project. A change that arrives while the model is
+ * being loaded leaves the loaded model out of date, so the next request loads it again.
+ */
+@ApplicationScoped
+public class DataModelCacheImpl implements DataModelCache {
+
+    private static transient Logger log = LoggerFactory.getLogger(DataModelCacheImpl.class);
+
+    private static final String JAVA_EXTENSION = ".java";
+
+    private static class Entry {
+
+        final AtomicLong version = new AtomicLong();
+        volatile DataModel model;
+        volatile long loadedVersion = -1;
+
+        boolean isCurrent() {
+            return model != null && loadedVersion == version.get();
+        }
+    }
+
+    private DataModelerService dataModelerService;
+
+    private CodegenMetrics metrics;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong snapshotReads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong totalLoadMillis = new AtomicLong();
+
+    public DataModelCacheImpl() {
+    }
+
+    @Inject
+    public DataModelCacheImpl(final DataModelerService dataModelerService,
+                              final CodegenMetrics metrics) {
+        this.dataModelerService = dataModelerService;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public DataModel getDataModel(final KieProject project) {
+        final Entry entry = entries.computeIfAbsent(key(project),
+                                                    k -> new Entry());
+        if (entry.isCurrent()) {
+            hits.incrementAndGet();
+            metrics.increment("dataModel.hits");
+            return entry.model;
+        }
+
+        synchronized (entry) {
+            if (entry.isCurrent()) {
+                hits.incrementAndGet();
+                metrics.increment("dataModel.hits");
+                return entry.model;
+            }
+
+            misses.incrementAndGet();
+            final long version = entry.version.get();
+            final long start = System.nanoTime();
+            final DataModel model;
+            try {
+                model = dataModelerService.loadModel(project);
+            } finally {
+                final long nanos = System.nanoTime() - start;
+                totalLoadMillis.addAndGet(nanos / 1000000);
+                metrics.record("dataModel.load",
+                               nanos);
+            }
+
+            entry.model = model;
+            entry.loadedVersion = version;
+            log.debug("Loaded data model of project {} at version {}.",
+                      key(project),
+                      version);
+            return model;
+        }
+    }
+
+    @Override
+    public Optional<DataModel> getSnapshot(final KieProject project) {
+        snapshotReads.incrementAndGet();
+        return Optional.ofNullable(entries.get(key(project))).map(entry -> entry.model);
+    }
+
+    @Override
+    public void invalidate(final KieProject project) {
+        final Entry entry = entries.get(key(project));
+        if (entry != null) {
+            entry.version.incrementAndGet();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    @Override
+    public DataModelCacheStats getStats() {
+        return new DataModelCacheStats(hits.get(),
+                                       misses.get(),
+                                       snapshotReads.get(),
+                                       invalidations.get(),
+                                       totalLoadMillis.get());
+    }
+
+    public void processResourceAdd(@Observes final ResourceAddedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void processResourceUpdate(@Observes final ResourceUpdatedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void processResourceDelete(@Observes final ResourceDeletedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void processResourceCopied(@Observes final ResourceCopiedEvent event) {
+        invalidate(event.getDestinationPath());
+    }
+
+    public void processResourceRenamed(@Observes final ResourceRenamedEvent event) {
+        invalidate(event.getPath());
+        invalidate(event.getDestinationPath());
+    }
+
+    @Override
+    public void invalidate(final Path path) {
+        if (path == null || !path.getFileName().endsWith(JAVA_EXTENSION)) {
+            return;
+        }
+
+        final String uri = path.toURI();
+        entries.forEach((root, entry) -> {
+            if (uri.startsWith(root + "/")) {
+                entry.version.incrementAndGet();
+                invalidations.incrementAndGet();
+            }
+        });
+    }
+
+    private static String key(final KieProject project) {
+        return project.getRootPath().toURI();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELTemplateRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A content addressed cache of generator outputs on the local disk, so that generating the same
+ * sources again, after a restart or in another project with the same forms, is a file read.
+ * <p>
+ * Outputs are stored under the hash of everything they are generated from, see
+ * {@link #key(String...)}, and are never updated: a changed input is a different key. The cache
+ * is kept below <code>org.kie.appformer.codegen.memo.maxBytes</code> (64 MB by default) by evicting
+ * the least recently used outputs. Its directory is set with
+ * <code>org.kie.appformer.codegen.memo.dir</code> and defaults to
+ * <code>appformer-codegen</code> in the server data directory. Setting
+ * <code>org.kie.appformer.codegen.memo</code> to <code>false</code> disables the cache, and it is
+ * also disabled while templates are reloaded, see {@link MVELTemplateRegistry}.
+ */
+@ApplicationScoped
+public class GeneratorOutputCache {
+
+    public static final String ENABLED_PROPERTY = "org.kie.appformer.codegen.memo";
+    public static final String DIR_PROPERTY = "org.kie.appformer.codegen.memo.dir";
+    public static final String MAX_BYTES_PROPERTY = "org.kie.appformer.codegen.memo.maxBytes";
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final String SERVER_DATA_DIR_PROPERTY = "jboss.server.data.dir";
+    private static final String DEFAULT_DIR_NAME = "appformer-codegen";
+    private static final String EXTENSION = ".out";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static transient Logger log = LoggerFactory.getLogger(GeneratorOutputCache.class);
+
+    private CodegenMetrics metrics;
+
+    private Path directory;
+
+    private long maxBytes;
+
+    // Sizes of the stored outputs by key, in access order.
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16,
+                                                                              0.75f,
+                                                                              true);
+
+    private long totalBytes;
+
+    public GeneratorOutputCache() {
+    }
+
+    @Inject
+    public GeneratorOutputCache(final CodegenMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    protected void init() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY,
+                                                     "true"))) {
+            log.info("Generator output cache disabled.");
+            return;
+        }
+        if (Boolean.getBoolean(MVELTemplateRegistry.RELOAD_PROPERTY)) {
+            log.info("Generator output cache disabled while templates are reloaded.");
+            return;
+        }
+
+        final String dir = System.getProperty(DIR_PROPERTY);
+        init(dir != null ? Paths.get(dir) : Paths.get(System.getProperty(SERVER_DATA_DIR_PROPERTY,
+                                                                          System.getProperty("java.io.tmpdir")),
+                                                       DEFAULT_DIR_NAME),
+             Long.getLong(MAX_BYTES_PROPERTY,
+                          DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Opens the cache in the given directory, loading the outputs stored by previous runs in the
+     * order of their last use.
+     */
+    protected void init(final Path directory,
+                        final long maxBytes) {
+        try {
+            Files.createDirectories(directory);
+            final List<Path> files;
+            try (final Stream<Path> stored = Files.walk(directory,
+                                                        2)) {
+                files = stored
+                        .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                        .sorted(Comparator.comparing(GeneratorOutputCache::lastModified))
+                        .collect(Collectors.toList());
+            }
+
+            synchronized (entries) {
+                entries.clear();
+                totalBytes = 0;
+                for (final Path file : files) {
+                    final String name = file.getFileName().toString();
+                    final long size = Files.size(file);
+                    entries.put(name.substring(0,
+                                               name.length() - EXTENSION.length()),
+                                size);
+                    totalBytes += size;
+                }
+                this.directory = directory;
+                this.maxBytes = maxBytes;
+            }
+            evict();
+            log.info("Generator output cache in {} holds {} outputs ({} bytes).",
+                     directory,
+                     entries.size(),
+                     totalBytes);
+        } catch (final IOException e) {
+            log.warn("Generator output cache disabled, unable to open {}: {}",
+                     directory,
+                     e.toString());
+            this.directory = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Returns the output stored under the key, or generates, stores and returns it. If the cache is
+     * disabled or cannot be read or written, the output is generated.
+     */
+    public String computeIfAbsent(final String key,
+                                  final Supplier<String> generator) {
+        if (!isEnabled()) {
+            return generator.get();
+        }
+
+        final Path file = file(key);
+        final boolean stored;
+        synchronized (entries) {
+            stored = entries.get(key) != null;
+        }
+        if (stored) {
+            try {
+                final String output = new String(Files.readAllBytes(file),
+                                                  StandardCharsets.UTF_8);
+                Files.setLastModifiedTime(file,
+                                          FileTime.fromMillis(System.currentTimeMillis()));
+                metrics.increment("memo.hits");
+                return output;
+            } catch (final IOException e) {
+                log.debug("Unable to read generator output {}: {}",
+                          file,
+                          e.toString());
+                remove(key);
+            }
+        }
+
+        metrics.increment("memo.misses");
+        final String output = generator.get();
+        if (output != null && !output.isEmpty()) {
+            store(key,
+                  file,
+                  output);
+        }
+        return output;
+    }
+
+    /**
+     * @return The number of stored outputs.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return The hash identifying an output generated from the given inputs.
+     */
+    public static String key(final String... inputs) {
+        final StringBuilder material = new StringBuilder();
+        for (final String input : inputs) {
+            // Length prefixes keep the boundaries between inputs unambiguous.
+            material.append(input == null ? -1 : input.length()).append(':').append(input).append('\n');
+        }
+
+        final byte[] hash = hash(material.toString().getBytes(StandardCharsets.UTF_8));
+        final StringBuilder key = new StringBuilder(hash.length * 2);
+        for (final byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xf,
+                                          16))
+                    .append(Character.forDigit(b & 0xf,
+                                               16));
+        }
+        return key.toString();
+    }
+
+    private static byte[] hash(final byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available.",
+                                            e);
+        }
+    }
+
+    /**
+     * @return A version identifying the generators on the classpath: the implementation version
+     * of the codegen module and the time its classes were built, so that snapshot builds with
+     * changed generators or templates do not reuse the outputs of older ones.
+     */
+    public static String generatorVersion() {
+        final Package codegen = GeneratorOutputCache.class.getPackage();
+        final String version = codegen != null && codegen.getImplementationVersion() != null ? codegen.getImplementationVersion() : "dev";
+        try {
+            final URL location = GeneratorOutputCache.class.getProtectionDomain().getCodeSource().getLocation();
+            return version + "@" + new File(location.toURI()).lastModified();
+        } catch (final Exception e) {
+            return version;
+        }
+    }
+
+    private void store(final String key,
+                       final Path file,
+                       final String output) {
+        final byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(file.getParent());
+            final Path temp = Files.createTempFile(file.getParent(),
+                                                   key,
+                                                   ".tmp");
+            Files.write(temp,
+                        bytes);
+            Files.move(temp,
+                       file,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            log.debug("Unable to store generator output {}: {}",
+                      file,
+                      e.toString());
+            return;
+        }
+
+        synchronized (entries) {
+            final Long previous = entries.put(key,
+                                              (long) bytes.length);
+            totalBytes += bytes.length - (previous != null ? previous : 0);
+        }
+        evict();
+    }
+
+    private void remove(final String key) {
+        synchronized (entries) {
+            final Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    private void evict() {
+        final List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            final Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                final Map.Entry<String, Long> entry = eldest.next();
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+
+        for (final String key : evicted) {
+            try {
+                Files.deleteIfExists(file(key));
+            } catch (final IOException e) {
+                log.debug("Unable to delete generator output {}: {}",
+                          key,
+                          e.toString());
+            }
+            metrics.increment("memo.evictions");
+        }
+    }
+
+    // Outputs are spread over subdirectories named after the first two characters of their key.
+    private Path file(final String key) {
+        return directory.resolve(key.substring(0,
+                                               2)).resolve(key + EXTENSION);
+    }
+
+    private static long lastModified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+}
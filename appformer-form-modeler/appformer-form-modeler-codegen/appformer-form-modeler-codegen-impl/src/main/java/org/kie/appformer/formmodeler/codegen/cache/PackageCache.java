@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.guvnor.common.services.project.model.Package;
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+
+/**
+ * Caches the {@link Package packages} resolved by the form source generation, per project and
+ * package directory, so that the client, shared and server packages are not looked up in the VFS
+ * on every save.
+ * <p>
+ * Only existing packages are cached. A resource event that adds, deletes, copies or renames a
+ * directory drops the cached packages with a directory at or below it, and a project is dropped
+ * entirely when its root is affected.
+ */
+@ApplicationScoped
+public class PackageCache {
+
+    private KieProjectService projectService;
+
+    private CodegenMetrics metrics;
+
+    private final Map<String, Map<String, Package>> projects = new ConcurrentHashMap<>();
+
+    public PackageCache() {
+    }
+
+    @Inject
+    public PackageCache(final KieProjectService projectService,
+                        final CodegenMetrics metrics) {
+        this.projectService = projectService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The package containing the given resource, or null if it is not in a package.
+     */
+    public Package resolvePackage(final Path resourcePath) {
+        final String uri = resourcePath.toURI();
+        return resolve(uri.substring(0,
+                                     uri.lastIndexOf('/')),
+                       resourcePath);
+    }
+
+    /**
+     * @return The given subpackage of a package, or null if it does not exist.
+     */
+    public Package resolveSubpackage(final Package parent,
+                                     final String subPackage) {
+        final String uri = parent.getPackageMainSrcPath().toURI() + "/" + subPackage;
+        return resolve(uri,
+                       PathFactory.newPath("/",
+                                           uri));
+    }
+
+    /**
+     * Adds a package created by the caller, so that the next lookup does not resolve it again.
+     */
+    public void put(final Package pkg) {
+        packagesOf(pkg).put(pkg.getPackageMainSrcPath().toURI(),
+                            pkg);
+    }
+
+    public void invalidateAll() {
+        projects.clear();
+    }
+
+    public void processResourceAdd(@Observes final ResourceAddedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void processResourceDelete(@Observes final ResourceDeletedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void processResourceCopied(@Observes final ResourceCopiedEvent event) {
+        invalidate(event.getDestinationPath());
+    }
+
+    public void processResourceRenamed(@Observes final ResourceRenamedEvent event) {
+        invalidate(event.getPath());
+        invalidate(event.getDestinationPath());
+    }
+
+    /**
+     * Drops the cached packages looked up from, or with a source or resource directory at or
+     * below, the given directory. A package is cached under the directory of the resource it was
+     * resolved from, which is not necessarily its main source directory. Events for files only
+     * match the packages of a directory with the same URI, so they leave the cache untouched.
+     */
+    public void invalidate(final Path path) {
+        if (path == null) {
+            return;
+        }
+
+        final String uri = path.toURI();
+        projects.forEach((root, packages) -> {
+            if (isAtOrBelow(root,
+                            uri)) {
+                projects.remove(root);
+            } else if (isAtOrBelow(uri,
+                                   root)) {
+                packages.entrySet().removeIf(entry -> isAtOrBelow(entry.getKey(),
+                                                                  uri)
+                        || hasDirectoryAtOrBelow(entry.getValue(),
+                                                 uri));
+            }
+        });
+    }
+
+    private Package resolve(final String directory,
+                            final Path path) {
+        for (final Map<String, Package> packages : projects.values()) {
+            final Package cached = packages.get(directory);
+            if (cached != null) {
+                metrics.increment("packages.hits");
+                return cached;
+            }
+        }
+
+        final Package resolved = metrics.time("packages.resolve",
+                                              () -> projectService.resolvePackage(path));
+        if (resolved != null) {
+            packagesOf(resolved).put(directory,
+                                     resolved);
+        }
+        return resolved;
+    }
+
+    private Map<String, Package> packagesOf(final Package pkg) {
+        return projects.computeIfAbsent(pkg.getProjectRootPath().toURI(),
+                                        root -> new ConcurrentHashMap<>());
+    }
+
+    private static boolean hasDirectoryAtOrBelow(final Package pkg,
+                                                 final String directory) {
+        return Stream.of(pkg.getPackageMainSrcPath(),
+                         pkg.getPackageTestSrcPath(),
+                         pkg.getPackageMainResourcesPath(),
+                         pkg.getPackageTestResourcesPath())
+                .anyMatch(path -> path != null && isAtOrBelow(path.toURI(),
+                                                              directory));
+    }
+
+    private static boolean isAtOrBelow(final String uri,
+                                       final String directory) {
+        return uri.equals(directory) || uri.startsWith(directory + "/");
+    }
+}
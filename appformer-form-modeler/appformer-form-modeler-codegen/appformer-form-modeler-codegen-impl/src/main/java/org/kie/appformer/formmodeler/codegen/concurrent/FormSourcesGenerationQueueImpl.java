@@ -0,0 +1,564 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Kind;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.State;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJobEvent;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationResult;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerator;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Runs the jobs of the {@link FormSourcesGenerationQueue} on a small pool of daemon threads.
+ * <p>
+ * Each project has a lane holding its interactive and bulk jobs, and at most one job per lane
+ * runs at a time. Whenever a worker is free it takes the oldest interactive job of an idle lane,
+ * or the oldest bulk job if no lane has interactive jobs. Jobs of different projects run
+ * concurrently, and a job still fans its generators out to the {@link GeneratorExecutor}.
+ * <p>
+ * At most <code>org.kie.appformer.codegen.jobs.maxQueued</code> jobs (1000 by default) wait at a
+ * time; further submissions block until a job starts, unless they replace a queued job. The pool
+ * size is set with <code>org.kie.appformer.codegen.jobs.workers</code> (2 by default). Setting
+ * <code>org.kie.appformer.codegen.jobs.async</code> to <code>false</code> runs every job on the
+ * submitting thread instead. The last 1000 finished jobs are kept for {@link #getJob(long)}.
+ * <p>
+ * The workers run outside the request that submitted the job, so the {@link CommitIdentity} of
+ * its user is captured on submission and kept in the job.
+ */
+@ApplicationScoped
+public class FormSourcesGenerationQueueImpl implements FormSourcesGenerationQueue {
+
+    public static final String ASYNC_PROPERTY = "org.kie.appformer.codegen.jobs.async";
+    public static final String WORKERS_PROPERTY = "org.kie.appformer.codegen.jobs.workers";
+    public static final String MAX_QUEUED_PROPERTY = "org.kie.appformer.codegen.jobs.maxQueued";
+
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_MAX_QUEUED = 1000;
+    private static final int FINISHED_HISTORY = 1000;
+
+    private static transient Logger log = LoggerFactory.getLogger(FormSourcesGenerationQueueImpl.class);
+
+    private static class Job {
+
+        final long id;
+        final Kind kind;
+        final Path path;
+        final FormDefinition form;
+        final CommitIdentity identity;
+        final String laneKey;
+        final long submittedAt = System.nanoTime();
+        Priority priority;
+        State state = State.QUEUED;
+        long startedAt;
+        long finishedAt;
+        FormSourcesGenerationResult result;
+        String failure;
+        long supersededBy;
+
+        Job(final long id,
+            final Kind kind,
+            final Path path,
+            final FormDefinition form,
+            final CommitIdentity identity,
+            final String laneKey,
+            final Priority priority) {
+            this.id = id;
+            this.kind = kind;
+            this.path = path;
+            this.form = form;
+            this.identity = identity;
+            this.laneKey = laneKey;
+            this.priority = priority;
+        }
+
+        String dedupKey() {
+            return kind + ":" + path.toURI();
+        }
+
+        FormSourcesGenerationJob snapshot() {
+            final long now = System.nanoTime();
+            final long queuedNanos = (startedAt != 0 ? startedAt : (finishedAt != 0 ? finishedAt : now)) - submittedAt;
+            final long runNanos = startedAt == 0 ? 0 : (finishedAt != 0 ? finishedAt : now) - startedAt;
+            return new FormSourcesGenerationJob(id,
+                                                kind,
+                                                priority,
+                                                path,
+                                                state,
+                                                result,
+                                                failure,
+                                                supersededBy,
+                                                TimeUnit.NANOSECONDS.toMillis(queuedNanos),
+                                                TimeUnit.NANOSECONDS.toMillis(runNanos));
+        }
+    }
+
+    private static class Lane {
+
+        final Deque<Job> interactive = new ArrayDeque<>();
+        final Deque<Job> bulk = new ArrayDeque<>();
+        final Map<String, Job> queuedByKey = new HashMap<>();
+        boolean running;
+
+        boolean isEmpty() {
+            return interactive.isEmpty() && bulk.isEmpty();
+        }
+
+        Job poll() {
+            final Job job = interactive.isEmpty() ? bulk.poll() : interactive.poll();
+            queuedByKey.remove(job.dedupKey());
+            return job;
+        }
+
+        void remove(final Job job) {
+            (job.priority == Priority.INTERACTIVE ? interactive : bulk).remove(job);
+            queuedByKey.remove(job.dedupKey());
+        }
+
+        void add(final Job job) {
+            (job.priority == Priority.INTERACTIVE ? interactive : bulk).add(job);
+            queuedByKey.put(job.dedupKey(),
+                            job);
+        }
+    }
+
+    private FormSourcesGenerator generator;
+
+    private KieProjectService projectService;
+
+    private Event<FormSourcesGenerationJobEvent> jobEvent;
+
+    private CodegenMetrics metrics;
+
+    private final Object lock = new Object();
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    private final Map<Long, Job> activeJobs = new HashMap<>();
+
+    private final Map<Long, FormSourcesGenerationJob> finishedJobs = new LinkedHashMap<Long, FormSourcesGenerationJob>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, FormSourcesGenerationJob> eldest) {
+            return size() > FINISHED_HISTORY;
+        }
+    };
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private ExecutorService workers;
+    private int workerCount;
+    private int maxQueued;
+    private int queued;
+    private int running;
+
+    public FormSourcesGenerationQueueImpl() {
+    }
+
+    @Inject
+    public FormSourcesGenerationQueueImpl(final FormSourcesGenerator generator,
+                                          final KieProjectService projectService,
+                                          final Event<FormSourcesGenerationJobEvent> jobEvent,
+                                          final CodegenMetrics metrics) {
+        this.generator = generator;
+        this.projectService = projectService;
+        this.jobEvent = jobEvent;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    protected void init() {
+        init(Boolean.parseBoolean(System.getProperty(ASYNC_PROPERTY,
+                                                     "true")),
+             Integer.getInteger(WORKERS_PROPERTY,
+                                DEFAULT_WORKERS),
+             Integer.getInteger(MAX_QUEUED_PROPERTY,
+                                DEFAULT_MAX_QUEUED));
+    }
+
+    protected void init(final boolean async,
+                        final int workerCount,
+                        final int maxQueued) {
+        this.workerCount = Math.max(1,
+                                    workerCount);
+        this.maxQueued = Math.max(1,
+                                  maxQueued);
+
+        if (async) {
+            final AtomicInteger count = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(this.workerCount,
+                                                   runnable -> {
+                                                       final Thread thread = new Thread(runnable,
+                                                                                        "appformer-codegen-jobs-" + count.incrementAndGet());
+                                                       thread.setDaemon(true);
+                                                       return thread;
+                                                   });
+        } else {
+            log.info("Background form source generation disabled.");
+        }
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        synchronized (lock) {
+            if (queued > 0) {
+                log.warn("Discarding {} queued form source generation jobs on shutdown.",
+                         queued);
+            }
+            lanes.clear();
+            queued = 0;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public long submitFormSources(final FormDefinition form,
+                                  final Path resourcePath,
+                                  final Priority priority) {
+        return submit(Kind.FORM,
+                      resourcePath,
+                      form,
+                      generator.getCommitIdentity(),
+                      priority);
+    }
+
+    @Override
+    public long submitEntityFormSources(final FormDefinition form,
+                                        final Path resourcePath,
+                                        final Priority priority) {
+        return submit(Kind.ENTITY,
+                      resourcePath,
+                      form,
+                      generator.getCommitIdentity(),
+                      priority);
+    }
+
+    @Override
+    public long submitEntityFormSources(final FormDefinition form,
+                                        final Path resourcePath,
+                                        final Priority priority,
+                                        final CommitIdentity identity) {
+        return submit(Kind.ENTITY,
+                      resourcePath,
+                      form,
+                      identity,
+                      priority);
+    }
+
+    @Override
+    public long submitProjectFormSources(final Path projectPath,
+                                         final Priority priority) {
+        return submit(Kind.PROJECT,
+                      projectPath,
+                      null,
+                      generator.getCommitIdentity(),
+                      priority);
+    }
+
+    @Override
+    public CommitIdentity getCommitIdentity() {
+        return generator.getCommitIdentity();
+    }
+
+    @Override
+    public Optional<FormSourcesGenerationJob> getJob(final long id) {
+        synchronized (lock) {
+            final Job job = activeJobs.get(id);
+            return job != null ? Optional.of(job.snapshot()) : Optional.ofNullable(finishedJobs.get(id));
+        }
+    }
+
+    @Override
+    public List<FormSourcesGenerationJob> getActiveJobs() {
+        synchronized (lock) {
+            final List<FormSourcesGenerationJob> jobs = new ArrayList<>(activeJobs.size());
+            activeJobs.values().forEach(job -> jobs.add(job.snapshot()));
+            jobs.sort((a, b) -> Long.compare(a.getId(),
+                                             b.getId()));
+            return jobs;
+        }
+    }
+
+    @Override
+    public Optional<FormSourcesGenerationJob> await(final long id,
+                                                    final long timeout,
+                                                    final TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long current = id;
+        synchronized (lock) {
+            while (true) {
+                final FormSourcesGenerationJob finished = finishedJobs.get(current);
+                if (finished != null && finished.getState() == State.SUPERSEDED) {
+                    current = finished.getSupersededBy();
+                    continue;
+                } else if (finished != null) {
+                    return Optional.of(finished);
+                } else if (!activeJobs.containsKey(current)) {
+                    return Optional.empty();
+                }
+
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return Optional.empty();
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock,
+                                                   remaining);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Optional.empty();
+                }
+            }
+        }
+    }
+
+    private long submit(final Kind kind,
+                        final Path path,
+                        final FormDefinition form,
+                        final CommitIdentity identity,
+                        final Priority priority) {
+        metrics.increment("jobs.submitted");
+        final Job job = new Job(ids.incrementAndGet(),
+                                kind,
+                                path,
+                                form,
+                                identity,
+                                laneKey(path),
+                                priority);
+
+        if (workers == null) {
+            synchronized (lock) {
+                activeJobs.put(job.id,
+                               job);
+            }
+            run(job);
+            return job.id;
+        }
+
+        FormSourcesGenerationJob supersededJob = null;
+        synchronized (lock) {
+            // A job replacing a queued one takes its place, so it does not wait for a free slot.
+            while (queued >= maxQueued && !workers.isShutdown() && queuedJob(job) == null) {
+                try {
+                    lock.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting to queue form source generation for " + path.toURI(),
+                                                    e);
+                }
+            }
+
+            final Lane lane = lanes.computeIfAbsent(job.laneKey,
+                                                    k -> new Lane());
+            final Job superseded = lane.queuedByKey.get(job.dedupKey());
+            if (superseded != null) {
+                lane.remove(superseded);
+                queued--;
+                if (superseded.priority == Priority.INTERACTIVE) {
+                    job.priority = Priority.INTERACTIVE;
+                }
+                superseded.supersededBy = job.id;
+                supersededJob = finish(superseded,
+                                       State.SUPERSEDED);
+                metrics.increment("jobs.superseded");
+            }
+
+            lane.add(job);
+            activeJobs.put(job.id,
+                           job);
+            queued++;
+            schedule();
+        }
+
+        if (supersededJob != null) {
+            fire(supersededJob);
+        }
+        return job.id;
+    }
+
+    // Must hold the lock.
+    private Job queuedJob(final Job job) {
+        final Lane lane = lanes.get(job.laneKey);
+        return lane == null ? null : lane.queuedByKey.get(job.dedupKey());
+    }
+
+    // Must hold the lock.
+    private void schedule() {
+        while (running < workerCount && !workers.isShutdown()) {
+            final Lane lane = nextLane();
+            if (lane == null) {
+                return;
+            }
+            final Job job = lane.poll();
+            lane.running = true;
+            queued--;
+            running++;
+            job.state = State.RUNNING;
+            job.startedAt = System.nanoTime();
+            metrics.record("jobs.wait",
+                           job.startedAt - job.submittedAt);
+            lock.notifyAll();
+            workers.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    synchronized (lock) {
+                        running--;
+                        lane.running = false;
+                        if (lane.isEmpty()) {
+                            lanes.remove(job.laneKey);
+                        }
+                        schedule();
+                    }
+                }
+            });
+        }
+    }
+
+    // Must hold the lock.
+    private Lane nextLane() {
+        Lane bulk = null;
+        for (final Lane lane : lanes.values()) {
+            if (lane.running) {
+                continue;
+            }
+            if (!lane.interactive.isEmpty()) {
+                return lane;
+            }
+            if (bulk == null && !lane.bulk.isEmpty()) {
+                bulk = lane;
+            }
+        }
+        return bulk;
+    }
+
+    private void run(final Job job) {
+        synchronized (lock) {
+            if (job.startedAt == 0) {
+                job.state = State.RUNNING;
+                job.startedAt = System.nanoTime();
+            }
+        }
+
+        FormSourcesGenerationResult result = null;
+        RuntimeException failure = null;
+        try {
+            result = metrics.time("jobs.run",
+                                  task(job));
+        } catch (final RuntimeException e) {
+            log.warn("Error generating form sources for {}: {}",
+                     job.path.toURI(),
+                     e);
+            metrics.increment("jobs.failed");
+            failure = e;
+        }
+
+        final FormSourcesGenerationJob done;
+        synchronized (lock) {
+            job.result = result;
+            job.failure = failure == null ? null : String.valueOf(failure.getMessage());
+            done = finish(job,
+                          failure == null ? State.COMPLETED : State.FAILED);
+        }
+        fire(done);
+    }
+
+    private Supplier<FormSourcesGenerationResult> task(final Job job) {
+        switch (job.kind) {
+            case FORM:
+                return () -> generator.generateFormSources(job.form,
+                                                           job.path,
+                                                           job.identity);
+            case ENTITY:
+                return () -> generator.generateEntityFormSources(job.form,
+                                                                 job.path,
+                                                                 job.identity);
+            default:
+                return () -> generator.generateProjectFormSources(job.path,
+                                                                  job.identity);
+        }
+    }
+
+    // Must hold the lock.
+    private FormSourcesGenerationJob finish(final Job job,
+                                            final State state) {
+        job.state = state;
+        job.finishedAt = System.nanoTime();
+        activeJobs.remove(job.id);
+        final FormSourcesGenerationJob snapshot = job.snapshot();
+        finishedJobs.put(job.id,
+                         snapshot);
+        lock.notifyAll();
+        return snapshot;
+    }
+
+    private void fire(final FormSourcesGenerationJob job) {
+        try {
+            jobEvent.fire(new FormSourcesGenerationJobEvent(job));
+        } catch (final RuntimeException e) {
+            log.warn("Error notifying the end of form source generation job {}: {}",
+                     job.getId(),
+                     e);
+        }
+    }
+
+    private String laneKey(final Path path) {
+        try {
+            final KieProject project = projectService.resolveProject(path);
+            if (project != null) {
+                return project.getRootPath().toURI();
+            }
+        } catch (final RuntimeException e) {
+            log.debug("Unable to resolve the project of {}: {}",
+                      path.toURI(),
+                      e);
+        }
+        return path.toURI();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.concurrent;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+
+/**
+ * Striped locks coordinating concurrent source generation.
+ * <p>
+ * Project locks are read-write locks keyed by the project root: saving the forms of a project
+ * takes its lock shared, so saves of the same project only exclude each other on the files they
+ * have in common, while regenerating the whole project takes it exclusively. File locks are keyed
+ * by the path of a file that several generations read and write, such as
+ * <code>ErraiApp.properties</code> or the <code>Main</code> flow, and are held from the read to
+ * the write. Package locks are held while a missing package is created. Package locks are taken
+ * outside of VFS batches and file locks only inside them, so their stripes are kept apart.
+ * <p>
+ * Keys are mapped to a fixed number of stripes,
+ * <code>org.kie.appformer.codegen.locks.stripes</code> (64 by default), so unrelated keys rarely
+ * share a lock and independent projects generate in parallel. The time spent waiting is recorded
+ * in the <code>lock.wait.project</code>, <code>lock.wait.package</code> and
+ * <code>lock.wait.file</code> timers of
+ * {@link CodegenMetrics}, and acquisitions that had to wait in the <code>lock.contended</code>
+ * counter.
+ */
+@ApplicationScoped
+public class GenerationLocks {
+
+    public static final String STRIPES_PROPERTY = "org.kie.appformer.codegen.locks.stripes";
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private CodegenMetrics metrics;
+
+    private ReadWriteLock[] projectLocks;
+
+    private Lock[] packageLocks;
+
+    private Lock[] fileLocks;
+
+    public GenerationLocks() {
+    }
+
+    @Inject
+    public GenerationLocks(final CodegenMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    protected void init() {
+        init(Integer.getInteger(STRIPES_PROPERTY,
+                                DEFAULT_STRIPES));
+    }
+
+    protected void init(final int stripes) {
+        final int count = Math.max(1,
+                                   stripes);
+        projectLocks = new ReadWriteLock[count];
+        packageLocks = new Lock[count];
+        fileLocks = new Lock[count];
+        for (int i = 0; i < count; i++) {
+            projectLocks[i] = new ReentrantReadWriteLock();
+            packageLocks[i] = new ReentrantLock();
+            fileLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the project with the given root URI until the returned handle is closed.
+     *
+     * @param exclusive true to exclude every other generation in the project, false to only
+     * exclude exclusive ones.
+     */
+    public Held lockProject(final String projectUri,
+                            final boolean exclusive) {
+        final ReadWriteLock lock = stripe(projectLocks,
+                                          projectUri);
+        return acquire(exclusive ? lock.writeLock() : lock.readLock(),
+                       "lock.wait.project");
+    }
+
+    /**
+     * Locks the package with the given main source URI until the returned handle is closed.
+     */
+    public Held lockPackage(final String packageUri) {
+        return acquire(stripe(packageLocks,
+                              packageUri),
+                       "lock.wait.package");
+    }
+
+    /**
+     * Locks the file with the given URI until the returned handle is closed.
+     */
+    public Held lockFile(final String fileUri) {
+        return acquire(stripe(fileLocks,
+                              fileUri),
+                       "lock.wait.file");
+    }
+
+    private Held acquire(final Lock lock,
+                         final String timer) {
+        if (!lock.tryLock()) {
+            metrics.increment("lock.contended");
+            final long start = System.nanoTime();
+            lock.lock();
+            metrics.record(timer,
+                           System.nanoTime() - start);
+        }
+        return lock::unlock;
+    }
+
+    private static <L> L stripe(final L[] locks,
+                                final String key) {
+        // Spreads the hash so that keys differing only in their last characters use different stripes.
+        final int hash = key.hashCode();
+        return locks[Math.floorMod(hash ^ (hash >>> 16),
+                                   locks.length)];
+    }
+
+    /**
+     * A held lock, released by {@link #close()}.
+     */
+    public interface Held extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs independent source generators on a bounded pool of daemon threads.
+ * <p>
+ * The pool size defaults to the number of available processors and can be set with the
+ * <code>org.kie.appformer.codegen.threads</code> system property. Setting
+ * <code>org.kie.appformer.codegen.parallel</code> to <code>false</code> runs every task on the
+ * calling thread instead. When the work queue is full, tasks run on the calling thread, so a burst
+ * of saves slows down callers instead of queueing without limit.
+ */
+@ApplicationScoped
+public class GeneratorExecutor {
+
+    public static final String PARALLEL_PROPERTY = "org.kie.appformer.codegen.parallel";
+    public static final String THREADS_PROPERTY = "org.kie.appformer.codegen.threads";
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static transient Logger log = LoggerFactory.getLogger(GeneratorExecutor.class);
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    protected void init() {
+        if (!Boolean.parseBoolean(System.getProperty(PARALLEL_PROPERTY,
+                                                     "true"))) {
+            log.info("Parallel source generation disabled.");
+            return;
+        }
+
+        final int threads = Integer.getInteger(THREADS_PROPERTY,
+                                               Runtime.getRuntime().availableProcessors());
+        executor = new ThreadPoolExecutor(threads,
+                                          threads,
+                                          60L,
+                                          TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                                          new GeneratorThreadFactory(),
+                                          new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if submitted tasks may run concurrently with the caller.
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Submits a generation task. If parallel generation is disabled the task has already run when
+     * this method returns.
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (final RuntimeException e) {
+                final CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+
+        return CompletableFuture.supplyAsync(task,
+                                             executor);
+    }
+
+    /**
+     * Waits for a task submitted with {@link #submit(Supplier)}, rethrowing any exception thrown
+     * by the task itself rather than the {@link CompletionException} wrapping it.
+     */
+    public static <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class GeneratorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                                             "appformer-codegen-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.emitter;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.kie.appformer.formmodeler.codegen.incremental.GeneratedArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The backend that produces the source of a generated Java artifact.
+ * <p>
+ * The emitter of every artifact is set with the <code>org.kie.appformer.codegen.emitter</code>
+ * system property, and can be overridden for a single artifact by appending its name, for
+ * instance <code>-Dorg.kie.appformer.codegen.emitter.REST_IMPL=direct</code>. Artifacts that have
+ * no {@link #DIRECT} generator always use {@link #ROASTER}.
+ */
+public enum JavaEmitter {
+
+    /**
+     * Builds a Roaster model of the generated class and formats it.
+     */
+    ROASTER,
+
+    /**
+     * Writes the generated class with a {@link JavaSourceWriter}.
+     */
+    DIRECT;
+
+    public static final String EMITTER_PROPERTY = "org.kie.appformer.codegen.emitter";
+
+    private static transient Logger log = LoggerFactory.getLogger(JavaEmitter.class);
+
+    /**
+     * @return The emitter of every artifact, as configured by the system properties.
+     */
+    public static Map<GeneratedArtifact, JavaEmitter> fromSystemProperties() {
+        final JavaEmitter defaultEmitter = parse(EMITTER_PROPERTY,
+                                                 ROASTER);
+        final Map<GeneratedArtifact, JavaEmitter> emitters = new EnumMap<>(GeneratedArtifact.class);
+        for (final GeneratedArtifact artifact : GeneratedArtifact.values()) {
+            emitters.put(artifact,
+                         parse(EMITTER_PROPERTY + "." + artifact.name(),
+                               defaultEmitter));
+        }
+        return emitters;
+    }
+
+    private static JavaEmitter parse(final String property,
+                                     final JavaEmitter defaultEmitter) {
+        final String value = System.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultEmitter;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            log.warn("Unknown Java emitter '{}' in {}, using {}.",
+                     value,
+                     property,
+                     defaultEmitter);
+            return defaultEmitter;
+        }
+    }
+}
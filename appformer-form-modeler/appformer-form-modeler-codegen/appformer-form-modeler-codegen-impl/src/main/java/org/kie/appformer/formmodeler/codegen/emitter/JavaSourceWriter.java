@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.emitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Writes a Java compilation unit directly as text, as a cheaper alternative to building a Roaster
+ * model and formatting it. Declarations are appended in the order they are written, with a fixed
+ * layout: four space indentation and a blank line between members.
+ * <p>
+ * Types are referenced through {@link #type(String)}, which records the import and returns the
+ * name to use in the source. That is the simple name, unless another type with the same simple
+ * name has already been referenced, in which case the qualified name is used instead. Imports are
+ * written sorted, without types from <code>java.lang</code> or from the package of the unit.
+ * <p>
+ * Annotations added with {@link #annotation(String)} apply to the next class, field or method.
+ */
+public class JavaSourceWriter {
+
+    private static final String INDENT = "    ";
+
+    private final String packageName;
+
+    private final String className;
+
+    private final Map<String, String> typesBySimpleName = new HashMap<>();
+
+    private final List<String> pendingAnnotations = new ArrayList<>();
+
+    private final StringBuilder body = new StringBuilder(2048);
+
+    private int depth;
+
+    private boolean firstMember = true;
+
+    /**
+     * @param packageName The package of the compilation unit.
+     * @param className The simple name of the class declared by the compilation unit.
+     */
+    public JavaSourceWriter(final String packageName,
+                            final String className) {
+        this.packageName = packageName;
+        this.className = className;
+        typesBySimpleName.put(className,
+                              packageName + "." + className);
+    }
+
+    /**
+     * @param qualifiedName The qualified name of a type, or the name of a primitive type.
+     * @return The name to use for the type in the source.
+     */
+    public String type(final String qualifiedName) {
+        final int dot = qualifiedName.lastIndexOf('.');
+        if (dot < 0) {
+            return qualifiedName;
+        }
+
+        final String simpleName = qualifiedName.substring(dot + 1);
+        final String existing = typesBySimpleName.putIfAbsent(simpleName,
+                                                              qualifiedName);
+        return existing == null || existing.equals(qualifiedName) ? simpleName : qualifiedName;
+    }
+
+    /**
+     * @param qualifiedName The qualified name of a generic type.
+     * @param typeArguments The type arguments, as returned by {@link #type(String)}.
+     * @return The name to use for the parameterized type in the source.
+     */
+    public String type(final String qualifiedName,
+                       final String... typeArguments) {
+        return type(qualifiedName) + "<" + String.join(", ",
+                                                       typeArguments) + ">";
+    }
+
+    public JavaSourceWriter annotation(final String qualifiedName) {
+        pendingAnnotations.add("@" + type(qualifiedName));
+        return this;
+    }
+
+    /**
+     * @param value The value of the annotation, as a Java expression.
+     */
+    public JavaSourceWriter annotation(final String qualifiedName,
+                                       final String value) {
+        pendingAnnotations.add("@" + type(qualifiedName) + "(" + value + ")");
+        return this;
+    }
+
+    /**
+     * @param superType The super class, or null.
+     */
+    public JavaSourceWriter beginClass(final String superType,
+                                       final String... interfaces) {
+        if (depth != 0) {
+            throw new IllegalStateException("Nested classes are not supported.");
+        }
+
+        writeAnnotations();
+        final StringBuilder declaration = new StringBuilder("public class ").append(className);
+        if (superType != null) {
+            declaration.append(" extends ").append(superType);
+        }
+        if (interfaces.length > 0) {
+            declaration.append(" implements ").append(String.join(", ",
+                                                                  interfaces));
+        }
+        line(declaration.append(" {").toString());
+        depth++;
+        firstMember = true;
+        return this;
+    }
+
+    public JavaSourceWriter endClass() {
+        closeBlock();
+        return this;
+    }
+
+    /**
+     * @param modifiers The modifiers of the field, such as <code>private</code>.
+     */
+    public JavaSourceWriter field(final String modifiers,
+                                 final String type,
+                                 final String name) {
+        beginMember();
+        line(modifiers + " " + type + " " + name + ";");
+        return this;
+    }
+
+    /**
+     * @param modifiers The modifiers of the method, such as <code>public</code>.
+     * @param parameters The parameters of the method, each as <code>type name</code>.
+     */
+    public JavaSourceWriter beginMethod(final String modifiers,
+                                        final String returnType,
+                                        final String name,
+                                        final String... parameters) {
+        beginMember();
+        line(modifiers + " " + returnType + " " + name + "(" + String.join(", ",
+                                                                          parameters) + ") {");
+        depth++;
+        return this;
+    }
+
+    /**
+     * Writes a statement of the current method on its own line.
+     */
+    public JavaSourceWriter statement(final String statement) {
+        line(statement);
+        return this;
+    }
+
+    public JavaSourceWriter endMethod() {
+        closeBlock();
+        return this;
+    }
+
+    /**
+     * @return The compilation unit.
+     * @throws IllegalStateException If a class or method has not been ended.
+     */
+    @Override
+    public String toString() {
+        if (depth != 0) {
+            throw new IllegalStateException("Unbalanced declaration in generated source.");
+        }
+
+        final StringBuilder source = new StringBuilder(body.length() + 512);
+        source.append("package ").append(packageName).append(";\n\n");
+
+        final TreeSet<String> imports = new TreeSet<>();
+        for (final String qualifiedName : typesBySimpleName.values()) {
+            final String typePackage = qualifiedName.substring(0,
+                                                               qualifiedName.lastIndexOf('.'));
+            if (!typePackage.equals(packageName) && !typePackage.equals("java.lang")) {
+                imports.add(qualifiedName);
+            }
+        }
+        for (final String qualifiedName : imports) {
+            source.append("import ").append(qualifiedName).append(";\n");
+        }
+        if (!imports.isEmpty()) {
+            source.append('\n');
+        }
+
+        return source.append(body).toString();
+    }
+
+    private void beginMember() {
+        if (depth != 1) {
+            throw new IllegalStateException("Members can only be declared in a class.");
+        }
+        if (!firstMember) {
+            body.append('\n');
+        }
+        firstMember = false;
+        writeAnnotations();
+    }
+
+    private void closeBlock() {
+        if (depth == 0) {
+            throw new IllegalStateException("No declaration to end.");
+        }
+        depth--;
+        line("}");
+    }
+
+    private void writeAnnotations() {
+        for (final String annotation : pendingAnnotations) {
+            line(annotation);
+        }
+        pendingAnnotations.clear();
+    }
+
+    private void line(final String text) {
+        for (int i = 0; i < depth; i++) {
+            body.append(INDENT);
+        }
+        body.append(text).append('\n');
+    }
+
+    /**
+     * @return The given value as a Java string literal.
+     */
+    public static String quote(final String value) {
+        return "\"" + value.replace("\\",
+                                    "\\\\").replace("\"",
+                                                    "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.flow.impl;
+
+import java.util.Optional;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.Typed;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jboss.errai.ioc.client.api.EntryPoint;
+import org.kie.appformer.flow.api.AppFlow;
+import org.kie.appformer.flow.api.Unit;
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.emitter.JavaSourceWriter;
+import org.kie.appformer.formmodeler.rendering.client.flow.FlowProducer;
+import org.kie.appformer.formmodeler.rendering.client.flow.ForEntity;
+
+/**
+ * Generates the same flow producer as {@link RoasterFlowProducerSourceGenerator}, written directly
+ * with a {@link JavaSourceWriter}.
+ */
+@ApplicationScoped
+@Typed(DirectFlowProducerSourceGenerator.class)
+public class DirectFlowProducerSourceGenerator implements JavaSourceGenerator {
+
+    private static final String[] UNIT_FLOWS = {"crud", "createAndReview", "view"};
+
+    @Override
+    public String generateJavaSource(final SourceGenerationContext context) {
+        final String sharedPackage = context.getSharedPackage().getPackageName();
+        final String localPackage = context.getLocalPackage().getPackageName();
+        final JavaSourceWriter writer = new JavaSourceWriter(localPackage,
+                                                             context.getFlowProducerName());
+
+        final String entity = writer.type(sharedPackage + "." + context.getEntityName());
+        final String formModel = writer.type(sharedPackage + "." + context.getFormModelName());
+        final String override = Override.class.getName();
+
+        writer.annotation(EntryPoint.class.getName())
+                .beginClass(writer.type(FlowProducer.class.getName(),
+                                        entity,
+                                        formModel,
+                                        writer.type(localPackage + "." + context.getFormViewName()),
+                                        writer.type(localPackage + "." + context.getListViewName()),
+                                        writer.type(sharedPackage + "." + context.getRestServiceName())));
+
+        writer.annotation(override)
+                .beginMethod("public",
+                             formModel,
+                             "modelToFormModel",
+                             entity + " model")
+                .statement("return new " + formModel + "(model);")
+                .endMethod();
+
+        writer.annotation(override)
+                .beginMethod("public",
+                             entity,
+                             "formModelToModel",
+                             formModel + " formModel")
+                .statement("return formModel.get" + context.getEntityName() + "();")
+                .endMethod();
+
+        writer.annotation(override)
+                .beginMethod("public",
+                             entity,
+                             "newModel")
+                .statement("return new " + entity + "();")
+                .endMethod();
+
+        writer.annotation(override)
+                .beginMethod("public",
+                             writer.type(Class.class.getName(),
+                                         entity),
+                             "getModelType")
+                .statement("return " + entity + ".class;")
+                .endMethod();
+
+        writer.annotation(override)
+                .beginMethod("public",
+                             writer.type(Class.class.getName(),
+                                         formModel),
+                             "getFormModelType")
+                .statement("return " + formModel + ".class;")
+                .endMethod();
+
+        writer.annotation(Singleton.class.getName())
+                .annotation(Produces.class.getName())
+                .beginMethod("public",
+                             writer.type(Class.class.getName(),
+                                         entity),
+                             "entityType")
+                .statement("return " + entity + ".class;")
+                .endMethod();
+
+        final String unit = writer.type(Unit.class.getName());
+        addFlowProducer(writer,
+                        context,
+                        "create",
+                        writer.type(AppFlow.class.getName(),
+                                    unit,
+                                    writer.type(Optional.class.getName(),
+                                                formModel)));
+        for (final String flow : UNIT_FLOWS) {
+            addFlowProducer(writer,
+                            context,
+                            flow,
+                            writer.type(AppFlow.class.getName(),
+                                        unit,
+                                        unit));
+        }
+
+        return writer.endClass().toString();
+    }
+
+    private static void addFlowProducer(final JavaSourceWriter writer,
+                                        final SourceGenerationContext context,
+                                        final String methodName,
+                                        final String returnType) {
+        writer.annotation(Override.class.getName())
+                .annotation(Produces.class.getName())
+                .annotation(Singleton.class.getName())
+                .annotation(ForEntity.class.getName(),
+                            JavaSourceWriter.quote(context.getSharedPackage().getPackageName() + "." + context.getEntityName()))
+                .annotation(Named.class.getName(),
+                            JavaSourceWriter.quote(methodName))
+                .beginMethod("public",
+                             returnType,
+                             methodName)
+                .statement("return super." + methodName + "();")
+                .endMethod();
+    }
+}
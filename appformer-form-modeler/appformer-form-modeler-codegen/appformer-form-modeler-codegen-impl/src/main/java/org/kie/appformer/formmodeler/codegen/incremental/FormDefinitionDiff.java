@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.incremental;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.gson.Gson;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.EmbedsForm;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+
+/**
+ * Field by field comparison of two versions of a {@link FormDefinition}, used to decide which
+ * {@link GeneratedArtifact generated artifacts} have to be regenerated after a form or its data
+ * object changes.
+ */
+public class FormDefinitionDiff {
+
+    private static final Gson GSON = new Gson();
+
+    private final Set<String> addedFields = new LinkedHashSet<>();
+    private final Set<String> removedFields = new LinkedHashSet<>();
+    private final Set<String> modifiedFields = new LinkedHashSet<>();
+    private final boolean fieldOrderChanged;
+    private final boolean modelChanged;
+    private final boolean layoutChanged;
+    private final boolean embedsForms;
+
+    private FormDefinitionDiff(final FormDefinition previous,
+                               final FormDefinition current) {
+        final Map<String, String> previousFields = fingerprintFields(previous);
+        final Map<String, String> currentFields = fingerprintFields(current);
+
+        currentFields.forEach((name, fingerprint) -> {
+            if (!previousFields.containsKey(name)) {
+                addedFields.add(name);
+            } else if (!previousFields.get(name).equals(fingerprint)) {
+                modifiedFields.add(name);
+            }
+        });
+        previousFields.keySet()
+                .stream()
+                .filter(name -> !currentFields.containsKey(name))
+                .forEach(removedFields::add);
+
+        fieldOrderChanged = !previousFields.keySet().toString().equals(currentFields.keySet().toString());
+        modelChanged = !Objects.equals(previous.getName(),
+                                       current.getName())
+                || !fingerprint(previous.getModel()).equals(fingerprint(current.getModel()));
+        layoutChanged = !fingerprint(previous.getLayoutTemplate()).equals(fingerprint(current.getLayoutTemplate()));
+        embedsForms = current.getFields().stream().anyMatch(field -> field instanceof EmbedsForm);
+    }
+
+    public static FormDefinitionDiff compare(final FormDefinition previous,
+                                             final FormDefinition current) {
+        return new FormDefinitionDiff(previous,
+                                      current);
+    }
+
+    public Set<String> getAddedFields() {
+        return Collections.unmodifiableSet(addedFields);
+    }
+
+    public Set<String> getRemovedFields() {
+        return Collections.unmodifiableSet(removedFields);
+    }
+
+    public Set<String> getModifiedFields() {
+        return Collections.unmodifiableSet(modifiedFields);
+    }
+
+    public boolean isModelChanged() {
+        return modelChanged;
+    }
+
+    public boolean hasFieldChanges() {
+        return fieldOrderChanged || !addedFields.isEmpty() || !removedFields.isEmpty() || !modifiedFields.isEmpty();
+    }
+
+    /**
+     * @return The artifacts whose generated content may differ between the two compared forms.
+     * Views of forms that embed other forms are always included, since they also depend on the
+     * embedded forms.
+     */
+    public Set<GeneratedArtifact> getAffectedArtifacts() {
+        if (modelChanged) {
+            return EnumSet.allOf(GeneratedArtifact.class);
+        }
+
+        final Set<GeneratedArtifact> affected = EnumSet.noneOf(GeneratedArtifact.class);
+        if (hasFieldChanges() || embedsForms) {
+            for (final GeneratedArtifact artifact : GeneratedArtifact.values()) {
+                if (artifact.dependsOnFields()) {
+                    affected.add(artifact);
+                }
+            }
+        } else if (layoutChanged) {
+            affected.add(GeneratedArtifact.FORM_LAYOUT);
+            affected.add(GeneratedArtifact.FORM_VIEW_TEMPLATE);
+        }
+
+        return affected;
+    }
+
+    @Override
+    public String toString() {
+        return "FormDefinitionDiff[added=" + addedFields + ", removed=" + removedFields + ", modified=" + modifiedFields
+                + ", modelChanged=" + modelChanged + ", layoutChanged=" + layoutChanged + "]";
+    }
+
+    private static Map<String, String> fingerprintFields(final FormDefinition form) {
+        final Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (final FieldDefinition field : form.getFields()) {
+            fingerprints.put(field.getName(),
+                             field.getClass().getName() + ":" + fingerprint(field));
+        }
+        return fingerprints;
+    }
+
+    /*
+     * Objects that cannot be serialized get a unique fingerprint, so that they are always
+     * considered changed.
+     */
+    private static String fingerprint(final Object value) {
+        if (value == null) {
+            return "";
+        }
+        try {
+            return GSON.toJson(value);
+        } catch (final RuntimeException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.incremental;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.model.JavaFormModel;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Computes which {@link GeneratedArtifact generated artifacts} of a project have to be regenerated
+ * after a form or a Data Object changed, from the embedding edges kept by the {@link FormIndex}.
+ * <p>
+ * The form view of a form with a SubForm or MultipleSubForm field refers to the form model and
+ * form view classes of the embedded forms, which are named after them, and lists the properties of
+ * the embedded Data Object in its MultipleSubForm columns. So a form whose id or name changed
+ * affects the form views of the forms embedding it, and a changed model affects the form views of
+ * the forms embedding its type. Regenerating those views does not change their class names, so
+ * the change does not propagate any further.
+ */
+@ApplicationScoped
+public class FormDependencyGraph {
+
+    private FormIndex formIndex;
+
+    public FormDependencyGraph() {
+    }
+
+    @Inject
+    public FormDependencyGraph(final FormIndex formIndex) {
+        this.formIndex = formIndex;
+    }
+
+    /**
+     * @param previous The version of the form the current artifacts were generated from, or null
+     * if it is unknown.
+     * @return Every artifact affected by the change of the form, by the path of the form it is
+     * generated from: the artifacts of the form itself, and those of the forms depending on it.
+     */
+    public Map<Path, Set<GeneratedArtifact>> getFormChangeImpact(final FormDefinition previous,
+                                                                 final FormDefinition current,
+                                                                 final Path formPath) {
+        final Map<Path, Set<GeneratedArtifact>> impact = new LinkedHashMap<>();
+        add(impact,
+            formPath,
+            previous == null ? EnumSet.allOf(GeneratedArtifact.class) : FormDefinitionDiff.compare(previous,
+                                                                                                   current).getAffectedArtifacts());
+        getDependentArtifacts(previous,
+                              current,
+                              formPath).forEach((path, artifacts) -> add(impact,
+                                                                         path,
+                                                                         artifacts));
+        return impact;
+    }
+
+    /**
+     * @param previous The version of the form the current artifacts were generated from, or null
+     * if it is unknown.
+     * @return The artifacts of other forms affected by the change of the form, by form path.
+     */
+    public Map<Path, Set<GeneratedArtifact>> getDependentArtifacts(final FormDefinition previous,
+                                                                   final FormDefinition current,
+                                                                   final Path formPath) {
+        final Map<Path, Set<GeneratedArtifact>> dependents = new LinkedHashMap<>();
+
+        final boolean referenceChanged = previous == null
+                || !Objects.equals(previous.getId(),
+                                   current.getId())
+                || !Objects.equals(previous.getName(),
+                                   current.getName());
+        if (referenceChanged) {
+            addViews(dependents,
+                     formIndex.findEmbeddingForms(current.getId(),
+                                                  formPath));
+            if (previous != null && !Objects.equals(previous.getId(),
+                                                    current.getId())) {
+                addViews(dependents,
+                         formIndex.findEmbeddingForms(previous.getId(),
+                                                      formPath));
+            }
+        }
+
+        final Optional<String> type = typeOf(current);
+        if (type.isPresent() && (previous == null || FormDefinitionDiff.compare(previous,
+                                                                                current).isModelChanged())) {
+            addViews(dependents,
+                     formIndex.findFormsEmbeddingType(type.get(),
+                                                      formPath));
+        }
+
+        dependents.remove(formPath);
+        return dependents;
+    }
+
+    /**
+     * @return The artifacts affected by a change of the Data Object with the given class name, by
+     * form path: every artifact of the forms bound to it, and the form views of the forms
+     * embedding it.
+     */
+    public Map<Path, Set<GeneratedArtifact>> getDataObjectChangeImpact(final String className,
+                                                                       final Path path) {
+        final Map<Path, Set<GeneratedArtifact>> impact = new LinkedHashMap<>();
+        formIndex.findAllFormsByPath(path).forEach((formPath, form) -> {
+            if (typeOf(form).filter(className::equals).isPresent()) {
+                add(impact,
+                    formPath,
+                    EnumSet.allOf(GeneratedArtifact.class));
+            }
+        });
+        addViews(impact,
+                 formIndex.findFormsEmbeddingType(className,
+                                                  path));
+        return impact;
+    }
+
+    private static void addViews(final Map<Path, Set<GeneratedArtifact>> impact,
+                                 final Map<Path, FormDefinition> forms) {
+        forms.keySet().forEach(formPath -> add(impact,
+                                               formPath,
+                                               EnumSet.of(GeneratedArtifact.FORM_VIEW)));
+    }
+
+    private static void add(final Map<Path, Set<GeneratedArtifact>> impact,
+                            final Path formPath,
+                            final Set<GeneratedArtifact> artifacts) {
+        if (!artifacts.isEmpty()) {
+            impact.computeIfAbsent(formPath,
+                                   p -> EnumSet.noneOf(GeneratedArtifact.class)).addAll(artifacts);
+        }
+    }
+
+    private static Optional<String> typeOf(final FormDefinition form) {
+        if (form.getModel() instanceof JavaFormModel) {
+            return Optional.ofNullable(((JavaFormModel) form.getModel()).getType());
+        }
+        return Optional.empty();
+    }
+}
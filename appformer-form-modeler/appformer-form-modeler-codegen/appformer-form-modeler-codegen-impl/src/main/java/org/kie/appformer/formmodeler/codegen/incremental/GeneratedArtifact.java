@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.incremental;
+
+/**
+ * The artifacts generated for a form by the FormSourcesGenerator, grouped by what they are
+ * generated from.
+ */
+public enum GeneratedArtifact {
+
+    // Generated from the form model and name only.
+    FORM_MODEL(false),
+    REST_API(false),
+    REST_IMPL(false),
+    ENTITY_SERVICE(false),
+    FLOW_PRODUCER(false),
+    LIST_VIEW_TEMPLATE(false),
+
+    // Generated from the fields (and layout) of the form.
+    FORM_LAYOUT(true),
+    FORM_VIEW(true),
+    FORM_VIEW_TEMPLATE(true),
+    FORM_VALIDATOR(true),
+    LIST_VIEW(true);
+
+    private final boolean dependsOnFields;
+
+    GeneratedArtifact(final boolean dependsOnFields) {
+        this.dependsOnFields = dependsOnFields;
+    }
+
+    public boolean dependsOnFields() {
+        return dependsOnFields;
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.EmbedsForm;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.multipleSubform.definition.MultipleSubFormFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.model.JavaFormModel;
+import org.kie.workbench.common.forms.serialization.FormDefinitionSerializer;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * {@link FormIndex} that reads the form files of a project once, on the first lookup in the
+ * project, and afterwards only reads the form files reported by resource events. The embedding
+ * edges of a form are added and removed with the form.
+ * <p>
+ * Each form file is parsed once, when it is read, and lookups return the parsed forms themselves.
+ * Events received while a project is being scanned are replayed once the scan is over, and a
+ * project is dropped when its root directory is deleted or renamed.
+ */
+@ApplicationScoped
+public class FormIndexImpl implements FormIndex {
+
+    private static transient Logger log = LoggerFactory.getLogger(FormIndexImpl.class);
+
+    private static final String FORM_EXTENSION = ".frm";
+
+    private static class ProjectForms {
+
+        final CountDownLatch scanned = new CountDownLatch(1);
+        final Map<String, Path> pending = new LinkedHashMap<>();
+        boolean scanning = true;
+
+        final Map<String, FormDefinition> byPath = new LinkedHashMap<>();
+        final Map<String, Path> paths = new HashMap<>();
+        final Map<String, String> byId = new HashMap<>();
+        final Map<String, Map<String, FormDefinition>> byType = new HashMap<>();
+        final Map<String, Set<String>> embeddersById = new HashMap<>();
+        final Map<String, Set<String>> embeddersByType = new HashMap<>();
+
+        /**
+         * Records a form file reported by an event while the project is being scanned.
+         *
+         * @return False if the scan is over and the event has to be applied right away.
+         */
+        synchronized boolean defer(final Path path) {
+            if (scanning) {
+                pending.put(path.toURI(),
+                            path);
+            }
+            return scanning;
+        }
+
+        /**
+         * @return The form files reported by events during the scan, to be read again.
+         */
+        synchronized Collection<Path> endScan() {
+            scanning = false;
+            final List<Path> paths = new ArrayList<>(pending.values());
+            pending.clear();
+            return paths;
+        }
+
+        void awaitScan() {
+            try {
+                scanned.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void put(final Path path,
+                              final FormDefinition form) {
+            final String uri = path.toURI();
+            remove(uri);
+            byPath.put(uri,
+                       form);
+            paths.put(uri,
+                      path);
+            byId.put(form.getId(),
+                     uri);
+            typeOf(form).ifPresent(type -> byType.computeIfAbsent(type,
+                                                                  t -> new LinkedHashMap<>()).put(uri,
+                                                                                                  form));
+            embeddedFormIds(form).forEach(id -> embeddersById.computeIfAbsent(id,
+                                                                              i -> new LinkedHashSet<>()).add(uri));
+            embeddedTypes(form).forEach(type -> embeddersByType.computeIfAbsent(type,
+                                                                                t -> new LinkedHashSet<>()).add(uri));
+        }
+
+        synchronized void remove(final String uri) {
+            final FormDefinition form = byPath.remove(uri);
+            if (form == null) {
+                return;
+            }
+            paths.remove(uri);
+            byId.remove(form.getId(),
+                        uri);
+            typeOf(form).ifPresent(type -> {
+                final Map<String, FormDefinition> forms = byType.get(type);
+                if (forms != null) {
+                    forms.remove(uri);
+                    if (forms.isEmpty()) {
+                        byType.remove(type);
+                    }
+                }
+            });
+            embeddedFormIds(form).forEach(id -> removeEdge(embeddersById,
+                                                           id,
+                                                           uri));
+            embeddedTypes(form).forEach(type -> removeEdge(embeddersByType,
+                                                           type,
+                                                           uri));
+        }
+
+        synchronized List<FormDefinition> all() {
+            return new ArrayList<>(byPath.values());
+        }
+
+        synchronized Map<Path, FormDefinition> allByPath() {
+            final Map<Path, FormDefinition> forms = new LinkedHashMap<>();
+            byPath.forEach((uri, form) -> forms.put(paths.get(uri),
+                                                    form));
+            return forms;
+        }
+
+        synchronized List<FormDefinition> forType(final String typeName) {
+            return new ArrayList<>(byType.getOrDefault(typeName,
+                                                       Collections.emptyMap()).values());
+        }
+
+        synchronized Optional<FormDefinition> forId(final String formId) {
+            return Optional.ofNullable(byId.get(formId)).map(byPath::get);
+        }
+
+        synchronized Map<Path, FormDefinition> embedding(final Map<String, Set<String>> edges,
+                                                         final String key) {
+            final Map<Path, FormDefinition> forms = new LinkedHashMap<>();
+            edges.getOrDefault(key,
+                               Collections.emptySet()).forEach(uri -> forms.put(paths.get(uri),
+                                                                                byPath.get(uri)));
+            return forms;
+        }
+
+        private static void removeEdge(final Map<String, Set<String>> edges,
+                                       final String key,
+                                       final String uri) {
+            final Set<String> uris = edges.get(key);
+            if (uris != null) {
+                uris.remove(uri);
+                if (uris.isEmpty()) {
+                    edges.remove(key);
+                }
+            }
+        }
+
+        private static Optional<String> typeOf(final FormDefinition form) {
+            if (form.getModel() instanceof JavaFormModel) {
+                return Optional.ofNullable(((JavaFormModel) form.getModel()).getType());
+            }
+            return Optional.empty();
+        }
+    }
+
+    private KieProjectService projectService;
+
+    private IOService ioService;
+
+    private FormDefinitionSerializer formDefinitionSerializer;
+
+    private CodegenMetrics metrics;
+
+    private final Map<String, ProjectForms> projects = new ConcurrentHashMap<>();
+
+    public FormIndexImpl() {
+    }
+
+    @Inject
+    public FormIndexImpl(final KieProjectService projectService,
+                         @Named("ioStrategy") final IOService ioService,
+                         final FormDefinitionSerializer formDefinitionSerializer,
+                         final CodegenMetrics metrics) {
+        this.projectService = projectService;
+        this.ioService = ioService;
+        this.formDefinitionSerializer = formDefinitionSerializer;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<FormDefinition> findAllForms(final Path path) {
+        return getProjectForms(path).map(ProjectForms::all).orElse(Collections.emptyList());
+    }
+
+    @Override
+    public Map<Path, FormDefinition> findAllFormsByPath(final Path path) {
+        return getProjectForms(path).map(ProjectForms::allByPath).orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public List<FormDefinition> findFormsForType(final String typeName,
+                                                 final Path path) {
+        return getProjectForms(path).map(forms -> forms.forType(typeName)).orElse(Collections.emptyList());
+    }
+
+    @Override
+    public Optional<FormDefinition> findFormById(final String formId,
+                                                 final Path path) {
+        return getProjectForms(path).flatMap(forms -> forms.forId(formId));
+    }
+
+    @Override
+    public Map<Path, FormDefinition> findEmbeddingForms(final String formId,
+                                                        final Path path) {
+        return getProjectForms(path).map(forms -> forms.embedding(forms.embeddersById,
+                                                                  formId)).orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public Map<Path, FormDefinition> findFormsEmbeddingType(final String typeName,
+                                                            final Path path) {
+        return getProjectForms(path).map(forms -> forms.embedding(forms.embeddersByType,
+                                                                  typeName)).orElse(Collections.emptyMap());
+    }
+
+    public void processResourceAdd(@Observes final ResourceAddedEvent event) {
+        reindex(event.getPath());
+    }
+
+    public void processResourceUpdate(@Observes final ResourceUpdatedEvent event) {
+        reindex(event.getPath());
+    }
+
+    public void processResourceDelete(@Observes final ResourceDeletedEvent event) {
+        evictProjects(event.getPath());
+        remove(event.getPath());
+    }
+
+    public void processResourceCopied(@Observes final ResourceCopiedEvent event) {
+        reindex(event.getDestinationPath());
+    }
+
+    public void processResourceRenamed(@Observes final ResourceRenamedEvent event) {
+        evictProjects(event.getPath());
+        remove(event.getPath());
+        reindex(event.getDestinationPath());
+    }
+
+    private Optional<ProjectForms> getProjectForms(final Path path) {
+        final KieProject project = projectService.resolveProject(path);
+        if (project == null) {
+            return Optional.empty();
+        }
+
+        final String root = project.getRootPath().toURI();
+        final ProjectForms existing = projects.get(root);
+        if (existing == null) {
+            final ProjectForms created = new ProjectForms();
+            if (projects.putIfAbsent(root,
+                                     created) == null) {
+                scan(project.getRootPath(),
+                     created);
+                return Optional.of(created);
+            }
+            return getProjectForms(path);
+        }
+
+        existing.awaitScan();
+        if (projects.get(root) != existing) {
+            // The scan failed or the project was deleted meanwhile.
+            return getProjectForms(path);
+        }
+        return Optional.of(existing);
+    }
+
+    /*
+     * The project is registered before the scan so that the events received meanwhile are
+     * recorded, and the forms they report are read again once the scan is over.
+     */
+    private void scan(final Path rootPath,
+                      final ProjectForms forms) {
+        final String root = rootPath.toURI();
+        final long start = System.nanoTime();
+        try {
+            indexDirectory(Paths.convert(rootPath),
+                           forms);
+            for (final Path path : forms.endScan()) {
+                if (ioService.exists(Paths.convert(path))) {
+                    index(path,
+                          forms);
+                } else {
+                    forms.remove(path.toURI());
+                }
+            }
+        } catch (final RuntimeException e) {
+            projects.remove(root,
+                            forms);
+            throw e;
+        } finally {
+            forms.scanned.countDown();
+        }
+        final long nanos = System.nanoTime() - start;
+        metrics.record("formIndex.scan",
+                       nanos);
+        log.debug("Indexed {} forms of project {} in {} ms.",
+                  forms.byPath.size(),
+                  root,
+                  nanos / 1000000);
+    }
+
+    private void indexDirectory(final org.uberfire.java.nio.file.Path directory,
+                                final ProjectForms forms) {
+        try (final DirectoryStream<org.uberfire.java.nio.file.Path> children = ioService.newDirectoryStream(directory)) {
+            for (final org.uberfire.java.nio.file.Path child : children) {
+                if (Files.isDirectory(child)) {
+                    if (!child.getFileName().toString().startsWith(".")) {
+                        indexDirectory(child,
+                                       forms);
+                    }
+                } else if (isForm(child.getFileName().toString())) {
+                    index(Paths.convert(child),
+                          forms);
+                }
+            }
+        }
+    }
+
+    private void reindex(final Path path) {
+        if (path == null || !isForm(path.getFileName())) {
+            return;
+        }
+
+        findIndexedProject(path).ifPresent(forms -> {
+            if (!forms.defer(path)) {
+                index(path,
+                      forms);
+            }
+        });
+    }
+
+    private void remove(final Path path) {
+        if (path == null || !isForm(path.getFileName())) {
+            return;
+        }
+
+        findIndexedProject(path).ifPresent(forms -> {
+            if (!forms.defer(path)) {
+                forms.remove(path.toURI());
+            }
+        });
+    }
+
+    /*
+     * Drops the projects whose root is at or below a deleted or renamed directory.
+     */
+    private void evictProjects(final Path path) {
+        if (path == null) {
+            return;
+        }
+
+        final String uri = path.toURI();
+        projects.keySet().removeIf(root -> root.equals(uri) || root.startsWith(uri + "/"));
+    }
+
+    /*
+     * Projects that have not been looked up yet are skipped: they are read completely on their
+     * first lookup.
+     */
+    private Optional<ProjectForms> findIndexedProject(final Path path) {
+        final String uri = path.toURI();
+        return projects.entrySet()
+                .stream()
+                .filter(entry -> uri.startsWith(entry.getKey() + "/"))
+                .map(Map.Entry::getValue)
+                .findFirst();
+    }
+
+    /*
+     * Reads a form file into the index, or removes it from the index if it cannot be read.
+     */
+    private void index(final Path path,
+                       final ProjectForms forms) {
+        metrics.increment("formIndex.reads");
+        try {
+            final FormDefinition form = formDefinitionSerializer.deserialize(ioService.readAllString(Paths.convert(path)));
+            if (form != null) {
+                forms.put(path,
+                          form);
+                return;
+            }
+        } catch (final Exception e) {
+            log.warn("Unable to read form '{}': {}",
+                     path.toURI(),
+                     e.getMessage());
+        }
+        forms.remove(path.toURI());
+    }
+
+    private static boolean isForm(final String fileName) {
+        return fileName.endsWith(FORM_EXTENSION);
+    }
+
+    /**
+     * @return The ids of the forms embedded by the subform and multiple subform fields of a form.
+     */
+    public static Set<String> embeddedFormIds(final FormDefinition form) {
+        final Set<String> ids = new LinkedHashSet<>();
+        for (final FieldDefinition field : form.getFields()) {
+            if (field instanceof SubFormFieldDefinition) {
+                addIfPresent(ids,
+                             ((SubFormFieldDefinition) field).getNestedForm());
+            } else if (field instanceof MultipleSubFormFieldDefinition) {
+                addIfPresent(ids,
+                             ((MultipleSubFormFieldDefinition) field).getCreationForm());
+                addIfPresent(ids,
+                             ((MultipleSubFormFieldDefinition) field).getEditionForm());
+            }
+        }
+        return ids;
+    }
+
+    private static Set<String> embeddedTypes(final FormDefinition form) {
+        final Set<String> types = new LinkedHashSet<>();
+        for (final FieldDefinition field : form.getFields()) {
+            if (field instanceof EmbedsForm) {
+                addIfPresent(types,
+                             field.getStandaloneClassName());
+            }
+        }
+        return types;
+    }
+
+    private static void addIfPresent(final Set<String> values,
+                                     final String value) {
+        if (value != null && !value.isEmpty()) {
+            values.add(value);
+        }
+    }
+}
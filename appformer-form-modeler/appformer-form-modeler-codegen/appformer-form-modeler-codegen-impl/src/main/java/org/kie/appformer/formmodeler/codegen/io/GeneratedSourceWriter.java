@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.FormSourcesDiff;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationResult;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Writes generated files through the {@link IOService}, skipping files whose current content
+ * already matches the generated content. Every skipped write avoids a VFS
+ * commit, the resource events it fires and the incremental build those events trigger.
+ * <p>
+ * When the result is a {@link FormSourcesDiff} nothing is written: the generated content is
+ * recorded in the diff together with the current content of the file.
+ */
+@ApplicationScoped
+public class GeneratedSourceWriter {
+
+    private IOService ioService;
+
+    private CodegenMetrics metrics;
+
+    public GeneratedSourceWriter() {
+    }
+
+    @Inject
+    public GeneratedSourceWriter(@Named("ioStrategy") final IOService ioService,
+                                 final CodegenMetrics metrics) {
+        this.ioService = ioService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes the content to the given path unless the file already has the same content, and
+     * records the outcome in the result. If the result is a {@link FormSourcesDiff} the content is
+     * only recorded in it.
+     *
+     * @return true if the file was written.
+     */
+    public boolean write(final Path path,
+                         final String content,
+                         final CommentedOption option,
+                         final FormSourcesGenerationResult result) {
+        if (result instanceof FormSourcesDiff) {
+            ((FormSourcesDiff) result).addFile(Paths.convert(path),
+                                               ioService.exists(path) ? ioService.readAllString(path) : null,
+                                               content);
+            metrics.increment("writer.dryRun");
+            return false;
+        }
+
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (hasContent(path,
+                       bytes)) {
+            result.addUnchanged(Paths.convert(path));
+            metrics.increment("writer.skipped");
+            return false;
+        }
+
+        ioService.write(path,
+                        content,
+                        option);
+        result.addChanged(Paths.convert(path));
+        metrics.increment("writer.written");
+        metrics.increment("writer.bytesWritten",
+                          bytes.length);
+        return true;
+    }
+
+    /**
+     * @return true if the file at the given path exists and its content is the given bytes.
+     */
+    public boolean hasContent(final Path path,
+                              final byte[] bytes) {
+        return ioService.exists(path)
+                && Arrays.equals(ioService.readAllBytes(path),
+                                 bytes);
+    }
+}
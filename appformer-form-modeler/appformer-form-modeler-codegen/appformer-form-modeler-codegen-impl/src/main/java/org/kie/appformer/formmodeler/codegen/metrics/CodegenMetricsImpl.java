@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.appformer.formmodeler.codegen.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.CodegenTimerStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the {@link CodegenMetrics} in memory and exposes them through the platform MBean server
+ * as <code>org.kie.appformer:type=CodegenMetrics</code>. Setting
+ * <code>org.kie.appformer.codegen.metrics.jmx</code> to <code>false</code> keeps the metrics
+ * without registering the MBean. When another instance already registered the MBean, it is left in
+ * place and this instance is not exposed.
+ */
+@ApplicationScoped
+public class CodegenMetricsImpl implements CodegenMetrics,
+                                           CodegenMetricsMXBean {
+
+    public static final String JMX_PROPERTY = "org.kie.appformer.codegen.metrics.jmx";
+    public static final String OBJECT_NAME = "org.kie.appformer:type=CodegenMetrics";
+
+    private static transient Logger log = LoggerFactory.getLogger(CodegenMetricsImpl.class);
+
+    private static class Timer {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(final long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos,
+                                      Math::max);
+        }
+
+        CodegenTimerStats snapshot() {
+            return new CodegenTimerStats(count.sum(),
+                                         totalNanos.sum(),
+                                         maxNanos.get());
+        }
+    }
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private ObjectName objectName;
+
+    @PostConstruct
+    protected void init() {
+        if (!Boolean.parseBoolean(System.getProperty(JMX_PROPERTY,
+                                                     "true"))) {
+            return;
+        }
+
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                log.warn("Code generation metrics MBean {} is already registered, metrics will not be exposed through JMX.",
+                         OBJECT_NAME);
+                return;
+            }
+            server.registerMBean(new StandardMBean(this,
+                                                   CodegenMetricsMXBean.class,
+                                                   true),
+                                 name);
+            objectName = name;
+        } catch (final Exception e) {
+            log.warn("Unable to register code generation metrics MBean: {}",
+                     e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (final Exception e) {
+            log.debug("Unable to unregister code generation metrics MBean: {}",
+                      e.getMessage());
+        }
+        objectName = null;
+    }
+
+    @Override
+    public void increment(final String name,
+                          final long delta) {
+        counters.computeIfAbsent(name,
+                                 n -> new LongAdder()).add(delta);
+    }
+
+    @Override
+    public void record(final String name,
+                       final long nanos) {
+        timers.computeIfAbsent(name,
+                               n -> new Timer()).record(nanos);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name,
+                                                       counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, CodegenTimerStats> getTimers() {
+        final Map<String, CodegenTimerStats> values = new TreeMap<>();
+        timers.forEach((name, timer) -> values.put(name,
+                                                   timer.snapshot()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getTimerCounts() {
+        return timerValues(CodegenTimerStats::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getTimerMeanMillis() {
+        return timerValues(CodegenTimerStats::getMeanMillis);
+    }
+
+    @Override
+    public Map<String, Double> getTimerMaxMillis() {
+        return timerValues(CodegenTimerStats::getMaxMillis);
+    }
+
+    @Override
+    public Map<String, Long> getTimerTotalMillis() {
+        return timerValues(stats -> stats.getTotalNanos() / 1000000);
+    }
+
+    @Override
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    private <T> Map<String, T> timerValues(final Function<CodegenTimerStats, T> value) {
+        final Map<String, T> values = new TreeMap<>();
+        getTimers().forEach((name, stats) -> values.put(name,
+                                                        value.apply(stats)));
+        return values;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.EntityRelationField;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.objectSelector.definition.ObjectSelectorFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.services.datamodeller.core.Annotation;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.datamodeller.core.HasAnnotations;
+import org.kie.workbench.common.services.datamodeller.core.ObjectProperty;
+
+/**
+ * Generates the indexes of the JPA entities the forms of a project query, declared in a
+ * <code>META-INF/orm.xml</code> mapping file as the equivalent of <code>@Table(indexes=...)</code>,
+ * so that the entity sources maintained by the data modeller are left untouched.
+ * <p>
+ * An entity gets an index for:
+ * <ul>
+ * <li>every column of the list view of its form, except booleans, large objects and its id, so
+ * that the list can be sorted by any column;</li>
+ * <li>the foreign key of every SubForm and ObjectSelector field of its form;</li>
+ * <li>the properties of the mask of every ObjectSelector field selecting it. Type-ahead searches
+ * match anywhere in the masked text, so the index only spares the database a full table read.</li>
+ * </ul>
+ * Entities whose <code>@Table</code> annotation already declares indexes or unique constraints
+ * are skipped, since the mapping file would override them.
+ * <p>
+ * Setting <code>org.kie.appformer.codegen.indexes</code> to <code>false</code> disables the
+ * generation, and setting <code>org.kie.appformer.codegen.indexes.&lt;form name&gt;</code> to
+ * <code>false</code> ignores the fields of one form.
+ */
+@ApplicationScoped
+public class EntityIndexesGenerator {
+
+    public static final String ENABLED_PROPERTY = "org.kie.appformer.codegen.indexes";
+
+    public static final String MAPPING_FILE = "META-INF/orm.xml";
+
+    static final String GENERATED_MARKER = "<!-- Generated by AppFormer from the forms of the project";
+
+    // Oracle before 12.2 limits identifiers to 30 characters.
+    static final int MAX_NAME_LENGTH = 30;
+
+    private static final String ENTITY = "javax.persistence.Entity";
+    private static final String TABLE = "javax.persistence.Table";
+    private static final String ID = "javax.persistence.Id";
+    private static final String COLUMN = "javax.persistence.Column";
+    private static final String JOIN_COLUMN = "javax.persistence.JoinColumn";
+    private static final String MANY_TO_ONE = "javax.persistence.ManyToOne";
+    private static final String ONE_TO_ONE = "javax.persistence.OneToOne";
+    private static final String TRANSIENT = "javax.persistence.Transient";
+    private static final String LOB = "javax.persistence.Lob";
+
+    private static final Pattern MASK_PROPERTY = Pattern.compile("\\{([^{}]+)\\}");
+
+    /**
+     * @return false if the generation is disabled for every form.
+     */
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY,
+                                                       "true"));
+    }
+
+    /**
+     * @return false if the fields of the given form are ignored.
+     */
+    public boolean isEnabled(final FormDefinition form) {
+        return isEnabled() && Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY + "." + form.getName(),
+                                                                      "true"));
+    }
+
+    /**
+     * @return true if the given mapping file content was generated, or there is no mapping file,
+     * so that it can be replaced.
+     */
+    public boolean isGenerated(final String mappingFile) {
+        return mappingFile == null || mappingFile.contains(GENERATED_MARKER);
+    }
+
+    /**
+     * @return The indexes the given forms need, by entity class name, in class name order.
+     */
+    public Map<String, List<EntityIndex>> getIndexes(final Collection<FormDefinition> forms,
+                                                     final DataModel dataModel) {
+        final Map<String, Map<List<String>, EntityIndex>> indexes = new TreeMap<>();
+        for (final FormDefinition form : forms) {
+            if (!isEnabled(form)) {
+                continue;
+            }
+
+            final DataObject entity = getEntity(dataModel,
+                                                form.getId());
+            for (final FieldDefinition field : form.getFields()) {
+                if (entity != null) {
+                    addFieldIndex(indexes,
+                                  entity,
+                                  field,
+                                  dataModel);
+                }
+                if (field instanceof ObjectSelectorFieldDefinition) {
+                    addMaskIndex(indexes,
+                                 getEntity(dataModel,
+                                           field.getStandaloneClassName()),
+                                 ((ObjectSelectorFieldDefinition) field).getMask());
+                }
+            }
+        }
+
+        final Map<String, List<EntityIndex>> result = new TreeMap<>();
+        indexes.forEach((className, entityIndexes) -> result.put(className,
+                                                                 new ArrayList<>(entityIndexes.values())));
+        return result;
+    }
+
+    /**
+     * @return The mapping file declaring the given indexes.
+     */
+    public String generate(final Map<String, List<EntityIndex>> indexes,
+                           final DataModel dataModel) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append(GENERATED_MARKER).append(", changes will be overwritten. -->\n")
+                .append("<entity-mappings xmlns=\"http://xmlns.jcp.org/xml/ns/persistence/orm\"\n")
+                .append("                 xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n")
+                .append("                 xsi:schemaLocation=\"http://xmlns.jcp.org/xml/ns/persistence/orm http://xmlns.jcp.org/xml/ns/persistence/orm_2_1.xsd\"\n")
+                .append("                 version=\"2.1\">\n");
+
+        indexes.forEach((className, entityIndexes) -> {
+            xml.append("    <entity class=\"").append(escape(className)).append("\" metadata-complete=\"false\">\n");
+            // The table element replaces the @Table annotation, so its attributes are kept.
+            xml.append("        <table");
+            final DataObject entity = dataModel.getDataObject(className);
+            for (final String attribute : new String[]{"name", "schema", "catalog"}) {
+                final String value = entity != null ? stringValue(entity,
+                                                                  TABLE,
+                                                                  attribute) : null;
+                if (value != null) {
+                    xml.append(' ').append(attribute).append("=\"").append(escape(value)).append('"');
+                }
+            }
+            xml.append(">\n");
+            for (final EntityIndex index : entityIndexes) {
+                xml.append("            <index name=\"").append(escape(index.getName()))
+                        .append("\" column-list=\"").append(escape(String.join(", ",
+                                                                                   index.getColumns())))
+                        .append("\"/>\n");
+            }
+            xml.append("        </table>\n");
+            xml.append("    </entity>\n");
+        });
+
+        return xml.append("</entity-mappings>\n").toString();
+    }
+
+    private void addFieldIndex(final Map<String, Map<List<String>, EntityIndex>> indexes,
+                               final DataObject entity,
+                               final FieldDefinition field,
+                               final DataModel dataModel) {
+        final ObjectProperty property = entity.getProperty(field.getBinding());
+        if (property == null || property.isMultiple() || property.getAnnotation(TRANSIENT) != null) {
+            return;
+        }
+
+        if (field instanceof SubFormFieldDefinition || field instanceof ObjectSelectorFieldDefinition) {
+            if (hasForeignKey(property)) {
+                addIndex(indexes,
+                         entity,
+                         Collections.singletonList(joinColumn(property,
+                                                              dataModel)));
+            }
+        } else if (!(field instanceof EntityRelationField) && isSortable(property)) {
+            addIndex(indexes,
+                     entity,
+                     Collections.singletonList(column(property)));
+        }
+    }
+
+    private void addMaskIndex(final Map<String, Map<List<String>, EntityIndex>> indexes,
+                              final DataObject target,
+                              final String mask) {
+        if (target == null || mask == null) {
+            return;
+        }
+
+        final List<String> columns = new ArrayList<>();
+        final Matcher matcher = MASK_PROPERTY.matcher(mask);
+        while (matcher.find()) {
+            final ObjectProperty property = target.getProperty(matcher.group(1).trim());
+            if (property == null || property.isMultiple() || property.getAnnotation(TRANSIENT) != null) {
+                return;
+            }
+            final String column = column(property);
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+
+        if (!columns.isEmpty()) {
+            addIndex(indexes,
+                     target,
+                     columns);
+        }
+    }
+
+    private void addIndex(final Map<String, Map<List<String>, EntityIndex>> indexes,
+                          final DataObject entity,
+                          final List<String> columns) {
+        if (hasDeclaredIndexes(entity)) {
+            return;
+        }
+
+        indexes.computeIfAbsent(entity.getClassName(),
+                                className -> new LinkedHashMap<>())
+                .computeIfAbsent(columns,
+                                 key -> new EntityIndex(indexName(entity,
+                                                                  columns),
+                                                        columns));
+    }
+
+    private static DataObject getEntity(final DataModel dataModel,
+                                        final String className) {
+        final DataObject dataObject = className != null ? dataModel.getDataObject(className) : null;
+        return dataObject != null && dataObject.getAnnotation(ENTITY) != null ? dataObject : null;
+    }
+
+    private static boolean hasDeclaredIndexes(final DataObject entity) {
+        final Annotation table = entity.getAnnotation(TABLE);
+        return table != null && (isDeclared(table.getValue("indexes")) || isDeclared(table.getValue("uniqueConstraints")));
+    }
+
+    private static boolean isDeclared(final Object value) {
+        return value instanceof Collection ? !((Collection<?>) value).isEmpty() : value != null;
+    }
+
+    private static boolean hasForeignKey(final ObjectProperty property) {
+        if (property.getAnnotation(MANY_TO_ONE) != null) {
+            return true;
+        }
+        // The foreign key of a one to one relation is on the owning side.
+        return property.getAnnotation(ONE_TO_ONE) != null && stringValue(property,
+                                                                         ONE_TO_ONE,
+                                                                         "mappedBy") == null;
+    }
+
+    private static boolean isSortable(final ObjectProperty property) {
+        return property.getAnnotation(ID) == null
+                && property.getAnnotation(LOB) == null
+                && !Boolean.class.getName().equals(property.getClassName())
+                && !boolean.class.getName().equals(property.getClassName());
+    }
+
+    private static String column(final ObjectProperty property) {
+        final String name = stringValue(property,
+                                        COLUMN,
+                                        "name");
+        return name != null ? name : property.getName();
+    }
+
+    /*
+     * Without a @JoinColumn name, JPA names the foreign key after the property and the id column
+     * of the referenced entity.
+     */
+    private static String joinColumn(final ObjectProperty property,
+                                     final DataModel dataModel) {
+        final String name = stringValue(property,
+                                        JOIN_COLUMN,
+                                        "name");
+        if (name != null) {
+            return name;
+        }
+
+        final DataObject target = dataModel.getDataObject(property.getClassName());
+        String idColumn = "id";
+        if (target != null) {
+            for (final ObjectProperty targetProperty : target.getProperties()) {
+                if (targetProperty.getAnnotation(ID) != null) {
+                    idColumn = column(targetProperty);
+                    break;
+                }
+            }
+        }
+        return property.getName() + "_" + idColumn;
+    }
+
+    private static String indexName(final DataObject entity,
+                                    final List<String> columns) {
+        final String table = stringValue(entity,
+                                         TABLE,
+                                         "name");
+        final String name = ("idx_" + (table != null ? table : entity.getName()) + "_" + String.join("_",
+                                                                                                      columns)).toLowerCase();
+        if (name.length() <= MAX_NAME_LENGTH) {
+            return name;
+        }
+        // Truncated names keep a hash of the full name so that they stay unique.
+        return name.substring(0,
+                              MAX_NAME_LENGTH - 9) + "_" + String.format("%08x",
+                                                                         name.hashCode());
+    }
+
+    private static String stringValue(final HasAnnotations annotated,
+                                      final String annotation,
+                                      final String member) {
+        final Annotation found = annotated.getAnnotation(annotation);
+        final Object value = found != null ? found.getValue(member) : null;
+        return value != null && !value.toString().trim().isEmpty() ? value.toString().trim() : null;
+    }
+
+    private static String escape(final String value) {
+        return value.replace("&",
+                             "&amp;")
+                .replace("<",
+                         "&lt;")
+                .replace(">",
+                         "&gt;")
+                .replace("\"",
+                         "&quot;");
+    }
+
+    /**
+     * An index of the table of an entity.
+     */
+    public static class EntityIndex {
+
+        private final String name;
+        private final List<String> columns;
+
+        public EntityIndex(final String name,
+                           final List<String> columns) {
+            this.name = name;
+            this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        @Override
+        public String toString() {
+            return name + columns;
+        }
+    }
+}
@@ -16,8 +16,11 @@
 
 package org.kie.appformer.formmodeler.codegen.properties.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 
 import org.kie.appformer.formmodeler.codegen.ErraiAppPropertiesGenerator;
 
@@ -49,6 +52,32 @@ public class ErraiAppPropertiesGeneratorImpl implements ErraiAppPropertiesGenera
         return builder.toString();
     }
 
+    @Override
+    public Optional<List<String>> parseSerializableTypes( final String properties ) {
+        final String[] lines = properties.split( "\\r?\\n" );
+        for ( int i = 0; i < lines.length; i++ ) {
+            if ( lines[i].startsWith( MARHSALLING_DECLARATION_LHS ) ) {
+                final List<String> types = new ArrayList<>();
+                String value = lines[i].substring( MARHSALLING_DECLARATION_LHS.length() );
+                while ( value.endsWith( "\\" ) && i + 1 < lines.length ) {
+                    addType( types, value.substring( 0, value.length() - 1 ) );
+                    value = lines[++i];
+                }
+                addType( types, value );
+                return types.isEmpty() ? Optional.empty() : Optional.of( types );
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private void addType( final List<String> types, final String value ) {
+        final String type = value.trim();
+        if ( !type.isEmpty() ) {
+            types.add( type );
+        }
+    }
+
     private void generateDeclaration( Collection<String> fullyQualifiedClassNames, final StringBuilder builder, String declarationLhs  ) {
         if ( fullyQualifiedClassNames.size() > 0 ) {
             builder.append( declarationLhs );
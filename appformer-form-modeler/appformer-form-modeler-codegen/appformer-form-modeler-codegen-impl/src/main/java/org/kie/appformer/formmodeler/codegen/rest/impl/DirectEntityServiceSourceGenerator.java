@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.rest.impl;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.emitter.JavaSourceWriter;
+
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.EJB_REQUIRES_NEW;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.EJB_STATELESS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.EJB_TRANSACTION_ATTR;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ENTITY_SERVICE_CLASS;
+
+/**
+ * Generates the same entity service as {@link RoasterEntityServiceSourceGenerator}, written
+ * directly with a {@link JavaSourceWriter}.
+ */
+@ApplicationScoped
+@Typed(DirectEntityServiceSourceGenerator.class)
+public class DirectEntityServiceSourceGenerator implements JavaSourceGenerator {
+
+    @Override
+    public String generateJavaSource(final SourceGenerationContext context) {
+        final JavaSourceWriter writer = new JavaSourceWriter(context.getServerPackage().getPackageName(),
+                                                             context.getEntityServiceName());
+        return writer.annotation(EJB_STATELESS)
+                .annotation(EJB_TRANSACTION_ATTR,
+                            EJB_REQUIRES_NEW)
+                .beginClass(writer.type(ENTITY_SERVICE_CLASS))
+                .endClass()
+                .toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.rest.impl;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.emitter.JavaSourceWriter;
+
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.EJB_STATELESS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ENTITY_SERVICE_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.REST_SERVICE_IMPL_CLASS;
+
+/**
+ * Generates the same JAX-RS implementation as {@link RoasterRestImplSourceGenerator}, written
+ * directly with a {@link JavaSourceWriter}.
+ */
+@ApplicationScoped
+@Typed(DirectRestImplSourceGenerator.class)
+public class DirectRestImplSourceGenerator implements JavaSourceGenerator {
+
+    private static final String ENTITY_SERVICE = "entityService";
+
+    @Override
+    public String generateJavaSource(final SourceGenerationContext context) {
+        checkFormDefinition(context.getFormDefinition());
+
+        final String sharedPackage = context.getSharedPackage().getPackageName();
+        final String serverPackage = context.getServerPackage().getPackageName();
+        final JavaSourceWriter writer = new JavaSourceWriter(serverPackage,
+                                                             context.getRestServiceName() + "Impl");
+
+        final String entity = writer.type(sharedPackage + "." + context.getEntityName());
+        final String entityService = writer.type(serverPackage + "." + context.getEntityServiceName());
+        final String baseEntityService = writer.type(ENTITY_SERVICE_CLASS);
+        final String override = Override.class.getName();
+
+        writer.annotation(EJB_STATELESS)
+                .beginClass(writer.type(REST_SERVICE_IMPL_CLASS,
+                                        entity),
+                            writer.type(sharedPackage + "." + context.getRestServiceName()));
+
+        writer.annotation(Inject.class.getName())
+                .field("private",
+                       entityService,
+                       ENTITY_SERVICE);
+
+        writer.annotation(override)
+                .beginMethod("protected",
+                             baseEntityService,
+                             "getEntityService")
+                .statement("return " + ENTITY_SERVICE + ";")
+                .endMethod();
+
+        writer.annotation(override)
+                .beginMethod("protected",
+                             "Class<" + entity + ">",
+                             "getEntityType")
+                .statement("return " + entity + ".class;")
+                .endMethod();
+
+        return writer.endClass().toString();
+    }
+}
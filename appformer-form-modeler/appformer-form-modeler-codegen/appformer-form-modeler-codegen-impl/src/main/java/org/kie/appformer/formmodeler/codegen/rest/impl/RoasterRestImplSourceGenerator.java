@@ -21,13 +21,19 @@ import javax.inject.Inject;
 
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
 import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
 import org.kie.appformer.formmodeler.codegen.rest.RestImpl;
 
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.EJB_STATELESS;
-
-
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ENTITY_SERVICE_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.REST_SERVICE_IMPL_CLASS;
+
+/**
+ * Generates the JAX-RS implementation of an entity's REST service as a subclass of
+ * {@link org.kie.appformer.formmodeler.rendering.server.rest.BaseRestServiceImpl}, which
+ * implements the CRUD operations. The generated class only provides the entity type and the
+ * injected entity service.
+ */
 @ApplicationScoped
 @RestImpl
 public class RoasterRestImplSourceGenerator extends RoasterRestServiceSourceGenerator<JavaClassSource> {
@@ -36,13 +42,15 @@ public class RoasterRestImplSourceGenerator extends RoasterRestServiceSourceGene
 
     @Override
     public String generateJavaSource( final SourceGenerationContext context ) {
+        checkFormDefinition( context.getFormDefinition() );
+
         final JavaClassSource restImpl = Roaster.create( JavaClassSource.class );
 
         addImports( context, restImpl );
         addFields( context, restImpl );
         addTypeSignature( context, restImpl );
         addTypeAnnotations( context, restImpl );
-        addCrudMethodImpls( context, restImpl );
+        addBaseMethodImpls( context, restImpl );
 
         return restImpl.toString();
     }
@@ -64,177 +72,27 @@ public class RoasterRestImplSourceGenerator extends RoasterRestServiceSourceGene
     @Override
     protected void addImports( final SourceGenerationContext context,
                                final JavaClassSource restImpl ) {
-        super.addImports( context, restImpl );
+        restImpl.addImport( context.getSharedPackage().getPackageName() + "." + context.getEntityName() );
         restImpl.addImport( context.getSharedPackage().getPackageName() + "." + context.getRestServiceName() );
+        restImpl.addImport( ENTITY_SERVICE_CLASS );
+        restImpl.addImport( REST_SERVICE_IMPL_CLASS );
     }
 
-    private void addCrudMethodImpls( final SourceGenerationContext context,
+    private void addBaseMethodImpls( final SourceGenerationContext context,
                                      final JavaClassSource restImpl ) {
-        addCreateMethodImpl( context, restImpl );
-        addLoadMethodImpl( context, restImpl );
-        addRangedLoadMethodImpl( context, restImpl );
-        addUpdateMethodImpl( context, restImpl );
-        addDeleteMethodImpl( context, restImpl );
-        addListMethodImpl( context, restImpl );
-    }
-
-    private void addUpdateMethodImpl( final SourceGenerationContext context,
-                                      final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> update = restImpl.addMethod();
-        setUpdateMethodSignature( context, update );
-        setUpdateMethodBody( context, update );
-    }
-
-    private void setUpdateMethodBody( final SourceGenerationContext context,
-                                      final MethodSource<JavaClassSource> update ) {
-        update.setBody( ENTITY_SERVICE + ".update( model ); return true;" );
-    }
-
-    @Override
-    protected void setUpdateMethodSignature( final SourceGenerationContext context,
-                                             final MethodSource<JavaClassSource> update ) {
-        super.setUpdateMethodSignature( context, update );
-        update.addAnnotation( Override.class );
-    }
-
-    private void addDeleteMethodImpl( final SourceGenerationContext context,
-                                      final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> delete = restImpl.addMethod();
-        setDeleteMethodSignature( context, delete );
-        setDeleteMethodBody( context, delete );
-    }
-
-    private void setDeleteMethodBody( final SourceGenerationContext context,
-                                      final MethodSource<JavaClassSource> delete ) {
-        delete.setBody( ENTITY_SERVICE + ".delete( model ); return true;" );
-    }
-
-    @Override
-    protected void setDeleteMethodSignature( final SourceGenerationContext context,
-                                             final MethodSource<JavaClassSource> delete ) {
-        super.setDeleteMethodSignature( context, delete );
-        delete.addAnnotation( Override.class );
-    }
-
-    private void addListMethodImpl( final SourceGenerationContext context,
-                                    final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> list = restImpl.addMethod();
-        setListMethodSignature( context, list );
-        setListMethodBody( context, list );
-    }
-
-    @Override
-    protected void setListMethodSignature( final SourceGenerationContext context,
-                                           final MethodSource<JavaClassSource> list ) {
-        super.setListMethodSignature( context, list );
-        list.addAnnotation( Override.class );
-    }
-
-    private void setListMethodBody( final SourceGenerationContext context,
-                                    final MethodSource<JavaClassSource> list ) {
-
-        checkFormDefinition( context.getFormDefinition() );
-
-        final StringBuilder body = new StringBuilder();
-
-        body.append( "return " )
-                .append( ENTITY_SERVICE )
-                .append( ".list( " )
-                .append( context.getEntityName() )
-                .append( ".class, criteria );" );
-
-        list.setBody( body.toString() );
-    }
-
-    private void addLoadMethodImpl( final SourceGenerationContext context,
-                                    final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> load = restImpl.addMethod();
-        setLoadMethodSignature( context, load );
-        setLoadMethodBody( context, load );
-    }
-
-    /*
-     * TODO support loading form models with multiple data models
-     */
-    private void setLoadMethodBody( final SourceGenerationContext context,
-                                    final MethodSource<JavaClassSource> load ) {
-
-        checkFormDefinition( context.getFormDefinition() );
-
-        final StringBuilder body = new StringBuilder();
-
-        body.append( "return " )
-                .append( ENTITY_SERVICE )
-                .append( ".listAll( " )
-                .append( context.getEntityName() )
-                .append( ".class );" );
-
-        load.setBody( body.toString() );
-    }
-
-    @Override
-    protected void setLoadMethodSignature( final SourceGenerationContext context,
-                                           final MethodSource<JavaClassSource> load ) {
-        super.setLoadMethodSignature( context, load );
-        load.addAnnotation( Override.class );
-    }
-
-    private void addRangedLoadMethodImpl( final SourceGenerationContext context,
-                                          final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> load = restImpl.addMethod();
-        setRangedLoadMethodSignature( context, load );
-        setRangedLoadMethodBody( context, load );
-    }
-
-    private void setRangedLoadMethodBody( final SourceGenerationContext context,
-                                          final MethodSource<JavaClassSource> load ) {
-
-        checkFormDefinition( context.getFormDefinition() );
-
-        final StringBuilder body = new StringBuilder();
-
-        body.append( "return " )
-                .append( ENTITY_SERVICE )
-                .append( ".list( " )
-                .append( context.getEntityName() )
-                .append( ".class, start, end );" );
-
-        load.setBody( body.toString() );
-    }
-
-    private void setRangedLoadMethodSignature( final SourceGenerationContext context,
-                                               final MethodSource<JavaClassSource> load ) {
-        load
-                .setName( "load" )
-                .setPublic()
-                .setReturnType( "List<" + context.getEntityName() + ">" );
-        load.addParameter( int.class, "start" );
-        load.addParameter( int.class, "end" );
-        load.addAnnotation( Override.class );
-    }
-
-    private void addCreateMethodImpl( final SourceGenerationContext context,
-                                      final JavaClassSource restImpl ) {
-        final MethodSource<JavaClassSource> create = restImpl.addMethod();
-        setCreateMethodSignature( context, create );
-        setCreateMethodBody( context, create );
-    }
-
-    @Override
-    protected void setCreateMethodSignature( final SourceGenerationContext context,
-                                             final MethodSource<JavaClassSource> create ) {
-        super.setCreateMethodSignature( context, create );
-        create.addAnnotation( Override.class );
-    }
-
-    private void setCreateMethodBody( final SourceGenerationContext context,
-                                      final MethodSource<JavaClassSource> create ) {
-        final StringBuilder body = new StringBuilder();
-        body.append( "return " )
-                .append( ENTITY_SERVICE )
-                .append( ".create( model );" );
+        restImpl.addMethod()
+                .setName( "getEntityService" )
+                .setProtected()
+                .setReturnType( ENTITY_SERVICE_CLASS )
+                .setBody( "return " + ENTITY_SERVICE + ";" )
+                .addAnnotation( Override.class );
 
-        create.setBody( body.toString() );
+        restImpl.addMethod()
+                .setName( "getEntityType" )
+                .setProtected()
+                .setReturnType( "Class<" + context.getEntityName() + ">" )
+                .setBody( "return " + context.getEntityName() + ".class;" )
+                .addAnnotation( Override.class );
     }
 
     private void addTypeSignature( final SourceGenerationContext context,
@@ -242,6 +100,7 @@ public class RoasterRestImplSourceGenerator extends RoasterRestServiceSourceGene
         restImpl.setPackage( context.getServerPackage().getPackageName() )
                 .setPublic()
                 .setName( context.getRestServiceName() + "Impl" )
+                .setSuperType( REST_SERVICE_IMPL_CLASS + "<" + context.getEntityName() + ">" )
                 .addInterface( context.getRestServiceName() );
     }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import org.kie.appformer.formmodeler.codegen.cache.GeneratorOutputCache;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.mvel2.templates.CompiledTemplate;
+import org.mvel2.templates.TemplateRegistry;
+import org.mvel2.templates.TemplateRuntime;
+
+/**
+ * Renders the HTML fragment of a single form field with the named template registered for its
+ * field type. Field templates only depend on the field itself, so fragments are cached under a
+ * fingerprint of the field type and the serialized field, which includes its binding and the
+ * class it is bound to: editing one field of a form renders only that field again.
+ */
+public class FieldFragmentRenderer {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Gson GSON = new Gson();
+
+    private final TemplateRegistry registry;
+
+    private final Map<String, String> fragments;
+
+    public FieldFragmentRenderer(final TemplateRegistry registry) {
+        this(registry,
+             DEFAULT_CAPACITY);
+    }
+
+    public FieldFragmentRenderer(final TemplateRegistry registry,
+                                 final int capacity) {
+        this.registry = registry;
+        this.fragments = Collections.synchronizedMap(new LinkedHashMap<String, String>(16,
+                                                                                      0.75f,
+                                                                                      true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Renders a field. Fields that cannot be serialized are rendered without caching.
+     */
+    public String render(final FieldDefinition field) {
+        final String typeName = field.getFieldType().getTypeName();
+        final String key = fingerprint(typeName,
+                                       field);
+        if (key == null) {
+            return execute(typeName,
+                           field);
+        }
+
+        final String cached = fragments.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String fragment = execute(typeName,
+                                        field);
+        fragments.put(key,
+                      fragment);
+        return fragment;
+    }
+
+    public int size() {
+        return fragments.size();
+    }
+
+    private String execute(final String typeName,
+                           final FieldDefinition field) {
+        final CompiledTemplate template = registry.getNamedTemplate(typeName);
+        if (template == null) {
+            throw new IllegalArgumentException("No template registered for field type '" + typeName + "'.");
+        }
+
+        final Map<String, Object> vars = new HashMap<>();
+        vars.put("field",
+                 field);
+        return String.valueOf(TemplateRuntime.execute(template,
+                                                      null,
+                                                      vars,
+                                                      registry));
+    }
+
+    private static String fingerprint(final String typeName,
+                                      final FieldDefinition field) {
+        try {
+            return GeneratorOutputCache.key(typeName,
+                                            field.getClass().getName(),
+                                            GSON.toJson(field));
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+}
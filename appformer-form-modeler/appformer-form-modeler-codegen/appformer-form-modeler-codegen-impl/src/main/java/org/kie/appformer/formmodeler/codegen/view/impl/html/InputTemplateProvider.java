@@ -21,4 +21,12 @@ import org.mvel2.templates.TemplateRegistry;
 public interface InputTemplateProvider {
 
     void registerTemplates( TemplateRegistry registry );
+
+    /**
+     * Registers the templates of this provider, taking the compiled templates from the given
+     * shared registry instead of compiling them again.
+     */
+    default void registerTemplates( final TemplateRegistry registry, final MVELTemplateRegistry templates ) {
+        registerTemplates( registry );
+    }
 }
@@ -16,7 +16,6 @@
 
 package org.kie.appformer.formmodeler.codegen.view.impl.html;
 
-import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -25,26 +24,23 @@ import org.kie.appformer.formmodeler.codegen.view.HTMLTemplateGenerator;
 import org.kie.appformer.formmodeler.codegen.view.ListView;
 import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter;
 import org.mvel2.templates.CompiledTemplate;
-import org.mvel2.templates.TemplateCompiler;
 import org.mvel2.templates.TemplateRuntime;
 
 @ListView
 @ApplicationScoped
 public class ListHTMLTemplateSourceGenerator implements HTMLTemplateGenerator {
 
-    private String listViewTemplatePath = "templates/listview.mv";
-    private CompiledTemplate listViewTemplate;
-
-    @PostConstruct
-    protected void init() {
-        listViewTemplate = TemplateCompiler.compileTemplate( getClass().getResourceAsStream( listViewTemplatePath ) );
-    }
+    private static final String LIST_VIEW_TEMPLATE = MVELTemplateRegistry.TEMPLATES_PATH + "listview.mv";
 
     @Inject
     private HTMLTemplateFormatter formatter;
 
+    @Inject
+    private MVELTemplateRegistry templates;
+
     @Override
     public String generateHTMLTemplate( SourceGenerationContext context ) {
+        final CompiledTemplate listViewTemplate = templates.getTemplate( LIST_VIEW_TEMPLATE );
         return formatter.formatHTMLCode( (String) TemplateRuntime.execute( listViewTemplate ) );
     }
 }
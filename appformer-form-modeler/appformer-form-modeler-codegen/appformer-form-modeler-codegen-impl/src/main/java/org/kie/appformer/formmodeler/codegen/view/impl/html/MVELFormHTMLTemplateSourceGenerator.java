@@ -27,17 +27,16 @@ import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
 import org.kie.appformer.formmodeler.codegen.view.FormView;
 import org.kie.appformer.formmodeler.codegen.view.HTMLTemplateGenerator;
 import org.kie.appformer.formmodeler.codegen.view.impl.html.util.HTMLTemplateFormatter;
-import org.kie.workbench.common.forms.model.FormDefinition;
 import org.mvel2.templates.CompiledTemplate;
 import org.mvel2.templates.SimpleTemplateRegistry;
-import org.mvel2.templates.TemplateCompiler;
 import org.mvel2.templates.TemplateRegistry;
 import org.mvel2.templates.TemplateRuntime;
 
 @FormView
 @ApplicationScoped
 public class MVELFormHTMLTemplateSourceGenerator implements HTMLTemplateGenerator {
-    TemplateRegistry registry = new SimpleTemplateRegistry();
+
+    private static final String FORM_TEMPLATE = MVELTemplateRegistry.TEMPLATES_PATH + "form.mv";
 
     @Inject
     protected Instance<InputTemplateProvider> providers;
@@ -45,23 +44,54 @@ public class MVELFormHTMLTemplateSourceGenerator implements HTMLTemplateGenerato
     @Inject
     private HTMLTemplateFormatter formatter;
 
-    private final String formTemplatePath = "templates/form.mv";
-    private CompiledTemplate formTemplate;
+    @Inject
+    private MVELTemplateRegistry templates;
+
+    private volatile Templates current;
 
     @PostConstruct
     protected void init() {
-        formTemplate = TemplateCompiler.compileTemplate( getClass().getResourceAsStream( formTemplatePath ) );
+        current = loadTemplates();
+    }
 
+    @Override
+    public String generateHTMLTemplate( final SourceGenerationContext context ) {
+        Templates loaded = current;
+        if ( loaded.version != templates.getVersion() ) {
+            loaded = current = loadTemplates();
+        }
+
+        final Map<String, Object> params = new HashMap<>(  );
+        params.put( "formDefinition", context.getFormDefinition() );
+        params.put( "fragments", loaded.fragments );
+        return formatter.formatHTMLCode( ( String ) TemplateRuntime.execute( loaded.formTemplate, null, params, loaded.registry ) );
+    }
+
+    /*
+     * Field fragments are cached per template version, so they are rendered again after a reload.
+     */
+    private Templates loadTemplates() {
+        final long version = templates.getVersion();
+        final TemplateRegistry registry = new SimpleTemplateRegistry();
         for ( final InputTemplateProvider provider : providers ) {
-            provider.registerTemplates( registry );
+            provider.registerTemplates( registry, templates );
         }
 
+        return new Templates( version, templates.getTemplate( FORM_TEMPLATE ), registry );
     }
 
-    @Override
-    public String generateHTMLTemplate( final SourceGenerationContext context ) {
-        final Map<String, FormDefinition> params = new HashMap<>(  );
-        params.put( "formDefinition", context.getFormDefinition() );
-        return formatter.formatHTMLCode( ( String ) TemplateRuntime.execute( formTemplate, null, params, registry ) );
+    private static class Templates {
+
+        final long version;
+        final CompiledTemplate formTemplate;
+        final TemplateRegistry registry;
+        final FieldFragmentRenderer fragments;
+
+        Templates( final long version, final CompiledTemplate formTemplate, final TemplateRegistry registry ) {
+            this.version = version;
+            this.formTemplate = formTemplate;
+            this.registry = registry;
+            this.fragments = new FieldFragmentRenderer( registry );
+        }
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor;
+import org.mvel2.templates.CompiledTemplate;
+import org.mvel2.templates.TemplateCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.services.cdi.Startup;
+
+/**
+ * Compiles each MVEL template resource once and shares the compiled template between all
+ * generators and template providers.
+ * <p>
+ * The built-in templates are compiled in the background when the application starts, so that the
+ * first form save does not pay for their compilation. Compile times are recorded in the
+ * <code>template.compile</code> timer of {@link CodegenMetrics}.
+ * <p>
+ * When the <code>org.kie.appformer.codegen.templates.reload</code> system property is
+ * <code>true</code>, a template is compiled again when its resource has been modified since it was
+ * last compiled, and {@link #getVersion()} changes so that users of the templates can drop
+ * anything derived from the old ones.
+ */
+@Startup
+@ApplicationScoped
+public class MVELTemplateRegistry {
+
+    public static final String RELOAD_PROPERTY = "org.kie.appformer.codegen.templates.reload";
+
+    public static final String TEMPLATES_PATH = "/org/kie/appformer/formmodeler/codegen/view/impl/html/templates/";
+
+    static final List<String> BUILT_IN_TEMPLATES = Collections.unmodifiableList(Arrays.asList("form.mv",
+                                                                                              "listview.mv",
+                                                                                              "checkbox.mv",
+                                                                                              "datebox.mv",
+                                                                                              "listbox.mv",
+                                                                                              "multiplesubform.mv",
+                                                                                              "numberbox.mv",
+                                                                                              "objectselector.mv",
+                                                                                              "picture.mv",
+                                                                                              "radiogroup.mv",
+                                                                                              "slider.mv",
+                                                                                              "subform.mv",
+                                                                                              "textarea.mv",
+                                                                                              "textinput.mv"));
+
+    private static transient Logger log = LoggerFactory.getLogger(MVELTemplateRegistry.class);
+
+    private final boolean reload = Boolean.getBoolean(RELOAD_PROPERTY);
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private GeneratorExecutor generatorExecutor;
+
+    private CodegenMetrics metrics;
+
+    private CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
+
+    public MVELTemplateRegistry() {
+    }
+
+    @Inject
+    public MVELTemplateRegistry(final GeneratorExecutor generatorExecutor,
+                                final CodegenMetrics metrics) {
+        this.generatorExecutor = generatorExecutor;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    protected void init() {
+        warmUp = generatorExecutor.submit(() -> {
+            final long start = System.nanoTime();
+            for (final String name : BUILT_IN_TEMPLATES) {
+                try {
+                    getTemplate(TEMPLATES_PATH + name);
+                } catch (final RuntimeException e) {
+                    log.warn("Unable to compile template " + name + ".",
+                             e);
+                }
+            }
+            log.info("Compiled {} MVEL templates in {} ms.",
+                     BUILT_IN_TEMPLATES.size(),
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return null;
+        });
+    }
+
+    /**
+     * @param resourcePath The absolute class path resource of the template.
+     * @return The compiled template, compiling it first if this is the first request for it or it
+     * has to be reloaded.
+     * @throws IllegalArgumentException If there is no such resource.
+     */
+    public CompiledTemplate getTemplate(final String resourcePath) {
+        Template template = templates.computeIfAbsent(resourcePath,
+                                                      this::compile);
+        if (reload && template.isModified()) {
+            template = templates.compute(resourcePath,
+                                         (path, current) -> current != null && !current.isModified() ? current : compile(path));
+            version.incrementAndGet();
+        }
+        return template.compiled;
+    }
+
+    /**
+     * @return A number that changes whenever a template is reloaded.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Waits for the built-in templates to be compiled.
+     */
+    public void awaitWarmUp() {
+        GeneratorExecutor.await(warmUp);
+    }
+
+    /**
+     * @return The time it took to compile each template, in milliseconds, by resource path.
+     */
+    public Map<String, Double> getCompileTimes() {
+        final Map<String, Double> compileTimes = new TreeMap<>();
+        templates.forEach((path, template) -> compileTimes.put(path,
+                                                               template.compileNanos / 1_000_000d));
+        return compileTimes;
+    }
+
+    private Template compile(final String resourcePath) {
+        final URL resource = MVELTemplateRegistry.class.getResource(resourcePath);
+        if (resource == null) {
+            throw new IllegalArgumentException("Template not found: " + resourcePath);
+        }
+
+        final long start = System.nanoTime();
+        final long lastModified = lastModified(resource);
+        final CompiledTemplate compiled;
+        try (final InputStream in = resource.openStream()) {
+            compiled = TemplateCompiler.compileTemplate(in);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Unable to read template " + resourcePath + ".",
+                                               e);
+        }
+        final long nanos = System.nanoTime() - start;
+        metrics.record("template.compile",
+                       nanos);
+        log.debug("Compiled template {} in {} ms.",
+                  resourcePath,
+                  TimeUnit.NANOSECONDS.toMillis(nanos));
+
+        return new Template(resource,
+                            compiled,
+                            lastModified,
+                            nanos);
+    }
+
+    private static long lastModified(final URL resource) {
+        try {
+            final URLConnection connection = resource.openConnection();
+            connection.setUseCaches(false);
+            final long lastModified = connection.getLastModified();
+            connection.getInputStream().close();
+            return lastModified;
+        } catch (final IOException e) {
+            return 0L;
+        }
+    }
+
+    private static class Template {
+
+        final URL resource;
+        final CompiledTemplate compiled;
+        final long lastModified;
+        final long compileNanos;
+
+        Template(final URL resource,
+                 final CompiledTemplate compiled,
+                 final long lastModified,
+                 final long compileNanos) {
+            this.resource = resource;
+            this.compiled = compiled;
+            this.lastModified = lastModified;
+            this.compileNanos = compileNanos;
+        }
+
+        boolean isModified() {
+            return lastModified(resource) != lastModified;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.kie.appformer.formmodeler.codegen.view.impl.html.inputs;
 import javax.inject.Inject;
 
 import org.kie.appformer.formmodeler.codegen.view.impl.html.InputTemplateProvider;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELTemplateRegistry;
 import org.kie.workbench.common.forms.service.shared.FieldManager;
 import org.mvel2.templates.TemplateCompiler;
 import org.mvel2.templates.TemplateRegistry;
@@ -43,6 +44,17 @@ public abstract class AbstractTemplateProvider implements InputTemplateProvider
         }
     }
 
+    @Override
+    public void registerTemplates(final TemplateRegistry registry,
+                                  final MVELTemplateRegistry templates) {
+        for (String typeName : getSupportedFieldCodes()) {
+            if (typeName != null && fieldManager.getDefinitionByFieldTypeName(typeName) != null) {
+                registry.addNamedTemplate(typeName,
+                                          templates.getTemplate(getTemplateForFieldTypeCode(typeName)));
+            }
+        }
+    }
+
     protected abstract String[] getSupportedFieldCodes();
 
     protected abstract String getTemplateForFieldTypeCode(String fieldCode);
@@ -16,6 +16,7 @@
 
 package org.kie.appformer.formmodeler.codegen.view.impl.html.util;
 
+import java.util.Locale;
 import javax.enterprise.context.Dependent;
 
 import org.jsoup.Jsoup;
@@ -24,15 +25,68 @@ import org.jsoup.parser.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Formats generated HTML templates. The formatting is set with the
+ * <code>org.kie.appformer.codegen.html.format</code> system property:
+ * <ul>
+ * <li><code>streaming</code> (the default) indents the markup in a single pass with a
+ * {@link StreamingHTMLFormatter}.</li>
+ * <li><code>jsoup</code> parses the template into a document and serializes it again.</li>
+ * <li><code>none</code> keeps the output of the template as it is.</li>
+ * </ul>
+ */
 @Dependent
 public class HTMLTemplateFormatter {
 
+    public static final String FORMAT_PROPERTY = "org.kie.appformer.codegen.html.format";
+
+    public enum Format {
+        STREAMING,
+        JSOUP,
+        NONE
+    }
+
     private static transient Logger log = LoggerFactory.getLogger(HTMLTemplateFormatter.class);
 
+    private final Format format;
+
+    public HTMLTemplateFormatter() {
+        this(configuredFormat());
+    }
+
+    public HTMLTemplateFormatter(final Format format) {
+        this.format = format;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
     public String formatHTMLCode(String htmlTemplate) {
-        Document document = Jsoup.parse(htmlTemplate,
-                                        "",
-                                        Parser.xmlParser());
-        return document.toString();
+        switch (format) {
+            case NONE:
+                return htmlTemplate;
+            case JSOUP:
+                Document document = Jsoup.parse(htmlTemplate,
+                                                "",
+                                                Parser.xmlParser());
+                return document.toString();
+            default:
+                return StreamingHTMLFormatter.format(htmlTemplate);
+        }
+    }
+
+    private static Format configuredFormat() {
+        final String value = System.getProperty(FORMAT_PROPERTY,
+                                                Format.STREAMING.name());
+        try {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            log.warn("Unknown HTML template format '{}' in {}, using {}.",
+                     value,
+                     FORMAT_PROPERTY,
+                     Format.STREAMING);
+            return Format.STREAMING;
+        }
     }
 }
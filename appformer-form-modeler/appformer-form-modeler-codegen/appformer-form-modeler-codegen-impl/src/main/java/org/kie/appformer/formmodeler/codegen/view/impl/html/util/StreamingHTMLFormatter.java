@@ -0,0 +1,356 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Indents HTML as it is appended, without building a document. Every element starts on its own
+ * line, indented by its depth. An element that only contains text is kept on a single line, runs
+ * of whitespace in text and between attributes are collapsed, and the content of
+ * <code>textarea</code>, <code>pre</code>, <code>script</code> and <code>style</code> elements
+ * is copied as is.
+ * <p>
+ * Markup can be appended in chunks of any size; a tag split across chunks is completed by the
+ * following ones. {@link #finish()} returns the formatted document. Instances are not thread-safe
+ * and format a single document.
+ */
+public class StreamingHTMLFormatter implements Appendable {
+
+    private static final String INDENT = "    ";
+
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area",
+                                                                                 "base",
+                                                                                 "br",
+                                                                                 "col",
+                                                                                 "embed",
+                                                                                 "hr",
+                                                                                 "img",
+                                                                                 "input",
+                                                                                 "link",
+                                                                                 "meta",
+                                                                                 "param",
+                                                                                 "source",
+                                                                                 "track",
+                                                                                 "wbr"));
+
+    private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("pre",
+                                                                                    "script",
+                                                                                    "style",
+                                                                                    "textarea"));
+
+    private final StringBuilder input = new StringBuilder();
+
+    private final StringBuilder output;
+
+    private int depth;
+
+    /*
+     * The last open tag and the text that followed it, held back until it is known whether the
+     * element only contains text.
+     */
+    private String pendingTag;
+    private String pendingTagName;
+    private String pendingText;
+
+    /*
+     * The open tag of the raw text element being copied, if any.
+     */
+    private String rawTag;
+    private String rawTagName;
+
+    public StreamingHTMLFormatter() {
+        this(1024);
+    }
+
+    public StreamingHTMLFormatter(final int capacity) {
+        output = new StringBuilder(capacity);
+    }
+
+    /**
+     * Formats a complete document.
+     */
+    public static String format(final CharSequence html) {
+        return new StreamingHTMLFormatter(html.length()).append(html).finish();
+    }
+
+    @Override
+    public StreamingHTMLFormatter append(final CharSequence markup) {
+        input.append(markup);
+        process(false);
+        return this;
+    }
+
+    @Override
+    public StreamingHTMLFormatter append(final CharSequence markup,
+                                         final int start,
+                                         final int end) {
+        input.append(markup,
+                     start,
+                     end);
+        process(false);
+        return this;
+    }
+
+    @Override
+    public StreamingHTMLFormatter append(final char c) {
+        input.append(c);
+        if (c == '>') {
+            process(false);
+        }
+        return this;
+    }
+
+    /**
+     * Formats the remaining input. Elements left open are not closed, and an incomplete tag at
+     * the end of the input is written as it is.
+     *
+     * @return The formatted document.
+     */
+    public String finish() {
+        process(true);
+        if (rawTag != null) {
+            flushPending();
+            line(rawTag + input);
+            rawTag = null;
+        } else if (input.length() > 0) {
+            flushPending();
+            line(collapse(input.toString()));
+        }
+        input.setLength(0);
+        flushPending();
+        return output.toString();
+    }
+
+    private void process(final boolean last) {
+        int position = 0;
+        while (position < input.length()) {
+            if (rawTag != null) {
+                final int end = indexOfIgnoreCase(input,
+                                                  "</" + rawTagName,
+                                                  position);
+                final int close = end < 0 ? -1 : tagEnd(input,
+                                                         end);
+                if (close < 0) {
+                    break;
+                }
+                line(rawTag + input.substring(position,
+                                              end) + collapse(input.substring(end,
+                                                                              close + 1)));
+                rawTag = null;
+                position = close + 1;
+            } else if (input.charAt(position) == '<') {
+                final int end = startsWith(input,
+                                           "<!--",
+                                           position) ? commentEnd(input,
+                                                                  position) : tagEnd(input,
+                                                                                     position);
+                if (end < 0) {
+                    break;
+                }
+                tag(input.substring(position,
+                                    end + 1));
+                position = end + 1;
+            } else {
+                final int next = input.indexOf("<",
+                                               position);
+                if (next < 0 && !last) {
+                    break;
+                }
+                text(input.substring(position,
+                                     next < 0 ? input.length() : next));
+                position = next < 0 ? input.length() : next;
+            }
+        }
+        input.delete(0,
+                     position);
+    }
+
+    private void tag(final String tag) {
+        if (tag.startsWith("<!") || tag.startsWith("<?")) {
+            flushPending();
+            line(tag.startsWith("<!--") ? tag : collapse(tag));
+            return;
+        }
+
+        final String normalized = collapse(tag);
+        final String name = tagName(normalized);
+        if (normalized.startsWith("</")) {
+            if (pendingTag != null && name.equals(pendingTagName)) {
+                line(pendingTag + (pendingText != null ? pendingText : "") + normalized);
+                clearPending();
+            } else {
+                flushPending();
+                depth = Math.max(0,
+                                 depth - 1);
+                line(normalized);
+            }
+        } else if (normalized.endsWith("/>") || VOID_ELEMENTS.contains(name)) {
+            flushPending();
+            line(normalized);
+        } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+            flushPending();
+            rawTag = normalized;
+            rawTagName = name;
+        } else {
+            flushPending();
+            pendingTag = normalized;
+            pendingTagName = name;
+        }
+    }
+
+    private void text(final String text) {
+        final String collapsed = collapse(text).trim();
+        if (collapsed.isEmpty()) {
+            return;
+        }
+
+        if (pendingTag != null && pendingText == null) {
+            pendingText = collapsed;
+        } else {
+            flushPending();
+            line(collapsed);
+        }
+    }
+
+    private void flushPending() {
+        if (pendingTag != null) {
+            line(pendingTag);
+            depth++;
+            if (pendingText != null) {
+                line(pendingText);
+            }
+            clearPending();
+        }
+    }
+
+    private void clearPending() {
+        pendingTag = null;
+        pendingTagName = null;
+        pendingText = null;
+    }
+
+    private void line(final String text) {
+        for (int i = 0; i < depth; i++) {
+            output.append(INDENT);
+        }
+        output.append(text).append('\n');
+    }
+
+    private static String tagName(final String tag) {
+        int start = tag.startsWith("</") ? 2 : 1;
+        int end = start;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '>' && tag.charAt(end) != '/') {
+            end++;
+        }
+        return tag.substring(start,
+                             end).toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * Returns the index of the '>' that ends the tag starting at the given index, ignoring any
+     * '>' in quoted attribute values, or -1 if the tag is not complete yet.
+     */
+    private static int tagEnd(final CharSequence html,
+                              final int start) {
+        char quote = 0;
+        for (int i = start + 1; i < html.length(); i++) {
+            final char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int commentEnd(final StringBuilder html,
+                                  final int start) {
+        final int end = html.indexOf("-->",
+                                     start + 4);
+        return end < 0 ? -1 : end + 2;
+    }
+
+    private static int indexOfIgnoreCase(final StringBuilder html,
+                                         final String target,
+                                         final int from) {
+        for (int i = from; i <= html.length() - target.length(); i++) {
+            if (startsWith(html,
+                           target,
+                           i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final StringBuilder html,
+                                      final String prefix,
+                                      final int from) {
+        if (from + prefix.length() > html.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(html.charAt(from + i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Collapses runs of whitespace outside quoted attribute values to a single space.
+     */
+    private static String collapse(final String markup) {
+        final StringBuilder collapsed = new StringBuilder(markup.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < markup.length(); i++) {
+            final char c = markup.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                if (c != '>' && !(c == '/' && i + 1 < markup.length() && markup.charAt(i + 1) == '>')) {
+                    collapsed.append(' ');
+                }
+                space = false;
+            }
+            if (markup.charAt(0) == '<') {
+                if (quote == 0 && (c == '"' || c == '\'')) {
+                    quote = c;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            }
+            collapsed.append(c);
+        }
+        if (space) {
+            collapsed.append(' ');
+        }
+        return collapsed.toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.java;
+
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.FORM_MODEL_VALIDATOR_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.JAVA_LANG_OVERRIDE;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.VALIDATE_FIELD_METHOD;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.view.FormValidator;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.HasMaxLength;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.slider.definition.SliderBaseDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+
+/**
+ * Generates the validator of a form view: a subclass of the FormModelValidator of the rendering
+ * API that checks the constraints declared on the fields of the form (required, maximum length of
+ * text values and slider range) by calling the getters of the model directly. The generated form
+ * view validates a field with it whenever the bound property changes.
+ * <p>
+ * Only fields bound to a property of the model itself are checked. Constraints declared with Bean
+ * Validation annotations on the Data Object are still checked when the whole form is validated.
+ */
+@FormValidator
+@ApplicationScoped
+public class RoasterFormValidatorSourceGenerator implements JavaSourceGenerator {
+
+    static final String FIELD_NAME_PARAM = "fieldName";
+    static final String MODEL_PARAM = "model";
+
+    @Override
+    public String generateJavaSource(final SourceGenerationContext context) {
+        final JavaClassSource validatorClass = createClassSource();
+        validatorClass.setPackage(context.getLocalPackage().getPackageName())
+                .setPublic()
+                .setName(context.getFormValidatorName())
+                .setSuperType(FORM_MODEL_VALIDATOR_CLASS + "<" + context.getFormModelName() + ">");
+        validatorClass.addImport(context.getSharedPackage().getPackageName() + "." + context.getFormModelName());
+
+        final String modelGetter = MODEL_PARAM + ".get" + StringUtils.capitalize(context.getFormDefinition().getModel().getName()) + "()";
+        final StringBuilder constructorBody = new StringBuilder();
+        final StringBuilder validateBody = new StringBuilder("switch (").append(FIELD_NAME_PARAM).append(") {");
+
+        for (final FieldDefinition field : context.getFormDefinition().getFields()) {
+            if (!isValidated(field)) {
+                continue;
+            }
+
+            final String bindingExpression = context.getFormDefinition().getModel().getName() + "." + field.getBinding();
+            final String value = modelGetter + ".get" + StringUtils.capitalize(field.getBinding()) + "()";
+
+            constructorBody.append("addField(\"")
+                    .append(field.getName())
+                    .append("\", \"")
+                    .append(bindingExpression)
+                    .append("\");");
+
+            validateBody.append("case \"").append(field.getName()).append("\":");
+            if (isRequired(field)) {
+                validateBody.append("if (isMissing(").append(value).append(")) return REQUIRED_MESSAGE;");
+            }
+            final Integer maxLength = getMaxLength(field);
+            if (maxLength != null) {
+                validateBody.append("if (exceedsLength(").append(value).append(", ").append(maxLength).append(")) return maxLengthMessage(").append(maxLength).append(");");
+            }
+            if (isRangeChecked(field)) {
+                final SliderBaseDefinition slider = (SliderBaseDefinition) field;
+                validateBody.append("if (isOutOfRange(").append(value).append(", ")
+                        .append(slider.getMin().doubleValue()).append(", ").append(slider.getMax().doubleValue())
+                        .append(")) return rangeMessage(").append(slider.getMin()).append(", ").append(slider.getMax()).append(");");
+            }
+            validateBody.append("return null;");
+        }
+        validateBody.append("default: return null; }");
+
+        validatorClass.addMethod()
+                .setConstructor(true)
+                .setPublic()
+                .setBody(constructorBody.toString());
+
+        final MethodSource<JavaClassSource> validateMethod = validatorClass.addMethod()
+                .setName(VALIDATE_FIELD_METHOD)
+                .setPublic()
+                .setReturnType(String.class)
+                .setBody(validateBody.toString());
+        validateMethod.addParameter(String.class,
+                                    FIELD_NAME_PARAM);
+        validateMethod.addParameter(context.getFormModelName(),
+                                    MODEL_PARAM);
+        validateMethod.addAnnotation(JAVA_LANG_OVERRIDE);
+
+        return validatorClass.toString();
+    }
+
+    protected JavaClassSource createClassSource() {
+        return Roaster.create(JavaClassSource.class);
+    }
+
+    /*
+     * Fields bound to nested properties or without any constraint are not checked.
+     */
+    static boolean isValidated(final FieldDefinition field) {
+        if (StringUtils.isEmpty(field.getBinding()) || field.getBinding().contains(".")) {
+            return false;
+        }
+        return isRequired(field) || getMaxLength(field) != null || isRangeChecked(field);
+    }
+
+    /*
+     * A property of a primitive type always has a value.
+     */
+    static boolean isRequired(final FieldDefinition field) {
+        return Boolean.TRUE.equals(field.getRequired()) && !isPrimitive(field);
+    }
+
+    /*
+     * The input of a number keeps its own maximum length, so only text values are checked.
+     */
+    static Integer getMaxLength(final FieldDefinition field) {
+        if (!(field instanceof HasMaxLength) || !String.class.getName().equals(field.getStandaloneClassName())) {
+            return null;
+        }
+        final Integer maxLength = ((HasMaxLength) field).getMaxLength();
+        return maxLength != null && maxLength > 0 ? maxLength : null;
+    }
+
+    static boolean isRangeChecked(final FieldDefinition field) {
+        return field instanceof SliderBaseDefinition
+                && ((SliderBaseDefinition) field).getMin() != null
+                && ((SliderBaseDefinition) field).getMax() != null;
+    }
+
+    private static boolean isPrimitive(final FieldDefinition field) {
+        return field.getStandaloneClassName() != null && !field.getStandaloneClassName().contains(".");
+    }
+}
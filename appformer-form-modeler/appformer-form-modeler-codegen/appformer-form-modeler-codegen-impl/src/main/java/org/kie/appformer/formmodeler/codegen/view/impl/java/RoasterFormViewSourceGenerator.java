@@ -19,7 +19,9 @@ package org.kie.appformer.formmodeler.codegen.view.impl.java;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.BEFORE_DISPLAY_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.DO_EXTRA_VALIDATIONS_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ERRAI_TEMPLATED;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.FORM_MODEL_VALIDATOR_CLASS;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.FORM_VIEW_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.GET_FIELD_VALIDATOR_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INIT_FORM_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INJECT_INJECT;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INJECT_NAMED;
@@ -44,6 +46,8 @@ import org.kie.workbench.common.forms.model.JavaFormModel;
 @ApplicationScoped
 public class RoasterFormViewSourceGenerator extends RoasterViewSourceGenerator {
 
+    public static final String FIELD_VALIDATOR_FIELD = "fieldValidator";
+
     @Inject
     public RoasterFormViewSourceGenerator( final Instance<InputCreatorHelper<? extends FieldDefinition>> creatorInstances ) {
         super( creatorInstances );
@@ -74,6 +78,20 @@ public class RoasterFormViewSourceGenerator extends RoasterViewSourceGenerator {
                 .setReturnType(boolean.class)
                 .setPublic()
                 .addAnnotation( JAVA_LANG_OVERRIDE );
+
+        viewClass.addField()
+                .setName( FIELD_VALIDATOR_FIELD )
+                .setType( context.getFormValidatorName() )
+                .setPrivate()
+                .setFinal( true )
+                .setLiteralInitializer( "new " + context.getFormValidatorName() + "()" );
+
+        viewClass.addMethod()
+                .setName( GET_FIELD_VALIDATOR_METHOD )
+                .setReturnType( FORM_MODEL_VALIDATOR_CLASS + "<" + context.getFormModelName() + ">" )
+                .setProtected()
+                .setBody( "return " + FIELD_VALIDATOR_FIELD + ";" )
+                .addAnnotation( JAVA_LANG_OVERRIDE );
     }
 
     @Override
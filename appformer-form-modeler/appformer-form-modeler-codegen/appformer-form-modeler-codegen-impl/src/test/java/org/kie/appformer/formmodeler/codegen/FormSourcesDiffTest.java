@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.FormSourcesDiff.Status;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+
+import static org.junit.Assert.*;
+
+public class FormSourcesDiffTest {
+
+    private static final String EMPLOYEE_URI = "default://master@repo/project/src/main/java/Employee.java";
+
+    private Path path;
+
+    private FormSourcesDiff diff;
+
+    @Before
+    public void setup() {
+        path = PathFactory.newPath("Employee.java",
+                                   EMPLOYEE_URI);
+        diff = new FormSourcesDiff();
+    }
+
+    @Test
+    public void missingFileIsAdded() {
+        diff.addFile(path,
+                     null,
+                     "a\nb\n");
+
+        assertEquals(Status.ADDED,
+                     diff.getFile(EMPLOYEE_URI).get().getStatus());
+        assertTrue(diff.getChangedPaths().contains(path));
+        assertEquals("--- a/" + EMPLOYEE_URI + "\n"
+                             + "+++ b/" + EMPLOYEE_URI + "\n"
+                             + "@@ -0,0 +1,2 @@\n"
+                             + "+a\n"
+                             + "+b\n",
+                     diff.getUnifiedDiff());
+    }
+
+    @Test
+    public void identicalFileIsUnchanged() {
+        diff.addFile(path,
+                     "a\n",
+                     "a\n");
+
+        assertEquals(Status.UNCHANGED,
+                     diff.getFile(EMPLOYEE_URI).get().getStatus());
+        assertTrue(diff.getUnchangedPaths().contains(path));
+        assertFalse(diff.hasChanges());
+        assertTrue(diff.getChangedFiles().isEmpty());
+        assertEquals("",
+                     diff.getUnifiedDiff());
+    }
+
+    @Test
+    public void modifiedFileHasHunksWithContext() {
+        final StringBuilder current = new StringBuilder();
+        final StringBuilder generated = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            current.append("line").append(i).append('\n');
+            if (i == 5) {
+                generated.append("changed").append('\n');
+            } else if (i != 25) {
+                generated.append("line").append(i).append('\n');
+            }
+        }
+
+        diff.addFile(path,
+                     current.toString(),
+                     generated.toString());
+
+        assertEquals(Status.MODIFIED,
+                     diff.getFile(EMPLOYEE_URI).get().getStatus());
+        assertEquals("--- a/" + EMPLOYEE_URI + "\n"
+                             + "+++ b/" + EMPLOYEE_URI + "\n"
+                             + "@@ -2,7 +2,7 @@\n"
+                             + " line2\n line3\n line4\n-line5\n+changed\n line6\n line7\n line8\n"
+                             + "@@ -22,7 +22,6 @@\n"
+                             + " line22\n line23\n line24\n-line25\n line26\n line27\n line28\n",
+                     diff.getUnifiedDiff());
+    }
+
+    @Test
+    public void unknownFileIsNotFound() {
+        assertFalse(diff.getFile(EMPLOYEE_URI).isPresent());
+    }
+}
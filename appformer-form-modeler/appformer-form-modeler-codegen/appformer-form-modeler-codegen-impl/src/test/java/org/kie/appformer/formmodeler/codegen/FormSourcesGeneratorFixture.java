@@ -0,0 +1,416 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.guvnor.common.services.backend.util.CommentedOptionFactory;
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.common.services.project.model.Project;
+import org.kie.appformer.formmodeler.codegen.cache.GeneratorOutputCache;
+import org.kie.appformer.formmodeler.codegen.cache.PackageCache;
+import org.kie.appformer.formmodeler.codegen.concurrent.GenerationLocks;
+import org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor;
+import org.kie.appformer.formmodeler.codegen.flow.impl.DirectFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.flow.impl.MainFlowGenerator;
+import org.kie.appformer.formmodeler.codegen.incremental.FormDependencyGraph;
+import org.kie.appformer.formmodeler.codegen.io.GeneratedSourceWriter;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.appformer.formmodeler.codegen.persistence.EntityIndexesGenerator;
+import org.kie.appformer.formmodeler.codegen.properties.impl.ErraiAppPropertiesGeneratorImpl;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectRestImplSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.HTMLTemplateGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.html.MVELTemplateRegistry;
+import org.kie.workbench.common.forms.commons.shared.layout.FormLayoutTemplateGenerator;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.serialization.FormDefinitionSerializer;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.datamodeller.core.impl.DataModelImpl;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.invocation.InvocationOnMock;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.ext.layout.editor.api.editor.LayoutTemplate;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.NoSuchFileException;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * A {@link FormSourcesGeneratorImpl} on in-memory files, in a project with an
+ * <code>Employee</code> and an <code>Address</code> entity. The source generators are stubs that
+ * write the name of the artifact and of the form, so the tests check which files are written
+ * rather than what they contain. The <code>server</code> package does not exist until the
+ * generator creates it.
+ */
+class FormSourcesGeneratorFixture implements AutoCloseable {
+
+    static final String ROOT_URI = "file:///form-sources/project";
+    static final String PACKAGE_NAME = "org.test";
+    static final String EMPLOYEE_TYPE = PACKAGE_NAME + ".Employee";
+    static final String ADDRESS_TYPE = PACKAGE_NAME + ".Address";
+
+    final Path rootPath = path(ROOT_URI);
+    final Path employeeFormPath = formPath("Employee");
+    final Path addressFormPath = formPath("Address");
+
+    // File contents by URI.
+    final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    // The names of the packages created by the generator.
+    final Set<String> createdPackages = ConcurrentHashMap.newKeySet();
+
+    // Packages by the URIs of their main source and resource directories.
+    final Map<String, Package> packages = new ConcurrentHashMap<>();
+
+    final DataModel dataModel = new DataModelImpl();
+    final FormDefinition employeeForm = entity(EMPLOYEE_TYPE,
+                                               "Employee",
+                                               "name");
+    final FormDefinition addressForm = entity(ADDRESS_TYPE,
+                                              "Address",
+                                              "street");
+    final Map<Path, FormDefinition> formsByPath = new LinkedHashMap<>();
+
+    final JavaSourceGenerator formViewGenerator = javaSource(JavaSourceGenerator.class,
+                                                             "FormView");
+    final ErraiAppPropertiesGeneratorImpl serializableTypesGenerator = new ErraiAppPropertiesGeneratorImpl();
+
+    final Package defaultPackage = addPackage("");
+
+    private final TestGeneratorExecutor generatorExecutor = new TestGeneratorExecutor();
+
+    final FormSourcesGeneratorImpl generator = new FormSourcesGeneratorImpl();
+
+    FormSourcesGeneratorFixture() {
+        addPackage(PACKAGE_NAME);
+        addPackage(PACKAGE_NAME + ".client");
+        addPackage(PACKAGE_NAME + ".client.local");
+        addPackage(PACKAGE_NAME + ".client.shared");
+        formsByPath.put(addressFormPath,
+                        addressForm);
+        formsByPath.put(employeeFormPath,
+                        employeeForm);
+
+        final CodegenMetricsImpl metrics = new CodegenMetricsImpl();
+        final IOService ioService = mock(IOService.class,
+                                         this::answer);
+
+        final KieProject project = mock(KieProject.class);
+        when(project.getRootPath()).thenReturn(rootPath);
+        when(project.getProjectName()).thenReturn("project");
+
+        final KieProjectService projectService = mock(KieProjectService.class);
+        when(projectService.resolveProject(any(Path.class))).thenReturn(project);
+        when(projectService.resolvePackage(any(Path.class))).then(invocation -> resolvePackage((Path) invocation.getArguments()[0]));
+        when(projectService.resolveDefaultPackage(any(Project.class))).thenReturn(defaultPackage);
+        when(projectService.newPackage(any(Package.class),
+                                       anyString())).then(invocation -> {
+            final String parentName = ((Package) invocation.getArguments()[0]).getPackageName();
+            final String name = parentName + "." + invocation.getArguments()[1];
+            createdPackages.add(name);
+            return addPackage(name);
+        });
+
+        final DataModelCache dataModelCache = mock(DataModelCache.class);
+        when(dataModelCache.getDataModel(any(KieProject.class))).thenReturn(dataModel);
+
+        final FormIndex formIndex = mock(FormIndex.class);
+        when(formIndex.findAllForms(any(Path.class))).then(invocation -> new ArrayList<>(formsByPath.values()));
+        when(formIndex.findAllFormsByPath(any(Path.class))).then(invocation -> new LinkedHashMap<>(formsByPath));
+
+        // Form serialization belongs to the form modeler, so a serialized form is only a key.
+        final Map<String, FormDefinition> serializedForms = new ConcurrentHashMap<>();
+        final FormDefinitionSerializer formSerializer = mock(FormDefinitionSerializer.class);
+        when(formSerializer.serialize(any(FormDefinition.class))).then(invocation -> {
+            final FormDefinition form = (FormDefinition) invocation.getArguments()[0];
+            final String serialized = "{\"id\":\"" + form.getId() + "\"}";
+            serializedForms.put(serialized,
+                                form);
+            return serialized;
+        });
+        when(formSerializer.deserialize(anyString())).then(invocation -> serializedForms.get(invocation.getArguments()[0]));
+
+        inject("ioService",
+               ioService);
+        inject("projectService",
+               projectService);
+        inject("dataModelCache",
+               dataModelCache);
+        inject("packageCache",
+               new PackageCache(projectService,
+                                metrics));
+        // The generator output cache is not initialized, so every generator runs.
+        inject("outputCache",
+               new GeneratorOutputCache(metrics));
+        inject("formModelSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "FormModel"));
+        inject("formViewSourceGenerator",
+               formViewGenerator);
+        inject("formViewTemplateGenerator",
+               htmlTemplate("FormView"));
+        inject("formValidatorSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "FormValidator"));
+        inject("templateRegistry",
+               mock(MVELTemplateRegistry.class));
+        inject("formDefinitionSerializer",
+               formSerializer);
+        inject("formLayoutTemplateGenerator",
+               mock(FormLayoutTemplateGenerator.class));
+        inject("listViewSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "ListView"));
+        inject("listViewTemplateGenerator",
+               htmlTemplate("ListView"));
+        inject("restApiSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "RestService"));
+        inject("entityServiceSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "EntityService"));
+        inject("restImplSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "RestServiceImpl"));
+        inject("flowProducerSourceGenerator",
+               javaSource(JavaSourceGenerator.class,
+                          "FlowProducer"));
+        inject("directEntityServiceSourceGenerator",
+               javaSource(DirectEntityServiceSourceGenerator.class,
+                          "EntityService"));
+        inject("directRestImplSourceGenerator",
+               javaSource(DirectRestImplSourceGenerator.class,
+                          "RestServiceImpl"));
+        inject("directFlowProducerSourceGenerator",
+               javaSource(DirectFlowProducerSourceGenerator.class,
+                          "FlowProducer"));
+        inject("mainFlowGenerator",
+               new MainFlowGenerator());
+        inject("serializableTypesGenerator",
+               serializableTypesGenerator);
+        inject("entityIndexesGenerator",
+               new EntityIndexesGenerator());
+        inject("formIndex",
+               formIndex);
+        inject("dependencyGraph",
+               new FormDependencyGraph(formIndex));
+        inject("commentedOptionFactory",
+               mock(CommentedOptionFactory.class));
+        inject("generatorExecutor",
+               generatorExecutor);
+        inject("locks",
+               new TestGenerationLocks(metrics));
+        inject("sourceWriter",
+               new GeneratedSourceWriter(ioService,
+                                         metrics));
+        inject("metrics",
+               metrics);
+    }
+
+    /**
+     * Writes a file of the project, as if it had been written before the generation.
+     */
+    void write(final String relativePath,
+               final String content) {
+        files.put(key(Paths.convert(path(ROOT_URI + "/" + relativePath))),
+                  content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The content of the file with the given name, if it was written.
+     */
+    Optional<String> file(final String fileName) {
+        return files.entrySet()
+                .stream()
+                .filter(file -> file.getKey().endsWith("/" + fileName))
+                .map(file -> new String(file.getValue(),
+                                        StandardCharsets.UTF_8))
+                .findFirst();
+    }
+
+    @Override
+    public void close() {
+        generatorExecutor.close();
+    }
+
+    /**
+     * @return A form bound to a new entity, with a text box for each of the given properties.
+     */
+    FormDefinition entity(final String type,
+                          final String name,
+                          final String... properties) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(type);
+        form.setName(name);
+        form.setModel(new DataObjectFormModel(name.toLowerCase(),
+                                              type));
+        form.setLayoutTemplate(new LayoutTemplate());
+
+        final DataObject dataObject = dataModel.getDataObject(type) != null ? dataModel.getDataObject(type) : dataModel.addDataObject(type);
+        for (final String property : properties) {
+            final TextBoxFieldDefinition field = new TextBoxFieldDefinition();
+            field.setId(property);
+            field.setName(property);
+            field.setLabel(property);
+            field.setBinding(property);
+            field.setStandaloneClassName(String.class.getName());
+            form.getFields().add(field);
+            dataObject.addProperty(property,
+                                   String.class.getName(),
+                                   false);
+        }
+        return form;
+    }
+
+    static Path path(final String uri) {
+        return PathFactory.newPath(uri.substring(uri.lastIndexOf('/') + 1),
+                                   uri);
+    }
+
+    private static Path formPath(final String formName) {
+        return path(ROOT_URI + "/src/main/resources/org/test/" + formName + ".frm");
+    }
+
+    /*
+     * Files are looked up in the package of their directory, and directories in their own package
+     * only, so that a missing package is not resolved to its parent.
+     */
+    private Package resolvePackage(final Path path) {
+        final String uri = path.toURI();
+        return packages.get(path.getFileName().contains(".") ? uri.substring(0,
+                                                                             uri.lastIndexOf('/')) : uri);
+    }
+
+    private Package addPackage(final String name) {
+        final String relativePath = name.isEmpty() ? "" : "/" + name.replace('.',
+                                                                             '/');
+        final Package pkg = new Package(rootPath,
+                                        path(ROOT_URI + "/src/main/java" + relativePath),
+                                        path(ROOT_URI + "/src/test/java" + relativePath),
+                                        path(ROOT_URI + "/src/main/resources" + relativePath),
+                                        path(ROOT_URI + "/src/test/resources" + relativePath),
+                                        name,
+                                        name,
+                                        name);
+        packages.put(pkg.getPackageMainSrcPath().toURI(),
+                     pkg);
+        packages.put(pkg.getPackageMainResourcesPath().toURI(),
+                     pkg);
+        return pkg;
+    }
+
+    private Object answer(final InvocationOnMock invocation) {
+        final Object[] args = invocation.getArguments();
+        switch (invocation.getMethod().getName()) {
+            case "exists":
+                return files.containsKey(key(args[0]));
+            case "readAllBytes":
+                return read(args[0]);
+            case "readAllString":
+                return new String(read(args[0]),
+                                  StandardCharsets.UTF_8);
+            case "write":
+                files.put(key(args[0]),
+                          args[1] instanceof byte[] ? (byte[]) args[1] : ((String) args[1]).getBytes(StandardCharsets.UTF_8));
+                return args[0];
+            case "startBatch":
+            case "endBatch":
+                return null;
+            default:
+                throw new UnsupportedOperationException("IOService." + invocation.getMethod().getName());
+        }
+    }
+
+    private byte[] read(final Object path) {
+        final byte[] content = files.get(key(path));
+        if (content == null) {
+            throw new NoSuchFileException(key(path));
+        }
+        return content;
+    }
+
+    private static String key(final Object path) {
+        return ((org.uberfire.java.nio.file.Path) path).toUri().toString();
+    }
+
+    private void inject(final String fieldName,
+                        final Object value) {
+        try {
+            final Field field = FormSourcesGeneratorImpl.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(generator,
+                      value);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T extends JavaSourceGenerator> T javaSource(final Class<T> type,
+                                                                final String suffix) {
+        final T generator = mock(type);
+        when(generator.generateJavaSource(any(SourceGenerationContext.class))).then(invocation -> source(invocation,
+                                                                                                         suffix));
+        return generator;
+    }
+
+    private static HTMLTemplateGenerator htmlTemplate(final String suffix) {
+        final HTMLTemplateGenerator generator = mock(HTMLTemplateGenerator.class);
+        when(generator.generateHTMLTemplate(any(SourceGenerationContext.class))).then(invocation -> source(invocation,
+                                                                                                           suffix));
+        return generator;
+    }
+
+    private static String source(final InvocationOnMock invocation,
+                                 final String suffix) {
+        return ((SourceGenerationContext) invocation.getArguments()[0]).getFormDefinition().getName() + suffix + "\n";
+    }
+
+    private static class TestGeneratorExecutor extends GeneratorExecutor {
+
+        TestGeneratorExecutor() {
+            init();
+        }
+
+        void close() {
+            shutdown();
+        }
+    }
+
+    private static class TestGenerationLocks extends GenerationLocks {
+
+        TestGenerationLocks(final CodegenMetrics metrics) {
+            super(metrics);
+            init();
+        }
+    }
+}
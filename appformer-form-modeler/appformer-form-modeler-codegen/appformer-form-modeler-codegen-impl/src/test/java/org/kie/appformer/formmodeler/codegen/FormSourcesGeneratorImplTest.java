@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.backend.vfs.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class FormSourcesGeneratorImplTest {
+
+    private static final String DEPARTMENT_TYPE = FormSourcesGeneratorFixture.PACKAGE_NAME + ".Department";
+
+    private FormSourcesGeneratorFixture fixture;
+
+    private FormSourcesGeneratorImpl generator;
+
+    @Before
+    public void setUp() {
+        fixture = new FormSourcesGeneratorFixture();
+        generator = fixture.generator;
+    }
+
+    @After
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testEntityGenerationWritesEveryArtifact() {
+        final FormSourcesGenerationResult result = generator.generateEntityFormSources(fixture.employeeForm,
+                                                                                       fixture.employeeFormPath);
+
+        final Set<String> fileNames = fileNames(result.getChangedPaths());
+        assertTrue(fileNames.containsAll(entityFileNames("Employee")));
+        assertTrue(fileNames.containsAll(Arrays.asList("ErraiApp.properties",
+                                                       "Main.flow")));
+    }
+
+    @Test
+    public void testRegeneratingUnchangedEntityWritesNothing() {
+        final FormSourcesGenerationResult first = generator.generateEntityFormSources(fixture.employeeForm,
+                                                                                      fixture.employeeFormPath);
+        final FormSourcesGenerationResult second = generator.generateEntityFormSources(fixture.employeeForm,
+                                                                                       fixture.employeeFormPath);
+
+        assertTrue(second.getChangedPaths().isEmpty());
+        assertEquals(fileNames(first.getChangedPaths()),
+                     fileNames(second.getUnchangedPaths()));
+    }
+
+    @Test
+    public void testConcurrentEntityGenerations() {
+        fixture.write("src/main/resources/ErraiApp.properties",
+                      fixture.serializableTypesGenerator.generate(Collections.singletonList(DEPARTMENT_TYPE)));
+
+        final CompletableFuture<FormSourcesGenerationResult> employee = CompletableFuture.supplyAsync(() -> generator.generateEntityFormSources(fixture.employeeForm,
+                                                                                                                                               fixture.employeeFormPath));
+        final CompletableFuture<FormSourcesGenerationResult> address = CompletableFuture.supplyAsync(() -> generator.generateEntityFormSources(fixture.addressForm,
+                                                                                                                                              fixture.addressFormPath));
+
+        final Set<String> fileNames = fileNames(employee.join().getChangedPaths());
+        fileNames.addAll(fileNames(address.join().getChangedPaths()));
+        assertTrue(fileNames.containsAll(entityFileNames("Employee")));
+        assertTrue(fileNames.containsAll(entityFileNames("Address")));
+
+        // Each save adds its own type to the declaration, and the flow of its own entity.
+        final List<String> serializableTypes = fixture.serializableTypesGenerator.parseSerializableTypes(fixture.file("ErraiApp.properties").get()).get();
+        assertEquals(3,
+                     serializableTypes.size());
+        assertTrue(serializableTypes.containsAll(Arrays.asList(DEPARTMENT_TYPE,
+                                                               FormSourcesGeneratorFixture.EMPLOYEE_TYPE,
+                                                               FormSourcesGeneratorFixture.ADDRESS_TYPE)));
+        final String mainFlow = fixture.file("Main.flow").get();
+        assertTrue(mainFlow.contains("EmployeeCrud"));
+        assertTrue(mainFlow.contains("AddressCrud"));
+    }
+
+    @Test
+    public void testProjectGenerationWritesSourcesOfEveryForm() {
+        final FormSourcesGenerationResult result = generator.generateProjectFormSources(fixture.rootPath);
+
+        final Set<String> fileNames = fileNames(result.getChangedPaths());
+        assertTrue(fileNames.containsAll(entityFileNames("Employee")));
+        assertTrue(fileNames.containsAll(entityFileNames("Address")));
+        assertTrue(fileNames.containsAll(Arrays.asList("ErraiApp.properties",
+                                                       "Main.flow")));
+    }
+
+    @Test
+    public void testRegeneratingUnchangedProjectWritesNothing() {
+        final FormSourcesGenerationResult first = generator.generateProjectFormSources(fixture.rootPath);
+        final FormSourcesGenerationResult second = generator.generateProjectFormSources(fixture.rootPath);
+
+        assertTrue(second.getChangedPaths().isEmpty());
+        assertEquals(fileNames(first.getChangedPaths()),
+                     fileNames(second.getUnchangedPaths()));
+    }
+
+    @Test
+    public void testProjectGenerationSkipsGeneratedFormCopies() {
+        fixture.formsByPath.put(FormSourcesGeneratorFixture.path(FormSourcesGeneratorFixture.ROOT_URI + "/src/main/resources/org/test/client/shared/Employee.frm"),
+                                fixture.entity(FormSourcesGeneratorFixture.EMPLOYEE_TYPE,
+                                               "Employee",
+                                               "name"));
+
+        final FormSourcesGenerationResult result = generator.generateProjectFormSources(fixture.rootPath);
+
+        assertTrue(result.getUnchangedPaths().isEmpty());
+        verify(fixture.formViewGenerator,
+               times(2)).generateJavaSource(any(SourceGenerationContext.class));
+    }
+
+    @Test
+    public void testGeneratedClassesAreNotSerializableTypes() {
+        fixture.dataModel.addDataObject(FormSourcesGeneratorFixture.PACKAGE_NAME + ".client.local.EmployeeFormValidator");
+        fixture.dataModel.addDataObject(FormSourcesGeneratorFixture.PACKAGE_NAME + ".client.local.EmployeeFlowProducer");
+
+        generator.generateProjectFormSources(fixture.rootPath);
+
+        final List<String> serializableTypes = fixture.serializableTypesGenerator.parseSerializableTypes(fixture.file("ErraiApp.properties").get()).get();
+        assertEquals(new HashSet<>(Arrays.asList(FormSourcesGeneratorFixture.EMPLOYEE_TYPE,
+                                                 FormSourcesGeneratorFixture.ADDRESS_TYPE)),
+                     new HashSet<>(serializableTypes));
+    }
+
+    @Test
+    public void testDryRunWritesNothing() {
+        final FormSourcesDiff diff = generator.diffEntityFormSources(fixture.employeeForm,
+                                                                     fixture.employeeFormPath);
+
+        assertTrue(fixture.files.isEmpty());
+        assertTrue(fixture.createdPackages.isEmpty());
+        assertTrue(fileNames(diff.getChangedPaths()).containsAll(entityFileNames("Employee")));
+        assertTrue(diff.getChangedFiles().stream().allMatch(file -> file.getStatus() == FormSourcesDiff.Status.ADDED));
+        assertTrue(diff.getFile(FormSourcesGeneratorFixture.ROOT_URI + "/src/main/java/org/test/server/EmployeeRestServiceImpl.java").isPresent());
+    }
+
+    @Test
+    public void testDryRunAfterGenerationFindsNoChanges() {
+        final FormSourcesGenerationResult result = generator.generateEntityFormSources(fixture.employeeForm,
+                                                                                       fixture.employeeFormPath);
+        final int written = fixture.files.size();
+
+        final FormSourcesDiff diff = generator.diffEntityFormSources(fixture.employeeForm,
+                                                                     fixture.employeeFormPath);
+
+        assertEquals(Collections.singleton(FormSourcesGeneratorFixture.PACKAGE_NAME + ".server"),
+                     fixture.createdPackages);
+        assertTrue(diff.getChangedFiles().isEmpty());
+        assertEquals(fileNames(result.getChangedPaths()),
+                     fileNames(diff.getUnchangedPaths()));
+        assertEquals(written,
+                     fixture.files.size());
+    }
+
+    private static Set<String> entityFileNames(final String formName) {
+        return Stream.of(formName + SourceGenerationContext.FORM_MODEL_SUFFIX + ".java",
+                         formName + SourceGenerationContext.FORM_VIEW_SUFFIX + ".java",
+                         formName + SourceGenerationContext.FORM_VIEW_SUFFIX + ".html",
+                         formName + SourceGenerationContext.FORM_VALIDATOR_SUFFIX + ".java",
+                         formName + SourceGenerationContext.LIST_VIEW_SUFFIX + ".java",
+                         formName + SourceGenerationContext.LIST_VIEW_SUFFIX + ".html",
+                         formName + SourceGenerationContext.REST_SERVICE_SUFFIX + ".java",
+                         formName + SourceGenerationContext.REST_IMPL_SUFFIX + ".java",
+                         formName + SourceGenerationContext.ENTITY_SERVICE_SUFFIX + ".java",
+                         formName + SourceGenerationContext.FLOW_PRODUCER_SUFFIX + ".java")
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> fileNames(final List<Path> paths) {
+        return paths.stream()
+                .map(Path::getFileName)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.workbench.common.screens.datamodeller.service.DataModelerService;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataModelCacheImplTest {
+
+    private static final String ROOT = "default://master@repo/project";
+
+    @Mock
+    DataModelerService dataModelerService;
+
+    @Mock
+    KieProject project;
+
+    @Mock
+    DataModel firstModel;
+
+    @Mock
+    DataModel secondModel;
+
+    DataModelCacheImpl cache;
+
+    @Before
+    public void init() {
+        final Path rootPath = path(ROOT);
+        when(project.getRootPath()).thenReturn(rootPath);
+        when(dataModelerService.loadModel(project)).thenReturn(firstModel,
+                                                               secondModel);
+
+        cache = new DataModelCacheImpl(dataModelerService,
+                                       new CodegenMetricsImpl());
+    }
+
+    @Test
+    public void modelIsLoadedOnce() {
+        assertSame(firstModel,
+                   cache.getDataModel(project));
+        assertSame(firstModel,
+                   cache.getDataModel(project));
+
+        verify(dataModelerService,
+               times(1)).loadModel(project);
+        assertEquals(1,
+                     cache.getStats().getHits());
+        assertEquals(1,
+                     cache.getStats().getMisses());
+    }
+
+    @Test
+    public void javaSourceChangeInvalidatesModel() {
+        cache.getDataModel(project);
+
+        final Path employee = path(ROOT + "/src/main/java/org/test/Employee.java");
+        final ResourceUpdatedEvent event = mock(ResourceUpdatedEvent.class);
+        when(event.getPath()).thenReturn(employee);
+        cache.processResourceUpdate(event);
+
+        assertSame(firstModel,
+                   cache.getSnapshot(project).get());
+        assertSame(secondModel,
+                   cache.getDataModel(project));
+        assertEquals(1,
+                     cache.getStats().getInvalidations());
+    }
+
+    @Test
+    public void otherChangesDoNotInvalidateModel() {
+        cache.getDataModel(project);
+
+        cache.invalidate(path(ROOT + "/src/main/resources/org/test/Employee.frm"));
+        cache.invalidate(path("default://master@repo/other/src/main/java/org/test/Employee.java"));
+
+        assertSame(firstModel,
+                   cache.getDataModel(project));
+        assertEquals(0,
+                     cache.getStats().getInvalidations());
+    }
+
+    private Path path(final String uri) {
+        final Path path = mock(Path.class);
+        when(path.toURI()).thenReturn(uri);
+        when(path.getFileName()).thenReturn(uri.substring(uri.lastIndexOf('/') + 1));
+        return path;
+    }
+}
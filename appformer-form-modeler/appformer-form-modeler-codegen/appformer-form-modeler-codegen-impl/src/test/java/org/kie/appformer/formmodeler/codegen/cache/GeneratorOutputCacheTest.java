@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+
+import static org.junit.Assert.*;
+
+public class GeneratorOutputCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AtomicInteger generations;
+
+    private GeneratorOutputCache cache;
+
+    @Before
+    public void init() {
+        generations = new AtomicInteger();
+        cache = open(1024);
+    }
+
+    @Test
+    public void outputIsGeneratedOnce() {
+        final String key = GeneratorOutputCache.key("form",
+                                                    "FORM_MODEL");
+
+        assertEquals("output",
+                     cache.computeIfAbsent(key,
+                                           generator("output")));
+        assertEquals("output",
+                     cache.computeIfAbsent(key,
+                                           generator("other")));
+        assertEquals(1,
+                     generations.get());
+    }
+
+    @Test
+    public void outputsSurviveRestarts() {
+        final String key = GeneratorOutputCache.key("form");
+        cache.computeIfAbsent(key,
+                              generator("output"));
+
+        final GeneratorOutputCache restarted = open(1024);
+
+        assertEquals(1,
+                     restarted.size());
+        assertEquals("output",
+                     restarted.computeIfAbsent(key,
+                                               generator("other")));
+        assertEquals(1,
+                     generations.get());
+    }
+
+    @Test
+    public void leastRecentlyUsedOutputsAreEvicted() {
+        cache = open(10);
+        final String first = GeneratorOutputCache.key("first");
+        final String second = GeneratorOutputCache.key("second");
+        final String third = GeneratorOutputCache.key("third");
+
+        cache.computeIfAbsent(first,
+                              generator("11111"));
+        cache.computeIfAbsent(second,
+                              generator("22222"));
+        cache.computeIfAbsent(first,
+                              generator("11111"));
+        cache.computeIfAbsent(third,
+                              generator("33333"));
+
+        assertEquals(2,
+                     cache.size());
+        assertEquals(3,
+                     generations.get());
+        cache.computeIfAbsent(first,
+                              generator("11111"));
+        assertEquals(3,
+                     generations.get());
+        cache.computeIfAbsent(second,
+                              generator("22222"));
+        assertEquals(4,
+                     generations.get());
+    }
+
+    @Test
+    public void emptyOutputsAreNotStored() {
+        final String key = GeneratorOutputCache.key("form");
+
+        cache.computeIfAbsent(key,
+                              generator(""));
+
+        assertEquals(0,
+                     cache.size());
+    }
+
+    @Test
+    public void disabledCacheGenerates() {
+        final GeneratorOutputCache disabled = new GeneratorOutputCache(new CodegenMetricsImpl());
+        final String key = GeneratorOutputCache.key("form");
+
+        assertFalse(disabled.isEnabled());
+        disabled.computeIfAbsent(key,
+                                 generator("output"));
+        disabled.computeIfAbsent(key,
+                                 generator("output"));
+        assertEquals(2,
+                     generations.get());
+    }
+
+    @Test
+    public void keysSeparateInputs() {
+        assertNotEquals(GeneratorOutputCache.key("ab",
+                                                 "c"),
+                        GeneratorOutputCache.key("a",
+                                                 "bc"));
+        assertEquals(GeneratorOutputCache.key("a",
+                                              "b"),
+                     GeneratorOutputCache.key("a",
+                                              "b"));
+    }
+
+    private GeneratorOutputCache open(final long maxBytes) {
+        final GeneratorOutputCache opened = new GeneratorOutputCache(new CodegenMetricsImpl());
+        opened.init(folder.getRoot().toPath(),
+                    maxBytes);
+        return opened;
+    }
+
+    private Supplier<String> generator(final String output) {
+        return () -> {
+            generations.incrementAndGet();
+            return output;
+        };
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.cache;
+
+import org.guvnor.common.services.project.model.Package;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PackageCacheTest {
+
+    private static final String ROOT = "default://master@repo/project";
+    private static final String ORG_TEST = ROOT + "/src/main/java/org/test";
+    private static final String ORG_TEST_RESOURCES = ROOT + "/src/main/resources/org/test";
+
+    @Mock
+    KieProjectService projectService;
+
+    Package orgTest;
+
+    Package client;
+
+    PackageCache cache;
+
+    @Before
+    public void init() {
+        orgTest = pkg(ORG_TEST);
+        client = pkg(ORG_TEST + "/client");
+        when(projectService.resolvePackage(any(Path.class))).then(invocation -> {
+            final String uri = ((Path) invocation.getArguments()[0]).toURI();
+            if (uri.startsWith(ORG_TEST + "/client")) {
+                return client;
+            }
+            return uri.startsWith(ORG_TEST) || uri.startsWith(ORG_TEST_RESOURCES) ? orgTest : null;
+        });
+
+        cache = new PackageCache(projectService,
+                                 new CodegenMetricsImpl());
+    }
+
+    @Test
+    public void packagesAreResolvedOnce() {
+        assertSame(orgTest,
+                   cache.resolvePackage(path(ORG_TEST + "/Employee.java")));
+        assertSame(orgTest,
+                   cache.resolvePackage(path(ORG_TEST + "/Address.java")));
+        assertSame(client,
+                   cache.resolveSubpackage(orgTest,
+                                           "client"));
+        assertSame(client,
+                   cache.resolveSubpackage(orgTest,
+                                           "client"));
+
+        verify(projectService,
+               times(2)).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void missingPackagesAreNotCached() {
+        assertNull(cache.resolveSubpackage(client,
+                                           "missing"));
+        assertNull(cache.resolveSubpackage(client,
+                                           "missing"));
+
+        verify(projectService,
+               times(2)).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void createdPackagesAreCached() {
+        final Package local = pkg(ORG_TEST + "/client/local");
+        cache.put(local);
+
+        assertSame(local,
+                   cache.resolveSubpackage(client,
+                                           "local"));
+        verify(projectService,
+               never()).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void directoryDeleteInvalidatesPackagesBelowIt() {
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+        cache.resolveSubpackage(orgTest,
+                                "client");
+
+        final ResourceDeletedEvent event = mock(ResourceDeletedEvent.class);
+        when(event.getPath()).thenReturn(path(ORG_TEST + "/client"));
+        cache.processResourceDelete(event);
+
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+        cache.resolveSubpackage(orgTest,
+                                "client");
+
+        verify(projectService,
+               times(3)).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void deletingPackageDirectoryInvalidatesPackageResolvedFromResources() {
+        assertSame(orgTest,
+                   cache.resolvePackage(path(ORG_TEST_RESOURCES + "/Employee.frm")));
+
+        final ResourceDeletedEvent event = mock(ResourceDeletedEvent.class);
+        when(event.getPath()).thenReturn(path(ORG_TEST));
+        cache.processResourceDelete(event);
+
+        cache.resolvePackage(path(ORG_TEST_RESOURCES + "/Employee.frm"));
+
+        verify(projectService,
+               times(2)).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void fileEventsDoNotInvalidatePackages() {
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+
+        final ResourceAddedEvent event = mock(ResourceAddedEvent.class);
+        when(event.getPath()).thenReturn(path(ORG_TEST + "/Address.java"));
+        cache.processResourceAdd(event);
+        cache.invalidate(path("default://master@repo/other/src/main/java/org/test"));
+
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+
+        verify(projectService,
+               times(1)).resolvePackage(any(Path.class));
+    }
+
+    @Test
+    public void projectRootEventInvalidatesProject() {
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+
+        cache.invalidate(path(ROOT));
+        cache.resolvePackage(path(ORG_TEST + "/Employee.java"));
+
+        verify(projectService,
+               times(2)).resolvePackage(any(Path.class));
+    }
+
+    private Package pkg(final String mainSrcUri) {
+        final Package pkg = mock(Package.class);
+        final Path rootPath = path(ROOT);
+        final Path mainSrcPath = path(mainSrcUri);
+        when(pkg.getProjectRootPath()).thenReturn(rootPath);
+        when(pkg.getPackageMainSrcPath()).thenReturn(mainSrcPath);
+        when(pkg.getPackageMainResourcesPath()).thenReturn(path(mainSrcUri.replace("/src/main/java",
+                                                                                   "/src/main/resources")));
+        return pkg;
+    }
+
+    private Path path(final String uri) {
+        final Path path = mock(Path.class);
+        when(path.toURI()).thenReturn(uri);
+        when(path.getFileName()).thenReturn(uri.substring(uri.lastIndexOf('/') + 1));
+        return path;
+    }
+}
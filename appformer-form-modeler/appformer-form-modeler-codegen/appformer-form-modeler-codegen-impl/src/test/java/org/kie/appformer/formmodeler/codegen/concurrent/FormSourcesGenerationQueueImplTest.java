@@ -0,0 +1,316 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.event.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.State;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJobEvent;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationResult;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerator;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormSourcesGenerationQueueImplTest {
+
+    private static final String ROOT = "default://master@repo/project";
+
+    @Mock
+    FormSourcesGenerator generator;
+
+    @Mock
+    KieProjectService projectService;
+
+    @Mock
+    Event<FormSourcesGenerationJobEvent> jobEvent;
+
+    @Mock
+    KieProject project;
+
+    FormDefinition form = new FormDefinition();
+
+    Path projectPath;
+
+    List<String> generated = new CopyOnWriteArrayList<>();
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    CountDownLatch started = new CountDownLatch(1);
+
+    FormSourcesGenerationQueueImpl queue;
+
+    @Before
+    public void init() {
+        projectPath = path(ROOT);
+        when(project.getRootPath()).thenReturn(projectPath);
+        when(projectService.resolveProject(any())).thenReturn(project);
+
+        when(generator.generateFormSources(any(),
+                                           any(),
+                                           any())).then(invocation -> generate((Path) invocation.getArguments()[1]));
+        when(generator.generateProjectFormSources(any(),
+                                                  any())).then(invocation -> generate((Path) invocation.getArguments()[0]));
+
+        queue = new FormSourcesGenerationQueueImpl(generator,
+                                                   projectService,
+                                                   jobEvent,
+                                                   new CodegenMetricsImpl());
+    }
+
+    @After
+    public void shutdown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    @Test
+    public void synchronousJobRunsOnCaller() {
+        queue.init(false,
+                   1,
+                   10);
+        release.countDown();
+
+        final long id = queue.submitFormSources(form,
+                                                path(ROOT + "/src/main/resources/Employee.frm"),
+                                                Priority.INTERACTIVE);
+
+        assertEquals(State.COMPLETED,
+                     queue.getJob(id).get().getState());
+        assertTrue(queue.getActiveJobs().isEmpty());
+
+        final ArgumentCaptor<FormSourcesGenerationJobEvent> event = ArgumentCaptor.forClass(FormSourcesGenerationJobEvent.class);
+        verify(jobEvent).fire(event.capture());
+        assertEquals(id,
+                     event.getValue().getJob().getId());
+    }
+
+    @Test
+    public void queuedJobIsSupersededAndInteractiveJobsRunFirst() throws Exception {
+        queue.init(true,
+                   2,
+                   10);
+
+        final long running = queue.submitFormSources(form,
+                                                     path(ROOT + "/src/main/resources/Running.frm"),
+                                                     Priority.INTERACTIVE);
+        assertTrue(started.await(5,
+                                 TimeUnit.SECONDS));
+
+        final long bulk = queue.submitProjectFormSources(projectPath,
+                                                         Priority.BULK);
+        final long first = queue.submitFormSources(form,
+                                                   path(ROOT + "/src/main/resources/Employee.frm"),
+                                                   Priority.BULK);
+        final long second = queue.submitFormSources(form,
+                                                    path(ROOT + "/src/main/resources/Employee.frm"),
+                                                    Priority.INTERACTIVE);
+
+        final FormSourcesGenerationJob superseded = queue.getJob(first).get();
+        assertEquals(State.SUPERSEDED,
+                     superseded.getState());
+        assertEquals(second,
+                     superseded.getSupersededBy());
+        assertEquals(3,
+                     queue.getActiveJobs().size());
+        assertEquals(State.RUNNING,
+                     queue.getJob(running).get().getState());
+
+        release.countDown();
+
+        assertEquals(State.COMPLETED,
+                     queue.await(bulk,
+                                 5,
+                                 TimeUnit.SECONDS).get().getState());
+        assertEquals(second,
+                     queue.await(first,
+                                 5,
+                                 TimeUnit.SECONDS).get().getId());
+        assertEquals(3,
+                     generated.size());
+        assertEquals(ROOT + "/src/main/resources/Employee.frm",
+                     generated.get(1));
+        assertEquals(ROOT,
+                     generated.get(2));
+        assertTrue(queue.getActiveJobs().isEmpty());
+    }
+
+    @Test
+    public void blockedSubmissionsOfSameFileAreMerged() throws Exception {
+        queue.init(true,
+                   1,
+                   1);
+        final CountDownLatch projectRelease = new CountDownLatch(1);
+        when(generator.generateProjectFormSources(any(),
+                                                  any())).then(invocation -> {
+            projectRelease.await(5,
+                                 TimeUnit.SECONDS);
+            return new FormSourcesGenerationResult();
+        });
+
+        queue.submitFormSources(form,
+                                path(ROOT + "/src/main/resources/Running.frm"),
+                                Priority.INTERACTIVE);
+        assertTrue(started.await(5,
+                                 TimeUnit.SECONDS));
+        queue.submitProjectFormSources(projectPath,
+                                       Priority.BULK);
+
+        // The queue is full, so both submissions of the same form wait for a free slot.
+        final Path employee = path(ROOT + "/src/main/resources/Employee.frm");
+        final List<FutureTask<Long>> submissions = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final FutureTask<Long> submission = new FutureTask<>(() -> queue.submitFormSources(form,
+                                                                                               employee,
+                                                                                               Priority.BULK));
+            final Thread submitter = new Thread(submission);
+            submitter.start();
+            while (submitter.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            submissions.add(submission);
+        }
+
+        // Starting the project job frees one slot, which the first submission takes and the second replaces.
+        release.countDown();
+        final long first = submissions.get(0).get(5,
+                                                  TimeUnit.SECONDS);
+        final long second = submissions.get(1).get(5,
+                                                   TimeUnit.SECONDS);
+        projectRelease.countDown();
+
+        assertEquals(queue.await(first,
+                                 5,
+                                 TimeUnit.SECONDS).get().getId(),
+                     queue.await(second,
+                                 5,
+                                 TimeUnit.SECONDS).get().getId());
+        assertEquals(Arrays.asList(ROOT + "/src/main/resources/Running.frm",
+                                   ROOT + "/src/main/resources/Employee.frm"),
+                     generated);
+    }
+
+    @Test
+    public void failedJobReportsError() {
+        queue.init(true,
+                   1,
+                   10);
+        release.countDown();
+        when(generator.generateEntityFormSources(any(),
+                                                 any(),
+                                                 any())).thenThrow(new IllegalArgumentException("Broken form"));
+
+        final long id = queue.submitEntityFormSources(form,
+                                                      path(ROOT + "/src/main/resources/Employee.frm"),
+                                                      Priority.BULK);
+
+        final FormSourcesGenerationJob job = queue.await(id,
+                                                         5,
+                                                         TimeUnit.SECONDS).get();
+        assertEquals(State.FAILED,
+                     job.getState());
+        assertEquals("Broken form",
+                     job.getFailure());
+        assertNull(job.getResult());
+    }
+
+    @Test
+    public void queuedJobCommitsAsSubmittingUser() throws Exception {
+        queue.init(true,
+                   1,
+                   10);
+        release.countDown();
+
+        final CommitIdentity author = new CommitIdentity("session1",
+                                                         "alice",
+                                                         null);
+        final List<CommitIdentity> identities = new CopyOnWriteArrayList<>();
+        // The identity can only be resolved on the thread of the request that submits the job.
+        final Thread submitter = Thread.currentThread();
+        when(generator.getCommitIdentity()).then(invocation -> Thread.currentThread() == submitter ? author : null);
+        when(generator.generateFormSources(any(),
+                                           any(),
+                                           any())).then(invocation -> {
+            identities.add((CommitIdentity) invocation.getArguments()[2]);
+            return new FormSourcesGenerationResult();
+        });
+
+        final long id = queue.submitFormSources(form,
+                                                path(ROOT + "/src/main/resources/Employee.frm"),
+                                                Priority.INTERACTIVE);
+
+        assertEquals(State.COMPLETED,
+                     queue.await(id,
+                                 5,
+                                 TimeUnit.SECONDS).get().getState());
+        assertEquals(Collections.singletonList(author),
+                     identities);
+    }
+
+    @Test
+    public void unknownJobIsEmpty() {
+        queue.init(true,
+                   1,
+                   10);
+
+        assertFalse(queue.getJob(42).isPresent());
+        assertFalse(queue.await(42,
+                                1,
+                                TimeUnit.MILLISECONDS).isPresent());
+        assertEquals(Collections.emptyList(),
+                     queue.getActiveJobs());
+    }
+
+    private FormSourcesGenerationResult generate(final Path path) throws InterruptedException {
+        generated.add(path.toURI());
+        started.countDown();
+        release.await(5,
+                      TimeUnit.SECONDS);
+        return new FormSourcesGenerationResult();
+    }
+
+    private Path path(final String uri) {
+        final Path path = mock(Path.class);
+        when(path.toURI()).thenReturn(uri);
+        return path;
+    }
+}
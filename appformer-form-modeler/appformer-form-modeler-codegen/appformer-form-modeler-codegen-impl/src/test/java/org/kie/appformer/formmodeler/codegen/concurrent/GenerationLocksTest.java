@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+
+import static org.junit.Assert.*;
+
+public class GenerationLocksTest {
+
+    private static final String PROJECT = "default://master@repo/project";
+    private static final String OTHER_PROJECT = "default://master@repo/other";
+    private static final String FLOW = PROJECT + "/src/main/resources/Main.flow";
+
+    CodegenMetricsImpl metrics;
+
+    GenerationLocks locks;
+
+    @Before
+    public void init() {
+        metrics = new CodegenMetricsImpl();
+        locks = new GenerationLocks(metrics);
+        locks.init(64);
+    }
+
+    @Test
+    public void sharedProjectLocksDoNotWait() throws Exception {
+        try (final GenerationLocks.Held held = locks.lockProject(PROJECT,
+                                                                 false)) {
+            inOtherThread(() -> locks.lockProject(PROJECT,
+                                                  false)).get(1,
+                                                              TimeUnit.SECONDS);
+        }
+        assertNull(metrics.getCounters().get("lock.contended"));
+    }
+
+    @Test
+    public void exclusiveProjectLockWaitsForSharedOnes() throws Exception {
+        final CompletableFuture<Void> exclusive;
+        try (final GenerationLocks.Held held = locks.lockProject(PROJECT,
+                                                                 false)) {
+            exclusive = inOtherThread(() -> locks.lockProject(PROJECT,
+                                                              true));
+            assertTimesOut(exclusive);
+        }
+
+        exclusive.get(1,
+                      TimeUnit.SECONDS);
+        assertEquals(Long.valueOf(1),
+                     metrics.getCounters().get("lock.contended"));
+        assertEquals(1,
+                     metrics.getTimers().get("lock.wait.project").getCount());
+    }
+
+    @Test
+    public void independentProjectsDoNotWait() throws Exception {
+        try (final GenerationLocks.Held held = locks.lockProject(PROJECT,
+                                                                 true)) {
+            inOtherThread(() -> locks.lockProject(OTHER_PROJECT,
+                                                  true)).get(1,
+                                                             TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void fileLockIsExclusive() throws Exception {
+        final CompletableFuture<Void> other;
+        try (final GenerationLocks.Held held = locks.lockFile(FLOW)) {
+            other = inOtherThread(() -> locks.lockFile(FLOW));
+            assertTimesOut(other);
+        }
+
+        other.get(1,
+                  TimeUnit.SECONDS);
+        assertEquals(1,
+                     metrics.getTimers().get("lock.wait.file").getCount());
+    }
+
+    @Test
+    public void fileLockIsReentrant() {
+        try (final GenerationLocks.Held held = locks.lockFile(FLOW);
+             final GenerationLocks.Held again = locks.lockFile(FLOW)) {
+            assertNull(metrics.getCounters().get("lock.contended"));
+        }
+    }
+
+    @Test
+    public void keysShareStripes() throws Exception {
+        locks.init(1);
+
+        try (final GenerationLocks.Held held = locks.lockFile(FLOW)) {
+            assertTimesOut(inOtherThread(() -> locks.lockFile(PROJECT + "/ErraiApp.properties")));
+        }
+    }
+
+    private static CompletableFuture<Void> inOtherThread(final Supplier<GenerationLocks.Held> lock) {
+        return CompletableFuture.runAsync(() -> lock.get().close());
+    }
+
+    private static void assertTimesOut(final CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(100,
+                       TimeUnit.MILLISECONDS);
+            fail("The lock should not be available.");
+        } catch (final TimeoutException e) {
+            // expected
+        }
+    }
+}
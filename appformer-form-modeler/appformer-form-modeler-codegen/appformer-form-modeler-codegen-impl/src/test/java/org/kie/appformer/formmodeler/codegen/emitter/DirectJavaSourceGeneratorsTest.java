@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.emitter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.guvnor.common.services.project.model.Package;
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.AnnotationTargetSource;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.JavaSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.flow.impl.DirectFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.flow.impl.RoasterFlowProducerSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.DirectRestImplSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.RoasterEntityServiceSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.rest.impl.RoasterRestImplSourceGenerator;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the direct generators produce the same classes as the Roaster generators they
+ * replace, ignoring formatting and member order.
+ */
+public class DirectJavaSourceGeneratorsTest {
+
+    private SourceGenerationContext context;
+
+    @Before
+    public void setUp() {
+        final FormDefinition form = new FormDefinition();
+        form.setId("employeeForm");
+        form.setName("Employee");
+        form.setModel(new DataObjectFormModel("employee",
+                                              "org.test.client.shared.Employee"));
+
+        final Path path = PathFactory.newPath("Employee.frm",
+                                              "default://project/src/main/resources/org/test/Employee.frm");
+        context = new SourceGenerationContext(form,
+                                              path,
+                                              pkg(path,
+                                                  "org.test"),
+                                              pkg(path,
+                                                  "org.test.client.local"),
+                                              pkg(path,
+                                                  "org.test.client.shared"),
+                                              pkg(path,
+                                                  "org.test.server"),
+                                              null);
+    }
+
+    @Test
+    public void testRestImpl() {
+        assertEquivalent(new RoasterRestImplSourceGenerator(),
+                         new DirectRestImplSourceGenerator());
+    }
+
+    @Test
+    public void testEntityService() {
+        assertEquivalent(new RoasterEntityServiceSourceGenerator(),
+                         new DirectEntityServiceSourceGenerator());
+    }
+
+    @Test
+    public void testFlowProducer() {
+        assertEquivalent(new RoasterFlowProducerSourceGenerator(),
+                         new DirectFlowProducerSourceGenerator());
+    }
+
+    private void assertEquivalent(final JavaSourceGenerator roasterGenerator,
+                                  final JavaSourceGenerator directGenerator) {
+        final JavaClassSource expected = Roaster.parse(JavaClassSource.class,
+                                                       roasterGenerator.generateJavaSource(context));
+        final JavaClassSource actual = Roaster.parse(JavaClassSource.class,
+                                                     directGenerator.generateJavaSource(context));
+
+        assertEquals(expected.getQualifiedName(),
+                     actual.getQualifiedName());
+        assertEquals(expected.getSuperType(),
+                     actual.getSuperType());
+        assertEquals(expected.getInterfaces(),
+                     actual.getInterfaces());
+        assertEquals(annotations(expected),
+                     annotations(actual));
+        assertEquals(expected.getFields().stream().map(field -> field.getType().getQualifiedName() + " " + field.getName()).collect(Collectors.toList()),
+                     actual.getFields().stream().map(field -> field.getType().getQualifiedName() + " " + field.getName()).collect(Collectors.toList()));
+        assertEquals(methods(expected),
+                     methods(actual));
+    }
+
+    private static Map<String, String> methods(final JavaClassSource source) {
+        final Map<String, String> methods = new TreeMap<>();
+        for (final MethodSource<JavaClassSource> method : source.getMethods()) {
+            methods.put(method.toSignature(),
+                        annotations(method) + " " + method.getBody().replaceAll("\\s",
+                                                                                ""));
+        }
+        return methods;
+    }
+
+    private static String annotations(final AnnotationTargetSource<JavaClassSource, ?> target) {
+        return target.getAnnotations()
+                .stream()
+                .map(annotation -> annotation.getName() + "(" + annotation.getLiteralValue() + ")")
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    private static Package pkg(final Path path,
+                               final String name) {
+        return new Package(path,
+                           null,
+                           null,
+                           null,
+                           null,
+                           name,
+                           name,
+                           name);
+    }
+}
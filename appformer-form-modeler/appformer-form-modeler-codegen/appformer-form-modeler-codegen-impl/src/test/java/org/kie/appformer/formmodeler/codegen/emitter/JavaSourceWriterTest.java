@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.emitter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JavaSourceWriterTest {
+
+    @Test
+    public void testWritesClass() {
+        final JavaSourceWriter writer = new JavaSourceWriter("org.test",
+                                                             "Foo");
+        writer.annotation("javax.ejb.Stateless")
+                .beginClass(writer.type("org.test.base.Base"),
+                            writer.type("java.io.Serializable"));
+        writer.annotation("javax.inject.Inject")
+                .field("private",
+                       writer.type("java.util.List",
+                                   writer.type("java.lang.String")),
+                       "names");
+        writer.annotation(Override.class.getName())
+                .beginMethod("public",
+                             "int",
+                             "size",
+                             "boolean all")
+                .statement("return names.size();")
+                .endMethod();
+
+        assertEquals("package org.test;\n"
+                             + "\n"
+                             + "import java.io.Serializable;\n"
+                             + "import java.util.List;\n"
+                             + "import javax.ejb.Stateless;\n"
+                             + "import javax.inject.Inject;\n"
+                             + "import org.test.base.Base;\n"
+                             + "\n"
+                             + "@Stateless\n"
+                             + "public class Foo extends Base implements Serializable {\n"
+                             + "    @Inject\n"
+                             + "    private List<String> names;\n"
+                             + "\n"
+                             + "    @Override\n"
+                             + "    public int size(boolean all) {\n"
+                             + "        return names.size();\n"
+                             + "    }\n"
+                             + "}\n",
+                     writer.endClass().toString());
+    }
+
+    @Test
+    public void testConflictingSimpleNamesAreQualified() {
+        final JavaSourceWriter writer = new JavaSourceWriter("org.test",
+                                                             "Foo");
+
+        assertEquals("List",
+                     writer.type("java.util.List"));
+        assertEquals("java.awt.List",
+                     writer.type("java.awt.List"));
+        assertEquals("List",
+                     writer.type("java.util.List"));
+        assertEquals("org.other.Foo",
+                     writer.type("org.other.Foo"));
+
+        final String source = writer.beginClass(null).endClass().toString();
+        assertTrue(source.contains("import java.util.List;"));
+        assertFalse(source.contains("import java.awt.List;"));
+        assertFalse(source.contains("import org.other.Foo;"));
+    }
+
+    @Test
+    public void testSamePackageTypesAreNotImported() {
+        final JavaSourceWriter writer = new JavaSourceWriter("org.test",
+                                                             "Foo");
+
+        assertEquals("Bar",
+                     writer.type("org.test.Bar"));
+
+        assertEquals("package org.test;\n"
+                             + "\n"
+                             + "public class Foo extends Bar {\n"
+                             + "}\n",
+                     writer.beginClass("Bar").endClass().toString());
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"a\\\"b\\\\c\"",
+                     JavaSourceWriter.quote("a\"b\\c"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbalancedSource() {
+        final JavaSourceWriter writer = new JavaSourceWriter("org.test",
+                                                             "Foo");
+        writer.beginClass(null).toString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.incremental;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class FormDefinitionDiffTest {
+
+    @Test
+    public void unchangedFormAffectsNothing() {
+        final FormDefinitionDiff diff = FormDefinitionDiff.compare(form("Employee",
+                                                                        "name",
+                                                                        "age"),
+                                                                   form("Employee",
+                                                                        "name",
+                                                                        "age"));
+
+        assertFalse(diff.hasFieldChanges());
+        assertTrue(diff.getAffectedArtifacts().isEmpty());
+    }
+
+    @Test
+    public void fieldChangesOnlyAffectFieldArtifacts() {
+        final FormDefinition current = form("Employee",
+                                            "name",
+                                            "address");
+        current.getFieldById("name").setLabel("Full name");
+
+        final FormDefinitionDiff diff = FormDefinitionDiff.compare(form("Employee",
+                                                                        "name",
+                                                                        "age"),
+                                                                   current);
+
+        assertEquals(1,
+                     diff.getAddedFields().size());
+        assertTrue(diff.getAddedFields().contains("address"));
+        assertTrue(diff.getRemovedFields().contains("age"));
+        assertTrue(diff.getModifiedFields().contains("name"));
+        assertEquals(EnumSet.of(GeneratedArtifact.FORM_LAYOUT,
+                                GeneratedArtifact.FORM_VIEW,
+                                GeneratedArtifact.FORM_VIEW_TEMPLATE,
+                                GeneratedArtifact.FORM_VALIDATOR,
+                                GeneratedArtifact.LIST_VIEW),
+                     diff.getAffectedArtifacts());
+    }
+
+    @Test
+    public void modelChangeAffectsEverything() {
+        final FormDefinitionDiff diff = FormDefinitionDiff.compare(form("Employee",
+                                                                        "name"),
+                                                                   form("Person",
+                                                                        "name"));
+
+        assertTrue(diff.isModelChanged());
+        assertEquals(EnumSet.allOf(GeneratedArtifact.class),
+                     diff.getAffectedArtifacts());
+    }
+
+    private FormDefinition form(final String model,
+                                final String... fieldNames) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(model);
+        form.setName(model);
+        form.setModel(new DataObjectFormModel(model.toLowerCase(),
+                                              "org.test." + model));
+        for (final String fieldName : fieldNames) {
+            final TextBoxFieldDefinition field = new TextBoxFieldDefinition();
+            field.setId(fieldName);
+            field.setName(fieldName);
+            field.setLabel(fieldName);
+            field.setBinding(fieldName);
+            form.getFields().add(field);
+        }
+        return form;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.incremental;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormDependencyGraphTest {
+
+    @Mock
+    FormIndex formIndex;
+
+    @Mock
+    Path addressPath;
+
+    @Mock
+    Path employeePath;
+
+    @Mock
+    Path companyPath;
+
+    FormDefinition address = form("Address");
+
+    FormDefinition employee = form("Employee");
+
+    FormDefinition company = form("Company");
+
+    FormDependencyGraph graph;
+
+    @Before
+    public void init() {
+        // Employee embeds the Address form, Company lists Addresses in a MultipleSubForm.
+        when(formIndex.findEmbeddingForms(any(),
+                                          any())).thenReturn(Collections.emptyMap());
+        when(formIndex.findFormsEmbeddingType(any(),
+                                              any())).thenReturn(Collections.emptyMap());
+        when(formIndex.findEmbeddingForms("Address",
+                                          addressPath)).thenReturn(forms(employeePath,
+                                                                         employee));
+        when(formIndex.findFormsEmbeddingType("org.test.Address",
+                                              addressPath)).thenReturn(forms(companyPath,
+                                                                             company));
+        final Map<Path, FormDefinition> all = forms(addressPath,
+                                                    address);
+        all.put(employeePath,
+                employee);
+        all.put(companyPath,
+                company);
+        when(formIndex.findAllFormsByPath(addressPath)).thenReturn(all);
+
+        graph = new FormDependencyGraph(formIndex);
+    }
+
+    @Test
+    public void unchangedReferenceDoesNotAffectDependents() {
+        assertTrue(graph.getDependentArtifacts(address,
+                                               form("Address"),
+                                               addressPath).isEmpty());
+    }
+
+    @Test
+    public void renamedFormAffectsEmbeddingViews() {
+        final FormDefinition renamed = form("Address");
+        renamed.setName("PostalAddress");
+
+        final Map<Path, Set<GeneratedArtifact>> impact = graph.getFormChangeImpact(address,
+                                                                                    renamed,
+                                                                                    addressPath);
+
+        assertEquals(EnumSet.allOf(GeneratedArtifact.class),
+                     impact.get(addressPath));
+        assertEquals(EnumSet.of(GeneratedArtifact.FORM_VIEW),
+                     impact.get(employeePath));
+        assertEquals(EnumSet.of(GeneratedArtifact.FORM_VIEW),
+                     impact.get(companyPath));
+    }
+
+    @Test
+    public void unknownPreviousVersionAffectsEveryDependent() {
+        final Map<Path, Set<GeneratedArtifact>> dependents = graph.getDependentArtifacts(null,
+                                                                                         address,
+                                                                                         addressPath);
+
+        assertEquals(2,
+                     dependents.size());
+        assertFalse(dependents.containsKey(addressPath));
+    }
+
+    @Test
+    public void dataObjectChangeAffectsBoundAndEmbeddingForms() {
+        final Map<Path, Set<GeneratedArtifact>> impact = graph.getDataObjectChangeImpact("org.test.Address",
+                                                                                          addressPath);
+
+        assertEquals(2,
+                     impact.size());
+        assertEquals(EnumSet.allOf(GeneratedArtifact.class),
+                     impact.get(addressPath));
+        assertEquals(EnumSet.of(GeneratedArtifact.FORM_VIEW),
+                     impact.get(companyPath));
+    }
+
+    private static Map<Path, FormDefinition> forms(final Path path,
+                                                   final FormDefinition form) {
+        final Map<Path, FormDefinition> forms = new LinkedHashMap<>();
+        forms.put(path,
+                  form);
+        return forms;
+    }
+
+    private static FormDefinition form(final String model) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(model);
+        form.setName(model);
+        form.setModel(new DataObjectFormModel(model.toLowerCase(),
+                                              "org.test." + model));
+        return form;
+    }
+}
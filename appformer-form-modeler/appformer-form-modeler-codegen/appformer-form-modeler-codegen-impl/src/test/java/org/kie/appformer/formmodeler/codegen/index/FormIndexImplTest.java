@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.forms.serialization.FormDefinitionSerializer;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormIndexImplTest {
+
+    private static final String ROOT = "file:///form-index/project";
+    private static final String FORMS = ROOT + "/src/main/resources/org/test";
+
+    @Mock
+    KieProjectService projectService;
+
+    @Mock
+    KieProject project;
+
+    @Mock
+    IOService ioService;
+
+    @Mock
+    FormDefinitionSerializer serializer;
+
+    @Mock
+    DirectoryStream<org.uberfire.java.nio.file.Path> directory;
+
+    // Form files by URI. A form file holds "id,type" and optionally the id of an embedded form.
+    final Map<String, String> files = new ConcurrentHashMap<>();
+
+    final List<org.uberfire.java.nio.file.Path> listed = new ArrayList<>();
+
+    // Run once a form file has been read, to simulate events received during the scan.
+    final Map<String, Runnable> readHooks = new ConcurrentHashMap<>();
+
+    Path addressPath = path(FORMS + "/Address.frm");
+
+    Path employeePath = path(FORMS + "/Employee.frm");
+
+    FormIndexImpl index;
+
+    @Before
+    public void init() {
+        when(project.getRootPath()).thenReturn(path(ROOT));
+        when(projectService.resolveProject(any(Path.class))).thenReturn(project);
+
+        when(ioService.newDirectoryStream(any(org.uberfire.java.nio.file.Path.class))).thenReturn(directory);
+        when(directory.iterator()).then(invocation -> new ArrayList<>(listed).iterator());
+        when(ioService.readAllString(any(org.uberfire.java.nio.file.Path.class))).then(invocation -> {
+            final String uri = uri(invocation.getArguments()[0]);
+            final String content = files.get(uri);
+            final Runnable hook = readHooks.remove(uri);
+            if (hook != null) {
+                hook.run();
+            }
+            return content;
+        });
+        when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).then(invocation -> files.containsKey(uri(invocation.getArguments()[0])));
+        when(serializer.deserialize(anyString())).then(invocation -> form((String) invocation.getArguments()[0]));
+
+        addFile(addressPath,
+                "Address,org.test.Address");
+        addFile(employeePath,
+                "Employee,org.test.Employee,Address");
+
+        index = new FormIndexImpl(projectService,
+                                  ioService,
+                                  serializer,
+                                  new CodegenMetricsImpl());
+    }
+
+    @Test
+    public void projectIsScannedOnce() {
+        assertEquals(2,
+                     index.findAllForms(addressPath).size());
+        assertEquals("Employee",
+                     index.findFormById("Employee",
+                                        addressPath).get().getId());
+        assertEquals(1,
+                     index.findFormsForType("org.test.Address",
+                                            addressPath).size());
+        assertEquals(employeePath,
+                     index.findEmbeddingForms("Address",
+                                              addressPath).keySet().iterator().next());
+        assertEquals(employeePath,
+                     index.findFormsEmbeddingType("org.test.Address",
+                                                  addressPath).keySet().iterator().next());
+
+        verify(ioService,
+               times(1)).newDirectoryStream(any(org.uberfire.java.nio.file.Path.class));
+        verify(ioService,
+               times(2)).readAllString(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    public void lookupsDoNotParseFormsAgain() {
+        final FormDefinition address = index.findFormById("Address",
+                                                          addressPath).get();
+
+        assertSame(address,
+                   index.findAllFormsByPath(addressPath).get(addressPath));
+        assertSame(address,
+                   index.findFormsForType("org.test.Address",
+                                          addressPath).get(0));
+        assertSame(index.findFormById("Employee",
+                                      addressPath).get(),
+                   index.findEmbeddingForms("Address",
+                                            addressPath).get(employeePath));
+        verify(serializer,
+               times(2)).deserialize(anyString());
+    }
+
+    @Test
+    public void formEventsUpdateIndexedProjects() {
+        index.findAllForms(addressPath);
+
+        files.put(employeePath.toURI(),
+                  "Employee,org.test.Employee");
+        final ResourceUpdatedEvent updated = mock(ResourceUpdatedEvent.class);
+        when(updated.getPath()).thenReturn(employeePath);
+        index.processResourceUpdate(updated);
+
+        final ResourceDeletedEvent deleted = mock(ResourceDeletedEvent.class);
+        when(deleted.getPath()).thenReturn(addressPath);
+        index.processResourceDelete(deleted);
+
+        assertEquals(1,
+                     index.findAllForms(addressPath).size());
+        assertTrue(index.findEmbeddingForms("Address",
+                                            addressPath).isEmpty());
+        verify(ioService,
+               times(1)).newDirectoryStream(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    public void eventsDuringScanAreReplayed() {
+        final Path companyPath = path(FORMS + "/Company.frm");
+        final ResourceAddedEvent added = mock(ResourceAddedEvent.class);
+        when(added.getPath()).thenReturn(companyPath);
+        final ResourceUpdatedEvent updated = mock(ResourceUpdatedEvent.class);
+        when(updated.getPath()).thenReturn(employeePath);
+
+        // The Company form is added and the Employee form changed after they are listed or read.
+        readHooks.put(addressPath.toURI(),
+                      () -> {
+                          files.put(companyPath.toURI(),
+                                    "Company,org.test.Company");
+                          index.processResourceAdd(added);
+                      });
+        readHooks.put(employeePath.toURI(),
+                      () -> {
+                          files.put(employeePath.toURI(),
+                                    "Employee,org.test.Employee");
+                          index.processResourceUpdate(updated);
+                      });
+
+        assertEquals(3,
+                     index.findAllForms(addressPath).size());
+        assertTrue(index.findFormById("Company",
+                                      addressPath).isPresent());
+        assertTrue(index.findEmbeddingForms("Address",
+                                            addressPath).isEmpty());
+    }
+
+    @Test
+    public void deletingProjectRootEvictsProject() {
+        index.findAllForms(addressPath);
+
+        final ResourceDeletedEvent deleted = mock(ResourceDeletedEvent.class);
+        when(deleted.getPath()).thenReturn(path(ROOT));
+        index.processResourceDelete(deleted);
+        index.findAllForms(addressPath);
+
+        verify(ioService,
+               times(2)).newDirectoryStream(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    public void deletingOtherDirectoryKeepsProject() {
+        index.findAllForms(addressPath);
+
+        final ResourceDeletedEvent deleted = mock(ResourceDeletedEvent.class);
+        when(deleted.getPath()).thenReturn(path(ROOT + "/src/main/resources/org/other"));
+        index.processResourceDelete(deleted);
+        index.findAllForms(addressPath);
+
+        verify(ioService,
+               times(1)).newDirectoryStream(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    private void addFile(final Path path,
+                         final String content) {
+        files.put(path.toURI(),
+                  content);
+        listed.add(Paths.convert(path));
+    }
+
+    private static FormDefinition form(final String content) {
+        final String[] values = content.split(",");
+        final FormDefinition form = new FormDefinition();
+        form.setId(values[0]);
+        form.setName(values[0]);
+        form.setModel(new DataObjectFormModel(values[0].toLowerCase(),
+                                              values[1]));
+        if (values.length > 2) {
+            final SubFormFieldDefinition field = new SubFormFieldDefinition();
+            field.setName(values[2].toLowerCase());
+            field.setNestedForm(values[2]);
+            field.setStandaloneClassName("org.test." + values[2]);
+            form.getFields().add(field);
+        }
+        return form;
+    }
+
+    private static String uri(final Object path) {
+        return ((org.uberfire.java.nio.file.Path) path).toUri().toString();
+    }
+
+    private static Path path(final String uri) {
+        return PathFactory.newPath(uri.substring(uri.lastIndexOf('/') + 1),
+                                   uri);
+    }
+}
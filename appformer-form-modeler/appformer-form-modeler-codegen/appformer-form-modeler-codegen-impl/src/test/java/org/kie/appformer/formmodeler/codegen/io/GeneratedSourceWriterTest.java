@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.io;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GeneratedSourceWriterTest {
+
+    private static final String CONTENT = "public class Foo {}";
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private Path path;
+
+    private GeneratedSourceWriter writer;
+
+    @Before
+    public void setup() {
+        writer = new GeneratedSourceWriter(ioService,
+                                           new CodegenMetricsImpl());
+    }
+
+    @Test
+    public void missingFileHasNoContent() {
+        when(ioService.exists(path)).thenReturn(false);
+
+        assertFalse(writer.hasContent(path,
+                                      bytes(CONTENT)));
+        verify(ioService,
+               never()).readAllBytes(path);
+    }
+
+    @Test
+    public void identicalFileHasContent() {
+        when(ioService.exists(path)).thenReturn(true);
+        when(ioService.readAllBytes(path)).thenReturn(bytes(CONTENT));
+
+        assertTrue(writer.hasContent(path,
+                                     bytes(CONTENT)));
+    }
+
+    @Test
+    public void modifiedFileDoesNotHaveContent() {
+        when(ioService.exists(path)).thenReturn(true);
+        when(ioService.readAllBytes(path)).thenReturn(bytes("public class Bar {}"));
+
+        assertFalse(writer.hasContent(path,
+                                      bytes(CONTENT)));
+    }
+
+    private static byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
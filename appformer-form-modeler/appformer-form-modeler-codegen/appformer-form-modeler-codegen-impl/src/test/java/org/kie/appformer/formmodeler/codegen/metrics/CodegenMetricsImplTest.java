@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kie.appformer.formmodeler.codegen.CodegenTimerStats;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CodegenMetricsImplTest {
+
+    private CodegenMetricsImpl metrics;
+
+    @Before
+    public void setup() {
+        metrics = new CodegenMetricsImpl();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.shutdown();
+    }
+
+    @Test
+    public void countersAreAccumulated() {
+        metrics.increment("writer.written");
+        metrics.increment("writer.bytesWritten",
+                          10);
+        metrics.increment("writer.bytesWritten",
+                          5);
+
+        final Map<String, Long> counters = metrics.getCounters();
+        assertEquals(Long.valueOf(1),
+                     counters.get("writer.written"));
+        assertEquals(Long.valueOf(15),
+                     counters.get("writer.bytesWritten"));
+    }
+
+    @Test
+    public void timersRecordCountTotalAndMax() {
+        metrics.record("generator.FORM_VIEW",
+                       2000000);
+        metrics.record("generator.FORM_VIEW",
+                       6000000);
+
+        final CodegenTimerStats stats = metrics.getTimers().get("generator.FORM_VIEW");
+        assertEquals(2,
+                     stats.getCount());
+        assertEquals(8000000,
+                     stats.getTotalNanos());
+        assertEquals(6.0,
+                     stats.getMaxMillis(),
+                     0);
+        assertEquals(4.0,
+                     stats.getMeanMillis(),
+                     0);
+    }
+
+    @Test
+    public void failedTaskIsTimed() {
+        try {
+            metrics.time("generation.entity",
+                         () -> {
+                             throw new IllegalStateException();
+                         });
+            fail("Task exception should be rethrown.");
+        } catch (final IllegalStateException e) {
+            assertEquals(1,
+                         metrics.getTimers().get("generation.entity").getCount());
+        }
+    }
+
+    @Test
+    public void resetDiscardsMetrics() {
+        metrics.increment("writer.skipped");
+        metrics.record("formIndex.scan",
+                       1);
+
+        metrics.reset();
+
+        assertTrue(metrics.getCounters().isEmpty());
+        assertTrue(metrics.getTimers().isEmpty());
+    }
+
+    @Test
+    public void metricsAreExposedThroughJmx() throws Exception {
+        metrics.init();
+        metrics.increment("writer.written",
+                          3);
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(CodegenMetricsImpl.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertNotNull(server.getAttribute(name,
+                                          "Counters"));
+
+        metrics.shutdown();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void registeredMBeanIsNotReplaced() throws Exception {
+        metrics.init();
+
+        final CodegenMetricsImpl other = new CodegenMetricsImpl();
+        other.init();
+        other.shutdown();
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(CodegenMetricsImpl.OBJECT_NAME);
+        metrics.increment("writer.written",
+                          2);
+        assertTrue(server.isRegistered(name));
+        assertEquals(Long.valueOf(2),
+                     JMX.newMXBeanProxy(server,
+                                        name,
+                                        CodegenMetricsMXBean.class).getCounters().get("writer.written"));
+    }
+}
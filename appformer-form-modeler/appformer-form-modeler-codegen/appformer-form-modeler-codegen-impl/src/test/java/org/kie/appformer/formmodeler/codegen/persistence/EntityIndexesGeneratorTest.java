@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.persistence.EntityIndexesGenerator.EntityIndex;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.checkBox.definition.CheckBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.objectSelector.definition.ObjectSelectorFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.kie.workbench.common.services.datamodeller.core.Annotation;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.datamodeller.core.HasAnnotations;
+import org.kie.workbench.common.services.datamodeller.core.impl.AnnotationDefinitionImpl;
+import org.kie.workbench.common.services.datamodeller.core.impl.AnnotationImpl;
+import org.kie.workbench.common.services.datamodeller.core.impl.DataModelImpl;
+
+import static org.junit.Assert.*;
+
+public class EntityIndexesGeneratorTest {
+
+    private static final String EMPLOYEE = "org.test.Employee";
+    private static final String ADDRESS = "org.test.Address";
+
+    DataModel dataModel;
+
+    DataObject employee;
+
+    DataObject address;
+
+    FormDefinition employeeForm;
+
+    EntityIndexesGenerator generator = new EntityIndexesGenerator();
+
+    @Before
+    public void init() {
+        dataModel = new DataModelImpl();
+
+        address = entity(ADDRESS);
+        annotate(address.addProperty("id",
+                                     Long.class.getName(),
+                                     false),
+                 "javax.persistence.Id");
+        annotate(address.getProperty("id"),
+                 "javax.persistence.Column",
+                 "name",
+                 "address_id");
+        address.addProperty("street",
+                            String.class.getName(),
+                            false);
+        address.addProperty("city",
+                            String.class.getName(),
+                            false);
+
+        employee = entity(EMPLOYEE);
+        annotate(employee.addProperty("id",
+                                      Long.class.getName(),
+                                      false),
+                 "javax.persistence.Id");
+        employee.addProperty("name",
+                             String.class.getName(),
+                             false);
+        employee.addProperty("active",
+                             Boolean.class.getName(),
+                             false);
+        annotate(employee.addProperty("address",
+                                      ADDRESS,
+                                      false),
+                 "javax.persistence.ManyToOne");
+        annotate(employee.addProperty("office",
+                                      ADDRESS,
+                                      false),
+                 "javax.persistence.ManyToOne");
+        annotate(employee.getProperty("office"),
+                 "javax.persistence.JoinColumn",
+                 "name",
+                 "office_fk");
+
+        final ObjectSelectorFieldDefinition office = field(new ObjectSelectorFieldDefinition(),
+                                                           "office",
+                                                           ADDRESS);
+        office.setMask("{street}, {city}");
+        employeeForm = form(EMPLOYEE,
+                            "Employee",
+                            field(new TextBoxFieldDefinition(),
+                                  "name",
+                                  String.class.getName()),
+                            field(new CheckBoxFieldDefinition(),
+                                  "active",
+                                  Boolean.class.getName()),
+                            field(new SubFormFieldDefinition(),
+                                  "address",
+                                  ADDRESS),
+                            office);
+    }
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(EntityIndexesGenerator.ENABLED_PROPERTY + ".Employee");
+    }
+
+    @Test
+    public void listColumnsAndForeignKeysAreIndexed() {
+        final Map<String, List<EntityIndex>> indexes = generator.getIndexes(Collections.singletonList(employeeForm),
+                                                                            dataModel);
+
+        assertEquals(Arrays.asList(Collections.singletonList("name"),
+                                   Collections.singletonList("address_address_id"),
+                                   Collections.singletonList("office_fk")),
+                     columns(indexes.get(EMPLOYEE)));
+    }
+
+    @Test
+    public void maskPropertiesAreIndexedOnTheSelectedEntity() {
+        final Map<String, List<EntityIndex>> indexes = generator.getIndexes(Collections.singletonList(employeeForm),
+                                                                            dataModel);
+
+        assertEquals(Collections.singletonList(Arrays.asList("street",
+                                                             "city")),
+                     columns(indexes.get(ADDRESS)));
+        assertEquals("idx_address_street_city",
+                     indexes.get(ADDRESS).get(0).getName());
+    }
+
+    @Test
+    public void formsCanOptOut() {
+        System.setProperty(EntityIndexesGenerator.ENABLED_PROPERTY + ".Employee",
+                           "false");
+
+        assertTrue(generator.getIndexes(Collections.singletonList(employeeForm),
+                                        dataModel).isEmpty());
+    }
+
+    @Test
+    public void declaredIndexesAreNotOverridden() {
+        annotate(address,
+                 "javax.persistence.Table",
+                 "indexes",
+                 Collections.singletonList("@Index(columnList=\"city\")"));
+
+        final Map<String, List<EntityIndex>> indexes = generator.getIndexes(Collections.singletonList(employeeForm),
+                                                                            dataModel);
+
+        assertFalse(indexes.containsKey(ADDRESS));
+        assertTrue(indexes.containsKey(EMPLOYEE));
+    }
+
+    @Test
+    public void dataObjectsThatAreNotEntitiesAreIgnored() {
+        dataModel = new DataModelImpl();
+        final DataObject plain = dataModel.addDataObject(EMPLOYEE);
+        plain.addProperty("name",
+                          String.class.getName(),
+                          false);
+
+        assertTrue(generator.getIndexes(Collections.singletonList(employeeForm),
+                                        dataModel).isEmpty());
+    }
+
+    @Test
+    public void longIndexNamesAreTruncated() {
+        employee.addProperty("aVeryLongPropertyNameForAColumn",
+                             String.class.getName(),
+                             false);
+        employeeForm.getFields().add(field(new TextBoxFieldDefinition(),
+                                           "aVeryLongPropertyNameForAColumn",
+                                           String.class.getName()));
+
+        final List<EntityIndex> indexes = generator.getIndexes(Collections.singletonList(employeeForm),
+                                                               dataModel).get(EMPLOYEE);
+        final String name = indexes.get(indexes.size() - 1).getName();
+
+        assertEquals(EntityIndexesGenerator.MAX_NAME_LENGTH,
+                     name.length());
+        assertTrue(name.startsWith("idx_employee_averylon"));
+    }
+
+    @Test
+    public void mappingFileKeepsTheTableName() {
+        annotate(employee,
+                 "javax.persistence.Table",
+                 "name",
+                 "EMPLOYEES");
+
+        final String mappingFile = generator.generate(generator.getIndexes(Collections.singletonList(employeeForm),
+                                                                           dataModel),
+                                                      dataModel);
+
+        assertTrue(mappingFile.contains("<entity class=\"org.test.Employee\" metadata-complete=\"false\">"));
+        assertTrue(mappingFile.contains("<table name=\"EMPLOYEES\">"));
+        assertTrue(mappingFile.contains("<index name=\"idx_employees_name\" column-list=\"name\"/>"));
+        assertTrue(mappingFile.contains("<index name=\"idx_address_street_city\" column-list=\"street, city\"/>"));
+        assertTrue(generator.isGenerated(mappingFile));
+    }
+
+    @Test
+    public void onlyGeneratedMappingFilesAreReplaced() {
+        assertTrue(generator.isGenerated(null));
+        assertFalse(generator.isGenerated("<entity-mappings/>"));
+    }
+
+    private DataObject entity(final String className) {
+        final DataObject entity = dataModel.addDataObject(className);
+        annotate(entity,
+                 "javax.persistence.Entity");
+        return entity;
+    }
+
+    private static void annotate(final HasAnnotations annotated,
+                                 final String className) {
+        annotated.addAnnotation(new AnnotationImpl(new AnnotationDefinitionImpl(className)));
+    }
+
+    private static void annotate(final HasAnnotations annotated,
+                                 final String className,
+                                 final String member,
+                                 final Object value) {
+        final Annotation annotation = new AnnotationImpl(new AnnotationDefinitionImpl(className));
+        annotation.setValue(member,
+                            value);
+        annotated.addAnnotation(annotation);
+    }
+
+    private static <F extends FieldDefinition> F field(final F field,
+                                                       final String name,
+                                                       final String type) {
+        field.setId(name);
+        field.setName(name);
+        field.setBinding(name);
+        field.setLabel(name);
+        field.setStandaloneClassName(type);
+        return field;
+    }
+
+    private static FormDefinition form(final String id,
+                                       final String name,
+                                       final FieldDefinition... fields) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(id);
+        form.setName(name);
+        form.getFields().addAll(Arrays.asList(fields));
+        return form;
+    }
+
+    private static List<List<String>> columns(final List<EntityIndex> indexes) {
+        return indexes.stream().map(EntityIndex::getColumns).collect(Collectors.toList());
+    }
+}
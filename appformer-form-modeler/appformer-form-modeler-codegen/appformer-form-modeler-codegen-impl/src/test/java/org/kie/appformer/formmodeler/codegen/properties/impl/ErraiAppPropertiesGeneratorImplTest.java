@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.properties.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ErraiAppPropertiesGeneratorImplTest {
+
+    private final ErraiAppPropertiesGeneratorImpl generator = new ErraiAppPropertiesGeneratorImpl();
+
+    @Test
+    public void parsesGeneratedTypesInOrder() {
+        final List<String> types = Arrays.asList("org.test.Employee",
+                                                 "org.test.Address",
+                                                 "org.test.Department");
+
+        assertEquals(Optional.of(types),
+                     generator.parseSerializableTypes(generator.generate(types)));
+    }
+
+    @Test
+    public void parsesSingleType() {
+        final List<String> types = Collections.singletonList("org.test.Employee");
+
+        assertEquals(Optional.of(types),
+                     generator.parseSerializableTypes(generator.generate(types)));
+    }
+
+    @Test
+    public void noDeclarationIsEmpty() {
+        assertFalse(generator.parseSerializableTypes(generator.generate(Collections.emptyList())).isPresent());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.model.FormDefinition;
+import org.mvel2.templates.SimpleTemplateRegistry;
+import org.mvel2.templates.TemplateCompiler;
+
+import static org.junit.Assert.*;
+
+public class FieldFragmentRendererTest {
+
+    private FieldFragmentRenderer renderer;
+
+    private FormDefinition form;
+
+    @Before
+    public void setUp() {
+        final SimpleTemplateRegistry registry = new SimpleTemplateRegistry();
+        registry.addNamedTemplate(new TextBoxFieldDefinition().getFieldType().getTypeName(),
+                                  TemplateCompiler.compileTemplate("<input id=\"@{field.name}\" title=\"@{field.label}\">"));
+        renderer = new FieldFragmentRenderer(registry);
+
+        form = form("Employee",
+                    "name",
+                    "surname");
+    }
+
+    @Test
+    public void testFragmentsOfUnchangedFormAreCached() {
+        final String name = renderer.render(form.getFields().get(0));
+
+        assertEquals("<input id=\"name\" title=\"name\">",
+                     name);
+        assertEquals("<input id=\"surname\" title=\"surname\">",
+                     renderer.render(form.getFields().get(1)));
+        assertSame(name,
+                   renderer.render(form("Employee",
+                                        "name",
+                                        "surname").getFields().get(0)));
+        assertEquals(2,
+                     renderer.size());
+    }
+
+    @Test
+    public void testOnlyChangedFieldIsRenderedAgain() {
+        final FormDefinition form = form("Employee",
+                                         "name",
+                                         "surname",
+                                         "email");
+        final String name = renderer.render(form.getFields().get(0));
+        final String surname = renderer.render(form.getFields().get(1));
+        renderer.render(form.getFields().get(2));
+
+        form.getFields().get(2).setLabel("E-mail");
+
+        assertSame(name,
+                   renderer.render(form.getFields().get(0)));
+        assertSame(surname,
+                   renderer.render(form.getFields().get(1)));
+        assertEquals("<input id=\"email\" title=\"E-mail\">",
+                     renderer.render(form.getFields().get(2)));
+        assertEquals(4,
+                     renderer.size());
+    }
+
+    @Test
+    public void testFieldBoundToOtherPropertyIsRenderedAgain() {
+        renderer.render(form.getFields().get(0));
+
+        form.getFields().get(0).setBinding("firstName");
+
+        renderer.render(form.getFields().get(0));
+        assertEquals(2,
+                     renderer.size());
+    }
+
+    @Test
+    public void testFieldsWithSameNameInOtherForms() {
+        final FormDefinition other = form("Address",
+                                          "name");
+        other.getFields().get(0).setLabel("Street name");
+
+        assertEquals("<input id=\"name\" title=\"name\">",
+                     renderer.render(form.getFields().get(0)));
+        assertEquals("<input id=\"name\" title=\"Street name\">",
+                     renderer.render(other.getFields().get(0)));
+    }
+
+    private static FormDefinition form(final String id,
+                                       final String... fieldNames) {
+        final FormDefinition form = new FormDefinition();
+        form.setId(id);
+        form.setName(id);
+        for (final String fieldName : fieldNames) {
+            final TextBoxFieldDefinition field = new TextBoxFieldDefinition();
+            field.setId(fieldName);
+            field.setName(fieldName);
+            field.setLabel(fieldName);
+            field.setBinding(fieldName);
+            form.getFields().add(field);
+        }
+        return form;
+    }
+}
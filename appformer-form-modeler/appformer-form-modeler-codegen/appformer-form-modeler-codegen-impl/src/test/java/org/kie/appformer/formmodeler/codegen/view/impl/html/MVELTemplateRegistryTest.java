@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.appformer.formmodeler.codegen.concurrent.GeneratorExecutor;
+import org.kie.appformer.formmodeler.codegen.metrics.CodegenMetricsImpl;
+import org.mvel2.templates.CompiledTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class MVELTemplateRegistryTest {
+
+    private static final String FORM_TEMPLATE = MVELTemplateRegistry.TEMPLATES_PATH + "form.mv";
+
+    private CodegenMetricsImpl metrics;
+
+    private MVELTemplateRegistry registry;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final GeneratorExecutor executor = mock(GeneratorExecutor.class);
+        when(executor.submit(any(Supplier.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(((Supplier<Object>) invocation.getArguments()[0]).get()));
+
+        metrics = new CodegenMetricsImpl();
+        registry = new MVELTemplateRegistry(executor,
+                                            metrics);
+    }
+
+    @Test
+    public void testWarmUpCompilesBuiltInTemplates() {
+        registry.init();
+        registry.awaitWarmUp();
+
+        assertEquals(MVELTemplateRegistry.BUILT_IN_TEMPLATES.size(),
+                     registry.getCompileTimes().size());
+        assertEquals(MVELTemplateRegistry.BUILT_IN_TEMPLATES.size(),
+                     metrics.getTimers().get("template.compile").getCount());
+    }
+
+    @Test
+    public void testTemplatesAreCompiledOnce() {
+        final CompiledTemplate template = registry.getTemplate(FORM_TEMPLATE);
+
+        assertNotNull(template);
+        assertSame(template,
+                   registry.getTemplate(FORM_TEMPLATE));
+        assertEquals(1,
+                     metrics.getTimers().get("template.compile").getCount());
+        assertEquals(0,
+                     registry.getVersion());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingTemplate() {
+        registry.getTemplate(MVELTemplateRegistry.TEMPLATES_PATH + "missing.mv");
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.impl.html.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamingHTMLFormatterTest {
+
+    private static final String TEMPLATE = "\n<div>\n"
+            + "    <form onsubmit=\"false\">\n"
+            + "            <div id=\"name_form_group\"   class=\"form-group\">\n"
+            + "                <label class=\"control-label\" for=\"name\">  Name </label>\n"
+            + "                <input class=\"form-control\" id=\"name\"\n"
+            + "                    placeholder=\"a > b\"\n"
+            + "                    />\n"
+            + "                <p id=\"name_help_block\" class=\"help-block\">\n"
+            + "                </p>\n"
+            + "            </div>\n"
+            + "            <label>\n"
+            + "                <input type=\"checkbox\" id=\"check\"/>Check\n"
+            + "            </label><br>\n"
+            + "            <textarea id=\"text\">\n  keep  this\n</textarea>\n"
+            + "    </form>\n"
+            + "</div>\n";
+
+    private static final String FORMATTED = "<div>\n"
+            + "    <form onsubmit=\"false\">\n"
+            + "        <div id=\"name_form_group\" class=\"form-group\">\n"
+            + "            <label class=\"control-label\" for=\"name\">Name</label>\n"
+            + "            <input class=\"form-control\" id=\"name\" placeholder=\"a > b\"/>\n"
+            + "            <p id=\"name_help_block\" class=\"help-block\"></p>\n"
+            + "        </div>\n"
+            + "        <label>\n"
+            + "            <input type=\"checkbox\" id=\"check\"/>\n"
+            + "            Check\n"
+            + "        </label>\n"
+            + "        <br>\n"
+            + "        <textarea id=\"text\">\n  keep  this\n</textarea>\n"
+            + "    </form>\n"
+            + "</div>\n";
+
+    @Test
+    public void testFormat() {
+        assertEquals(FORMATTED,
+                     StreamingHTMLFormatter.format(TEMPLATE));
+    }
+
+    @Test
+    public void testFormatInChunks() {
+        final StreamingHTMLFormatter formatter = new StreamingHTMLFormatter();
+        for (int i = 0; i < TEMPLATE.length(); i += 3) {
+            formatter.append(TEMPLATE,
+                             i,
+                             Math.min(TEMPLATE.length(),
+                                      i + 3));
+        }
+
+        assertEquals(FORMATTED,
+                     formatter.finish());
+    }
+
+    @Test
+    public void testCommentsAreKept() {
+        assertEquals("<div>\n"
+                             + "    <!-- keep   <b>this</b> -->\n"
+                             + "</div>\n",
+                     StreamingHTMLFormatter.format("<div><!-- keep   <b>this</b> --></div>"));
+    }
+
+    @Test
+    public void testIncompleteTagIsWritten() {
+        assertEquals("<div>\n"
+                             + "    <span class=\"a\n",
+                     StreamingHTMLFormatter.format("<div><span class=\"a"));
+    }
+
+    @Test
+    public void testNoFormat() {
+        assertSame(TEMPLATE,
+                   new HTMLTemplateFormatter(HTMLTemplateFormatter.Format.NONE).formatHTMLCode(TEMPLATE));
+    }
+}
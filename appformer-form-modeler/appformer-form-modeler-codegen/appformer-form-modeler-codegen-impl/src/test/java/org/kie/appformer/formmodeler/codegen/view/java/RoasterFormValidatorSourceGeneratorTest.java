@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.view.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.SourceGenerationContext;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.RoasterFormValidatorSourceGenerator;
+import org.kie.appformer.formmodeler.codegen.view.impl.java.inputs.InputCreatorHelper;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.checkBox.definition.CheckBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.integerBox.definition.IntegerBoxFieldDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.slider.definition.IntegerSliderDefinition;
+import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
+import org.kie.workbench.common.forms.model.FieldDefinition;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.FORM_MODEL_VALIDATOR_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.VALIDATE_FIELD_METHOD;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RoasterFormValidatorSourceGeneratorTest extends AbstractRoasterFormGenerationTest {
+
+    private RoasterFormValidatorSourceGenerator generator = new RoasterFormValidatorSourceGenerator();
+
+    @Override
+    protected List<FieldDefinition> getFieldsToTest() {
+        final List<FieldDefinition> fields = new ArrayList<>();
+
+        final TextBoxFieldDefinition name = initFieldDefinition(new TextBoxFieldDefinition(),
+                                                                "name",
+                                                                String.class.getName());
+        name.setRequired(Boolean.TRUE);
+        name.setMaxLength(30);
+        fields.add(name);
+
+        final IntegerBoxFieldDefinition age = initFieldDefinition(new IntegerBoxFieldDefinition(),
+                                                                  "age",
+                                                                  "int");
+        age.setRequired(Boolean.TRUE);
+        age.setMaxLength(3);
+        fields.add(age);
+
+        fields.add(initFieldDefinition(new IntegerSliderDefinition(),
+                                       "rating",
+                                       Integer.class.getName()));
+
+        fields.add(initFieldDefinition(new CheckBoxFieldDefinition(),
+                                       "married",
+                                       Boolean.class.getName()));
+
+        final TextBoxFieldDefinition street = initFieldDefinition(new TextBoxFieldDefinition(),
+                                                                  "street",
+                                                                  String.class.getName());
+        street.setBinding("address.street");
+        street.setRequired(Boolean.TRUE);
+        fields.add(street);
+
+        return fields;
+    }
+
+    private static <F extends FieldDefinition> F initFieldDefinition(final F fieldDefinition,
+                                                                     final String name,
+                                                                     final String type) {
+        fieldDefinition.setName(name);
+        fieldDefinition.setId(name);
+        fieldDefinition.setBinding(name);
+        fieldDefinition.setStandaloneClassName(type);
+        return fieldDefinition;
+    }
+
+    @Override
+    protected List<InputCreatorHelper> getInputHelpersToTest() {
+        return Collections.emptyList();
+    }
+
+    @Test
+    public void testFormValidatorGeneration() {
+        final JavaClassSource validator = Roaster.parse(JavaClassSource.class,
+                                                        generator.generateJavaSource(context));
+
+        assertEquals(FORM_NAME + SourceGenerationContext.FORM_VALIDATOR_SUFFIX,
+                     validator.getName());
+        assertEquals("org.client.local",
+                     validator.getPackage());
+        assertEquals(FORM_MODEL_VALIDATOR_CLASS + "<" + FORM_NAME + SourceGenerationContext.FORM_MODEL_SUFFIX + ">",
+                     validator.getSuperType());
+
+        final String constructor = validator.getMethods().stream()
+                .filter(MethodSource::isConstructor)
+                .findFirst()
+                .get()
+                .getBody();
+        assertTrue(constructor.contains("\"name\",\"employee.name\""));
+        assertTrue(constructor.contains("\"rating\",\"employee.rating\""));
+        assertFalse(constructor.contains("\"age\""));
+        assertFalse(constructor.contains("\"married\""));
+        assertFalse(constructor.contains("\"street\""));
+
+        final String validateField = validator.getMethod(VALIDATE_FIELD_METHOD,
+                                                         String.class.getName(),
+                                                         FORM_NAME + SourceGenerationContext.FORM_MODEL_SUFFIX).getBody();
+        assertTrue(validateField.contains("isMissing(model.getEmployee().getName())"));
+        assertTrue(validateField.contains("exceedsLength(model.getEmployee().getName(),30)"));
+        assertTrue(validateField.contains("isOutOfRange(model.getEmployee().getRating()"));
+        assertFalse(validateField.contains("getAge()"));
+        assertFalse(validateField.contains("getMarried()"));
+    }
+
+    @Test
+    public void testFormWithoutConstraints() {
+        formDefinition.getFields().clear();
+
+        final JavaClassSource validator = Roaster.parse(JavaClassSource.class,
+                                                        generator.generateJavaSource(context));
+
+        assertNotNull(validator.getMethod(VALIDATE_FIELD_METHOD,
+                                          String.class.getName(),
+                                          FORM_NAME + SourceGenerationContext.FORM_MODEL_SUFFIX));
+    }
+}
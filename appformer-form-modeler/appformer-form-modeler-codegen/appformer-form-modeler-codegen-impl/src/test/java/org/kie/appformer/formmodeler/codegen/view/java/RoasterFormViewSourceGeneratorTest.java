@@ -46,6 +46,7 @@ import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ER
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ERRAI_DATAFIELD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.ERRAI_TEMPLATED;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.FORM_VIEW_CLASS;
+import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.GET_FIELD_VALIDATOR_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INIT_FORM_METHOD;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INJECT_INJECT;
 import static org.kie.appformer.formmodeler.codegen.util.SourceGenerationUtil.INJECT_NAMED;
@@ -112,6 +113,9 @@ public class RoasterFormViewSourceGeneratorTest extends AbstractRoasterFormGener
         checkMethod(INIT_FORM_METHOD);
         checkMethod(BEFORE_DISPLAY_METHOD);
         checkMethod(DO_EXTRA_VALIDATIONS_METHOD);
+        assertTrue(checkMethod(GET_FIELD_VALIDATOR_METHOD).getBody().contains(RoasterFormViewSourceGenerator.FIELD_VALIDATOR_FIELD));
+        assertEquals(FORM_NAME + SourceGenerationContext.FORM_VALIDATOR_SUFFIX,
+                     classSource.getField(RoasterFormViewSourceGenerator.FIELD_VALIDATOR_FIELD).getType().getName());
         String readonlyMethodSource = checkMethod(SET_READONLY_METHOD, boolean.class.getName()).getBody();
 
         formDefinition.getFields().forEach(fieldDefinition -> {
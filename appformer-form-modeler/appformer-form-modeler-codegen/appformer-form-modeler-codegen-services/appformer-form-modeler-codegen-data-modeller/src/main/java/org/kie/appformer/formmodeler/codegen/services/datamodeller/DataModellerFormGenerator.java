@@ -16,6 +16,7 @@
 
 package org.kie.appformer.formmodeler.codegen.services.datamodeller;
 
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
 import org.kie.workbench.common.forms.model.FormDefinition;
 import org.kie.workbench.common.services.datamodeller.core.DataObject;
 import org.uberfire.backend.vfs.Path;
@@ -25,4 +26,10 @@ import org.uberfire.backend.vfs.Path;
  */
 public interface DataModellerFormGenerator {
     public FormDefinition generateFormForDataObject(DataObject dataObject, Path path);
+
+    /**
+     * Same as {@link #generateFormForDataObject(DataObject, Path)}, but the form sources are
+     * committed as the given identity instead of the user of the current request.
+     */
+    public FormDefinition generateFormForDataObject(DataObject dataObject, Path path, CommitIdentity identity);
 }
@@ -15,27 +15,12 @@
  */
 package org.kie.appformer.formmodeler.codegen.services.datamodeller;
 
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.ENTITY_SERVICE_SUFFIX;
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.FORM_MODEL_SUFFIX;
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.FORM_VIEW_SUFFIX;
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.LIST_VIEW_SUFFIX;
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.REST_IMPL_SUFFIX;
-import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.REST_SERVICE_SUFFIX;
-
-import java.util.Arrays;
+import static org.kie.appformer.formmodeler.codegen.SourceGenerationContext.isGeneratedClassName;
 
 import javax.enterprise.context.Dependent;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.guvnor.common.services.project.model.Project;
-import org.kie.workbench.common.screens.datamodeller.service.DataModelerService;
-import org.kie.workbench.common.services.datamodeller.core.DataModel;
-import org.kie.workbench.common.services.datamodeller.core.DataObject;
-import org.kie.workbench.common.services.shared.project.KieProject;
-import org.kie.workbench.common.services.shared.project.KieProjectService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.workbench.events.ResourceAddedEvent;
 import org.uberfire.workbench.events.ResourceCopiedEvent;
@@ -45,21 +30,14 @@ import org.uberfire.workbench.events.ResourceUpdatedEvent;
 
 /**
  * Server side component that observes for the Data Objects add/delete/update events
- * and generates the associated form.
+ * and generates the associated form. Generation is handed to the {@link DataObjectChangePipeline},
+ * so that the thread firing the event does not wait for it.
  */
 @Dependent
 public class DataObjectChangeObserver {
 
-    private static final Logger logger = LoggerFactory.getLogger( DataObjectChangeObserver.class );
-
-    @Inject
-    private KieProjectService projectService;
-
-    @Inject
-    private DataModelerService dataModelerService;
-
     @Inject
-    private DataModellerFormGenerator formGenerator;
+    private DataObjectChangePipeline pipeline;
 
 
     public void processResourceAdd( @Observes final ResourceAddedEvent resourceAddedEvent ) {
@@ -79,9 +57,7 @@ public class DataObjectChangeObserver {
     }
 
     protected void generateSources (Path path) {
-        DataObject dataObject = getDataObjectForPath( path );
-
-        if ( dataObject != null ) formGenerator.generateFormForDataObject( dataObject, path );
+        pipeline.submit( path );
     }
 
     public void processResourceCopied( @Observes final ResourceCopiedEvent resourceCopiedEvent ) {
@@ -93,62 +69,9 @@ public class DataObjectChangeObserver {
 
     }
 
-    protected DataObject getDataObjectForPath(Path path) {
-        if (!path.getFileName().endsWith( ".java" )) return null;
-
-        try {
-            KieProject project = projectService.resolveProject( path );
-            DataModel dataModel = dataModelerService.loadModel( project );
-            String className = calculateClassName( project, path );
-            DataObject dataObject = dataModel != null ? dataModel.getDataObject( className ) : null;
-
-            return dataObject;
-
-        } catch ( Exception e ) {
-            logger.warn( "Error loading Data Object for path '{}': {}", path.toURI(), e );
-        }
-        return null;
-    }
-
     protected boolean isNotGeneratedJavaSource( final Path path ) {
         return path != null
                 && path.getFileName().endsWith( ".java" )
-                && !Arrays.asList( ENTITY_SERVICE_SUFFIX,
-                                   FORM_MODEL_SUFFIX,
-                                   FORM_VIEW_SUFFIX,
-                                   LIST_VIEW_SUFFIX,
-                                   REST_IMPL_SUFFIX,
-                                   REST_SERVICE_SUFFIX )
-                    .stream()
-                    .anyMatch( suffix -> path.getFileName().endsWith( suffix + ".java" ) );
-    }
-
-    private String calculateClassName(Project project,
-            Path path) {
-
-        Path rootPath = project.getRootPath();
-        if (!path.toURI().startsWith(rootPath.toURI())) {
-            return null;
-        }
-
-        org.guvnor.common.services.project.model.Package defaultPackage = projectService.resolveDefaultPackage(project);
-        Path srcPath = null;
-
-        if (path.toURI().startsWith(defaultPackage.getPackageMainSrcPath().toURI())) {
-            srcPath = defaultPackage.getPackageMainSrcPath();
-        } else if (path.toURI().startsWith(defaultPackage.getPackageTestSrcPath().toURI())) {
-            srcPath = defaultPackage.getPackageTestSrcPath();
-        }
-
-        //project: default://master@uf-playground/mortgages/main/src/Pojo.java
-        if (srcPath == null) {
-            return null;
-        }
-
-        String strPath = path.toURI().substring(srcPath.toURI().length() + 1, path.toURI().length());
-        strPath = strPath.replace("/", ".");
-        strPath = strPath.substring(0, strPath.indexOf(".java"));
-
-        return strPath;
+                && !isGeneratedClassName( path.getFileName().substring( 0, path.getFileName().length() - ".java".length() ) );
     }
 }
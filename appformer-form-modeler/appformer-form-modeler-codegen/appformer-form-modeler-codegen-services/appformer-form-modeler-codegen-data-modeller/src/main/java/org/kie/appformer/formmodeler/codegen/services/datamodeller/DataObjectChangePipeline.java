@@ -0,0 +1,422 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.services.datamodeller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.common.services.project.model.Project;
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.DataModelCache;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Collects the Data Object sources changed by resource events and generates their forms in the
+ * background.
+ * <p>
+ * Changed paths are grouped per project. A project's batch is processed once no new change has
+ * arrived for the debounce window (<code>org.kie.appformer.codegen.events.debounce</code>,
+ * 500 ms by default), or at the latest ten windows after its first change. The same path changed
+ * several times within a batch is generated once, and the project {@link DataModel} is requested
+ * from the {@link DataModelCache} once per batch instead of being loaded once per event.
+ * <p>
+ * When more than <code>org.kie.appformer.codegen.events.maxPending</code> paths are waiting, the
+ * batch that overflows is processed on the thread that fired the event. Setting
+ * <code>org.kie.appformer.codegen.events.async</code> to <code>false</code> processes every event
+ * on the firing thread, as a batch of one.
+ * <p>
+ * Batches are processed outside the request that fired the events, so the {@link CommitIdentity}
+ * of its user is captured when an event is received and the sources of the path are committed as
+ * that user.
+ */
+@ApplicationScoped
+public class DataObjectChangePipeline {
+
+    public static final String ASYNC_PROPERTY = "org.kie.appformer.codegen.events.async";
+    public static final String DEBOUNCE_PROPERTY = "org.kie.appformer.codegen.events.debounce";
+    public static final String MAX_PENDING_PROPERTY = "org.kie.appformer.codegen.events.maxPending";
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    private static final int DEFAULT_MAX_PENDING = 1000;
+    private static final int MAX_DELAY_WINDOWS = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger( DataObjectChangePipeline.class );
+
+    /**
+     * A snapshot of the pipeline counters.
+     */
+    public static class Stats {
+
+        private final long receivedEvents;
+        private final long coalescedEvents;
+        private final long processedBatches;
+        private final long processedPaths;
+        private final long callerRunBatches;
+        private final long pendingPaths;
+        private final long maxPendingPaths;
+        private final long totalBatchMillis;
+
+        Stats( final long receivedEvents,
+               final long coalescedEvents,
+               final long processedBatches,
+               final long processedPaths,
+               final long callerRunBatches,
+               final long pendingPaths,
+               final long maxPendingPaths,
+               final long totalBatchMillis ) {
+            this.receivedEvents = receivedEvents;
+            this.coalescedEvents = coalescedEvents;
+            this.processedBatches = processedBatches;
+            this.processedPaths = processedPaths;
+            this.callerRunBatches = callerRunBatches;
+            this.pendingPaths = pendingPaths;
+            this.maxPendingPaths = maxPendingPaths;
+            this.totalBatchMillis = totalBatchMillis;
+        }
+
+        public long getReceivedEvents() {
+            return receivedEvents;
+        }
+
+        /**
+         * @return The number of events for a path that was already waiting in its batch.
+         */
+        public long getCoalescedEvents() {
+            return coalescedEvents;
+        }
+
+        /**
+         * @return The number of processed batches, which is also the number of model requests.
+         */
+        public long getProcessedBatches() {
+            return processedBatches;
+        }
+
+        public long getProcessedPaths() {
+            return processedPaths;
+        }
+
+        /**
+         * @return The number of batches processed on the firing thread because too many paths
+         * were waiting.
+         */
+        public long getCallerRunBatches() {
+            return callerRunBatches;
+        }
+
+        public long getPendingPaths() {
+            return pendingPaths;
+        }
+
+        public long getMaxPendingPaths() {
+            return maxPendingPaths;
+        }
+
+        public long getTotalBatchMillis() {
+            return totalBatchMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[received=" + receivedEvents + ", coalesced=" + coalescedEvents + ", batches=" + processedBatches
+                    + ", paths=" + processedPaths + ", callerRuns=" + callerRunBatches + ", pending=" + pendingPaths
+                    + ", maxPending=" + maxPendingPaths + ", batchMillis=" + totalBatchMillis + "]";
+        }
+    }
+
+    private static class Batch {
+
+        final KieProject project;
+        final long firstEventAt;
+        // The identity of the last event received for each path.
+        final Map<Path, CommitIdentity> paths = new LinkedHashMap<>();
+        ScheduledFuture<?> flush;
+
+        Batch( final KieProject project,
+               final long firstEventAt ) {
+            this.project = project;
+            this.firstEventAt = firstEventAt;
+        }
+    }
+
+    private KieProjectService projectService;
+
+    private DataModelCache dataModelCache;
+
+    private DataModellerFormGenerator formGenerator;
+
+    private CodegenMetrics metrics;
+
+    private FormSourcesGenerationQueue generationQueue;
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private long debounceMillis;
+    private int maxPending;
+    private long pending;
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong processedBatches = new AtomicLong();
+    private final AtomicLong processedPaths = new AtomicLong();
+    private final AtomicLong callerRunBatches = new AtomicLong();
+    private final AtomicLong maxPendingPaths = new AtomicLong();
+    private final AtomicLong totalBatchMillis = new AtomicLong();
+
+    protected DataObjectChangePipeline() {
+    }
+
+    @Inject
+    public DataObjectChangePipeline( final KieProjectService projectService,
+                                     final DataModelCache dataModelCache,
+                                     final DataModellerFormGenerator formGenerator,
+                                     final CodegenMetrics metrics,
+                                     final FormSourcesGenerationQueue generationQueue ) {
+        this.projectService = projectService;
+        this.dataModelCache = dataModelCache;
+        this.formGenerator = formGenerator;
+        this.metrics = metrics;
+        this.generationQueue = generationQueue;
+    }
+
+    @PostConstruct
+    protected void init() {
+        init( Boolean.parseBoolean( System.getProperty( ASYNC_PROPERTY, "true" ) ),
+              Long.getLong( DEBOUNCE_PROPERTY, DEFAULT_DEBOUNCE_MILLIS ),
+              Integer.getInteger( MAX_PENDING_PROPERTY, DEFAULT_MAX_PENDING ) );
+    }
+
+    protected void init( final boolean async,
+                         final long debounceMillis,
+                         final int maxPending ) {
+        this.debounceMillis = debounceMillis;
+        this.maxPending = maxPending;
+
+        if ( async ) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( 1, runnable -> {
+                final Thread thread = new Thread( runnable, "appformer-codegen-events" );
+                thread.setDaemon( true );
+                return thread;
+            } );
+            executor.setRemoveOnCancelPolicy( true );
+            scheduler = executor;
+        } else {
+            logger.info( "Asynchronous Data Object change processing disabled." );
+        }
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if ( scheduler != null ) {
+            scheduler.shutdownNow();
+        }
+        synchronized ( batches ) {
+            if ( pending > 0 ) {
+                logger.warn( "Discarding {} pending Data Object changes on shutdown.", pending );
+            }
+            batches.clear();
+            pending = 0;
+        }
+    }
+
+    /**
+     * Queues the generation of the form sources for the Data Object in the given Java source.
+     */
+    public void submit( final Path path ) {
+        receivedEvents.incrementAndGet();
+        metrics.increment( "events.received" );
+        final CommitIdentity identity = generationQueue.getCommitIdentity();
+        // The cache also observes resource events, but possibly after this pipeline.
+        dataModelCache.invalidate( path );
+
+        final KieProject project = projectService.resolveProject( path );
+        if ( project == null ) {
+            return;
+        }
+
+        if ( scheduler == null ) {
+            process( project, Collections.singletonMap( path, identity ) );
+            return;
+        }
+
+        final String key = project.getRootPath().toURI();
+        Batch overflow = null;
+        synchronized ( batches ) {
+            final long now = System.currentTimeMillis();
+            final Batch batch = batches.computeIfAbsent( key, k -> new Batch( project, now ) );
+            if ( !batch.paths.containsKey( path ) ) {
+                pending++;
+                maxPendingPaths.accumulateAndGet( pending, Math::max );
+            } else {
+                coalescedEvents.incrementAndGet();
+                metrics.increment( "events.coalesced" );
+            }
+            batch.paths.put( path, identity );
+
+            if ( batch.flush != null ) {
+                batch.flush.cancel( false );
+            }
+
+            if ( pending > maxPending ) {
+                remove( key );
+                callerRunBatches.incrementAndGet();
+                overflow = batch;
+            } else {
+                final long delay = Math.min( debounceMillis,
+                                             Math.max( 0, batch.firstEventAt + MAX_DELAY_WINDOWS * debounceMillis - now ) );
+                batch.flush = scheduler.schedule( () -> flush( key, batch ), delay, TimeUnit.MILLISECONDS );
+            }
+        }
+
+        if ( overflow != null ) {
+            process( overflow.project, overflow.paths );
+        }
+    }
+
+    /**
+     * Processes every pending batch on the calling thread.
+     */
+    public void flushAll() {
+        final List<Batch> toProcess;
+        synchronized ( batches ) {
+            toProcess = new ArrayList<>( batches.values() );
+            for ( final Batch batch : toProcess ) {
+                if ( batch.flush != null ) {
+                    batch.flush.cancel( false );
+                }
+            }
+            batches.clear();
+            pending = 0;
+        }
+
+        toProcess.forEach( batch -> process( batch.project, batch.paths ) );
+    }
+
+    public Stats getStats() {
+        final long currentPending;
+        synchronized ( batches ) {
+            currentPending = pending;
+        }
+        return new Stats( receivedEvents.get(),
+                          coalescedEvents.get(),
+                          processedBatches.get(),
+                          processedPaths.get(),
+                          callerRunBatches.get(),
+                          currentPending,
+                          maxPendingPaths.get(),
+                          totalBatchMillis.get() );
+    }
+
+    private void flush( final String key,
+                        final Batch batch ) {
+        synchronized ( batches ) {
+            if ( batches.get( key ) != batch ) {
+                return;
+            }
+            remove( key );
+        }
+
+        process( batch.project, batch.paths );
+    }
+
+    // Must hold the lock on batches.
+    private void remove( final String key ) {
+        final Batch batch = batches.remove( key );
+        if ( batch != null ) {
+            pending -= batch.paths.size();
+        }
+    }
+
+    protected void process( final KieProject project,
+                            final Map<Path, CommitIdentity> paths ) {
+        final long start = System.nanoTime();
+        try {
+            final DataModel dataModel = dataModelCache.getDataModel( project );
+            for ( final Path path : paths.keySet() ) {
+                try {
+                    final String className = calculateClassName( project, path );
+                    final DataObject dataObject = dataModel != null && className != null ? dataModel.getDataObject( className ) : null;
+                    if ( dataObject != null ) {
+                        formGenerator.generateFormForDataObject( dataObject, path, paths.get( path ) );
+                    }
+                } catch ( Exception e ) {
+                    logger.warn( "Error generating form for Data Object in '{}': {}", path.toURI(), e );
+                }
+            }
+        } catch ( Exception e ) {
+            logger.warn( "Error loading Data Objects of project '{}': {}", project.getRootPath().toURI(), e );
+        } finally {
+            processedBatches.incrementAndGet();
+            processedPaths.addAndGet( paths.size() );
+            final long nanos = System.nanoTime() - start;
+            totalBatchMillis.addAndGet( nanos / 1000000 );
+            metrics.record( "events.batch", nanos );
+        }
+    }
+
+    private String calculateClassName( final Project project,
+                                       final Path path ) {
+
+        final Path rootPath = project.getRootPath();
+        if ( !path.toURI().startsWith( rootPath.toURI() ) ) {
+            return null;
+        }
+
+        final Package defaultPackage = projectService.resolveDefaultPackage( project );
+        Path srcPath = null;
+
+        if ( path.toURI().startsWith( defaultPackage.getPackageMainSrcPath().toURI() ) ) {
+            srcPath = defaultPackage.getPackageMainSrcPath();
+        } else if ( path.toURI().startsWith( defaultPackage.getPackageTestSrcPath().toURI() ) ) {
+            srcPath = defaultPackage.getPackageTestSrcPath();
+        }
+
+        //project: default://master@uf-playground/mortgages/main/src/Pojo.java
+        if ( srcPath == null ) {
+            return null;
+        }
+
+        String strPath = path.toURI().substring( srcPath.toURI().length() + 1, path.toURI().length() );
+        strPath = strPath.replace( "/", "." );
+        strPath = strPath.substring( 0, strPath.indexOf( ".java" ) );
+
+        return strPath;
+    }
+}
@@ -20,11 +20,13 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.inject.Inject;
 
-import org.kie.appformer.formmodeler.codegen.FormSourcesGenerator;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
 import org.kie.appformer.formmodeler.codegen.services.datamodeller.DataModellerFormGenerator;
 import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
 import org.kie.workbench.common.forms.data.modeller.service.impl.DataObjectFormModelHandler;
-import org.kie.workbench.common.forms.editor.service.shared.VFSFormFinderService;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.EmbedsForm;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.EntityRelationField;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.TableColumnMeta;
@@ -50,30 +52,61 @@ public class DataModellerFormGeneratorImpl implements DataModellerFormGenerator
 
     protected FieldManager fieldManager;
 
-    protected FormSourcesGenerator formSourcesGenerator;
+    protected FormSourcesGenerationQueue formSourcesGenerationQueue;
 
     protected DataObjectFormModelHandler formModelHandler;
 
-    protected VFSFormFinderService vfsFormFinderService;
+    protected FormIndex formIndex;
 
     @Inject
     public DataModellerFormGeneratorImpl(DataModelerService dataModelerService,
                                          KieProjectService projectService,
                                          FieldManager fieldManager,
-                                         FormSourcesGenerator formSourcesGenerator,
+                                         FormSourcesGenerationQueue formSourcesGenerationQueue,
                                          DataObjectFormModelHandler formModelHandler,
-                                         VFSFormFinderService vfsFormFinderService) {
+                                         FormIndex formIndex) {
         this.dataModelerService = dataModelerService;
         this.projectService = projectService;
         this.fieldManager = fieldManager;
-        this.formSourcesGenerator = formSourcesGenerator;
+        this.formSourcesGenerationQueue = formSourcesGenerationQueue;
         this.formModelHandler = formModelHandler;
-        this.vfsFormFinderService = vfsFormFinderService;
+        this.formIndex = formIndex;
     }
 
     @Override
     public FormDefinition generateFormForDataObject(DataObject dataObject,
                                           Path path) {
+        FormDefinition form = createForm(dataObject,
+                                         path);
+
+        if (form != null) {
+            formSourcesGenerationQueue.submitEntityFormSources(form,
+                                                               path,
+                                                               Priority.BULK);
+        }
+
+        return form;
+    }
+
+    @Override
+    public FormDefinition generateFormForDataObject(DataObject dataObject,
+                                                    Path path,
+                                                    CommitIdentity identity) {
+        FormDefinition form = createForm(dataObject,
+                                         path);
+
+        if (form != null) {
+            formSourcesGenerationQueue.submitEntityFormSources(form,
+                                                               path,
+                                                               Priority.BULK,
+                                                               identity);
+        }
+
+        return form;
+    }
+
+    protected FormDefinition createForm(DataObject dataObject,
+                                        Path path) {
 
         if (dataObject.getProperties().isEmpty()) {
             return null;
@@ -102,9 +135,6 @@ public class DataModellerFormGeneratorImpl implements DataModellerFormGenerator
             form.getFields().add(field);
         });
 
-        formSourcesGenerator.generateEntityFormSources(form,
-                                                       path);
-
         return form;
     }
 
@@ -114,8 +144,8 @@ public class DataModellerFormGeneratorImpl implements DataModellerFormGenerator
             return false;
         }
 
-        List<FormDefinition> subForms = vfsFormFinderService.findFormsForType(field.getStandaloneClassName(),
-                                                                              path);
+        List<FormDefinition> subForms = formIndex.findFormsForType(field.getStandaloneClassName(),
+                                                                   path);
 
         if (subForms == null || subForms.isEmpty()) {
             return false;
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.services.datamodeller;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataObjectChangeObserverTest {
+
+    private static final String PACKAGE_URI = "default://master@repo/project/src/main/java/org/test/";
+
+    @Mock
+    DataObjectChangePipeline pipeline;
+
+    @Mock
+    SessionInfo sessionInfo;
+
+    @InjectMocks
+    DataObjectChangeObserver observer;
+
+    @Test
+    public void dataObjectIsSubmitted() {
+        final Path path = path("Employee.java");
+
+        observer.processResourceUpdate(new ResourceUpdatedEvent(path,
+                                                                "update",
+                                                                sessionInfo));
+
+        verify(pipeline).submit(path);
+    }
+
+    @Test
+    public void addedDataObjectIsSubmitted() {
+        final Path path = path("Employee.java");
+
+        observer.processResourceAdd(new ResourceAddedEvent(path,
+                                                           "add",
+                                                           sessionInfo));
+
+        verify(pipeline).submit(path);
+    }
+
+    @Test
+    public void generatedSourcesAreNotSubmitted() {
+        for (final String fileName : new String[]{
+                "EmployeeFormModel.java",
+                "EmployeeFormView.java",
+                "EmployeeFormValidator.java",
+                "EmployeeListView.java",
+                "EmployeeRestService.java",
+                "EmployeeEntityService.java",
+                "EmployeeRestServiceImpl.java",
+                "EmployeeFlowProducer.java"
+        }) {
+            observer.processResourceUpdate(new ResourceUpdatedEvent(path(fileName),
+                                                                    "update",
+                                                                    sessionInfo));
+        }
+
+        verify(pipeline,
+               never()).submit(any());
+    }
+
+    @Test
+    public void otherFilesAreNotSubmitted() {
+        observer.processResourceUpdate(new ResourceUpdatedEvent(path("Employee.frm"),
+                                                                "update",
+                                                                sessionInfo));
+
+        verify(pipeline,
+               never()).submit(any());
+    }
+
+    private Path path(final String fileName) {
+        final Path path = mock(Path.class);
+        when(path.getFileName()).thenReturn(fileName);
+        when(path.toURI()).thenReturn(PACKAGE_URI + fileName);
+        return path;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.codegen.services.datamodeller;
+
+import org.guvnor.common.services.project.model.Package;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.codegen.CodegenMetrics;
+import org.kie.appformer.formmodeler.codegen.CommitIdentity;
+import org.kie.appformer.formmodeler.codegen.DataModelCache;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
+import org.kie.workbench.common.services.datamodeller.core.DataModel;
+import org.kie.workbench.common.services.datamodeller.core.DataObject;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataObjectChangePipelineTest {
+
+    private static final String SRC = "default://master@repo/project/src/main/java";
+
+    @Mock
+    KieProjectService projectService;
+
+    @Mock
+    DataModelCache dataModelCache;
+
+    @Mock
+    DataModellerFormGenerator formGenerator;
+
+    @Mock
+    CodegenMetrics metrics;
+
+    @Mock
+    FormSourcesGenerationQueue generationQueue;
+
+    @Mock
+    KieProject project;
+
+    @Mock
+    Package defaultPackage;
+
+    @Mock
+    DataModel dataModel;
+
+    DataObjectChangePipeline pipeline;
+
+    @Before
+    public void init() {
+        final Path rootPath = path("default://master@repo/project");
+        final Path srcPath = path(SRC);
+        final Path testSrcPath = path("default://master@repo/project/src/test/java");
+
+        when(project.getRootPath()).thenReturn(rootPath);
+        when(projectService.resolveProject(any())).thenReturn(project);
+        when(projectService.resolveDefaultPackage(project)).thenReturn(defaultPackage);
+        when(defaultPackage.getPackageMainSrcPath()).thenReturn(srcPath);
+        when(defaultPackage.getPackageTestSrcPath()).thenReturn(testSrcPath);
+        when(dataModelCache.getDataModel(project)).thenReturn(dataModel);
+
+        pipeline = new DataObjectChangePipeline(projectService,
+                                                dataModelCache,
+                                                formGenerator,
+                                                metrics,
+                                                generationQueue);
+    }
+
+    @After
+    public void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void changesAreCoalescedIntoOneBatch() {
+        pipeline.init(true,
+                      60000,
+                      100);
+
+        final Path employee = javaSource("org.test.Employee");
+        final Path address = javaSource("org.test.Address");
+        final DataObject employeeObject = dataObject("org.test.Employee");
+        final DataObject addressObject = dataObject("org.test.Address");
+
+        pipeline.submit(employee);
+        pipeline.submit(address);
+        pipeline.submit(employee);
+
+        verify(formGenerator,
+               never()).generateFormForDataObject(any(),
+                                                  any(),
+                                                  any());
+        assertEquals(2,
+                     pipeline.getStats().getPendingPaths());
+
+        pipeline.flushAll();
+
+        verify(dataModelCache,
+               times(1)).getDataModel(project);
+        verify(formGenerator).generateFormForDataObject(employeeObject,
+                                                        employee,
+                                                        null);
+        verify(formGenerator).generateFormForDataObject(addressObject,
+                                                        address,
+                                                        null);
+
+        final DataObjectChangePipeline.Stats stats = pipeline.getStats();
+        assertEquals(3,
+                     stats.getReceivedEvents());
+        assertEquals(1,
+                     stats.getCoalescedEvents());
+        assertEquals(1,
+                     stats.getProcessedBatches());
+        assertEquals(0,
+                     stats.getPendingPaths());
+    }
+
+    @Test
+    public void overflowingBatchRunsOnCaller() {
+        pipeline.init(true,
+                      60000,
+                      1);
+
+        final Path employee = javaSource("org.test.Employee");
+        final Path address = javaSource("org.test.Address");
+        final DataObject employeeObject = dataObject("org.test.Employee");
+        final DataObject addressObject = dataObject("org.test.Address");
+
+        pipeline.submit(employee);
+        pipeline.submit(address);
+
+        verify(formGenerator).generateFormForDataObject(employeeObject,
+                                                        employee,
+                                                        null);
+        verify(formGenerator).generateFormForDataObject(addressObject,
+                                                        address,
+                                                        null);
+        assertEquals(1,
+                     pipeline.getStats().getCallerRunBatches());
+    }
+
+    @Test
+    public void synchronousModeProcessesEachEvent() {
+        pipeline.init(false,
+                      60000,
+                      100);
+
+        final Path employee = javaSource("org.test.Employee");
+        final DataObject employeeObject = dataObject("org.test.Employee");
+
+        pipeline.submit(employee);
+
+        verify(formGenerator).generateFormForDataObject(employeeObject,
+                                                        employee,
+                                                        null);
+    }
+
+    @Test
+    public void batchCommitsAsUserOfEachEvent() {
+        pipeline.init(true,
+                      60000,
+                      100);
+
+        final Path employee = javaSource("org.test.Employee");
+        final Path address = javaSource("org.test.Address");
+        final DataObject employeeObject = dataObject("org.test.Employee");
+        final DataObject addressObject = dataObject("org.test.Address");
+        final CommitIdentity alice = new CommitIdentity("session1",
+                                                        "alice",
+                                                        null);
+        final CommitIdentity bob = new CommitIdentity("session2",
+                                                      "bob",
+                                                      null);
+
+        when(generationQueue.getCommitIdentity()).thenReturn(alice);
+        pipeline.submit(employee);
+        when(generationQueue.getCommitIdentity()).thenReturn(bob);
+        pipeline.submit(address);
+        // The identity can only be resolved on the thread that fires the event.
+        when(generationQueue.getCommitIdentity()).thenReturn(null);
+
+        pipeline.flushAll();
+
+        verify(formGenerator).generateFormForDataObject(employeeObject,
+                                                        employee,
+                                                        alice);
+        verify(formGenerator).generateFormForDataObject(addressObject,
+                                                        address,
+                                                        bob);
+    }
+
+    private DataObject dataObject(final String className) {
+        final DataObject dataObject = mock(DataObject.class);
+        when(dataModel.getDataObject(className)).thenReturn(dataObject);
+        return dataObject;
+    }
+
+    private Path javaSource(final String className) {
+        return path(SRC + "/" + className.replace('.',
+                                                  '/') + ".java");
+    }
+
+    private Path path(final String uri) {
+        final Path path = mock(Path.class);
+        when(path.toURI()).thenReturn(uri);
+        return path;
+    }
+}
@@ -24,13 +24,14 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.kie.appformer.formmodeler.codegen.FormSourcesGenerator;
+import org.kie.appformer.formmodeler.codegen.FormIndex;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
 import org.kie.appformer.formmodeler.codegen.services.datamodeller.impl.model.Address;
 import org.kie.workbench.common.forms.data.modeller.model.DataObjectFormModel;
 import org.kie.workbench.common.forms.data.modeller.service.DataObjectFinderService;
 import org.kie.workbench.common.forms.data.modeller.service.impl.DataObjectFinderServiceImpl;
 import org.kie.workbench.common.forms.data.modeller.service.impl.DataObjectFormModelHandler;
-import org.kie.workbench.common.forms.editor.service.shared.VFSFormFinderService;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.basic.textBox.definition.TextBoxFieldDefinition;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.multipleSubform.definition.MultipleSubFormFieldDefinition;
 import org.kie.workbench.common.forms.fields.shared.fieldTypes.relations.subForm.definition.SubFormFieldDefinition;
@@ -79,7 +80,7 @@ public class DataModellerFormGeneratorImplTest {
     FieldManager fieldManager = new TestFieldManager();
 
     @Mock
-    FormSourcesGenerator formSourcesGenerator;
+    FormSourcesGenerationQueue formSourcesGenerationQueue;
 
     @Mock
     Path path;
@@ -95,7 +96,7 @@ public class DataModellerFormGeneratorImplTest {
     DataObjectFormModelHandler formModelHandler;
 
     @Mock
-    VFSFormFinderService vfsFormFinderService;
+    FormIndex formIndex;
 
     DataModellerFormGeneratorImpl dataModellerFormGenerator;
 
@@ -108,8 +109,8 @@ public class DataModellerFormGeneratorImplTest {
 
         createModel();
 
-        when(vfsFormFinderService.findFormsForType(Address.class.getName(),
-                                                   path)).then(this::getAddressForm);
+        when(formIndex.findFormsForType(Address.class.getName(),
+                                        path)).then(this::getAddressForm);
         when(projectService.resolveProject(any())).thenReturn(project);
         when(projectClassLoaderHelper.getProjectClassLoader(project)).thenReturn(this.getClass().getClassLoader());
         when(dataModelerService.loadModel(any())).thenReturn(dataModel);
@@ -125,9 +126,9 @@ public class DataModellerFormGeneratorImplTest {
         dataModellerFormGenerator = spy(new DataModellerFormGeneratorImpl(dataModelerService,
                                                                           projectService,
                                                                           fieldManager,
-                                                                          formSourcesGenerator,
+                                                                          formSourcesGenerationQueue,
                                                                           formModelHandler,
-                                                                          vfsFormFinderService));
+                                                                          formIndex));
     }
 
     List<FormDefinition> getAddressForm(InvocationOnMock invocationOnMock) {
@@ -190,8 +191,9 @@ public class DataModellerFormGeneratorImplTest {
                times(NESTED_FORM_FIELDS)).loadEmbeddedFormConfig(any(),
                                                                  any());
 
-        verify(formSourcesGenerator).generateEntityFormSources(any(),
-                                                               any());
+        verify(formSourcesGenerationQueue).submitEntityFormSources(any(),
+                                                                   eq(path),
+                                                                   eq(Priority.BULK));
     }
 
     protected void validateFormField(ModelProperty property,
@@ -24,7 +24,8 @@ import javax.inject.Named;
 import org.guvnor.common.services.shared.metadata.model.Metadata;
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jboss.errai.security.shared.api.identity.User;
-import org.kie.appformer.formmodeler.codegen.FormSourcesGenerator;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
 import org.kie.workbench.common.forms.editor.backend.service.impl.FormEditorServiceImpl;
 import org.kie.workbench.common.forms.editor.model.FormModelerContent;
 import org.kie.workbench.common.forms.editor.service.backend.FormModelHandlerManager;
@@ -42,7 +43,7 @@ import org.uberfire.workbench.events.ResourceOpenedEvent;
 @Specializes
 public class AppFormerFormEditorServiceImpl extends FormEditorServiceImpl {
 
-    protected FormSourcesGenerator formSourcesGenerator;
+    protected FormSourcesGenerationQueue formSourcesGenerationQueue;
 
     @Inject
     public AppFormerFormEditorServiceImpl(@Named("ioStrategy") IOService ioService,
@@ -54,7 +55,7 @@ public class AppFormerFormEditorServiceImpl extends FormEditorServiceImpl {
                                           KieProjectService projectService,
                                           FormDefinitionSerializer formDefinitionSerializer,
                                           VFSFormFinderService vfsFormFinderService,
-                                          FormSourcesGenerator formSourcesGenerator) {
+                                          FormSourcesGenerationQueue formSourcesGenerationQueue) {
         super(ioService,
               identity,
               sessionInfo,
@@ -65,7 +66,7 @@ public class AppFormerFormEditorServiceImpl extends FormEditorServiceImpl {
               formDefinitionSerializer,
               vfsFormFinderService);
 
-        this.formSourcesGenerator = formSourcesGenerator;
+        this.formSourcesGenerationQueue = formSourcesGenerationQueue;
     }
 
     @Override
@@ -79,8 +80,10 @@ public class AppFormerFormEditorServiceImpl extends FormEditorServiceImpl {
                                  metadata,
                                  comment);
 
-        formSourcesGenerator.generateFormSources(content.getDefinition(),
-                                                 path);
+        // The sources are generated in the background so that the save returns immediately.
+        formSourcesGenerationQueue.submitFormSources(content.getDefinition(),
+                                                     path,
+                                                     Priority.INTERACTIVE);
 
         return result;
     }
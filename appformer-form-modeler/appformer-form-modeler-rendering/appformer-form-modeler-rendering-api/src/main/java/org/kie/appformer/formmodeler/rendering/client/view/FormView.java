@@ -16,7 +16,9 @@
 
 package org.kie.appformer.formmodeler.rendering.client.view;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -27,6 +29,7 @@ import org.jboss.errai.ui.client.local.api.IsElement;
 import org.jboss.errai.ui.shared.TemplateWidgetMapper;
 import org.jboss.errai.ui.shared.api.annotations.AutoBound;
 import org.kie.appformer.formmodeler.rendering.client.shared.FormModel;
+import org.kie.appformer.formmodeler.rendering.client.view.validation.FormModelValidator;
 import org.kie.appformer.formmodeler.rendering.client.view.validation.FormViewValidator;
 import org.kie.workbench.common.forms.crud.client.component.formDisplay.IsFormView;
 
@@ -36,6 +39,9 @@ public abstract class FormView<MODEL, FORM_MODEL extends FormModel> implements I
 
     private boolean newModel = true;
 
+    // The fields showing an error set by the generated validator of the form.
+    private final Set<String> fieldValidatorErrors = new HashSet<String>();
+
     @Inject
     protected FormViewValidator validator;
 
@@ -48,6 +54,7 @@ public abstract class FormView<MODEL, FORM_MODEL extends FormModel> implements I
         binder.setModel( model );
         newModel = false;
         validator.clearFieldErrors();
+        fieldValidatorErrors.clear();
         updateNestedModels( true );
     }
 
@@ -68,6 +75,22 @@ public abstract class FormView<MODEL, FORM_MODEL extends FormModel> implements I
         initForm();
         getModel().initModel();
         beforeDisplay();
+        registerFieldValidations();
+    }
+
+    /*
+     * Validates each field checked by the generated validator of the form when its bound
+     * property changes.
+     */
+    private void registerFieldValidations() {
+        final FormModelValidator<FORM_MODEL> fieldValidator = getFieldValidator();
+        if ( fieldValidator == null ) {
+            return;
+        }
+        for ( final String fieldName : fieldValidator.getFieldNames() ) {
+            binder.addPropertyChangeHandler( fieldValidator.getProperty( fieldName ),
+                                             event -> validateField( fieldName ) );
+        }
     }
 
     protected void updateNestedModels( final boolean init ) {
@@ -79,9 +102,56 @@ public abstract class FormView<MODEL, FORM_MODEL extends FormModel> implements I
 
     public abstract boolean doExtraValidations();
 
+    /**
+     * @return The validator generated for the form, or null if the form has none. It checks the
+     * constraints declared on the fields of the form without reflection.
+     */
+    protected FormModelValidator<FORM_MODEL> getFieldValidator() {
+        return null;
+    }
+
+    /**
+     * Checks the constraints declared on a single field of the form, and shows its error. The
+     * error of a valid field is only cleared if it was set by the generated validator, so errors
+     * found by the Bean Validation of the whole form stay until the form is validated again.
+     *
+     * @return true if the field is valid.
+     */
+    public boolean validateField( final String fieldName ) {
+        final FormModelValidator<FORM_MODEL> fieldValidator = getFieldValidator();
+        if ( fieldValidator == null ) {
+            return true;
+        }
+
+        final String message = fieldValidator.validateField( fieldName, binder.getWorkingModel() );
+        if ( message != null ) {
+            showFieldValidatorError( fieldName, message );
+        } else if ( fieldValidatorErrors.remove( fieldName ) ) {
+            validator.setFieldError( fieldName, null );
+        }
+        return message == null;
+    }
+
+    private void showFieldValidatorError( final String fieldName, final String message ) {
+        validator.setFieldError( fieldName, message );
+        fieldValidatorErrors.add( fieldName );
+    }
+
     public boolean validate() {
 
-        final boolean isValid = validator.validate( binder.getWorkingModel() );
+        boolean isValid = validator.validate( binder.getWorkingModel() );
+        fieldValidatorErrors.clear();
+
+        final FormModelValidator<FORM_MODEL> fieldValidator = getFieldValidator();
+        if ( fieldValidator != null ) {
+            for ( final String fieldName : fieldValidator.getFieldNames() ) {
+                final String message = fieldValidator.validateField( fieldName, binder.getWorkingModel() );
+                if ( message != null ) {
+                    showFieldValidatorError( fieldName, message );
+                    isValid = false;
+                }
+            }
+        }
 
         final boolean extraValidations = doExtraValidations();
 
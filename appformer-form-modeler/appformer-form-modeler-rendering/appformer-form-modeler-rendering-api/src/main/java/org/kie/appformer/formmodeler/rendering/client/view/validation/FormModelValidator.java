@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.rendering.client.view.validation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kie.appformer.formmodeler.rendering.client.shared.FormModel;
+
+/**
+ * Base class of the validators generated for each form. A generated validator checks the
+ * constraints declared on the fields of the form definition (required, maximum length, range)
+ * with direct calls to the getters of the model, so a single field can be validated without
+ * going through the Bean Validation metadata of the whole model.
+ */
+public abstract class FormModelValidator<FORM_MODEL extends FormModel> {
+
+    public static final String REQUIRED_MESSAGE = "This field is required.";
+
+    private final Map<String, String> properties = new LinkedHashMap<String, String>();
+
+    /**
+     * Declares a field checked by this validator.
+     *
+     * @param fieldName The name of the field in the form.
+     * @param property The property of the form model the field is bound to.
+     */
+    protected void addField( final String fieldName, final String property ) {
+        properties.put( fieldName, property );
+    }
+
+    /**
+     * @return The names of the fields checked by this validator.
+     */
+    public Collection<String> getFieldNames() {
+        return Collections.unmodifiableCollection( properties.keySet() );
+    }
+
+    /**
+     * @return The property of the form model the field is bound to, or null if the field is not
+     * checked by this validator.
+     */
+    public String getProperty( final String fieldName ) {
+        return properties.get( fieldName );
+    }
+
+    /**
+     * @return The message of the first constraint of the field violated by the model, or null if
+     * the field is valid or not checked by this validator.
+     */
+    public abstract String validateField( String fieldName, FORM_MODEL model );
+
+    protected static boolean isMissing( final Object value ) {
+        return value == null;
+    }
+
+    protected static boolean isMissing( final String value ) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    protected static boolean isMissing( final Collection<?> value ) {
+        return value == null || value.isEmpty();
+    }
+
+    protected static boolean exceedsLength( final String value, final int maxLength ) {
+        return value != null && value.length() > maxLength;
+    }
+
+    protected static boolean isOutOfRange( final Number value, final double min, final double max ) {
+        return value != null && ( value.doubleValue() < min || value.doubleValue() > max );
+    }
+
+    protected static String maxLengthMessage( final int maxLength ) {
+        return "This field cannot be longer than " + maxLength + " characters.";
+    }
+
+    protected static String rangeMessage( final Number min, final Number max ) {
+        return "This field must be between " + min + " and " + max + ".";
+    }
+}
@@ -82,14 +82,39 @@ public class FormViewValidator {
     public void clearFieldErrors() {
 
         for ( FieldGroup group : formInputs.values() ) {
-            if ( group.getFormGroup() != null )
-                group.getFormGroup().removeClassName( "has-error" );
-            if ( group.getHelpBlock() != null )
-                group.getHelpBlock().setInnerHTML( "" );
+            clearFieldError( group );
         }
 
     }
 
+    /**
+     * Shows the message as the error of the given field, or clears the error of the field if the
+     * message is null.
+     */
+    public void setFieldError( String fieldName, String message ) {
+        FieldGroup group = formInputs.get( fieldName );
+        if ( group == null )
+            return;
+        if ( message == null )
+            clearFieldError( group );
+        else
+            showFieldError( group, message );
+    }
+
+    private void clearFieldError( FieldGroup group ) {
+        if ( group.getFormGroup() != null )
+            group.getFormGroup().removeClassName( "has-error" );
+        if ( group.getHelpBlock() != null )
+            group.getHelpBlock().setInnerHTML( "" );
+    }
+
+    private void showFieldError( FieldGroup group, String message ) {
+        if ( group.getFormGroup() != null )
+            group.getFormGroup().addClassName( "has-error" );
+        if ( group.getHelpBlock() != null )
+            group.getHelpBlock().setInnerHTML( message );
+    }
+
     public boolean validate( Object model ) {
         boolean isValid = true;
 
@@ -104,12 +129,7 @@ public class FormViewValidator {
                     continue;
                 isValid = false;
 
-                FieldGroup group = formInputs.get( property );
-
-                if ( group.getFormGroup() != null )
-                    group.getFormGroup().addClassName( "has-error" );
-                if ( group.getHelpBlock() != null )
-                    group.getHelpBlock().setInnerHTML( validation.getMessage() );
+                showFieldError( formInputs.get( property ), validation.getMessage() );
             }
         } catch ( IllegalArgumentException ex ) {
             GWT.log( "Error trying to validate model: model does not any validation constraint. " );
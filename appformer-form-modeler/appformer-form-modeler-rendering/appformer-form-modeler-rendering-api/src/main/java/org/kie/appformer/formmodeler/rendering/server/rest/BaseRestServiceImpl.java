@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.rendering.server.rest;
+
+import java.util.List;
+
+import org.kie.appformer.formmodeler.rendering.client.shared.AppFormerRestService;
+import org.kie.appformer.formmodeler.rendering.client.shared.query.QueryCriteria;
+
+/**
+ * Implements the CRUD operations of an {@link AppFormerRestService} by delegating to a
+ * {@link BaseEntityService}. Generated REST services extend this class and only provide the
+ * entity type and the injected entity service.
+ *
+ * @param <E>
+ *            The entity type.
+ */
+public abstract class BaseRestServiceImpl<E> implements AppFormerRestService<E> {
+
+    protected abstract BaseEntityService getEntityService();
+
+    protected abstract Class<E> getEntityType();
+
+    @Override
+    public E create( final E model ) {
+        return getEntityService().create( model );
+    }
+
+    @Override
+    public List<E> load() {
+        return getEntityService().listAll( getEntityType() );
+    }
+
+    @Override
+    public List<E> load( final int start, final int end ) {
+        return getEntityService().list( getEntityType(), start, end );
+    }
+
+    @Override
+    public List<E> list( final QueryCriteria criteria ) {
+        return getEntityService().list( getEntityType(), criteria );
+    }
+
+    @Override
+    public Boolean update( final E model ) {
+        getEntityService().update( model );
+        return true;
+    }
+
+    @Override
+    public Boolean delete( final E model ) {
+        getEntityService().delete( model );
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.formmodeler.rendering.server.rest;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kie.appformer.formmodeler.rendering.client.shared.query.QueryCriteria;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith( MockitoJUnitRunner.class )
+public class BaseRestServiceImplTest {
+
+    @Mock
+    private BaseEntityService entityService;
+
+    private BaseRestServiceImpl<String> restService;
+
+    @Before
+    public void setup() {
+        restService = new BaseRestServiceImpl<String>() {
+
+            @Override
+            protected BaseEntityService getEntityService() {
+                return entityService;
+            }
+
+            @Override
+            protected Class<String> getEntityType() {
+                return String.class;
+            }
+        };
+    }
+
+    @Test
+    public void testCreate() {
+        when( entityService.create( "model" ) ).thenReturn( "created" );
+
+        assertEquals( "created", restService.create( "model" ) );
+    }
+
+    @Test
+    public void testLoad() {
+        final List<String> models = Collections.singletonList( "model" );
+        when( entityService.listAll( String.class ) ).thenReturn( models );
+        when( entityService.list( String.class, 0, 9 ) ).thenReturn( models );
+
+        assertSame( models, restService.load() );
+        assertSame( models, restService.load( 0, 9 ) );
+    }
+
+    @Test
+    public void testList() {
+        final QueryCriteria criteria = mock( QueryCriteria.class );
+        final List<String> models = Collections.singletonList( "model" );
+        when( entityService.list( String.class, criteria ) ).thenReturn( models );
+
+        assertSame( models, restService.list( criteria ) );
+    }
+
+    @Test
+    public void testUpdateAndDelete() {
+        assertTrue( restService.update( "model" ) );
+        assertTrue( restService.delete( "model" ) );
+
+        verify( entityService ).update( "model" );
+        verify( entityService ).delete( "model" );
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 JBoss by Red Hat.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.backend.server;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.guvnor.structure.repositories.Repository;
+import org.guvnor.structure.repositories.RepositoryService;
+import org.jboss.errai.bus.server.annotations.Service;
+import org.kie.appformer.flow.lang.FlowSymbolIndex;
+import org.kie.appformer.shared.service.FlowSymbolLocation;
+import org.kie.appformer.shared.service.FlowSymbolService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.commons.services.cdi.ApplicationStarted;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * Server side index of the symbols defined and used by <code>.flow</code> files, kept up to date
+ * from VFS resource events so that the flow editor can resolve and validate identifiers without
+ * recompiling the edited file against every other flow in the workspace. The flow files of every
+ * repository are indexed once the application has started.
+ */
+@Service
+@ApplicationScoped
+public class FlowSymbolIndexService implements FlowSymbolService {
+
+    private static final Logger logger = LoggerFactory.getLogger( FlowSymbolIndexService.class );
+
+    private static final String FLOW_EXTENSION = ".flow";
+
+    private final FlowSymbolIndex index = new FlowSymbolIndex();
+
+    private IOService ioService;
+
+    private RepositoryService repositoryService;
+
+    protected FlowSymbolIndexService() {
+    }
+
+    @Inject
+    public FlowSymbolIndexService( @Named("ioStrategy") final IOService ioService,
+                                   final RepositoryService repositoryService ) {
+        this.ioService = ioService;
+        this.repositoryService = repositoryService;
+    }
+
+    public void onApplicationStarted( @Observes final ApplicationStarted event ) {
+        for ( final Repository repository : repositoryService.getRepositories() ) {
+            try {
+                indexDirectory( repository.getRoot() );
+            } catch ( final Exception e ) {
+                logger.warn( "Unable to index flow sources of repository '{}': {}", repository.getAlias(), e );
+            }
+        }
+    }
+
+    public void processResourceAdd( @Observes final ResourceAddedEvent event ) {
+        reindex( event.getPath() );
+    }
+
+    public void processResourceUpdate( @Observes final ResourceUpdatedEvent event ) {
+        reindex( event.getPath() );
+    }
+
+    public void processResourceDelete( @Observes final ResourceDeletedEvent event ) {
+        if ( isFlowSource( event.getPath() ) ) {
+            synchronized ( index ) {
+                index.remove( event.getPath().toURI() );
+            }
+        }
+    }
+
+    public void processResourceCopied( @Observes final ResourceCopiedEvent event ) {
+        reindex( event.getDestinationPath() );
+    }
+
+    public void processResourceRenamed( @Observes final ResourceRenamedEvent event ) {
+        if ( isFlowSource( event.getPath() ) ) {
+            synchronized ( index ) {
+                index.remove( event.getPath().toURI() );
+            }
+        }
+        reindex( event.getDestinationPath() );
+    }
+
+    /**
+     * Indexes every <code>.flow</code> file under the given directory. Files that change
+     * afterwards are re-indexed from resource events.
+     */
+    public void indexDirectory( final Path directory ) {
+        indexDirectory( Paths.convert( directory ) );
+    }
+
+    @Override
+    public List<FlowSymbolLocation> findDefinitions( final String name ) {
+        synchronized ( index ) {
+            return index.findDefinitions( name )
+                    .stream()
+                    .map( symbol -> new FlowSymbolLocation( symbol.file,
+                                                            symbol.name,
+                                                            symbol.kind.name(),
+                                                            symbol.type.map( Object::toString ).orElse( null ) ) )
+                    .collect( Collectors.toList() );
+        }
+    }
+
+    @Override
+    public List<FlowSymbolLocation> findUses( final String name ) {
+        synchronized ( index ) {
+            return index.findUses( name )
+                    .stream()
+                    .map( use -> new FlowSymbolLocation( use.file,
+                                                         use.name,
+                                                         FlowSymbolLocation.USE,
+                                                         use.enclosingAssignment ) )
+                    .collect( Collectors.toList() );
+        }
+    }
+
+    @Override
+    public List<String> validate( final Path path ) {
+        if ( !isFlowSource( path ) ) {
+            return Collections.singletonList( "Not a flow file [" + path.toURI() + "]." );
+        }
+
+        synchronized ( index ) {
+            if ( !index.getFiles().contains( path.toURI() ) ) {
+                reindex( path );
+            }
+            return index.validate( path.toURI() );
+        }
+    }
+
+    public boolean isValid( final Path path ) {
+        return validate( path ).isEmpty();
+    }
+
+    protected void reindex( final Path path ) {
+        if ( !isFlowSource( path ) ) {
+            return;
+        }
+
+        try {
+            final String source = ioService.readAllString( Paths.convert( path ) );
+            synchronized ( index ) {
+                index.update( path.toURI(), source );
+            }
+        } catch ( final Exception e ) {
+            logger.warn( "Unable to index flow source '{}': {}", path.toURI(), e );
+        }
+    }
+
+    private void indexDirectory( final org.uberfire.java.nio.file.Path directory ) {
+        try ( final DirectoryStream<org.uberfire.java.nio.file.Path> children = ioService.newDirectoryStream( directory ) ) {
+            for ( final org.uberfire.java.nio.file.Path child : children ) {
+                if ( Files.isDirectory( child ) ) {
+                    indexDirectory( child );
+                }
+                else {
+                    reindex( Paths.convert( child ) );
+                }
+            }
+        }
+    }
+
+    private boolean isFlowSource( final Path path ) {
+        return path != null && path.getFileName().endsWith( FLOW_EXTENSION );
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.backend.server;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.guvnor.common.services.project.model.Project;
+import org.jboss.errai.bus.server.annotations.Service;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Kind;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.Priority;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJob.State;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationJobEvent;
+import org.kie.appformer.formmodeler.codegen.FormSourcesGenerationQueue;
+import org.kie.appformer.shared.service.FormSourcesRegenerationEvent;
+import org.kie.appformer.shared.service.FormSourcesRegenerationService;
+
+@Service
+@ApplicationScoped
+public class FormSourcesRegenerationServiceImpl implements FormSourcesRegenerationService {
+
+    private FormSourcesGenerationQueue formSourcesGenerationQueue;
+
+    private Event<FormSourcesRegenerationEvent> regenerationEvent;
+
+    protected FormSourcesRegenerationServiceImpl() {
+    }
+
+    @Inject
+    public FormSourcesRegenerationServiceImpl( final FormSourcesGenerationQueue formSourcesGenerationQueue,
+                                               final Event<FormSourcesRegenerationEvent> regenerationEvent ) {
+        this.formSourcesGenerationQueue = formSourcesGenerationQueue;
+        this.regenerationEvent = regenerationEvent;
+    }
+
+    @Override
+    public long regenerateFormSources( final Project project ) {
+        // Queued so that the regeneration does not run concurrently with saves of the same project.
+        return formSourcesGenerationQueue.submitProjectFormSources( project.getRootPath(), Priority.BULK );
+    }
+
+    /**
+     * Forwards the end of project regenerations to the clients, which only know the id of the job.
+     */
+    public void onJobDone( @Observes final FormSourcesGenerationJobEvent event ) {
+        final FormSourcesGenerationJob job = event.getJob();
+        if ( job.getKind() != Kind.PROJECT ) {
+            return;
+        }
+
+        regenerationEvent.fire( new FormSourcesRegenerationEvent( job.getId(),
+                                                                  job.getSupersededBy(),
+                                                                  job.getState() == State.COMPLETED ? job.getResult().getChangedPaths().size() : 0,
+                                                                  job.getState() == State.FAILED ? job.getFailure() : null ) );
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.client.codegen;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.user.client.ui.Widget;
+import org.guvnor.common.services.project.model.Project;
+import org.gwtbootstrap3.client.ui.AnchorListItem;
+import org.jboss.errai.common.client.api.Caller;
+import org.jboss.errai.common.client.api.RemoteCallback;
+import org.kie.appformer.shared.service.FormSourcesRegenerationEvent;
+import org.kie.appformer.shared.service.FormSourcesRegenerationService;
+import org.kie.workbench.common.screens.projecteditor.client.editor.extension.BuildOptionExtension;
+import org.uberfire.workbench.events.NotificationEvent;
+
+/**
+ * Adds an action to the project build menu that regenerates the sources of every form in the
+ * project, for example after upgrading the code generation templates.
+ */
+@ApplicationScoped
+public class RegenerateFormSourcesExtension implements BuildOptionExtension {
+
+    private static final String LINK_NAME = "Regenerate Form Sources";
+
+    @Inject
+    private Caller<FormSourcesRegenerationService> regenerationCaller;
+
+    @Inject
+    private Event<NotificationEvent> notification;
+
+    // The regenerations started from this client, with the name of their project.
+    private final Map<Long, String> pendingRegenerations = new HashMap<>();
+
+    @Override
+    public Collection<Widget> getBuildOptions( Project project ) {
+        return Collections.singleton( createNavLink( project ) );
+    }
+
+    private Widget createNavLink( final Project project ) {
+        return new AnchorListItem( LINK_NAME ) {{
+            addClickHandler( createClickHandler( project ) );
+        }};
+    }
+
+    private ClickHandler createClickHandler( final Project project ) {
+        return new ClickHandler() {
+
+            @Override
+            public void onClick( ClickEvent event ) {
+                regenerationCaller.call( new RemoteCallback<Long>() {
+
+                    @Override
+                    public void callback( final Long jobId ) {
+                        pendingRegenerations.put( jobId, project.getProjectName() );
+                        notification.fire( new NotificationEvent( "Regenerating the form sources of " + project.getProjectName() + "." ) );
+                    }
+                } ).regenerateFormSources( project );
+            }
+        };
+    }
+
+    protected void onRegenerationDone( @Observes final FormSourcesRegenerationEvent event ) {
+        final String projectName = pendingRegenerations.remove( event.getJobId() );
+        if ( projectName == null ) {
+            return;
+        }
+
+        if ( event.getSupersededBy() != 0 ) {
+            pendingRegenerations.put( event.getSupersededBy(), projectName );
+        } else if ( event.getFailure() != null ) {
+            notification.fire( new NotificationEvent( "Unable to regenerate the form sources of " + projectName + ": " + event.getFailure(),
+                                                      NotificationEvent.NotificationType.ERROR ) );
+        } else {
+            notification.fire( new NotificationEvent( "Form sources of " + projectName + " regenerated, " + event.getChangedFiles() + " files changed." ) );
+        }
+    }
+
+}
@@ -1,10 +1,14 @@
 package org.kie.appformer.client.editor;
 
+import java.util.List;
+
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 import org.jboss.errai.common.client.api.Caller;
 import org.jboss.errai.common.client.api.RemoteCallback;
+import org.kie.appformer.shared.service.FlowSymbolLocation;
+import org.kie.appformer.shared.service.FlowSymbolService;
 import org.uberfire.backend.vfs.ObservablePath;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.VFSService;
@@ -39,6 +43,10 @@ public class TextEditorPresenter {
         boolean isDirty();
 
         void setDirty(boolean dirty);
+
+        void setProblems(List<String> problems);
+
+        void setSymbols(String name, List<FlowSymbolLocation> definitions, List<FlowSymbolLocation> uses);
     }
 
     protected Menus menus;
@@ -52,6 +60,9 @@ public class TextEditorPresenter {
     @Inject
     protected Caller<VFSService> vfsServices;
 
+    @Inject
+    protected Caller<FlowSymbolService> flowSymbolService;
+
     @Inject
     private PlaceManager placeManager;
 
@@ -124,6 +135,26 @@ public class TextEditorPresenter {
         }
     }
 
+    /**
+     * Shows where the given name is defined and used in the indexed flow files.
+     */
+    public void onSymbolSelected(final String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+        flowSymbolService.call(new RemoteCallback<List<FlowSymbolLocation>>() {
+            @Override
+            public void callback(final List<FlowSymbolLocation> definitions) {
+                flowSymbolService.call(new RemoteCallback<List<FlowSymbolLocation>>() {
+                    @Override
+                    public void callback(final List<FlowSymbolLocation> uses) {
+                        view.setSymbols(name.trim(), definitions, uses);
+                    }
+                }).findUses(name.trim());
+            }
+        }).findDefinitions(name.trim());
+    }
+
     private void load() {
         vfsServices.call(new RemoteCallback<String>() {
             @Override
@@ -131,6 +162,7 @@ public class TextEditorPresenter {
                 if (response == null)
                     response = "empty";
                 view.setContent(response);
+                validate();
             }
         }).readAllString(path);
     }
@@ -141,10 +173,20 @@ public class TextEditorPresenter {
             @Override
             public void callback(final Path response) {
                 view.setDirty(false);
+                validate();
             }
         }).write(path, content);
     }
 
+    private void validate() {
+        flowSymbolService.call(new RemoteCallback<List<String>>() {
+            @Override
+            public void callback(final List<String> problems) {
+                view.setProblems(problems);
+            }
+        }).validate(path);
+    }
+
     private void close() {
         placeManager.closePlace(place);
     }
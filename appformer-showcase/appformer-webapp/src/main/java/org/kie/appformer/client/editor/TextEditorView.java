@@ -1,13 +1,19 @@
 package org.kie.appformer.client.editor;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.jboss.errai.ui.shared.api.annotations.DataField;
+import org.jboss.errai.ui.shared.api.annotations.EventHandler;
 import org.jboss.errai.ui.shared.api.annotations.Templated;
+import org.kie.appformer.shared.service.FlowSymbolLocation;
 
 import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.DoubleClickEvent;
 import com.google.gwt.user.client.ui.Composite;
+import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.IsWidget;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.TextArea;
@@ -19,6 +25,10 @@ public class TextEditorView extends Composite implements TextEditorPresenter.Vie
     @DataField("text-area")
     private TextArea textArea;
 
+    @Inject
+    @DataField("messages")
+    private FlowPanel messages;
+
     TextEditorPresenter presenter;
     protected Label title = new Label();
     private String originalContent = null;
@@ -32,6 +42,7 @@ public class TextEditorView extends Composite implements TextEditorPresenter.Vie
         textArea.getElement().getStyle().setBottom(0.0, Unit.PX);
         textArea.getElement().getStyle().setWidth( 100, Unit.PCT );
         textArea.getElement().getStyle().setHeight( 100, Unit.PCT );
+        messages.setVisible( false );
     }
 
     @Override
@@ -65,4 +76,35 @@ public class TextEditorView extends Composite implements TextEditorPresenter.Vie
             originalContent = getContent();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void setProblems(final List<String> problems) {
+        messages.clear();
+        for (final String problem : problems) {
+            messages.add( new Label( problem ) );
+        }
+        messages.setVisible( !problems.isEmpty() );
+    }
+
+    @Override
+    public void setSymbols(final String name,
+                           final List<FlowSymbolLocation> definitions,
+                           final List<FlowSymbolLocation> uses) {
+        messages.clear();
+        if (definitions.isEmpty() && uses.isEmpty()) {
+            messages.add( new Label( "No definition or use of " + name + " found." ) );
+        }
+        for (final FlowSymbolLocation location : definitions) {
+            messages.add( new Label( location.toString() ) );
+        }
+        for (final FlowSymbolLocation location : uses) {
+            messages.add( new Label( location.toString() ) );
+        }
+        messages.setVisible( true );
+    }
+
+    @EventHandler("text-area")
+    public void onDoubleClick(final DoubleClickEvent event) {
+        presenter.onSymbolSelected( textArea.getSelectedText() );
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.shared.service;
+
+import org.jboss.errai.common.client.api.annotations.MapsTo;
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * A definition or a use of a name in a flow file, as returned by the {@link FlowSymbolService}.
+ */
+@Portable
+public class FlowSymbolLocation {
+
+    public static final String USE = "USE";
+
+    private final String file;
+
+    private final String name;
+
+    private final String kind;
+
+    private final String detail;
+
+    /**
+     * @param file The URI of the flow file.
+     * @param kind EXPORT, ASSIGNMENT or IMPORT for a definition, {@link #USE} for a use.
+     * @param detail The type of a definition when it is known, or the assignment enclosing a use.
+     */
+    public FlowSymbolLocation( @MapsTo( "file" ) final String file,
+                               @MapsTo( "name" ) final String name,
+                               @MapsTo( "kind" ) final String kind,
+                               @MapsTo( "detail" ) final String detail ) {
+        this.file = file;
+        this.name = name;
+        this.kind = kind;
+        this.detail = detail;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + ( detail != null ? " (" + detail + ")" : "" ) + " in " + file;
+    }
+}
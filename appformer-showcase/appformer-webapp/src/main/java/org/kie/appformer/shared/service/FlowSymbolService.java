@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.shared.service;
+
+import java.util.List;
+
+import org.jboss.errai.bus.server.annotations.Remote;
+import org.uberfire.backend.vfs.Path;
+
+@Remote
+public interface FlowSymbolService {
+
+    /**
+     * @return The exports, assignments and imports of the given name in all indexed flow files.
+     */
+    List<FlowSymbolLocation> findDefinitions( String name );
+
+    /**
+     * @return The uses of the given name in all indexed flow files.
+     */
+    List<FlowSymbolLocation> findUses( String name );
+
+    /**
+     * @return The problems found in the given flow file. An empty list means the file is valid.
+     */
+    List<String> validate( Path path );
+
+}
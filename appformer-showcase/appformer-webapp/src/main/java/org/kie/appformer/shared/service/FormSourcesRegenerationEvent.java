@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.appformer.shared.service;
+
+import org.jboss.errai.common.client.api.annotations.MapsTo;
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Fired when a regeneration started by the {@link FormSourcesRegenerationService} is done.
+ */
+@Portable
+public class FormSourcesRegenerationEvent {
+
+    private final long jobId;
+
+    private final long supersededBy;
+
+    private final int changedFiles;
+
+    private final String failure;
+
+    /**
+     * @param jobId The id returned by {@link FormSourcesRegenerationService#regenerateFormSources}.
+     * @param supersededBy The id of the regeneration that replaced the job before it started, or 0.
+     * @param changedFiles The number of generated files whose content changed.
+     * @param failure The error message if the regeneration failed, otherwise null.
+     */
+    public FormSourcesRegenerationEvent( @MapsTo( "jobId" ) final long jobId,
+                                         @MapsTo( "supersededBy" ) final long supersededBy,
+                                         @MapsTo( "changedFiles" ) final int changedFiles,
+                                         @MapsTo( "failure" ) final String failure ) {
+        this.jobId = jobId;
+        this.supersededBy = supersededBy;
+        this.changedFiles = changedFiles;
+        this.failure = failure;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public long getSupersededBy() {
+        return supersededBy;
+    }
+
+    public int getChangedFiles() {
+        return changedFiles;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+}